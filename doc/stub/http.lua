@@ -21,6 +21,7 @@
 -- @tparam[2] {
 --   url = string, body? = string, headers? = { [string] = string },
 --   binary? = boolean, method? = string, redirect? = boolean,
+--   stream? = boolean,
 -- } request Options for the request.
 --
 -- This table form is an expanded version of the previous syntax. All arguments
@@ -32,6 +33,11 @@
 --
 --  - `method`: Which HTTP method to use, for instance `"PATCH"` or `"DELETE"`.
 --  - `redirect`: Whether to follow HTTP redirects. Defaults to true.
+--  - `stream`: Whether to stream the response body. Defaults to false. When
+--    true, the response is returned as soon as its headers are received, and
+--    the body is downloaded as it is read. Only a small part of the body is
+--    held in memory at once, so this is useful for very large responses.
+--    Streamed responses are always read in binary mode, and cannot be seeked.
 --
 -- @see http.get  For a synchronous way to make GET requests.
 -- @see http.post For a synchronous way to make POST requests.
@@ -54,6 +60,7 @@ function request(...) end
 -- @tparam[2] {
 --   url = string, headers? = { [string] = string },
 --   binary? = boolean, method? = string, redirect? = boolean,
+--   stream? = boolean,
 -- } request Options for the request. See @{http.request} for details on how
 -- these options behave.
 --
@@ -92,6 +99,7 @@ function get(...) end
 -- @tparam[2] {
 --   url = string, body? = string, headers? = { [string] = string },
 --   binary? = boolean, method? = string, redirect? = boolean,
+--   stream? = boolean,
 -- } request Options for the request. See @{http.request} for details on how
 -- these options behave.
 --
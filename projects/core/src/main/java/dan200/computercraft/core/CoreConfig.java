@@ -7,6 +7,8 @@
 
 import dan200.computercraft.core.apis.http.options.Action;
 import dan200.computercraft.core.apis.http.options.AddressRule;
+import dan200.computercraft.core.computer.SchedulerMode;
+import dan200.computercraft.core.lua.CoroutineMode;
 
 import java.util.List;
 import java.util.OptionalInt;
@@ -28,6 +30,9 @@ private CoreConfig() {
 
     public static long maxMainGlobalTime = TimeUnit.MILLISECONDS.toNanos(10);
     public static long maxMainComputerTime = TimeUnit.MILLISECONDS.toNanos(5);
+    public static CoroutineMode coroutineMode = CoroutineMode.THREADS;
+    public static SchedulerMode computerScheduler = SchedulerMode.LOCKED;
+    public static boolean batchEvents = false;
 
     public static boolean httpEnabled = true;
     public static boolean httpWebsocketEnabled = true;
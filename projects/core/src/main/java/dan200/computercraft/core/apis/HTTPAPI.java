@@ -72,7 +72,7 @@ public void update() {
     public final Object[] request(IArguments args) throws LuaException {
         String address, postString, requestMethod;
         Map<?, ?> headerTable;
-        boolean binary, redirect;
+        boolean binary, stream, redirect;
 
         if (args.get(0) instanceof Map) {
             var options = args.getTable(0);
@@ -80,6 +80,7 @@ public final Object[] request(IArguments args) throws LuaException {
             postString = optStringField(options, "body", null);
             headerTable = optTableField(options, "headers", Collections.emptyMap());
             binary = optBooleanField(options, "binary", false);
+            stream = optBooleanField(options, "stream", false);
             requestMethod = optStringField(options, "method", null);
             redirect = optBooleanField(options, "redirect", true);
 
@@ -89,6 +90,7 @@ public final Object[] request(IArguments args) throws LuaException {
             postString = args.optString(1, null);
             headerTable = args.optTable(2, Collections.emptyMap());
             binary = args.optBoolean(3, false);
+            stream = false;
             requestMethod = null;
             redirect = true;
         }
@@ -107,7 +109,7 @@ public final Object[] request(IArguments args) throws LuaException {
 
         try {
             var uri = HttpRequest.checkUri(address);
-            var request = new HttpRequest(requests, apiEnvironment, address, postString, headers, binary, redirect);
+            var request = new HttpRequest(requests, apiEnvironment, address, postString, headers, binary, stream, redirect);
 
             // Make the request
             if (!request.queue(r -> r.request(uri, httpMethod))) {
@@ -12,11 +12,12 @@
 import dan200.computercraft.core.computer.GlobalEnvironment;
 import dan200.computercraft.core.filesystem.FileSystem;
 import dan200.computercraft.core.metrics.Metric;
+import dan200.computercraft.core.metrics.MetricsObserver;
 import dan200.computercraft.core.terminal.Terminal;
 
 import javax.annotation.Nullable;
 
-public interface IAPIEnvironment {
+public interface IAPIEnvironment extends MetricsObserver {
     String TIMER_EVENT = "timer";
 
     @FunctionalInterface
@@ -68,7 +69,9 @@ interface IPeripheralChangeListener {
 
     void cancelTimer(int id);
 
+    @Override
     void observe(Metric.Event event, long change);
 
+    @Override
     void observe(Metric.Counter counter);
 }
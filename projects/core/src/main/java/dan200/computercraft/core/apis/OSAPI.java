@@ -10,8 +10,7 @@
 import dan200.computercraft.api.lua.LuaException;
 import dan200.computercraft.api.lua.LuaFunction;
 import dan200.computercraft.core.util.StringUtil;
-import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
-import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import dan200.computercraft.core.util.TimerQueue;
 
 import javax.annotation.Nullable;
 import java.time.Instant;
@@ -31,22 +30,11 @@
 public class OSAPI implements ILuaAPI {
     private final IAPIEnvironment apiEnvironment;
 
-    private final Int2ObjectMap<Alarm> alarms = new Int2ObjectOpenHashMap<>();
+    private final TimerQueue alarms = new TimerQueue();
     private int clock;
     private double time;
     private int day;
 
-    private int nextAlarmToken = 0;
-
-    private record Alarm(double time, int day) implements Comparable<Alarm> {
-        @Override
-        public int compareTo(Alarm o) {
-            var t = day * 24.0 + time;
-            var ot = day * 24.0 + time;
-            return Double.compare(t, ot);
-        }
-    }
-
     public OSAPI(IAPIEnvironment environment) {
         apiEnvironment = environment;
     }
@@ -80,16 +68,7 @@ public void update() {
 
             if (time > previousTime || day > previousDay) {
                 var now = this.day * 24.0 + this.time;
-                Iterator<Int2ObjectMap.Entry<Alarm>> it = alarms.int2ObjectEntrySet().iterator();
-                while (it.hasNext()) {
-                    var entry = it.next();
-                    var alarm = entry.getValue();
-                    var t = alarm.day * 24.0 + alarm.time;
-                    if (now >= t) {
-                        apiEnvironment.queueEvent("alarm", entry.getIntKey());
-                        it.remove();
-                    }
-                }
+                alarms.expire(now, id -> apiEnvironment.queueEvent("alarm", id));
             }
 
             this.time = time;
@@ -191,8 +170,7 @@ public final int setAlarm(double time) throws LuaException {
         if (time < 0.0 || time >= 24.0) throw new LuaException("Number out of range");
         synchronized (alarms) {
             var day = time > this.time ? this.day : this.day + 1;
-            alarms.put(nextAlarmToken, new Alarm(time, day));
-            return nextAlarmToken++;
+            return alarms.add(day * 24.0 + time);
         }
     }
 
@@ -207,7 +185,7 @@ public final int setAlarm(double time) throws LuaException {
     @LuaFunction
     public final void cancelAlarm(int token) {
         synchronized (alarms) {
-            alarms.remove(token);
+            alarms.cancel(token);
         }
     }
 
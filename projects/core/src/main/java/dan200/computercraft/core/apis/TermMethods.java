@@ -351,7 +351,10 @@ public static int encodeColour(int colour) {
     }
 
     public static void setColour(Terminal terminal, int colour, double r, double g, double b) {
-        terminal.getPalette().setColour(colour, r, g, b);
+        // The palette's dirty bits are polled (and cleared) with the terminal lock held, so we must hold it too.
+        synchronized (terminal) {
+            terminal.getPalette().setColour(colour, r, g, b);
+        }
         terminal.setChanged();
     }
 }
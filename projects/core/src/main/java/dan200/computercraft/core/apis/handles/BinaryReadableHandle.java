@@ -8,6 +8,7 @@
 import dan200.computercraft.api.lua.LuaException;
 import dan200.computercraft.api.lua.LuaFunction;
 import dan200.computercraft.core.filesystem.TrackingCloseable;
+import dan200.computercraft.core.lua.OwnedBytes;
 import dan200.computercraft.core.util.Nullability;
 
 import javax.annotation.Nullable;
@@ -17,6 +18,7 @@
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.SeekableByteChannel;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,6 +30,12 @@
  */
 public class BinaryReadableHandle extends HandleGeneric {
     private static final int BUFFER_SIZE = 8192;
+    private static final int READ_CHUNK_SIZE = 1 << 16;
+
+    /**
+     * The maximum size of a Java array (see {@code jdk.internal.util.ArraysSupport.SOFT_MAX_ARRAY_LENGTH}).
+     */
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
 
     private final ReadableByteChannel reader;
     final @Nullable SeekableByteChannel seekable;
@@ -73,13 +81,21 @@ public final Object[] read(Optional<Integer> countArg) throws LuaException {
                     return seekable.position() >= seekable.size() ? null : new Object[]{ "" };
                 }
 
+                // If we know the size of the file, read straight into a correctly sized array.
+                if (seekable != null) {
+                    var remaining = seekable.size() - seekable.position();
+                    if (remaining <= 0) return null;
+
+                    var bytes = readFully((int) Math.min(count, remaining));
+                    return bytes.length == 0 ? null : new Object[]{ new OwnedBytes(bytes) };
+                }
+
                 if (count <= BUFFER_SIZE) {
                     var buffer = ByteBuffer.allocate(count);
 
                     var read = reader.read(buffer);
                     if (read < 0) return null;
-                    buffer.flip();
-                    return new Object[]{ buffer };
+                    return new Object[]{ new OwnedBytes(read == count ? buffer.array() : Arrays.copyOf(buffer.array(), read)) };
                 } else {
                     // Read the initial set of characters, failing if none are read.
                     var buffer = ByteBuffer.allocate(BUFFER_SIZE);
@@ -88,8 +104,7 @@ public final Object[] read(Optional<Integer> countArg) throws LuaException {
 
                     // If we failed to read "enough" here, let's just abort
                     if (read >= count || read < BUFFER_SIZE) {
-                        buffer.flip();
-                        return new Object[]{ buffer };
+                        return new Object[]{ new OwnedBytes(read == BUFFER_SIZE ? buffer.array() : Arrays.copyOf(buffer.array(), read)) };
                     }
 
                     // Build up an array of ByteBuffers. Hopefully this means we can perform less allocation
@@ -113,7 +128,7 @@ public final Object[] read(Optional<Integer> countArg) throws LuaException {
                         System.arraycopy(part.array(), 0, bytes, pos, part.position());
                         pos += part.position();
                     }
-                    return new Object[]{ bytes };
+                    return new Object[]{ new OwnedBytes(bytes) };
                 }
             } else {
                 single.clear();
@@ -138,26 +153,65 @@ public final Object[] read(Optional<Integer> countArg) throws LuaException {
     public final Object[] readAll() throws LuaException {
         checkOpen();
         try {
-            var expected = 32;
-            if (seekable != null) expected = Math.max(expected, (int) (seekable.size() - seekable.position()));
-            var stream = new ByteArrayOutputStream(expected);
-
-            var buf = ByteBuffer.allocate(8192);
-            var readAnything = false;
-            while (true) {
-                buf.clear();
-                var r = reader.read(buf);
-                if (r == -1) break;
+            // If we know the size of the file, read it straight into a correctly sized array.
+            if (seekable != null) {
+                var remaining = seekable.size() - seekable.position();
+                if (remaining > 0 && remaining <= MAX_ARRAY_SIZE) {
+                    var bytes = readFully((int) remaining);
+                    if (bytes.length == remaining && seekable.position() >= seekable.size()) {
+                        return new Object[]{ new OwnedBytes(bytes) };
+                    }
 
-                readAnything = true;
-                stream.write(buf.array(), 0, r);
+                    // The file has changed since we checked its size. This should be very rare, so just fall back to
+                    // reading the rest of the file.
+                    var stream = new ByteArrayOutputStream(bytes.length + BUFFER_SIZE);
+                    stream.writeBytes(bytes);
+                    return readRemaining(stream, bytes.length > 0);
+                }
             }
-            return readAnything ? new Object[]{ stream.toByteArray() } : null;
+
+            return readRemaining(new ByteArrayOutputStream(32), false);
         } catch (IOException e) {
             return null;
         }
     }
 
+    @Nullable
+    private Object[] readRemaining(ByteArrayOutputStream stream, boolean readAnything) throws IOException {
+        var buf = ByteBuffer.allocate(BUFFER_SIZE);
+        while (true) {
+            buf.clear();
+            var r = reader.read(buf);
+            if (r == -1) break;
+
+            readAnything = true;
+            stream.write(buf.array(), 0, r);
+        }
+        return readAnything ? new Object[]{ new OwnedBytes(stream.toByteArray()) } : null;
+    }
+
+    /**
+     * Read up to {@code length} bytes into a new array.
+     * <p>
+     * We read in chunks of {@link #READ_CHUNK_SIZE}. When reading from a {@link java.nio.channels.FileChannel} into a
+     * heap buffer, the JDK copies through a temporary (and cached) direct buffer of the same size, so this avoids
+     * allocating huge direct buffers when reading large files.
+     *
+     * @param length The maximum number of bytes to read.
+     * @return The read bytes. This will be shorter than {@code length} if we reached the end of the file.
+     * @throws IOException If the file could not be read.
+     */
+    private byte[] readFully(int length) throws IOException {
+        var bytes = new byte[length];
+        var buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            buffer.limit(Math.min(length, buffer.position() + READ_CHUNK_SIZE));
+            if (reader.read(buffer) <= 0) break;
+        }
+
+        return buffer.position() == length ? bytes : Arrays.copyOf(bytes, buffer.position());
+    }
+
     /**
      * Read a line from the file.
      *
@@ -184,7 +238,7 @@ public final Object[] readLine(Optional<Boolean> withTrailingArg) throws LuaExce
                     // Nothing else to read, and we saw no \n. Return the array. If we saw a \r, then add it
                     // back.
                     if (readRc) stream.write('\r');
-                    return readAnything ? new Object[]{ stream.toByteArray() } : null;
+                    return readAnything ? new Object[]{ new OwnedBytes(stream.toByteArray()) } : null;
                 }
 
                 readAnything = true;
@@ -195,7 +249,7 @@ public final Object[] readLine(Optional<Boolean> withTrailingArg) throws LuaExce
                         if (readRc) stream.write('\r');
                         stream.write(chr);
                     }
-                    return new Object[]{ stream.toByteArray() };
+                    return new Object[]{ new OwnedBytes(stream.toByteArray()) };
                 } else {
                     // We want to skip \r\n, but obviously need to include cases where \r is not followed by \n.
                     // Note, this behaviour is non-standard compliant (strictly speaking we should have no
@@ -6,13 +6,14 @@
 package dan200.computercraft.core.apis.http;
 
 import dan200.computercraft.core.apis.IAPIEnvironment;
+import dan200.computercraft.core.metrics.MetricsObserver;
 
 import javax.annotation.Nullable;
 import java.net.URI;
 import java.util.concurrent.Future;
 
 /**
- * Checks a URL using {@link NetworkUtils#getAddress(String, int, boolean)}}
+ * Checks a URL using {@link NetworkUtils#getAddress(String, int, boolean, MetricsObserver)}}
  * <p>
  * This requires a DNS lookup, and so needs to occur off-thread.
  */
@@ -43,8 +44,8 @@ private void doRun() {
 
         try {
             var ssl = uri.getScheme().equalsIgnoreCase("https");
-            var netAddress = NetworkUtils.getAddress(uri, ssl);
-            NetworkUtils.getOptions(uri.getHost(), netAddress);
+            var netAddress = NetworkUtils.getAddress(uri, ssl, environment);
+            NetworkUtils.getOptions(uri.getHost(), netAddress, environment);
 
             if (tryClose()) environment.queueEvent(EVENT, address, true);
         } catch (HTTPRequestException e) {
@@ -5,10 +5,14 @@
  */
 package dan200.computercraft.core.apis.http;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import dan200.computercraft.core.CoreConfig;
 import dan200.computercraft.core.apis.http.options.Action;
-import dan200.computercraft.core.apis.http.options.AddressRule;
+import dan200.computercraft.core.apis.http.options.AddressRuleMatcher;
 import dan200.computercraft.core.apis.http.options.Options;
+import dan200.computercraft.core.metrics.Metrics;
+import dan200.computercraft.core.metrics.MetricsObserver;
 import dan200.computercraft.core.util.ThreadUtils;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ConnectTimeoutException;
@@ -29,9 +33,11 @@
 import javax.net.ssl.SSLException;
 import javax.net.ssl.SSLHandshakeException;
 import javax.net.ssl.TrustManagerFactory;
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.URI;
 import java.security.KeyStore;
+import java.util.Locale;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
@@ -64,6 +70,19 @@ public final class NetworkUtils {
     private NetworkUtils() {
     }
 
+    /**
+     * How long to cache resolved addresses for. This matches Java's default for {@code networkaddress.cache.ttl}.
+     */
+    private static final int DNS_CACHE_TTL = 30;
+
+    private static final Cache<String, InetAddress> DNS_CACHE = CacheBuilder.newBuilder()
+        .concurrencyLevel(4)
+        .expireAfterWrite(DNS_CACHE_TTL, TimeUnit.SECONDS)
+        .maximumSize(1024)
+        .build();
+
+    private static volatile @Nullable AddressRuleMatcher rules;
+
     private static final Object sslLock = new Object();
     private static @Nullable TrustManagerFactory trustManager;
     private static @Nullable SslContext sslContext;
@@ -113,6 +132,7 @@ public static void reloadConfig() {
 
     public static void reset() {
         SHAPING_HANDLER.trafficCounter().resetCumulativeTime();
+        DNS_CACHE.invalidateAll();
     }
 
     /**
@@ -120,30 +140,46 @@ public static void reset() {
      * <p>
      * Note, this may require a DNS lookup, and so should not be executed on the main CC thread.
      *
-     * @param uri The URI to fetch.
-     * @param ssl Whether to connect with SSL. This is used to find the default port if not otherwise specified.
+     * @param uri     The URI to fetch.
+     * @param ssl     Whether to connect with SSL. This is used to find the default port if not otherwise specified.
+     * @param metrics The metrics observer to report DNS cache hits and misses to.
      * @return The resolved address.
      * @throws HTTPRequestException If the host is not malformed.
      */
-    public static InetSocketAddress getAddress(URI uri, boolean ssl) throws HTTPRequestException {
-        return getAddress(uri.getHost(), uri.getPort(), ssl);
+    public static InetSocketAddress getAddress(URI uri, boolean ssl, MetricsObserver metrics) throws HTTPRequestException {
+        return getAddress(uri.getHost(), uri.getPort(), ssl, metrics);
     }
 
     /**
      * Create a {@link InetSocketAddress} from the resolved {@code host} and port.
      * <p>
-     * Note, this may require a DNS lookup, and so should not be executed on the main CC thread.
+     * Note, this may require a DNS lookup, and so should not be executed on the main CC thread. Resolved addresses
+     * are cached for {@link #DNS_CACHE_TTL} seconds, so computers repeatedly requesting the same host do not need to
+     * perform a lookup each time.
      *
-     * @param host The host to resolve.
-     * @param port The port, or -1 if not defined.
-     * @param ssl  Whether to connect with SSL. This is used to find the default port if not otherwise specified.
+     * @param host    The host to resolve.
+     * @param port    The port, or -1 if not defined.
+     * @param ssl     Whether to connect with SSL. This is used to find the default port if not otherwise specified.
+     * @param metrics The metrics observer to report DNS cache hits and misses to.
      * @return The resolved address.
      * @throws HTTPRequestException If the host is not malformed.
      */
-    public static InetSocketAddress getAddress(String host, int port, boolean ssl) throws HTTPRequestException {
+    public static InetSocketAddress getAddress(String host, int port, boolean ssl, MetricsObserver metrics) throws HTTPRequestException {
         if (port < 0) port = ssl ? 443 : 80;
+
+        var key = host.toLowerCase(Locale.ROOT);
+        var address = DNS_CACHE.getIfPresent(key);
+        if (address != null) {
+            metrics.observe(Metrics.HTTP_DNS_CACHE_HITS);
+            return new InetSocketAddress(address, port);
+        }
+
+        metrics.observe(Metrics.HTTP_DNS_CACHE_MISSES);
         var socketAddress = new InetSocketAddress(host, port);
         if (socketAddress.isUnresolved()) throw new HTTPRequestException("Unknown host");
+
+        // We don't cache failed lookups, as the host may just be temporarily unavailable.
+        DNS_CACHE.put(key, socketAddress.getAddress());
         return socketAddress;
     }
 
@@ -151,16 +187,24 @@ public static InetSocketAddress getAddress(String host, int port, boolean ssl) t
      * Get options for a specific domain.
      *
      * @param host    The host to resolve.
-     * @param address The address, resolved by {@link #getAddress(String, int, boolean)}.
+     * @param address The address, resolved by {@link #getAddress(String, int, boolean, MetricsObserver)}.
+     * @param metrics The metrics observer to report cache hits and misses to.
      * @return The options for this host.
      * @throws HTTPRequestException If the host is not permitted
      */
-    public static Options getOptions(String host, InetSocketAddress address) throws HTTPRequestException {
-        var options = AddressRule.apply(CoreConfig.httpRules, host, address);
+    public static Options getOptions(String host, InetSocketAddress address, MetricsObserver metrics) throws HTTPRequestException {
+        var options = getRules().apply(host, address, metrics);
         if (options.action == Action.DENY) throw new HTTPRequestException("Domain not permitted");
         return options;
     }
 
+    private static AddressRuleMatcher getRules() {
+        var config = CoreConfig.httpRules;
+        var rules = NetworkUtils.rules;
+        if (rules == null || !rules.isFor(config)) NetworkUtils.rules = rules = AddressRuleMatcher.of(config);
+        return rules;
+    }
+
     /**
      * Read a {@link ByteBuf} into a byte array.
      *
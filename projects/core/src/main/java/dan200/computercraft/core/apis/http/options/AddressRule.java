@@ -5,6 +5,7 @@
  */
 package dan200.computercraft.core.apis.http.options;
 
+import com.google.common.base.CharMatcher;
 import com.google.common.net.InetAddresses;
 import dan200.computercraft.core.apis.http.options.AddressPredicate.DomainPattern;
 import dan200.computercraft.core.apis.http.options.AddressPredicate.HostRange;
@@ -15,6 +16,7 @@
 import java.net.Inet6Address;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.util.Locale;
 import java.util.OptionalInt;
 import java.util.regex.Pattern;
 
@@ -30,11 +32,17 @@ public final class AddressRule {
     private final AddressPredicate predicate;
     private final OptionalInt port;
     private final PartialOptions partial;
+    private final @Nullable String exactHost;
 
-    private AddressRule(AddressPredicate predicate, OptionalInt port, PartialOptions partial) {
+    private AddressRule(AddressPredicate predicate, OptionalInt port, PartialOptions partial, @Nullable String exactHost) {
         this.predicate = predicate;
         this.partial = partial;
         this.port = port;
+        this.exactHost = exactHost;
+    }
+
+    private AddressRule(AddressPredicate predicate, OptionalInt port, PartialOptions partial) {
+        this(predicate, port, partial, null);
     }
 
     @Nullable
@@ -49,7 +57,11 @@ public static AddressRule parse(String filter, OptionalInt port, PartialOptions
             return new AddressRule(PrivatePattern.INSTANCE, port, partial);
         } else {
             var pattern = Pattern.compile("^\\Q" + filter.replaceAll("\\*", "\\\\E.*\\\\Q") + "\\E$", Pattern.CASE_INSENSITIVE);
-            return new AddressRule(new DomainPattern(pattern), port, partial);
+
+            // Patterns without a wildcard just match a single host. We track these separately, so they can be looked up
+            // directly rather than matching against every pattern.
+            var exactHost = filter.indexOf('*') < 0 && CharMatcher.ascii().matchesAllOf(filter) ? filter.toLowerCase(Locale.ROOT) : null;
+            return new AddressRule(new DomainPattern(pattern), port, partial, exactHost);
         }
     }
 
@@ -62,20 +74,43 @@ public static AddressRule parse(String filter, OptionalInt port, PartialOptions
      * @param ipv4Address An ipv4 version of the address, if the original was an ipv6 address.
      * @return Whether it matches any of these patterns.
      */
-    private boolean matches(String domain, int port, InetAddress address, @Nullable Inet4Address ipv4Address) {
-        if (this.port.isPresent() && this.port.getAsInt() != port) return false;
+    boolean matches(String domain, int port, InetAddress address, @Nullable Inet4Address ipv4Address) {
+        if (!matchesPort(port)) return false;
         return predicate.matches(domain)
             || predicate.matches(address)
             || (ipv4Address != null && predicate.matches(ipv4Address));
     }
 
+    /**
+     * Get the host this rule matches, if it matches a single host name or IP address.
+     *
+     * @return The lower-case host, or {@code null} if this rule may match multiple hosts.
+     */
+    @Nullable
+    String exactHost() {
+        return exactHost;
+    }
+
+    boolean matchesPort(int port) {
+        return this.port.isEmpty() || this.port.getAsInt() == port;
+    }
+
+    PartialOptions partial() {
+        return partial;
+    }
+
+    @Nullable
+    static Inet4Address getIpv4Address(InetAddress address) {
+        return address instanceof Inet6Address inet6 && InetAddresses.is6to4Address(inet6)
+            ? InetAddresses.get6to4IPv4Address(inet6) : null;
+    }
+
     public static Options apply(Iterable<? extends AddressRule> rules, String domain, InetSocketAddress socketAddress) {
         var options = PartialOptions.DEFAULT;
 
         var port = socketAddress.getPort();
         var address = socketAddress.getAddress();
-        var ipv4Address = address instanceof Inet6Address inet6 && InetAddresses.is6to4Address(inet6)
-            ? InetAddresses.get6to4IPv4Address(inet6) : null;
+        var ipv4Address = getIpv4Address(address);
 
         for (AddressRule rule : rules) {
             if (!rule.matches(domain, port, address, ipv4Address)) continue;
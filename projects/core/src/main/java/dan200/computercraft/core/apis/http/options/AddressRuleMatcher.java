@@ -0,0 +1,131 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2022. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+package dan200.computercraft.core.apis.http.options;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import dan200.computercraft.core.metrics.Metrics;
+import dan200.computercraft.core.metrics.MetricsObserver;
+
+import javax.annotation.Nullable;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.*;
+
+/**
+ * A precompiled list of {@link AddressRule}s.
+ * <p>
+ * This behaves identically to {@link AddressRule#apply(Iterable, String, InetSocketAddress)}, but rules which match a
+ * single host are indexed by that host, so we only need to test rules containing a wildcard or CIDR range. The computed
+ * {@link Options} are then cached, as most computers make repeated requests to the same few hosts.
+ */
+public final class AddressRuleMatcher {
+    private static final int MAX_CACHE_SIZE = 1024;
+
+    private final List<? extends AddressRule> source;
+    private final List<? extends AddressRule> rules;
+    private final Map<String, int[]> exactRules;
+    private final int[] otherRules;
+
+    private final Cache<Key, Options> cache = CacheBuilder.newBuilder()
+        .concurrencyLevel(4)
+        .maximumSize(MAX_CACHE_SIZE)
+        .build();
+
+    private AddressRuleMatcher(List<? extends AddressRule> source) {
+        this.source = source;
+        var rules = this.rules = List.copyOf(source);
+
+        Map<String, List<Integer>> exact = new HashMap<>();
+        List<Integer> other = new ArrayList<>();
+        for (var i = 0; i < rules.size(); i++) {
+            var host = rules.get(i).exactHost();
+            if (host == null) {
+                other.add(i);
+            } else {
+                exact.computeIfAbsent(host, x -> new ArrayList<>()).add(i);
+            }
+        }
+
+        Map<String, int[]> exactRules = new HashMap<>(exact.size());
+        for (var entry : exact.entrySet()) exactRules.put(entry.getKey(), toArray(entry.getValue()));
+        this.exactRules = exactRules;
+        otherRules = toArray(other);
+    }
+
+    public static AddressRuleMatcher of(List<? extends AddressRule> rules) {
+        return new AddressRuleMatcher(rules);
+    }
+
+    /**
+     * Determine whether this matcher was built from the given list of rules. The config is replaced with a new list
+     * when reloaded, so this just compares by identity.
+     *
+     * @param rules The rules to check.
+     * @return If this matcher uses these rules.
+     */
+    public boolean isFor(List<? extends AddressRule> rules) {
+        return source == rules;
+    }
+
+    /**
+     * Get the options for a specific address.
+     *
+     * @param domain        The domain being requested.
+     * @param socketAddress The resolved address of this domain.
+     * @param metrics       The metrics observer to report cache hits and misses to.
+     * @return The options for this address.
+     */
+    public Options apply(String domain, InetSocketAddress socketAddress, MetricsObserver metrics) {
+        var key = new Key(domain, socketAddress.getAddress(), socketAddress.getPort());
+        var options = cache.getIfPresent(key);
+        if (options != null) {
+            metrics.observe(Metrics.HTTP_RULE_CACHE_HITS);
+            return options;
+        }
+
+        metrics.observe(Metrics.HTTP_RULE_CACHE_MISSES);
+        options = compute(key.domain(), key.port(), key.address());
+        cache.put(key, options);
+        return options;
+    }
+
+    private Options compute(String domain, int port, InetAddress address) {
+        var ipv4Address = AddressRule.getIpv4Address(address);
+
+        // Find all matching rules, and then merge them in order.
+        var matching = new BitSet(rules.size());
+        addExact(matching, domain.toLowerCase(Locale.ROOT), port);
+        addExact(matching, address.getHostAddress().toLowerCase(Locale.ROOT), port);
+        if (ipv4Address != null) addExact(matching, ipv4Address.getHostAddress(), port);
+
+        for (var index : otherRules) {
+            if (rules.get(index).matches(domain, port, address, ipv4Address)) matching.set(index);
+        }
+
+        var options = PartialOptions.DEFAULT;
+        for (var index = matching.nextSetBit(0); index >= 0; index = matching.nextSetBit(index + 1)) {
+            options = options.merge(rules.get(index).partial());
+        }
+        return options.toOptions();
+    }
+
+    private void addExact(BitSet matching, String host, int port) {
+        var indices = exactRules.get(host);
+        if (indices == null) return;
+
+        for (var index : indices) {
+            if (rules.get(index).matchesPort(port)) matching.set(index);
+        }
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        return values.stream().mapToInt(x -> x).toArray();
+    }
+
+    private record Key(String domain, InetAddress address, int port) {
+    }
+}
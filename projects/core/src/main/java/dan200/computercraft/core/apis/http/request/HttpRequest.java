@@ -25,6 +25,7 @@
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
+import java.lang.ref.WeakReference;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
@@ -40,12 +41,16 @@ public class HttpRequest extends Resource<HttpRequest> {
     private static final Logger LOG = LoggerFactory.getLogger(HttpRequest.class);
     private static final String SUCCESS_EVENT = "http_success";
     private static final String FAILURE_EVENT = "http_failure";
+    private static final String STREAM_EVENT = "http_stream";
+
+    static final String TIMEOUT_HANDLER = "timeout";
 
     private static final int MAX_REDIRECTS = 16;
 
     private @Nullable Future<?> executorFuture;
     private @Nullable ChannelFuture connectFuture;
     private @Nullable HttpRequestHandler currentRequest;
+    private @Nullable WeakReference<HttpResponseHandle> streamHandle;
 
     private final IAPIEnvironment environment;
 
@@ -53,12 +58,13 @@ public class HttpRequest extends Resource<HttpRequest> {
     private final ByteBuf postBuffer;
     private final HttpHeaders headers;
     private final boolean binary;
+    private final boolean streaming;
 
     final AtomicInteger redirects;
 
     public HttpRequest(
         ResourceGroup<HttpRequest> limiter, IAPIEnvironment environment, String address, @Nullable String postText,
-        HttpHeaders headers, boolean binary, boolean followRedirects
+        HttpHeaders headers, boolean binary, boolean streaming, boolean followRedirects
     ) {
         super(limiter);
         this.environment = environment;
@@ -68,6 +74,7 @@ public HttpRequest(
             : Unpooled.buffer(0);
         this.headers = headers;
         this.binary = binary;
+        this.streaming = streaming;
         redirects = new AtomicInteger(followRedirects ? MAX_REDIRECTS : 0);
 
         if (postText != null) {
@@ -120,8 +127,8 @@ private void doRequest(URI uri, HttpMethod method) {
 
         try {
             var ssl = uri.getScheme().equalsIgnoreCase("https");
-            var socketAddress = NetworkUtils.getAddress(uri, ssl);
-            var options = NetworkUtils.getOptions(uri.getHost(), socketAddress);
+            var socketAddress = NetworkUtils.getAddress(uri, ssl, environment);
+            var options = NetworkUtils.getOptions(uri.getHost(), socketAddress, environment);
             var sslContext = ssl ? NetworkUtils.getSslContext() : null;
 
             // getAddress may have a slight delay, so let's perform another cancellation check.
@@ -156,7 +163,7 @@ protected void initChannel(SocketChannel ch) {
                         }
 
                         if (options.timeout > 0) {
-                            p.addLast(new ReadTimeoutHandler(options.timeout, TimeUnit.MILLISECONDS));
+                            p.addLast(TIMEOUT_HANDLER, new ReadTimeoutHandler(options.timeout, TimeUnit.MILLISECONDS));
                         }
 
                         p.addLast(
@@ -194,6 +201,37 @@ void success(HttpResponseHandle object) {
         if (tryClose()) environment.queueEvent(SUCCESS_EVENT, address, object);
     }
 
+    /**
+     * Send a streamed response. Unlike {@link #success(HttpResponseHandle)}, this keeps the request open until the
+     * body has been received, or the response is closed or garbage collected.
+     *
+     * @param object The response to send.
+     */
+    void streamSuccess(HttpResponseHandle object) {
+        if (isClosed()) return;
+
+        environment.queueEvent(SUCCESS_EVENT, address, object);
+        streamHandle = createOwnerReference(object);
+
+        checkClosed();
+    }
+
+    void streamFailure(String message, HttpResponseHandle object) {
+        if (isClosed()) return;
+
+        environment.queueEvent(FAILURE_EVENT, address, message, object);
+        streamHandle = createOwnerReference(object);
+
+        checkClosed();
+    }
+
+    /**
+     * Wake up the computer after more of a streamed response has been received.
+     */
+    void wakeStream() {
+        environment.queueEvent(STREAM_EVENT, address);
+    }
+
     @Override
     protected void dispose() {
         super.dispose();
@@ -201,6 +239,7 @@ protected void dispose() {
         executorFuture = closeFuture(executorFuture);
         connectFuture = closeChannel(connectFuture);
         currentRequest = closeCloseable(currentRequest);
+        streamHandle = null;
     }
 
     public static long getHeaderSize(HttpHeaders headers) {
@@ -223,4 +262,8 @@ public HttpHeaders headers() {
     public boolean isBinary() {
         return binary;
     }
+
+    public boolean isStreaming() {
+        return streaming;
+    }
 }
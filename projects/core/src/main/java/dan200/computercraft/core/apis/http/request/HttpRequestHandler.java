@@ -17,6 +17,7 @@
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.codec.http.*;
+import io.netty.handler.timeout.ReadTimeoutHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -29,10 +30,11 @@
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
 import static dan200.computercraft.core.apis.http.request.HttpRequest.getHeaderSize;
 
-public final class HttpRequestHandler extends SimpleChannelInboundHandler<HttpObject> implements Closeable {
+public final class HttpRequestHandler extends SimpleChannelInboundHandler<HttpObject> implements Closeable, HttpStreamHandle.Owner {
     private static final Logger LOG = LoggerFactory.getLogger(HttpRequestHandler.class);
 
     /**
@@ -54,6 +56,10 @@ public final class HttpRequestHandler extends SimpleChannelInboundHandler<HttpOb
     private @Nullable HttpResponseStatus responseStatus;
     private @Nullable CompositeByteBuf responseBody;
 
+    private @Nullable ChannelHandlerContext streamContext;
+    private @Nullable HttpStreamHandle responseStream;
+    private long streamedBytes;
+
     HttpRequestHandler(HttpRequest request, URI uri, HttpMethod method, Options options) {
         this.request = request;
 
@@ -90,7 +96,7 @@ public void channelActive(ChannelHandlerContext ctx) throws Exception {
 
     @Override
     public void channelInactive(ChannelHandlerContext ctx) throws Exception {
-        if (!closed) request.failure("Could not connect");
+        if (!closed) fail(responseStream == null ? "Could not connect" : "Connection closed");
         super.channelInactive(ctx);
     }
 
@@ -126,9 +132,13 @@ public void channelRead0(ChannelHandlerContext ctx, HttpObject message) {
             responseCharset = HttpUtil.getCharset(response, StandardCharsets.UTF_8);
             responseStatus = response.status();
             responseHeaders.add(response.headers());
+
+            if (request.isStreaming()) sendStream(ctx);
         }
 
-        if (message instanceof HttpContent content) {
+        if (message instanceof HttpContent content && responseStream != null) {
+            readStream(ctx, responseStream, content);
+        } else if (message instanceof HttpContent content) {
 
             if (responseBody == null) {
                 responseBody = ctx.alloc().compositeBuffer(DEFAULT_MAX_COMPOSITE_BUFFER_COMPONENTS);
@@ -165,7 +175,64 @@ public void channelRead0(ChannelHandlerContext ctx, HttpObject message) {
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
         LOG.error(Logging.HTTP_ERROR, "Error handling HTTP response", cause);
-        request.failure(NetworkUtils.toFriendlyError(cause));
+        fail(NetworkUtils.toFriendlyError(cause));
+    }
+
+    private void fail(String message) {
+        var stream = responseStream;
+        if (stream == null) {
+            request.failure(message);
+        } else {
+            // We've already sent the response, so report the error when the body is next read instead.
+            stream.fail(message);
+            request.close();
+        }
+    }
+
+    /**
+     * Send a streamed response as soon as we've received the headers. The body is then added to the stream as it
+     * arrives - see {@link #readStream(ChannelHandlerContext, HttpStreamHandle, HttpContent)}.
+     *
+     * @param ctx The current channel context.
+     */
+    private void sendStream(ChannelHandlerContext ctx) {
+        var status = Objects.requireNonNull(responseStatus, "Status has not been set");
+
+        streamContext = ctx;
+        var stream = responseStream = new HttpStreamHandle(this);
+        var response = new HttpResponseHandle(stream, status.code(), status.reasonPhrase(), getHeaders());
+
+        if (status.code() >= 200 && status.code() < 400) {
+            request.streamSuccess(response);
+        } else {
+            request.streamFailure(status.reasonPhrase(), response);
+        }
+    }
+
+    private void readStream(ChannelHandlerContext ctx, HttpStreamHandle stream, HttpContent content) {
+        var partial = content.content();
+        if (partial.isReadable()) {
+            streamedBytes += partial.readableBytes();
+            if (options.maxDownload != 0 && streamedBytes > options.maxDownload) {
+                closed = true;
+                ctx.close();
+
+                fail("Response is too large");
+                return;
+            }
+
+            stream.offer(NetworkUtils.toBytes(partial));
+        }
+
+        if (content instanceof LastHttpContent) {
+            request.environment().observe(Metrics.HTTP_DOWNLOAD, getHeaderSize(responseHeaders) + streamedBytes);
+
+            closed = true;
+            ctx.close();
+
+            stream.finish();
+            request.close();
+        }
     }
 
     private void sendResponse() {
@@ -178,11 +245,7 @@ private void sendResponse() {
 
         // Decode the headers
         var status = responseStatus;
-        Map<String, String> headers = new HashMap<>();
-        for (var header : responseHeaders) {
-            var existing = headers.get(header.getKey());
-            headers.put(header.getKey(), existing == null ? header.getValue() : existing + "," + header.getValue());
-        }
+        var headers = getHeaders();
 
         // Fire off a stats event
         request.environment().observe(Metrics.HTTP_DOWNLOAD, getHeaderSize(responseHeaders) + bytes.length);
@@ -201,6 +264,15 @@ private void sendResponse() {
         }
     }
 
+    private Map<String, String> getHeaders() {
+        Map<String, String> headers = new HashMap<>();
+        for (var header : responseHeaders) {
+            var existing = headers.get(header.getKey());
+            headers.put(header.getKey(), existing == null ? header.getValue() : existing + "," + header.getValue());
+        }
+        return headers;
+    }
+
     /**
      * Determine the redirect from this response.
      *
@@ -223,6 +295,37 @@ private URI getRedirect(HttpResponseStatus status, HttpHeaders headers) {
         }
     }
 
+    @Override
+    public void setReading(boolean reading) {
+        var ctx = streamContext;
+        if (ctx == null) return;
+
+        ctx.executor().execute(() -> {
+            // While we're paused we're not expecting to receive anything, so remove the read timeout. Otherwise a
+            // computer which reads the body slowly would cause the connection to time out.
+            var pipeline = ctx.pipeline();
+            if (reading) {
+                if (options.timeout > 0 && pipeline.get(HttpRequest.TIMEOUT_HANDLER) == null) {
+                    pipeline.addBefore(ctx.name(), HttpRequest.TIMEOUT_HANDLER, new ReadTimeoutHandler(options.timeout, TimeUnit.MILLISECONDS));
+                }
+                ctx.channel().config().setAutoRead(true);
+            } else {
+                ctx.channel().config().setAutoRead(false);
+                if (pipeline.get(HttpRequest.TIMEOUT_HANDLER) != null) pipeline.remove(HttpRequest.TIMEOUT_HANDLER);
+            }
+        });
+    }
+
+    @Override
+    public void wake() {
+        request.wakeStream();
+    }
+
+    @Override
+    public void abort() {
+        request.close();
+    }
+
     @Override
     public void close() {
         closed = true;
@@ -230,5 +333,8 @@ public void close() {
             responseBody.release();
             responseBody = null;
         }
+
+        // If the request is closed before the body has been received, ensure anything waiting on it is woken.
+        if (responseStream != null) responseStream.fail("Connection closed");
     }
 }
@@ -10,7 +10,6 @@
 import dan200.computercraft.core.apis.HTTPAPI;
 import dan200.computercraft.core.apis.handles.BinaryReadableHandle;
 import dan200.computercraft.core.apis.handles.EncodedReadableHandle;
-import dan200.computercraft.core.apis.handles.HandleGeneric;
 import dan200.computercraft.core.asm.ObjectSource;
 
 import java.util.Collections;
@@ -20,6 +19,9 @@
  * A http response. This provides the same methods as a {@link EncodedReadableHandle file} (or
  * {@link BinaryReadableHandle binary file} if the request used binary mode), though provides several request specific
  * methods.
+ * <p>
+ * If the request was made with the {@code stream} option, the response is read with the methods from
+ * {@link HttpStreamHandle} instead.
  *
  * @cc.module http.Response
  * @see HTTPAPI#request(IArguments)  On how to make a http request.
@@ -30,7 +32,7 @@ public class HttpResponseHandle implements ObjectSource {
     private final String responseStatus;
     private final Map<String, String> responseHeaders;
 
-    public HttpResponseHandle(HandleGeneric reader, int responseCode, String responseStatus, Map<String, String> responseHeaders) {
+    public HttpResponseHandle(Object reader, int responseCode, String responseStatus, Map<String, String> responseHeaders) {
         this.reader = reader;
         this.responseCode = responseCode;
         this.responseStatus = responseStatus;
@@ -0,0 +1,320 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2022. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+package dan200.computercraft.core.apis.http.request;
+
+import dan200.computercraft.api.lua.ILuaCallback;
+import dan200.computercraft.api.lua.LuaException;
+import dan200.computercraft.api.lua.LuaFunction;
+import dan200.computercraft.api.lua.MethodResult;
+import dan200.computercraft.core.lua.OwnedBytes;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * The body of a streamed HTTP response.
+ * <p>
+ * Unlike a normal response, the body is not downloaded up-front. Instead, chunks are added to a bounded queue as they
+ * are received. Once more than {@link #HIGH_WATER_MARK} bytes are buffered we ask the connection to stop reading,
+ * resuming it once the computer has consumed enough of the queue. This means the memory used by a request is bounded,
+ * no matter how large the response is.
+ * <p>
+ * If no data is available, the reading functions will wait until more data is received.
+ */
+public class HttpStreamHandle implements Closeable {
+    /**
+     * Stop reading from the connection once this many bytes are buffered.
+     */
+    static final int HIGH_WATER_MARK = 256 * 1024;
+
+    /**
+     * Resume reading from the connection once the buffer drops below this many bytes.
+     */
+    static final int LOW_WATER_MARK = 64 * 1024;
+
+    /**
+     * The connection this stream reads from.
+     */
+    interface Owner {
+        /**
+         * Start or stop reading from the connection.
+         *
+         * @param reading Whether we should read more data.
+         */
+        void setReading(boolean reading);
+
+        /**
+         * Wake up the computer, as more data is available.
+         */
+        void wake();
+
+        /**
+         * Abort the request, as the stream has been closed.
+         */
+        void abort();
+    }
+
+    private final Owner owner;
+
+    private final ArrayDeque<byte[]> chunks = new ArrayDeque<>();
+    private int chunkOffset = 0;
+    private int buffered = 0;
+
+    private boolean finished = false;
+    private @Nullable String error;
+    private boolean closed = false;
+
+    private boolean paused = false;
+    private boolean waiting = false;
+
+    HttpStreamHandle(Owner owner) {
+        this.owner = owner;
+    }
+
+    /**
+     * Add a chunk of the response body to this stream. This is called from the connection's thread.
+     *
+     * @param chunk The received chunk.
+     */
+    void offer(byte[] chunk) {
+        if (chunk.length == 0) return;
+
+        synchronized (this) {
+            if (closed || finished || error != null) return;
+            chunks.addLast(chunk);
+            buffered += chunk.length;
+
+            if (!paused && buffered >= HIGH_WATER_MARK) {
+                paused = true;
+                owner.setReading(false);
+            }
+        }
+
+        wake();
+    }
+
+    /**
+     * Mark the response body as complete.
+     */
+    void finish() {
+        synchronized (this) {
+            if (error != null) return;
+            finished = true;
+        }
+
+        wake();
+    }
+
+    /**
+     * Mark the response body as failed. Any further reads will error.
+     *
+     * @param message The error message.
+     */
+    void fail(String message) {
+        synchronized (this) {
+            if (finished || error != null) return;
+            error = message;
+        }
+
+        wake();
+    }
+
+    private void wake() {
+        synchronized (this) {
+            if (!waiting) return;
+            waiting = false;
+        }
+
+        owner.wake();
+    }
+
+    /**
+     * Read a number of bytes from this response, waiting if there is not enough data.
+     *
+     * @param countArg The number of bytes to read. When absent, a single byte will be read <em>as a number</em>.
+     * @return The read bytes.
+     * @throws LuaException When trying to read a negative number of bytes.
+     * @throws LuaException If the response has been closed, or the connection failed.
+     * @cc.treturn [1] nil If we are at the end of the response.
+     * @cc.treturn [2] number The value of the byte read. This is returned when the {@code count} is absent.
+     * @cc.treturn [3] string The bytes read as a string. This is returned when the {@code count} is given.
+     */
+    @LuaFunction
+    public final MethodResult read(Optional<Integer> countArg) throws LuaException {
+        if (countArg.isPresent()) {
+            int count = countArg.get();
+            if (count < 0) throw new LuaException("Cannot read a negative number of bytes");
+            return new ReadCallback(Mode.BYTES, count, false).poll();
+        } else {
+            return new ReadCallback(Mode.BYTE, 1, false).poll();
+        }
+    }
+
+    /**
+     * Read the remainder of the response, waiting until it has been fully received.
+     *
+     * @return The remaining response.
+     * @throws LuaException If the response has been closed, or the connection failed.
+     * @cc.treturn string|nil The remaining response, or {@code nil} if we are at the end.
+     */
+    @LuaFunction
+    public final MethodResult readAll() throws LuaException {
+        return new ReadCallback(Mode.ALL, Integer.MAX_VALUE, false).poll();
+    }
+
+    /**
+     * Read a line from the response, waiting until a full line has been received.
+     *
+     * @param withTrailingArg Whether to include the newline characters with the returned string. Defaults to {@code false}.
+     * @return The read line.
+     * @throws LuaException If the response has been closed, or the connection failed.
+     * @cc.treturn string|nil The read line or {@code nil} if at the end of the response.
+     */
+    @LuaFunction
+    public final MethodResult readLine(Optional<Boolean> withTrailingArg) throws LuaException {
+        return new ReadCallback(Mode.LINE, Integer.MAX_VALUE, withTrailingArg.orElse(false)).poll();
+    }
+
+    /**
+     * Close this response, aborting the download if it is still in progress.
+     *
+     * @throws LuaException If the response has already been closed.
+     */
+    @LuaFunction("close")
+    public final void doClose() throws LuaException {
+        synchronized (this) {
+            checkOpen();
+        }
+        close();
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            chunks.clear();
+            buffered = 0;
+        }
+
+        owner.abort();
+    }
+
+    private void checkOpen() throws LuaException {
+        if (closed) throw new LuaException("attempt to use a closed file");
+    }
+
+    /**
+     * Copy bytes from the queue into {@code output}.
+     *
+     * @param output The stream to write to.
+     * @param limit  The maximum number of bytes to copy.
+     * @param line   Whether to stop after a {@code '\n'}.
+     * @return Whether we stopped after reading a {@code '\n'}.
+     */
+    private boolean drain(ByteArrayOutputStream output, int limit, boolean line) {
+        var copied = 0;
+        var sawNewline = false;
+        while (copied < limit && !sawNewline) {
+            var chunk = chunks.peekFirst();
+            if (chunk == null) break;
+
+            var length = Math.min(chunk.length - chunkOffset, limit - copied);
+            if (line) {
+                for (var i = 0; i < length; i++) {
+                    if (chunk[chunkOffset + i] == '\n') {
+                        length = i + 1;
+                        sawNewline = true;
+                        break;
+                    }
+                }
+            }
+
+            output.write(chunk, chunkOffset, length);
+            copied += length;
+            chunkOffset += length;
+            if (chunkOffset >= chunk.length) {
+                chunks.removeFirst();
+                chunkOffset = 0;
+            }
+        }
+
+        buffered -= copied;
+        if (paused && buffered <= LOW_WATER_MARK) {
+            paused = false;
+            owner.setReading(true);
+        }
+
+        return sawNewline;
+    }
+
+    private enum Mode {
+        BYTE,
+        BYTES,
+        LINE,
+        ALL,
+    }
+
+    private final class ReadCallback implements ILuaCallback {
+        final MethodResult pull = MethodResult.pullEvent(null, this);
+        private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        private final Mode mode;
+        private final int count;
+        private final boolean withTrailing;
+
+        ReadCallback(Mode mode, int count, boolean withTrailing) {
+            this.mode = mode;
+            this.count = count;
+            this.withTrailing = withTrailing;
+        }
+
+        MethodResult poll() throws LuaException {
+            synchronized (HttpStreamHandle.this) {
+                checkOpen();
+
+                var sawNewline = drain(output, count - output.size(), mode == Mode.LINE);
+                if (sawNewline || (count > 0 && output.size() >= count)) return result();
+
+                // Like files, reading 0 bytes returns an empty string unless we're at the end of the response.
+                if (count == 0 && buffered > 0) return result();
+
+                if (error != null) throw new LuaException(error);
+                if (finished) return output.size() == 0 ? MethodResult.of() : result();
+
+                waiting = true;
+            }
+
+            return pull;
+        }
+
+        private MethodResult result() {
+            var bytes = output.toByteArray();
+            return switch (mode) {
+                case BYTE -> MethodResult.of(bytes[0] & 0xFF);
+                case BYTES, ALL -> MethodResult.of(new OwnedBytes(bytes));
+                case LINE -> {
+                    var length = bytes.length;
+                    if (!withTrailing && length > 0 && bytes[length - 1] == '\n') {
+                        length--;
+                        if (length > 0 && bytes[length - 1] == '\r') length--;
+                    }
+                    yield MethodResult.of(new OwnedBytes(length == bytes.length ? bytes : Arrays.copyOf(bytes, length)));
+                }
+            };
+        }
+
+        @Override
+        public MethodResult resume(Object[] event) throws LuaException {
+            // Rather than only waking on our own event, check for more data whenever the computer resumes. This means
+            // we can't get stuck if the wake event is dropped.
+            return poll();
+        }
+    }
+}
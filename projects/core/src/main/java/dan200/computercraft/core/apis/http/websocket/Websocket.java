@@ -113,8 +113,8 @@ private void doConnect() {
 
         try {
             var ssl = uri.getScheme().equalsIgnoreCase("wss");
-            var socketAddress = NetworkUtils.getAddress(uri, ssl);
-            var options = NetworkUtils.getOptions(uri.getHost(), socketAddress);
+            var socketAddress = NetworkUtils.getAddress(uri, ssl, environment);
+            var options = NetworkUtils.getOptions(uri.getHost(), socketAddress, environment);
             var sslContext = ssl ? NetworkUtils.getSslContext() : null;
 
             // getAddress may have a slight delay, so let's perform another cancellation check.
@@ -14,6 +14,7 @@
 import dan200.computercraft.core.apis.IAPIEnvironment;
 import dan200.computercraft.core.computer.mainthread.MainThreadScheduler;
 import dan200.computercraft.core.filesystem.FileSystem;
+import dan200.computercraft.core.lua.LuaProfiler;
 import dan200.computercraft.core.terminal.Terminal;
 
 import javax.annotation.Nullable;
@@ -45,6 +46,7 @@ public class Computer {
     private final Terminal terminal;
     private final ComputerExecutor executor;
     private final MainThreadScheduler.Executor serverExecutor;
+    private final LuaProfiler profiler = new LuaProfiler();
 
     /**
      * An internal counter for {@link ILuaTask} ids.
@@ -131,6 +133,15 @@ public IWorkMonitor getMainThreadMonitor() {
         return serverExecutor;
     }
 
+    /**
+     * Get the profiler for this computer's Lua code.
+     *
+     * @return This computer's profiler.
+     */
+    public LuaProfiler getProfiler() {
+        return profiler;
+    }
+
     public int getID() {
         return id;
     }
@@ -379,7 +379,8 @@ private ILuaMachine createLuaMachine() {
 
         // Create the lua machine
         var machine = luaFactory.create(new MachineEnvironment(
-            new LuaContext(computer), metrics, timeout, computer.getGlobalEnvironment().getHostString()
+            new LuaContext(computer), metrics, timeout, computer.getGlobalEnvironment().getHostString(),
+            computer.getProfiler()
         ));
 
         // Add the APIs. We unwrap them (yes, this is horrible) to get access to the underlying object.
@@ -564,6 +565,33 @@ void work() throws InterruptedException {
             }
         } else if (event != null) {
             resumeMachine(event.name, event.args);
+            if (CoreConfig.batchEvents) drainEvents();
+        }
+    }
+
+    /**
+     * Run additional queued events until we have used up our current time slice.
+     * <p>
+     * This avoids the overhead of requeuing the computer after every event, which can be significant when receiving
+     * large bursts of events. Events are still run in the order they were queued, and we stop as soon as a command
+     * (such as a shutdown) is queued.
+     *
+     * @throws InterruptedException If various locks could not be acquired.
+     * @see CoreConfig#batchEvents
+     */
+    private void drainEvents() throws InterruptedException {
+        while (!interruptedEvent && isOn && machine != null
+            && timeout.hasTimeRemaining() && !timeout.isPaused() && !timeout.isHardAborted()) {
+            Event event;
+            synchronized (queueLock) {
+                if (closed || command != null) return;
+                event = eventQueue.poll();
+            }
+            if (event == null) return;
+
+            // Each event gets its own "too long without yielding" budget, as if it were run in a separate round.
+            timeout.restartCumulative();
+            resumeMachine(event.name, event.args);
         }
     }
 
@@ -14,8 +14,11 @@
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
+import java.util.Comparator;
 import java.util.Objects;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -48,6 +51,10 @@
  * <p>
  * In reality, it's unlikely that more than a few computers are waiting to execute at once, so this will not have much
  * effect unless you have a computer hogging execution time. However, it is pretty effective in those situations.
+ * <p>
+ * The queue of computers may either be guarded by a single lock, or use concurrent data structures - see
+ * {@link SchedulerMode} for more information. In the latter case, we only update a computer's virtual runtime after it
+ * has finished executing, rather than every time the queue changes.
  *
  * @see TimeoutState For how hard timeouts are handled.
  * @see ComputerExecutor For how computers actually do execution.
@@ -135,24 +142,37 @@ public final class ComputerThread {
 
     private final AtomicInteger idleWorkers = new AtomicInteger(0);
 
-    /**
-     * Active queues to execute.
-     */
-    private final TreeSet<ComputerExecutor> computerQueue = new TreeSet<>((a, b) -> {
+    private static final Comparator<ComputerExecutor> RUNTIME_ORDER = (a, b) -> {
         if (a == b) return 0; // Should never happen, but let's be consistent here
 
         long at = a.virtualRuntime, bt = b.virtualRuntime;
         if (at == bt) return Integer.compare(a.hashCode(), b.hashCode());
         return at < bt ? -1 : 1;
-    });
+    };
+
+    /**
+     * Active queues to execute.
+     */
+    private final TreeSet<ComputerExecutor> computerQueue = new TreeSet<>(RUNTIME_ORDER);
 
     /**
      * The minimum {@link ComputerExecutor#virtualRuntime} time on the tree.
      */
     private long minimumVirtualRuntime = 0;
 
+    /**
+     * The concurrent queue, used instead of {@link #computerQueue} and {@link #computerLock} when running with
+     * {@link SchedulerMode#CONCURRENT}.
+     */
+    private final @Nullable ConcurrentQueue concurrentQueue;
+
     public ComputerThread(int threadCount) {
+        this(threadCount, SchedulerMode.LOCKED);
+    }
+
+    public ComputerThread(int threadCount, SchedulerMode mode) {
         workers = new Worker[threadCount];
+        concurrentQueue = mode == SchedulerMode.CONCURRENT ? new ConcurrentQueue() : null;
 
         // latency and minPeriod are scaled by 1 + floor(log2(threads)). We can afford to execute tasks for
         // longer when executing on more than one thread.
@@ -227,11 +247,15 @@ public boolean stop(long timeout, TimeUnit unit) throws InterruptedException {
         }
 
         // Wake all workers
-        computerLock.lock();
-        try {
-            workerWakeup.signalAll();
-        } finally {
-            computerLock.unlock();
+        if (concurrentQueue != null) {
+            concurrentQueue.wakeAllWorkers();
+        } else {
+            computerLock.lock();
+            try {
+                workerWakeup.signalAll();
+            } finally {
+                computerLock.unlock();
+            }
         }
 
         // Wait for all workers to signal they have finished.
@@ -249,11 +273,15 @@ public boolean stop(long timeout, TimeUnit unit) throws InterruptedException {
         advanceState(CLOSED);
 
         // Signal the monitor to finish, but don't wait for it to stop.
-        computerLock.lock();
-        try {
-            monitorWakeup.signal();
-        } finally {
-            computerLock.unlock();
+        if (concurrentQueue != null) {
+            concurrentQueue.wakeMonitor();
+        } else {
+            computerLock.lock();
+            try {
+                monitorWakeup.signal();
+            } finally {
+                computerLock.unlock();
+            }
         }
 
         return true;
@@ -268,6 +296,11 @@ public boolean stop(long timeout, TimeUnit unit) throws InterruptedException {
      * @param executor The computer to execute work on.
      */
     void queue(ComputerExecutor executor) {
+        if (concurrentQueue != null) {
+            concurrentQueue.queue(executor);
+            return;
+        }
+
         computerLock.lock();
         try {
             if (state.get() != RUNNING) throw new IllegalStateException("ComputerThread is no longer running");
@@ -282,17 +315,7 @@ void queue(ComputerExecutor executor) {
 
             // We're not currently on the queue, so update its current execution time to
             // ensure its at least as high as the minimum.
-            var newRuntime = minimumVirtualRuntime;
-
-            if (executor.virtualRuntime == 0) {
-                // Slow down new computers a little bit.
-                newRuntime += scaledPeriod();
-            } else {
-                // Give a small boost to computers which have slept a little.
-                newRuntime -= latency / 2;
-            }
-
-            executor.virtualRuntime = Math.max(newRuntime, executor.virtualRuntime);
+            updateQueuedRuntime(executor, minimumVirtualRuntime);
 
             var wasBusy = isBusy();
             // Add to the queue, and signal the workers.
@@ -308,6 +331,27 @@ void queue(ComputerExecutor executor) {
     }
 
 
+    /**
+     * Update the {@link ComputerExecutor#virtualRuntime} of a computer which is about to be added to the queue, ensuring
+     * it is at least as high as the current minimum.
+     *
+     * @param executor The computer being queued.
+     * @param minimum  The current {@linkplain #minimumVirtualRuntime minimum virtual runtime}.
+     */
+    private void updateQueuedRuntime(ComputerExecutor executor, long minimum) {
+        var newRuntime = minimum;
+
+        if (executor.virtualRuntime == 0) {
+            // Slow down new computers a little bit.
+            newRuntime += scaledPeriod();
+        } else {
+            // Give a small boost to computers which have slept a little.
+            newRuntime -= latency / 2;
+        }
+
+        executor.virtualRuntime = Math.max(newRuntime, executor.virtualRuntime);
+    }
+
     /**
      * Update the {@link ComputerExecutor#virtualRuntime}s of all running tasks, and then update the
      * {@link #minimumVirtualRuntime} based on the current tasks.
@@ -366,6 +410,11 @@ private void afterWork(Worker runner, ComputerExecutor executor) {
             );
         }
 
+        if (concurrentQueue != null) {
+            concurrentQueue.afterWork(executor);
+            return;
+        }
+
         computerLock.lock();
         try {
             updateRuntimes(executor);
@@ -394,7 +443,7 @@ long scaledPeriod() {
         //  "criticial" behaviour, so not clear if it matters too much.
 
         // +1 to include the current task
-        var count = 1 + computerQueue.size();
+        var count = 1 + queueSize();
         return count < LATENCY_MAX_TASKS ? latency / count : minPeriod;
     }
 
@@ -406,7 +455,11 @@ long scaledPeriod() {
     @VisibleForTesting
     public boolean hasPendingWork() {
         // FIXME: See comment in scaledPeriod. Again, we access this in multiple threads but not clear if it matters!
-        return !computerQueue.isEmpty();
+        return queueSize() > 0;
+    }
+
+    private int queueSize() {
+        return concurrentQueue != null ? concurrentQueue.size.get() : computerQueue.size();
     }
 
     /**
@@ -417,7 +470,7 @@ public boolean hasPendingWork() {
      */
     @GuardedBy("computerLock")
     private boolean isBusy() {
-        return computerQueue.size() > idleWorkers.get();
+        return queueSize() > idleWorkers.get();
     }
 
     private void workerFinished(Worker worker) {
@@ -447,6 +500,178 @@ private void workerFinished(Worker worker) {
         }
     }
 
+    /**
+     * A lock-free alternative to {@link #computerQueue}, used by {@link SchedulerMode#CONCURRENT}.
+     * <p>
+     * Computers are stored in a {@link ConcurrentSkipListSet}, ordered by their virtual runtime as before. Idle workers
+     * add themselves to {@link #idle} and park, and are then woken individually as computers are queued.
+     * <p>
+     * Unlike {@link #updateRuntimes(ComputerExecutor)}, we never modify the runtime of a computer which is currently
+     * executing (as that would need to be synchronised with its worker). Instead, we estimate its current runtime when
+     * computing the minimum, and a worker updates its computer's runtime once it has finished executing.
+     */
+    private final class ConcurrentQueue {
+        private final ConcurrentSkipListSet<ComputerExecutor> queue = new ConcurrentSkipListSet<>(RUNTIME_ORDER);
+
+        /**
+         * The number of computers in {@link #queue}. {@link ConcurrentSkipListSet#size()} takes linear time, so we track
+         * this separately. This may briefly be larger than the actual size of the queue.
+         */
+        final AtomicInteger size = new AtomicInteger();
+
+        /**
+         * Workers which are waiting for a computer to be queued.
+         */
+        private final ConcurrentLinkedDeque<Worker> idle = new ConcurrentLinkedDeque<>();
+
+        /**
+         * The minimum {@link ComputerExecutor#virtualRuntime} of all queued and running computers. This only ever
+         * increases.
+         */
+        private final AtomicLong minimumVirtualRuntime = new AtomicLong();
+
+        void queue(ComputerExecutor executor) {
+            if (state.get() != RUNNING) throw new IllegalStateException("ComputerThread is no longer running");
+
+            // Ensure we've got a worker running.
+            ensureRunning();
+
+            if (executor.onComputerQueue) throw new IllegalStateException("Cannot queue already queued executor");
+            executor.onComputerQueue = true;
+
+            updateQueuedRuntime(executor, updateMinimum(null));
+
+            var wasBusy = isBusy();
+            add(executor);
+
+            // If we've transitioned into a busy state, notify the monitor. This will cause it to sleep for scaledPeriod
+            // instead of the longer wakeup duration.
+            if (!wasBusy && isBusy()) wakeMonitor();
+        }
+
+        void afterWork(ComputerExecutor executor) {
+            // Only this worker touches the executor's runtime while it's running, so we can safely update it here.
+            var now = System.nanoTime();
+            executor.virtualRuntime += (now - executor.vRuntimeStart) / (1 + size.get());
+            executor.vRuntimeStart = now;
+            updateMinimum(executor);
+
+            // If we've no more tasks, just return.
+            if (!executor.afterWork() || state.get() != RUNNING) return;
+
+            add(executor);
+        }
+
+        private void add(ComputerExecutor executor) {
+            size.incrementAndGet();
+            queue.add(executor);
+            wakeWorker();
+        }
+
+        @Nullable
+        private ComputerExecutor poll() {
+            var executor = queue.pollFirst();
+            if (executor != null) size.decrementAndGet();
+            return executor;
+        }
+
+        /**
+         * Wait for a computer to be queued, and remove it from the queue.
+         *
+         * @param worker The current worker.
+         * @return The computer to execute, or {@code null} if this worker should stop.
+         */
+        @Nullable
+        ComputerExecutor take(Worker worker) {
+            while (true) {
+                var executor = poll();
+                if (executor != null) return wakeIfPending(executor);
+                if (state.get() >= STOPPING) return null;
+
+                idleWorkers.getAndIncrement();
+                idle.push(worker);
+                try {
+                    // Check the queue again, in case a computer was added before we were marked as idle.
+                    executor = poll();
+                    if (executor != null) return wakeIfPending(executor);
+                    if (state.get() >= STOPPING) return null;
+
+                    // We should never interrupt() the worker, and spurious wakeups are handled by the loop.
+                    LockSupport.park(this);
+                } finally {
+                    idle.remove(worker);
+                    idleWorkers.getAndDecrement();
+                }
+            }
+        }
+
+        /**
+         * If there are still computers in the queue, wake up another worker. This ensures we don't have idle workers
+         * when a wakeup was consumed by a worker which found a computer by itself.
+         *
+         * @param executor The computer we're about to run.
+         * @return The same computer.
+         */
+        private ComputerExecutor wakeIfPending(ComputerExecutor executor) {
+            if (size.get() > 0) wakeWorker();
+            return executor;
+        }
+
+        private void wakeWorker() {
+            var worker = idle.poll();
+            if (worker != null) LockSupport.unpark(worker.owner);
+        }
+
+        void wakeAllWorkers() {
+            threadLock.lock();
+            try {
+                for (@Nullable var worker : workers) {
+                    if (worker != null) LockSupport.unpark(worker.owner);
+                }
+            } finally {
+                threadLock.unlock();
+            }
+        }
+
+        void wakeMonitor() {
+            var monitor = ComputerThread.this.monitor;
+            if (monitor != null) LockSupport.unpark(monitor);
+        }
+
+        /**
+         * Compute the current {@link #minimumVirtualRuntime}, based on queued and currently running computers.
+         *
+         * @param current The computer which has just finished executing, if present.
+         * @return The new minimum virtual runtime.
+         */
+        private long updateMinimum(@Nullable ComputerExecutor current) {
+            var minRuntime = Long.MAX_VALUE;
+
+            // If we've a task on the queue, use that as our base time.
+            var iterator = queue.iterator();
+            if (iterator.hasNext()) minRuntime = iterator.next().virtualRuntime;
+
+            // Estimate the current runtime of all executing tasks.
+            var now = System.nanoTime();
+            var tasks = 1 + size.get();
+            for (@Nullable var runner : workers) {
+                if (runner == null) continue;
+                var executor = runner.currentExecutor.get();
+                if (executor == null) continue;
+
+                minRuntime = Math.min(minRuntime, executor.virtualRuntime + (now - executor.vRuntimeStart) / tasks);
+            }
+
+            if (current != null) minRuntime = Math.min(minRuntime, current.virtualRuntime);
+
+            while (true) {
+                var existing = minimumVirtualRuntime.get();
+                if (minRuntime <= existing || minRuntime == Long.MAX_VALUE) return existing;
+                if (minimumVirtualRuntime.compareAndSet(existing, minRuntime)) return minRuntime;
+            }
+        }
+    }
+
     /**
      * Observes all currently active {@link Worker}s and terminates their tasks once they have exceeded the hard
      * abort limit.
@@ -466,6 +691,12 @@ public void run() {
 
         private void runImpl() {
             while (state.get() < CLOSED) {
+                if (concurrentQueue != null) {
+                    LockSupport.parkNanos(this, isBusy() ? scaledPeriod() : MONITOR_WAKEUP);
+                    checkRunners();
+                    continue;
+                }
+
                 computerLock.lock();
                 try {
                     // If we've got more work than we have capacity for it, then we'll need to pause a task soon, so
@@ -576,18 +807,23 @@ private void runImpl() {
             while (running.get()) {
                 // Wait for an active queue to execute
                 ComputerExecutor executor;
-                computerLock.lock();
-                try {
-                    idleWorkers.getAndIncrement();
-                    while ((executor = computerQueue.pollFirst()) == null) {
-                        if (state.get() >= STOPPING) return;
-
-                        // We should never interrupt() the worker, so this should be fine.
-                        workerWakeup.awaitUninterruptibly();
+                if (concurrentQueue != null) {
+                    executor = concurrentQueue.take(this);
+                    if (executor == null) return;
+                } else {
+                    computerLock.lock();
+                    try {
+                        idleWorkers.getAndIncrement();
+                        while ((executor = computerQueue.pollFirst()) == null) {
+                            if (state.get() >= STOPPING) return;
+
+                            // We should never interrupt() the worker, so this should be fine.
+                            workerWakeup.awaitUninterruptibly();
+                        }
+                    } finally {
+                        idleWorkers.getAndDecrement();
+                        computerLock.unlock();
                     }
-                } finally {
-                    idleWorkers.getAndDecrement();
-                    computerLock.unlock();
                 }
 
                 // If we're trying to executing some task on this computer while someone else is doing work, something
@@ -13,12 +13,10 @@
 import dan200.computercraft.core.metrics.Metric;
 import dan200.computercraft.core.metrics.MetricsObserver;
 import dan200.computercraft.core.terminal.Terminal;
-import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
-import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import dan200.computercraft.core.util.TimerQueue;
 
 import javax.annotation.Nullable;
 import java.util.Arrays;
-import java.util.Iterator;
 
 /**
  * Represents the "environment" that a {@link Computer} exists in.
@@ -58,8 +56,8 @@ public final class Environment implements IAPIEnvironment {
     private final IPeripheral[] peripherals = new IPeripheral[ComputerSide.COUNT];
     private @Nullable IPeripheralChangeListener peripheralListener = null;
 
-    private final Int2ObjectMap<Timer> timers = new Int2ObjectOpenHashMap<>();
-    private int nextTimerToken = 0;
+    private final TimerQueue timers = new TimerQueue();
+    private long ticks = 0;
 
     Environment(Computer computer, ComputerEnvironment environment) {
         this.computer = computer;
@@ -204,18 +202,9 @@ void tick() {
         }
 
         synchronized (timers) {
-            // Countdown all of our active timers
-            Iterator<Int2ObjectMap.Entry<Timer>> it = timers.int2ObjectEntrySet().iterator();
-            while (it.hasNext()) {
-                var entry = it.next();
-                var timer = entry.getValue();
-                timer.ticksLeft--;
-                if (timer.ticksLeft <= 0) {
-                    // Queue the "timer" event
-                    queueEvent(TIMER_EVENT, entry.getIntKey());
-                    it.remove();
-                }
-            }
+            // Queue a "timer" event for any timers which have finished.
+            ticks++;
+            timers.expire(ticks, id -> queueEvent(TIMER_EVENT, id));
         }
     }
 
@@ -300,15 +289,14 @@ public void setLabel(@Nullable String label) {
     @Override
     public int startTimer(long ticks) {
         synchronized (timers) {
-            timers.put(nextTimerToken, new Timer(ticks));
-            return nextTimerToken++;
+            return timers.add(this.ticks + ticks);
         }
     }
 
     @Override
     public void cancelTimer(int id) {
         synchronized (timers) {
-            timers.remove(id);
+            timers.cancel(id);
         }
     }
 
@@ -321,12 +309,4 @@ public void observe(Metric.Event event, long change) {
     public void observe(Metric.Counter counter) {
         metrics.observe(counter);
     }
-
-    private static class Timer {
-        long ticksLeft;
-
-        Timer(long ticksLeft) {
-            this.ticksLeft = ticksLeft;
-        }
-    }
 }
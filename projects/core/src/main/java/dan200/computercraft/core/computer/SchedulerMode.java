@@ -0,0 +1,33 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2022. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+package dan200.computercraft.core.computer;
+
+import dan200.computercraft.core.CoreConfig;
+
+/**
+ * The data structure {@link ComputerThread} uses to store and pick the next computer to run.
+ * <p>
+ * Both modes pick computers using the same "fair" scheduling policy. They only differ in how workers coordinate when
+ * adding and removing computers from the queue.
+ *
+ * @see CoreConfig#computerScheduler
+ */
+public enum SchedulerMode {
+    /**
+     * Store computers in a single ordered set, guarded by a single lock.
+     * <p>
+     * This has very predictable ordering, but all workers (and anything queuing events on computers) contend on the
+     * same lock, which may become a bottleneck with many threads.
+     */
+    LOCKED,
+
+    /**
+     * Store computers in a concurrent skip list, with idle workers parked and woken individually.
+     * <p>
+     * This avoids any global lock, at the cost of slightly less precise accounting of each computer's runtime.
+     */
+    CONCURRENT;
+}
@@ -5,6 +5,7 @@
  */
 package dan200.computercraft.core.computer;
 
+import dan200.computercraft.core.CoreConfig;
 import dan200.computercraft.core.lua.ILuaMachine;
 import dan200.computercraft.core.lua.MachineResult;
 
@@ -145,6 +146,25 @@ void startTimer() {
         cumulativeStart = now - cumulativeElapsed;
     }
 
+    /**
+     * Whether this execution round still has time remaining before it should be paused.
+     *
+     * @return Whether we are before the current deadline.
+     */
+    boolean hasTimeRemaining() {
+        return currentDeadline - System.nanoTime() > 0;
+    }
+
+    /**
+     * Reset the cumulative timer and soft abort flag when starting a new event, but keep the current execution round
+     * running. This is used when {@linkplain CoreConfig#batchEvents running several events in one round}.
+     */
+    synchronized void restartCumulative() {
+        cumulativeStart = System.nanoTime();
+        cumulativeElapsed = 0;
+        softAbort = false;
+    }
+
     /**
      * Pauses the cumulative time, to be resumed by {@link #startTimer()}.
      *
@@ -117,12 +117,19 @@ public long size() throws IOException {
 
     private final File rootPath;
     private final long capacity;
-    private long usedSpace;
+
+    /**
+     * The space used by this mount, or {@code -1} if it has not been measured yet.
+     * <p>
+     * Walking a large directory is expensive, and many computers never write to (or check the free space of) their
+     * disk, so we measure this the first time it is needed rather than when the mount is created. After that, it is
+     * kept up-to-date in memory.
+     */
+    private long usedSpace = -1;
 
     public FileMount(File rootPath, long capacity) {
         this.rootPath = rootPath;
         this.capacity = capacity + MINIMUM_FILE_SIZE;
-        usedSpace = created() ? measureUsedSpace(this.rootPath) : MINIMUM_FILE_SIZE;
     }
 
     // IMount implementation
@@ -226,7 +233,10 @@ public void delete(String path) throws IOException {
 
         if (created()) {
             var file = getRealPath(path);
-            if (file.exists()) deleteRecursively(file);
+            if (file.exists()) {
+                getUsedSpace();
+                deleteRecursively(file);
+            }
         }
     }
 
@@ -256,7 +266,7 @@ public WritableByteChannel openForWrite(String path) throws IOException {
         if (file.exists() && file.isDirectory()) throw new FileOperationException(path, "Cannot write to directory");
 
         if (file.exists()) {
-            usedSpace -= Math.max(file.length(), MINIMUM_FILE_SIZE);
+            usedSpace = getUsedSpace() - Math.max(file.length(), MINIMUM_FILE_SIZE);
         } else if (getRemainingSpace() < MINIMUM_FILE_SIZE) {
             throw new FileOperationException(path, "Out of space");
         }
@@ -275,6 +285,8 @@ public WritableByteChannel openForAppend(String path) throws IOException {
         if (!file.exists()) throw new FileOperationException(path, "No such file");
         if (file.isDirectory()) throw new FileOperationException(path, "Cannot write to directory");
 
+        getUsedSpace();
+
         // Allowing seeking when appending is not recommended, so we use a separate channel.
         return new WritableCountingChannel(
             Files.newByteChannel(file.toPath(), APPEND_OPTIONS),
@@ -284,7 +296,7 @@ public WritableByteChannel openForAppend(String path) throws IOException {
 
     @Override
     public long getRemainingSpace() {
-        return Math.max(capacity - usedSpace, 0);
+        return Math.max(capacity - getUsedSpace(), 0);
     }
 
     @Override
@@ -296,6 +308,11 @@ private File getRealPath(String path) {
         return new File(rootPath, path);
     }
 
+    private synchronized long getUsedSpace() {
+        if (usedSpace < 0) usedSpace = created() ? measureUsedSpace(rootPath) : MINIMUM_FILE_SIZE;
+        return usedSpace;
+    }
+
     private boolean created() {
         return rootPath.exists();
     }
@@ -13,6 +13,7 @@
 import dan200.computercraft.core.CoreConfig;
 import dan200.computercraft.core.util.IoUtil;
 
+import javax.annotation.Nullable;
 import java.io.Closeable;
 import java.io.IOException;
 import java.lang.ref.Reference;
@@ -24,6 +25,10 @@
 import java.nio.file.AccessDeniedException;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Function;
 import java.util.regex.Pattern;
 
@@ -37,9 +42,21 @@ public class FileSystem {
     private static final int MAX_COPY_DEPTH = 128;
 
     private final FileSystemWrapperMount wrapper = new FileSystemWrapperMount(this);
+
+    /**
+     * The lock guarding this file system.
+     * <p>
+     * Operations which only read from the file system (such as {@link #exists(String)}, {@link #list(String)} or
+     * {@link #openForRead(String, Function)}) acquire the read lock, and so may run in parallel. Anything which
+     * modifies the set of mounts or the contents of a mount acquires the write lock.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
     private final Map<String, MountWrapper> mounts = new HashMap<>();
+    private MountTrie mountTrie = MountTrie.of(List.of());
 
-    private final HashMap<WeakReference<FileSystemWrapper<?>>, ChannelWrapper<?>> openFiles = new HashMap<>();
+    private final Map<WeakReference<FileSystemWrapper<?>>, ChannelWrapper<?>> openFiles = new ConcurrentHashMap<>();
+    private final AtomicInteger openFileCount = new AtomicInteger();
     private final ReferenceQueue<FileSystemWrapper<?>> openFileQueue = new ReferenceQueue<>();
 
     public FileSystem(String rootLabel, IMount rootMount) throws FileSystemException {
@@ -52,21 +69,18 @@ public FileSystem(String rootLabel, IWritableMount rootMount) throws FileSystemE
 
     public void close() {
         // Close all dangling open files
-        synchronized (openFiles) {
-            for (Closeable file : openFiles.values()) IoUtil.closeQuietly(file);
-            openFiles.clear();
-            while (openFileQueue.poll() != null) ;
-        }
+        for (var reference : openFiles.keySet()) IoUtil.closeQuietly(removeFile(reference));
+        while (openFileQueue.poll() != null) ;
     }
 
-    public synchronized void mount(String label, String location, IMount mount) throws FileSystemException {
+    public void mount(String label, String location, IMount mount) throws FileSystemException {
         Objects.requireNonNull(mount, "mount cannot be null");
         location = sanitizePath(location);
         if (location.contains("..")) throw new FileSystemException("Cannot mount below the root");
         mount(new MountWrapper(label, location, mount));
     }
 
-    public synchronized void mountWritable(String label, String location, IWritableMount mount) throws FileSystemException {
+    public void mountWritable(String label, String location, IWritableMount mount) throws FileSystemException {
         Objects.requireNonNull(mount, "mount cannot be null");
 
         location = sanitizePath(location);
@@ -76,31 +90,41 @@ public synchronized void mountWritable(String label, String location, IWritableM
         mount(new MountWrapper(label, location, mount));
     }
 
-    private synchronized void mount(MountWrapper wrapper) {
-        var location = wrapper.getLocation();
-        mounts.remove(location);
-        mounts.put(location, wrapper);
+    private void mount(MountWrapper wrapper) {
+        lock.writeLock().lock();
+        try {
+            var location = wrapper.getLocation();
+            mounts.remove(location);
+            mounts.put(location, wrapper);
+            mountTrie = MountTrie.of(mounts.values());
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
-    public synchronized void unmount(String path) {
-        var mount = mounts.remove(sanitizePath(path));
-        if (mount == null) return;
+    public void unmount(String path) {
+        MountWrapper mount;
+        lock.writeLock().lock();
+        try {
+            mount = mounts.remove(sanitizePath(path));
+            if (mount == null) return;
+            mountTrie = MountTrie.of(mounts.values());
+        } finally {
+            lock.writeLock().unlock();
+        }
 
         cleanup();
 
         // Close any files which belong to this mount - don't want people writing to a disk after it's been ejected!
         // There's no point storing a Mount -> Wrapper[] map, as openFiles is small and unmount isn't called very
         // often.
-        synchronized (openFiles) {
-            for (var iterator = openFiles.keySet().iterator(); iterator.hasNext(); ) {
-                var reference = iterator.next();
-                var wrapper = reference.get();
-                if (wrapper == null) continue;
-
-                if (wrapper.mount == mount) {
-                    wrapper.closeExternally();
-                    iterator.remove();
-                }
+        for (var reference : openFiles.keySet()) {
+            var wrapper = reference.get();
+            if (wrapper == null) continue;
+
+            if (wrapper.mount == mount) {
+                wrapper.closeExternally();
+                removeFile(reference);
             }
         }
     }
@@ -140,27 +164,44 @@ public static String getName(String path) {
         return lastSlash >= 0 ? path.substring(lastSlash + 1) : path;
     }
 
-    public synchronized long getSize(String path) throws FileSystemException {
-        return getMount(sanitizePath(path)).getSize(sanitizePath(path));
+    public long getSize(String path) throws FileSystemException {
+        path = sanitizePath(path);
+        lock.readLock().lock();
+        try {
+            return getMount(path).getSize(path);
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
-    public synchronized BasicFileAttributes getAttributes(String path) throws FileSystemException {
-        return getMount(sanitizePath(path)).getAttributes(sanitizePath(path));
+    public BasicFileAttributes getAttributes(String path) throws FileSystemException {
+        path = sanitizePath(path);
+        lock.readLock().lock();
+        try {
+            return getMount(path).getAttributes(path);
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
-    public synchronized String[] list(String path) throws FileSystemException {
+    public String[] list(String path) throws FileSystemException {
         path = sanitizePath(path);
-        var mount = getMount(path);
 
         // Gets a list of the files in the mount
         List<String> list = new ArrayList<>();
-        mount.list(path, list);
-
-        // Add any mounts that are mounted at this location
-        for (var otherMount : mounts.values()) {
-            if (getDirectory(otherMount.getLocation()).equals(path)) {
-                list.add(getName(otherMount.getLocation()));
+        lock.readLock().lock();
+        try {
+            var mount = getMount(path);
+            mount.list(path, list);
+
+            // Add any mounts that are mounted at this location
+            for (var otherMount : mounts.values()) {
+                if (getDirectory(otherMount.getLocation()).equals(path)) {
+                    list.add(getName(otherMount.getLocation()));
+                }
             }
+        } finally {
+            lock.readLock().unlock();
         }
 
         // Return list
@@ -183,7 +224,7 @@ private void findIn(String dir, List<String> matches, Pattern wildPattern) throw
         }
     }
 
-    public synchronized String[] find(String wildPath) throws FileSystemException {
+    public String[] find(String wildPath) throws FileSystemException {
         // Match all the files on the system
         wildPath = sanitizePath(wildPath, true);
 
@@ -200,7 +241,8 @@ public synchronized String[] find(String wildPath) throws FileSystemException {
         // If this isn't a directory then just abort
         if (!isDir(startDir)) return new String[0];
 
-        // Scan as normal, starting from this directory
+        // Scan as normal, starting from this directory. We don't hold the lock for the whole scan, so that other
+        // readers (or writers) are not blocked while walking a large tree.
         var wildPattern = Pattern.compile("^\\Q" + wildPath.replaceAll("\\*", "\\\\E[^\\\\/]*\\\\Q") + "\\E$");
         List<String> matches = new ArrayList<>();
         findIn(startDir, matches, wildPattern);
@@ -211,80 +253,114 @@ public synchronized String[] find(String wildPath) throws FileSystemException {
         return array;
     }
 
-    public synchronized boolean exists(String path) throws FileSystemException {
+    public boolean exists(String path) throws FileSystemException {
         path = sanitizePath(path);
-        var mount = getMount(path);
-        return mount.exists(path);
+        lock.readLock().lock();
+        try {
+            return getMount(path).exists(path);
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
-    public synchronized boolean isDir(String path) throws FileSystemException {
+    public boolean isDir(String path) throws FileSystemException {
         path = sanitizePath(path);
-        var mount = getMount(path);
-        return mount.isDirectory(path);
+        lock.readLock().lock();
+        try {
+            return getMount(path).isDirectory(path);
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
-    public synchronized boolean isReadOnly(String path) throws FileSystemException {
+    public boolean isReadOnly(String path) throws FileSystemException {
         path = sanitizePath(path);
-        var mount = getMount(path);
-        return mount.isReadOnly(path);
+        lock.readLock().lock();
+        try {
+            return getMount(path).isReadOnly(path);
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
-    public synchronized String getMountLabel(String path) throws FileSystemException {
+    public String getMountLabel(String path) throws FileSystemException {
         path = sanitizePath(path);
-        var mount = getMount(path);
-        return mount.getLabel();
+        lock.readLock().lock();
+        try {
+            return getMount(path).getLabel();
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
-    public synchronized void makeDir(String path) throws FileSystemException {
+    public void makeDir(String path) throws FileSystemException {
         path = sanitizePath(path);
-        var mount = getMount(path);
-        mount.makeDirectory(path);
+        lock.writeLock().lock();
+        try {
+            getMount(path).makeDirectory(path);
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
-    public synchronized void delete(String path) throws FileSystemException {
+    public void delete(String path) throws FileSystemException {
         path = sanitizePath(path);
-        var mount = getMount(path);
-        mount.delete(path);
+        lock.writeLock().lock();
+        try {
+            getMount(path).delete(path);
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
-    public synchronized void move(String sourcePath, String destPath) throws FileSystemException {
+    public void move(String sourcePath, String destPath) throws FileSystemException {
         sourcePath = sanitizePath(sourcePath);
         destPath = sanitizePath(destPath);
-        if (isReadOnly(sourcePath) || isReadOnly(destPath)) {
-            throw new FileSystemException("Access denied");
-        }
-        if (!exists(sourcePath)) {
-            throw new FileSystemException("No such file");
-        }
-        if (exists(destPath)) {
-            throw new FileSystemException("File exists");
-        }
-        if (contains(sourcePath, destPath)) {
-            throw new FileSystemException("Can't move a directory inside itself");
+        lock.writeLock().lock();
+        try {
+            if (isReadOnly(sourcePath) || isReadOnly(destPath)) {
+                throw new FileSystemException("Access denied");
+            }
+            if (!exists(sourcePath)) {
+                throw new FileSystemException("No such file");
+            }
+            if (exists(destPath)) {
+                throw new FileSystemException("File exists");
+            }
+            if (contains(sourcePath, destPath)) {
+                throw new FileSystemException("Can't move a directory inside itself");
+            }
+            copy(sourcePath, destPath);
+            delete(sourcePath);
+        } finally {
+            lock.writeLock().unlock();
         }
-        copy(sourcePath, destPath);
-        delete(sourcePath);
     }
 
-    public synchronized void copy(String sourcePath, String destPath) throws FileSystemException {
+    public void copy(String sourcePath, String destPath) throws FileSystemException {
         sourcePath = sanitizePath(sourcePath);
         destPath = sanitizePath(destPath);
-        if (isReadOnly(destPath)) {
-            throw new FileSystemException("/" + destPath + ": Access denied");
-        }
-        if (!exists(sourcePath)) {
-            throw new FileSystemException("/" + sourcePath + ": No such file");
-        }
-        if (exists(destPath)) {
-            throw new FileSystemException("/" + destPath + ": File exists");
-        }
-        if (contains(sourcePath, destPath)) {
-            throw new FileSystemException("/" + sourcePath + ": Can't copy a directory inside itself");
+        lock.writeLock().lock();
+        try {
+            if (isReadOnly(destPath)) {
+                throw new FileSystemException("/" + destPath + ": Access denied");
+            }
+            if (!exists(sourcePath)) {
+                throw new FileSystemException("/" + sourcePath + ": No such file");
+            }
+            if (exists(destPath)) {
+                throw new FileSystemException("/" + destPath + ": File exists");
+            }
+            if (contains(sourcePath, destPath)) {
+                throw new FileSystemException("/" + sourcePath + ": Can't copy a directory inside itself");
+            }
+            copyRecursive(sourcePath, getMount(sourcePath), destPath, getMount(destPath), 0);
+        } finally {
+            lock.writeLock().unlock();
         }
-        copyRecursive(sourcePath, getMount(sourcePath), destPath, getMount(destPath), 0);
     }
 
-    private synchronized void copyRecursive(String sourcePath, MountWrapper sourceMount, String destinationPath, MountWrapper destinationMount, int depth) throws FileSystemException {
+    private void copyRecursive(String sourcePath, MountWrapper sourceMount, String destinationPath, MountWrapper destinationMount, int depth) throws FileSystemException {
         if (!sourceMount.exists(sourcePath)) return;
         if (depth >= MAX_COPY_DEPTH) throw new FileSystemException("Too many directories to copy");
 
@@ -318,81 +394,94 @@ private synchronized void copyRecursive(String sourcePath, MountWrapper sourceMo
     }
 
     private void cleanup() {
-        synchronized (openFiles) {
-            Reference<?> ref;
-            while ((ref = openFileQueue.poll()) != null) {
-                IoUtil.closeQuietly(openFiles.remove(ref));
-            }
+        Reference<?> ref;
+        while ((ref = openFileQueue.poll()) != null) {
+            IoUtil.closeQuietly(removeFile(ref));
         }
     }
 
-    private synchronized <T extends Closeable> FileSystemWrapper<T> openFile(MountWrapper mount, Channel channel, T file) throws FileSystemException {
-        synchronized (openFiles) {
-            if (CoreConfig.maximumFilesOpen > 0 &&
-                openFiles.size() >= CoreConfig.maximumFilesOpen) {
-                IoUtil.closeQuietly(file);
-                IoUtil.closeQuietly(channel);
-                throw new FileSystemException("Too many files already open");
-            }
-
-            var channelWrapper = new ChannelWrapper<T>(file, channel);
-            var fsWrapper = new FileSystemWrapper<T>(this, mount, channelWrapper, openFileQueue);
-            openFiles.put(fsWrapper.self, channelWrapper);
-            return fsWrapper;
+    private <T extends Closeable> FileSystemWrapper<T> openFile(MountWrapper mount, Channel channel, T file) throws FileSystemException {
+        // Reserve a slot for this file before opening it, so concurrent opens cannot exceed the limit.
+        var maxFiles = CoreConfig.maximumFilesOpen;
+        if (openFileCount.incrementAndGet() > maxFiles && maxFiles > 0) {
+            openFileCount.decrementAndGet();
+            IoUtil.closeQuietly(file);
+            IoUtil.closeQuietly(channel);
+            throw new FileSystemException("Too many files already open");
         }
+
+        var channelWrapper = new ChannelWrapper<T>(file, channel);
+        var fsWrapper = new FileSystemWrapper<T>(this, mount, channelWrapper, openFileQueue);
+        openFiles.put(fsWrapper.self, channelWrapper);
+        return fsWrapper;
     }
 
     void removeFile(FileSystemWrapper<?> handle) {
-        synchronized (openFiles) {
-            openFiles.remove(handle.self);
-        }
+        removeFile(handle.self);
+    }
+
+    @Nullable
+    private ChannelWrapper<?> removeFile(Reference<?> reference) {
+        var channel = openFiles.remove(reference);
+        if (channel != null) openFileCount.decrementAndGet();
+        return channel;
     }
 
-    public synchronized <T extends Closeable> FileSystemWrapper<T> openForRead(String path, Function<ReadableByteChannel, T> open) throws FileSystemException {
+    public <T extends Closeable> FileSystemWrapper<T> openForRead(String path, Function<ReadableByteChannel, T> open) throws FileSystemException {
         cleanup();
 
         path = sanitizePath(path);
-        var mount = getMount(path);
-        var channel = mount.openForRead(path);
+        MountWrapper mount;
+        ReadableByteChannel channel;
+        lock.readLock().lock();
+        try {
+            mount = getMount(path);
+            channel = mount.openForRead(path);
+        } finally {
+            lock.readLock().unlock();
+        }
         return openFile(mount, channel, open.apply(channel));
     }
 
-    public synchronized <T extends Closeable> FileSystemWrapper<T> openForWrite(String path, boolean append, Function<WritableByteChannel, T> open) throws FileSystemException {
+    public <T extends Closeable> FileSystemWrapper<T> openForWrite(String path, boolean append, Function<WritableByteChannel, T> open) throws FileSystemException {
         cleanup();
 
         path = sanitizePath(path);
-        var mount = getMount(path);
-        var channel = append ? mount.openForAppend(path) : mount.openForWrite(path);
+        MountWrapper mount;
+        WritableByteChannel channel;
+        lock.writeLock().lock();
+        try {
+            mount = getMount(path);
+            channel = append ? mount.openForAppend(path) : mount.openForWrite(path);
+        } finally {
+            lock.writeLock().unlock();
+        }
         return openFile(mount, channel, open.apply(channel));
     }
 
-    public synchronized long getFreeSpace(String path) throws FileSystemException {
+    public long getFreeSpace(String path) throws FileSystemException {
         path = sanitizePath(path);
-        var mount = getMount(path);
-        return mount.getFreeSpace();
+        lock.readLock().lock();
+        try {
+            return getMount(path).getFreeSpace();
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
-    public synchronized OptionalLong getCapacity(String path) throws FileSystemException {
+    public OptionalLong getCapacity(String path) throws FileSystemException {
         path = sanitizePath(path);
-        var mount = getMount(path);
-        return mount.getCapacity();
-    }
-
-    private synchronized MountWrapper getMount(String path) throws FileSystemException {
-        // Return the deepest mount that contains a given path
-        var it = mounts.values().iterator();
-        MountWrapper match = null;
-        var matchLength = 999;
-        while (it.hasNext()) {
-            var mount = it.next();
-            if (contains(mount.getLocation(), path)) {
-                var len = toLocal(path, mount.getLocation()).length();
-                if (match == null || len < matchLength) {
-                    match = mount;
-                    matchLength = len;
-                }
-            }
+        lock.readLock().lock();
+        try {
+            return getMount(path).getCapacity();
+        } finally {
+            lock.readLock().unlock();
         }
+    }
+
+    private MountWrapper getMount(String path) throws FileSystemException {
+        // Return the deepest mount that contains a given path. The caller must hold the lock.
+        var match = mountTrie.find(path);
         if (match == null) {
             throw new FileSystemException("/" + path + ": Invalid Path");
         }
@@ -409,15 +498,81 @@ private static String sanitizePath(String path) {
 
     private static final Pattern threeDotsPattern = Pattern.compile("^\\.{3,}$");
 
+    // Clean the path or illegal characters.
+    private static final char[] specialChars = new char[]{
+        '"', ':', '<', '>', '?', '|', // Sorted by ascii value (important)
+    };
+
+    /**
+     * A small cache of recently sanitised paths. Programs tend to pass the same few (unclean) paths repeatedly, such as
+     * {@code /rom/programs/...}, so this avoids re-normalising them each time.
+     * <p>
+     * This is a direct-mapped cache indexed by the path's hash. Entries are immutable, so it may be safely read and
+     * written from multiple threads without locking - at worst, we'll miss the cache and recompute the path.
+     */
+    private static final SanitizedPath[] sanitizeCache = new SanitizedPath[256];
+
+    private record SanitizedPath(String input, boolean allowWildcards, String output) {
+    }
+
     public static String sanitizePath(String path, boolean allowWildcards) {
+        // Most paths (especially those from the file system itself) are already clean, so skip the cache entirely.
+        if (isSanitized(path, allowWildcards)) return path;
+
+        var slot = (path.hashCode() & 0x7fffffff) & (sanitizeCache.length - 1);
+        var cached = sanitizeCache[slot];
+        if (cached != null && cached.allowWildcards() == allowWildcards && cached.input().equals(path)) {
+            return cached.output();
+        }
+
+        var result = sanitizePathImpl(path, allowWildcards);
+        sanitizeCache[slot] = new SanitizedPath(path, allowWildcards, result);
+        return result;
+    }
+
+    /**
+     * Determine whether a path is already in its sanitised form, and so {@link #sanitizePath(String, boolean)} would
+     * return it unchanged.
+     *
+     * @param path           The path to check.
+     * @param allowWildcards Whether wildcards are permitted.
+     * @return Whether this path is already sanitised.
+     */
+    private static boolean isSanitized(String path, boolean allowWildcards) {
+        var length = path.length();
+        var segmentStart = 0;
+        for (var i = 0; i <= length; i++) {
+            if (i == length || path.charAt(i) == '/') {
+                // Reject empty segments (leading, trailing or repeated slashes), ".", ".." and "..." (or longer), and
+                // any segments which will be truncated.
+                var segmentLength = i - segmentStart;
+                if (segmentLength == 0 && length > 0) return false;
+                if (segmentLength >= 255 || isDots(path, segmentStart, i)) return false;
+                segmentStart = i + 1;
+                continue;
+            }
+
+            var c = path.charAt(i);
+            if (c < 32 || c == '\\' || (c == '*' && !allowWildcards) || Arrays.binarySearch(specialChars, c) >= 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean isDots(String path, int start, int end) {
+        if (start == end) return false;
+        for (var i = start; i < end; i++) {
+            if (path.charAt(i) != '.') return false;
+        }
+        return true;
+    }
+
+    private static String sanitizePathImpl(String path, boolean allowWildcards) {
         // Allow windowsy slashes
         path = path.replace('\\', '/');
 
-        // Clean the path or illegal characters.
-        final var specialChars = new char[]{
-            '"', ':', '<', '>', '?', '|', // Sorted by ascii value (important)
-        };
-
         var cleanName = new StringBuilder();
         for (var i = 0; i < path.length(); i++) {
             var c = path.charAt(i);
@@ -21,7 +21,6 @@
 import java.lang.ref.Reference;
 import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
-import java.nio.channels.Channels;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.FileTime;
@@ -177,12 +176,13 @@ public ReadableByteChannel openForRead(String path) throws IOException {
                 var entry = zip.getEntry(file.path);
                 if (entry != null) {
                     try (var stream = zip.getInputStream(entry)) {
-                        if (stream.available() > MAX_CACHED_SIZE) return Channels.newChannel(stream);
-
                         contents = ByteStreams.toByteArray(stream);
-                        CONTENTS_CACHE.put(file, contents);
-                        return new ArrayByteChannel(contents);
                     }
+
+                    // Large files are not cached, but we still read them into memory. Otherwise we'd return a channel
+                    // for an already closed stream, and it's useful for handles to know the size of the file anyway.
+                    if (contents.length <= MAX_CACHED_SIZE) CONTENTS_CACHE.put(file, contents);
+                    return new ArrayByteChannel(contents);
                 }
             } catch (IOException e) {
                 // Treat errors as non-existence of file
@@ -0,0 +1,106 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2022. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+package dan200.computercraft.core.filesystem;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * An immutable trie of {@link MountWrapper}s, keyed by the segments of their location.
+ * <p>
+ * This allows finding the deepest mount containing a path by walking down the path one segment at a time, without
+ * needing to allocate any strings. Like {@link FileSystem#contains(String, String)}, segments are compared
+ * case-insensitively.
+ */
+final class MountTrie {
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private final Node root;
+
+    private MountTrie(Node root) {
+        this.root = root;
+    }
+
+    static MountTrie of(Collection<MountWrapper> mounts) {
+        var root = new Node("");
+        for (var mount : mounts) {
+            var location = mount.getLocation();
+            var node = root;
+            var start = 0;
+            while (start < location.length()) {
+                var end = location.indexOf('/', start);
+                if (end < 0) end = location.length();
+                node = node.getOrCreateChild(location.substring(start, end));
+                start = end + 1;
+            }
+
+            // If two locations differ only in case, we just pick one. This is consistent with FileSystem's original
+            // (linear) behaviour, which would pick whichever mount it found first.
+            if (node.mount == null) node.mount = mount;
+        }
+
+        return new MountTrie(root);
+    }
+
+    /**
+     * Find the deepest mount which contains this path.
+     *
+     * @param path The path to look up. This must be {@linkplain FileSystem#sanitizePath(String, boolean) sanitised}.
+     * @return The deepest mount, or {@code null} if no mount contains this path.
+     */
+    @Nullable
+    MountWrapper find(String path) {
+        if (path.equals("..") || path.startsWith("../")) return null;
+
+        var node = root;
+        var match = root.mount;
+        var start = 0;
+        while (start < path.length()) {
+            var end = path.indexOf('/', start);
+            if (end < 0) end = path.length();
+
+            node = node.getChild(path, start, end - start);
+            if (node == null) break;
+            if (node.mount != null) match = node.mount;
+
+            start = end + 1;
+        }
+
+        return match;
+    }
+
+    private static final class Node {
+        final String name;
+        Node[] children = NO_CHILDREN;
+        @Nullable
+        MountWrapper mount;
+
+        Node(String name) {
+            this.name = name;
+        }
+
+        @Nullable
+        Node getChild(String path, int offset, int length) {
+            for (var child : children) {
+                if (child.name.length() == length && child.name.regionMatches(true, 0, path, offset, length)) {
+                    return child;
+                }
+            }
+            return null;
+        }
+
+        Node getOrCreateChild(String name) {
+            var child = getChild(name, 0, name.length());
+            if (child != null) return child;
+
+            child = new Node(name);
+            children = Arrays.copyOf(children, children.length + 1);
+            children[children.length - 1] = child;
+            return child;
+        }
+    }
+}
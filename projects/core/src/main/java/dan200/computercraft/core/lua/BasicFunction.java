@@ -38,6 +38,10 @@ class BasicFunction extends VarArgFunction {
         funcName = name;
     }
 
+    String getName() {
+        return funcName;
+    }
+
     @Override
     public Varargs invoke(LuaState luaState, Varargs args) throws LuaError {
         var arguments = VarargArguments.of(args);
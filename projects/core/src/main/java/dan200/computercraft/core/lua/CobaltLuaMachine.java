@@ -5,6 +5,7 @@
  */
 package dan200.computercraft.core.lua;
 
+import com.google.common.io.ByteStreams;
 import dan200.computercraft.api.lua.IDynamicLuaObject;
 import dan200.computercraft.api.lua.ILuaAPI;
 import dan200.computercraft.api.lua.ILuaContext;
@@ -15,12 +16,10 @@
 import dan200.computercraft.core.asm.ObjectSource;
 import dan200.computercraft.core.computer.TimeoutState;
 import dan200.computercraft.core.metrics.Metrics;
-import dan200.computercraft.core.util.ThreadUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.squiddev.cobalt.*;
 import org.squiddev.cobalt.compiler.CompileException;
-import org.squiddev.cobalt.compiler.LoadState;
 import org.squiddev.cobalt.debug.DebugFrame;
 import org.squiddev.cobalt.debug.DebugHandler;
 import org.squiddev.cobalt.debug.DebugState;
@@ -32,9 +31,6 @@
 import java.io.Serial;
 import java.nio.ByteBuffer;
 import java.util.*;
-import java.util.concurrent.SynchronousQueue;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
 
 import static org.squiddev.cobalt.ValueFactory.valueOf;
 import static org.squiddev.cobalt.ValueFactory.varargsOf;
@@ -44,16 +40,10 @@
 public class CobaltLuaMachine implements ILuaMachine {
     private static final Logger LOG = LoggerFactory.getLogger(CobaltLuaMachine.class);
 
-    private static final ThreadPoolExecutor COROUTINES = new ThreadPoolExecutor(
-        0, Integer.MAX_VALUE,
-        5L, TimeUnit.MINUTES,
-        new SynchronousQueue<>(),
-        ThreadUtils.factory("Coroutine")
-    );
-
     private static final LuaMethod FUNCTION_METHOD = (target, context, args) -> ((ILuaFunction) target).call(args);
 
     private final TimeoutState timeout;
+    private final LuaProfiler profiler;
     private final TimeoutDebugHandler debug;
     private final ILuaContext context;
 
@@ -65,17 +55,19 @@ public class CobaltLuaMachine implements ILuaMachine {
 
     public CobaltLuaMachine(MachineEnvironment environment) {
         timeout = environment.timeout();
+        profiler = environment.profiler();
         context = environment.context();
         debug = new TimeoutDebugHandler();
 
         // Create an environment to run in
         var metrics = environment.metrics();
+        var coroutines = CoroutineExecutors.get(CoreConfig.coroutineMode);
         var state = this.state = LuaState.builder()
             .resourceManipulator(new VoidResourceManipulator())
             .debug(debug)
             .coroutineExecutor(command -> {
                 metrics.observe(Metrics.COROUTINES_CREATED);
-                COROUTINES.execute(() -> {
+                coroutines.execute(() -> {
                     try {
                         command.run();
                     } finally {
@@ -104,10 +96,14 @@ public CobaltLuaMachine(MachineEnvironment environment) {
         globals.rawset("loadfile", Constants.NIL);
         globals.rawset("print", Constants.NIL);
 
+        // Share compiled read-only files (such as ROM programs) with other computers. This is removed by the bios.
+        globals.rawset("_CC_LOAD_CACHED", new PrototypeCache.LoadFunction());
+
         // Add version globals
         globals.rawset("_VERSION", valueOf("Lua 5.1"));
         globals.rawset("_HOST", valueOf(environment.hostString()));
         globals.rawset("_CC_DEFAULT_SETTINGS", valueOf(CoreConfig.defaultComputerSettings));
+        globals.rawset("_CC_TEXTUTILS", TextutilsLib.create(timeout));
         if (CoreConfig.disableLua51Features) {
             globals.rawset("_CC_DISABLE_LUA51_FEATURES", Constants.TRUE);
         }
@@ -134,7 +130,7 @@ public MachineResult loadBios(InputStream bios) {
         if (state == null || globals == null) throw new IllegalStateException("Machine has been destroyed.");
 
         try {
-            var value = LoadState.load(state, bios, "@bios.lua", globals);
+            var value = PrototypeCache.load(ByteStreams.toByteArray(bios), "@bios.lua", globals);
             mainRoutine = new LuaThread(state, value, globals);
             return MachineResult.OK;
         } catch (CompileException e) {
@@ -252,6 +248,8 @@ private LuaValue toValue(@Nullable Object object, @Nullable IdentityHashMap<Obje
             b.get(bytes);
             return valueOf(bytes);
         }
+        if (object instanceof OwnedBytes b) return valueOf(b.bytes());
+        if (object instanceof FrozenValue frozen) return frozen.toValue();
 
         if (values == null) values = new IdentityHashMap<>(1);
         var result = values.get(object);
@@ -309,15 +307,23 @@ Varargs toValues(@Nullable Object[] objects) {
         if (objects == null || objects.length == 0) return Constants.NONE;
         if (objects.length == 1) return toValue(objects[0], null);
 
-        var result = new IdentityHashMap<Object, LuaValue>(0);
+        // Only allocate the identity map once we find a value which needs it: most functions only return primitives.
+        IdentityHashMap<Object, LuaValue> result = null;
         var values = new LuaValue[objects.length];
         for (var i = 0; i < values.length; i++) {
             var object = objects[i];
+            if (result == null && !isPrimitive(object)) result = new IdentityHashMap<>(1);
             values[i] = toValue(object, result);
         }
         return varargsOf(values);
     }
 
+    private static boolean isPrimitive(@Nullable Object object) {
+        return object == null || object instanceof Number || object instanceof Boolean || object instanceof String
+            || object instanceof byte[] || object instanceof ByteBuffer || object instanceof OwnedBytes
+            || object instanceof FrozenValue;
+    }
+
     @Nullable
     static Object toObject(LuaValue value, @Nullable IdentityHashMap<LuaValue, Object> objects) {
         switch (value.type()) {
@@ -390,8 +396,13 @@ private class TimeoutDebugHandler extends DebugHandler {
         private int oldFlags;
         private boolean oldInHook;
 
+        private final LuaProfiler profiler;
+        private boolean profiling;
+        private int untilSample;
+
         TimeoutDebugHandler() {
             timeout = CobaltLuaMachine.this.timeout;
+            profiler = CobaltLuaMachine.this.profiler;
         }
 
         @Override
@@ -400,8 +411,13 @@ public void onInstruction(DebugState ds, DebugFrame di, int pc) throws LuaError,
 
             if (isPaused) resetPaused(ds, di);
 
+            if (profiling && --untilSample <= 0) untilSample = profiler.sample(ds);
+
             // We check our current pause/abort state every 128 instructions.
             if ((count = (count + 1) & 127) == 0) {
+                // Only check if the profiler is running here, to keep the overhead low when it isn't.
+                profiling = profiler.isRunning();
+
                 if (timeout.isHardAborted() || state == null) throw HardAbortError.INSTANCE;
                 if (timeout.isPaused()) handlePause(ds, di);
                 if (timeout.isSoftAborted()) handleSoftAbort();
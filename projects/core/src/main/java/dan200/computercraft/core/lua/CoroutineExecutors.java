@@ -0,0 +1,76 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2022. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+package dan200.computercraft.core.lua;
+
+import dan200.computercraft.core.util.ThreadUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.*;
+
+/**
+ * The shared executors which Lua coroutines are run on.
+ *
+ * @see CoroutineMode
+ */
+final class CoroutineExecutors {
+    private static final Logger LOG = LoggerFactory.getLogger(CoroutineExecutors.class);
+
+    private CoroutineExecutors() {
+    }
+
+    /**
+     * Get the executor to use for a given coroutine mode.
+     *
+     * @param mode The mode to run coroutines in.
+     * @return The executor to submit coroutines to.
+     */
+    static Executor get(CoroutineMode mode) {
+        return switch (mode) {
+            case THREADS -> Threads.EXECUTOR;
+            case VIRTUAL_THREADS -> {
+                var executor = VirtualThreads.EXECUTOR;
+                yield executor == null ? Threads.EXECUTOR : executor;
+            }
+        };
+    }
+
+    private static final class Threads {
+        static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(
+            0, Integer.MAX_VALUE,
+            5L, TimeUnit.MINUTES,
+            new SynchronousQueue<>(),
+            ThreadUtils.factory("Coroutine")
+        );
+    }
+
+    private static final class VirtualThreads {
+        static final @Nullable Executor EXECUTOR = create();
+
+        /**
+         * Create an executor which starts a new virtual thread for each task.
+         * <p>
+         * We compile against Java 17, so need to look up the virtual thread APIs reflectively.
+         *
+         * @return The constructed executor, or {@code null} if virtual threads are not available.
+         */
+        @Nullable
+        private static Executor create() {
+            try {
+                var builderClass = Class.forName("java.lang.Thread$Builder");
+                var builder = Thread.class.getMethod("ofVirtual").invoke(null);
+                builder = builderClass.getMethod("name", String.class, long.class)
+                    .invoke(builder, "ComputerCraft-Coroutine-", 0L);
+                var factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+                return (Executor) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(null, factory);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                LOG.warn("Virtual threads are not available on this Java version, running coroutines on platform threads instead.");
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2022. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+package dan200.computercraft.core.lua;
+
+import dan200.computercraft.core.CoreConfig;
+
+/**
+ * The mechanism {@link CobaltLuaMachine} uses to run Lua coroutines.
+ * <p>
+ * Cobalt runs each coroutine on its own Java thread, which is parked whenever the coroutine is suspended. Programs
+ * with many live coroutines will therefore hold on to many threads.
+ *
+ * @see CoreConfig#coroutineMode
+ */
+public enum CoroutineMode {
+    /**
+     * Run coroutines on platform threads, taken from a shared, unbounded thread pool.
+     */
+    THREADS,
+
+    /**
+     * Run each coroutine on a virtual thread. These are much cheaper to create and park than platform threads.
+     * <p>
+     * Virtual threads are only available on Java 21 or later. On older runtimes we fall back to {@link #THREADS}.
+     */
+    VIRTUAL_THREADS;
+}
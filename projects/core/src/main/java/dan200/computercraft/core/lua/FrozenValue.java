@@ -0,0 +1,221 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2022. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+package dan200.computercraft.core.lua;
+
+import org.squiddev.cobalt.Constants;
+import org.squiddev.cobalt.LuaTable;
+import org.squiddev.cobalt.LuaValue;
+
+import javax.annotation.Nullable;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import static org.squiddev.cobalt.ValueFactory.valueOf;
+
+/**
+ * An immutable, partially converted copy of a Java object, which can be cheaply converted into a Lua value many times.
+ * <p>
+ * When the same object (such as a modem message) is queued as an event on many computers, each computer must convert
+ * it into Lua values. Tables cannot be shared between computers, but strings and numbers can. This converts the
+ * object graph once, reusing the converted strings and numbers. Each computer then only needs to allocate fresh tables.
+ * <p>
+ * Only plain data (strings, byte arrays, numbers, booleans, maps, collections and arrays) can be frozen. Other
+ * objects (such as functions or peripherals) are left as-is.
+ *
+ * @see CobaltLuaMachine
+ */
+public final class FrozenValue {
+    private final Object value;
+    private final boolean aliased;
+
+    private FrozenValue(Object value, boolean aliased) {
+        this.value = value;
+        this.aliased = aliased;
+    }
+
+    /**
+     * Freeze a value, so it can be efficiently queued on multiple computers.
+     *
+     * @param value The value to freeze.
+     * @return The frozen value. If the value is a primitive, or cannot be frozen, then the original value is returned.
+     */
+    @Nullable
+    public static Object of(@Nullable Object value) {
+        if (value == null || value instanceof Number || value instanceof Boolean) return value;
+
+        var freezer = new Freezer();
+        var frozen = freezer.freeze(value);
+        return frozen == null ? value : new FrozenValue(frozen, freezer.aliased);
+    }
+
+    /**
+     * Convert this value to a Lua value. This will create fresh tables each time, but share any strings.
+     *
+     * @return The converted Lua value.
+     */
+    LuaValue toValue() {
+        return thaw(value, aliased ? new IdentityHashMap<>(1) : null);
+    }
+
+    private static LuaValue thaw(Object value, @Nullable IdentityHashMap<TableNode, LuaTable> tables) {
+        if (!(value instanceof TableNode node)) return (LuaValue) value;
+
+        if (tables != null) {
+            var existing = tables.get(node);
+            if (existing != null) return existing;
+        }
+
+        var table = new LuaTable(node.arraySize, node.hashSize);
+        if (tables != null) tables.put(node, table);
+
+        var keys = node.keys;
+        var values = node.values;
+        for (var i = 0; i < keys.length; i++) {
+            var key = keys[i];
+            if (key != null) table.rawset(thaw(key, tables), thaw(values[i], tables));
+        }
+        return table;
+    }
+
+    /**
+     * A frozen table. Each key and value is either a {@link LuaValue} or another {@link TableNode}.
+     */
+    private static final class TableNode {
+        final Object[] keys;
+        final Object[] values;
+        final int arraySize;
+        final int hashSize;
+
+        TableNode(Object[] keys, Object[] values, int arraySize, int hashSize) {
+            this.keys = keys;
+            this.values = values;
+            this.arraySize = arraySize;
+            this.hashSize = hashSize;
+        }
+    }
+
+    private static final class Freezer {
+        private final IdentityHashMap<Object, Object> seen = new IdentityHashMap<>();
+        boolean aliased = false;
+
+        /**
+         * Freeze a value.
+         *
+         * @param object The object to freeze.
+         * @return The frozen value, or {@code null} if this value cannot be frozen.
+         */
+        @Nullable
+        Object freeze(@Nullable Object object) {
+            if (object == null) return Constants.NIL;
+            if (object instanceof Number num) return valueOf(num.doubleValue());
+            if (object instanceof Boolean bool) return valueOf(bool);
+            if (object instanceof String str) return valueOf(str);
+            if (object instanceof byte[] b) return valueOf(Arrays.copyOf(b, b.length));
+            if (object instanceof ByteBuffer b) {
+                var bytes = new byte[b.remaining()];
+                b.duplicate().get(bytes);
+                return valueOf(bytes);
+            }
+            if (object instanceof FrozenValue frozen) {
+                // Frozen values may be shared between several parents, so we can't reuse them directly.
+                aliased = true;
+                return frozen.value;
+            }
+
+            var existing = seen.get(object);
+            if (existing != null) {
+                aliased = true;
+                return existing;
+            }
+
+            if (object instanceof Map<?, ?> map) {
+                var size = map.size();
+                var keys = new Object[size];
+                var values = new Object[size];
+                var node = new TableNode(keys, values, 0, size);
+                seen.put(object, node);
+
+                var i = 0;
+                for (Map.Entry<?, ?> pair : map.entrySet()) {
+                    var key = freeze(pair.getKey());
+                    var value = freeze(pair.getValue());
+                    if (key == null || value == null) return null;
+                    if (key == Constants.NIL || value == Constants.NIL || i >= size) continue;
+
+                    keys[i] = key;
+                    values[i] = value;
+                    i++;
+                }
+
+                return i == size ? node : trim(object, node, i);
+            }
+
+            if (object instanceof Collection<?> objects) {
+                var size = objects.size();
+                var keys = new Object[size];
+                var values = new Object[size];
+                var node = new TableNode(keys, values, size, 0);
+                seen.put(object, node);
+
+                var i = 0;
+                for (Object child : objects) {
+                    if (i >= size) break;
+                    var value = freeze(child);
+                    if (value == null) return null;
+                    keys[i] = valueOf(i + 1);
+                    values[i] = value;
+                    i++;
+                }
+
+                return i == size ? node : trim(object, node, i);
+            }
+
+            if (object instanceof Object[] objects) {
+                var keys = new Object[objects.length];
+                var values = new Object[objects.length];
+                var node = new TableNode(keys, values, objects.length, 0);
+                seen.put(object, node);
+
+                for (var i = 0; i < objects.length; i++) {
+                    var value = freeze(objects[i]);
+                    if (value == null) return null;
+                    keys[i] = valueOf(i + 1);
+                    values[i] = value;
+                }
+
+                return node;
+            }
+
+            // Functions, objects with Lua methods, etc... are not supported.
+            return null;
+        }
+
+        /**
+         * Trim a table which had fewer entries than expected, typically because some keys or values were nil.
+         *
+         * @param object The original object.
+         * @param node   The table node, which may have been referenced by other nodes already.
+         * @param size   The number of entries in the table.
+         * @return The trimmed table.
+         */
+        private Object trim(Object object, TableNode node, int size) {
+            // If this node has already been referenced elsewhere (i.e. a cycle) then we can't replace it. Just leave
+            // it as-is: unset entries are skipped when thawing.
+            if (aliased) return node;
+
+            var keys = new Object[size];
+            var values = new Object[size];
+            System.arraycopy(node.keys, 0, keys, 0, size);
+            System.arraycopy(node.values, 0, values, 0, size);
+            var trimmed = new TableNode(keys, values, Math.min(node.arraySize, size), Math.min(node.hashSize, size));
+            seen.put(object, trimmed);
+            return trimmed;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2022. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+package dan200.computercraft.core.lua;
+
+import org.squiddev.cobalt.Prototype;
+import org.squiddev.cobalt.debug.DebugFrame;
+import org.squiddev.cobalt.debug.DebugState;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * A sampling profiler for Lua code.
+ * <p>
+ * While the profiler is running, the Lua machine records the current call stack every {@code interval} instructions.
+ * Samples are stored in a fixed-size ring buffer, so a profiler which is left running only keeps the most recent
+ * samples. Once stopped, the samples can be written in the "collapsed stack" format understood by most flame graph
+ * tools.
+ * <p>
+ * Each computer has a single profiler, which is kept across reboots. A stopped profiler has almost no overhead, as the
+ * Lua machine only checks whether it is running every few instructions.
+ */
+public final class LuaProfiler {
+    private static final int MAX_SOURCE_LENGTH = 60;
+
+    private volatile boolean running;
+    private int interval;
+    private @Nullable String[] samples;
+    private int nextSample;
+    private long totalSamples;
+
+    /**
+     * A cache of frame names. Prototypes are immutable, so this is safe to keep while the profiler is running.
+     */
+    private final Map<Prototype, String> names = new IdentityHashMap<>();
+
+    /**
+     * Start profiling, discarding any existing samples.
+     *
+     * @param interval The number of instructions between each sample.
+     * @param capacity The maximum number of samples to keep.
+     */
+    public synchronized void start(int interval, int capacity) {
+        if (interval <= 0) throw new IllegalArgumentException("interval must be positive");
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive");
+
+        this.interval = interval;
+        samples = new String[capacity];
+        nextSample = 0;
+        totalSamples = 0;
+        names.clear();
+        running = true;
+    }
+
+    /**
+     * Stop profiling.
+     *
+     * @return The collected profile, or {@code null} if the profiler was not running.
+     */
+    @Nullable
+    public synchronized Profile stop() {
+        var samples = this.samples;
+        if (!running || samples == null) return null;
+
+        running = false;
+        this.samples = null;
+        names.clear();
+
+        Map<String, Integer> stacks = new TreeMap<>();
+        for (var sample : samples) {
+            if (sample != null) stacks.merge(sample, 1, Integer::sum);
+        }
+        return new Profile(totalSamples, Collections.unmodifiableMap(stacks));
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Record the current call stack.
+     *
+     * @param state The debug state of the currently running coroutine.
+     * @return The number of instructions until the next sample should be taken.
+     */
+    synchronized int sample(DebugState state) {
+        // The machine may not have noticed we've been stopped yet.
+        var samples = this.samples;
+        if (samples == null) return interval;
+
+        List<String> frames = new ArrayList<>();
+        for (var level = 0; ; level++) {
+            var frame = state.getFrame(level);
+            if (frame == null) break;
+            frames.add(getName(frame));
+        }
+        Collections.reverse(frames);
+
+        samples[nextSample] = String.join(";", frames);
+        nextSample = (nextSample + 1) % samples.length;
+        totalSamples++;
+        return interval;
+    }
+
+    private String getName(DebugFrame frame) {
+        if (frame.closure != null) return names.computeIfAbsent(frame.closure.getPrototype(), LuaProfiler::getName);
+        if (frame.func instanceof ResultInterpreterFunction function) return "[java] " + function.getName();
+        if (frame.func instanceof BasicFunction function) return "[java] " + function.getName();
+        return "[java]";
+    }
+
+    private static String getName(Prototype prototype) {
+        var source = getShortSource(prototype.source == null ? "?" : prototype.source.toString());
+        var name = prototype.linedefined == 0 ? source : source + ":" + prototype.linedefined;
+
+        // ";" separates frames in the collapsed format, so make sure it doesn't appear in the name.
+        return name.replace(';', ',');
+    }
+
+    /**
+     * Convert a chunk name into a short, human-readable form. This is similar to Lua's {@code luaO_chunkid}.
+     *
+     * @param source The chunk's name.
+     * @return The short name.
+     */
+    private static String getShortSource(String source) {
+        if (source.startsWith("@") || source.startsWith("=")) return truncate(source.substring(1));
+
+        var newline = source.indexOf('\n');
+        var firstLine = newline >= 0 ? source.substring(0, newline) + "..." : source;
+        return "[string \"" + truncate(firstLine) + "\"]";
+    }
+
+    private static String truncate(String value) {
+        return value.length() <= MAX_SOURCE_LENGTH ? value : value.substring(0, MAX_SOURCE_LENGTH) + "...";
+    }
+
+    /**
+     * The result of profiling a computer.
+     *
+     * @param totalSamples The total number of samples taken. This may be larger than the number of samples in
+     *                     {@code stacks}, if older samples were discarded.
+     * @param stacks       A map of call stacks (in the collapsed format, with frames separated by {@code ;}) to the
+     *                     number of times they were sampled.
+     */
+    public record Profile(long totalSamples, Map<String, Integer> stacks) {
+        /**
+         * Write this profile in the collapsed stack format, with one stack and its sample count per line.
+         *
+         * @param writer The writer to write to.
+         * @throws IOException If the profile could not be written.
+         */
+        public void writeCollapsed(Writer writer) throws IOException {
+            for (var stack : stacks.entrySet()) {
+                writer.write(stack.getKey());
+                writer.write(' ');
+                writer.write(Integer.toString(stack.getValue()));
+                writer.write('\n');
+            }
+        }
+    }
+}
@@ -19,12 +19,14 @@
  *                   metrics such as {@link Metrics#COROUTINES_CREATED}
  * @param timeout    The current timeout state. This should be used by the machine to interrupt its execution.
  * @param hostString A {@linkplain GlobalEnvironment#getHostString() host string} to identify the current environment.
+ * @param profiler   The computer's profiler. The machine should record samples to this while it is running.
  * @see ILuaMachine.Factory
  */
 public record MachineEnvironment(
     ILuaContext context,
     MetricsObserver metrics,
     TimeoutState timeout,
-    String hostString
+    String hostString,
+    LuaProfiler profiler
 ) {
 }
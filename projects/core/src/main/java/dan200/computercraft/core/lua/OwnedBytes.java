@@ -0,0 +1,18 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2022. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+package dan200.computercraft.core.lua;
+
+/**
+ * A byte array which is not referenced anywhere else, and so may be used as the backing array of a Lua string.
+ * <p>
+ * {@link CobaltLuaMachine} normally copies any {@code byte[]} or {@link java.nio.ByteBuffer} it is given, as the
+ * caller may continue to modify it. Returning this instead transfers ownership of the array to the Lua machine,
+ * avoiding the copy. This is mostly useful when reading large amounts of data, such as from files.
+ *
+ * @param bytes The bytes to convert. This must not be modified after this object is created.
+ */
+public record OwnedBytes(byte[] bytes) {
+}
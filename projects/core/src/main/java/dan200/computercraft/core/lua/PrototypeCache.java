@@ -0,0 +1,149 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2022. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+package dan200.computercraft.core.lua;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import org.squiddev.cobalt.*;
+import org.squiddev.cobalt.compiler.CompileException;
+import org.squiddev.cobalt.compiler.LuaC;
+import org.squiddev.cobalt.function.LuaFunction;
+import org.squiddev.cobalt.function.LuaInterpretedFunction;
+import org.squiddev.cobalt.function.VarArgFunction;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A process-wide cache of compiled Lua chunks.
+ * <p>
+ * Every computer runs the same bios and ROM programs. After a server restart, hundreds of computers may boot at once,
+ * all compiling identical code. Instead, we compile each chunk once and share the resulting {@link Prototype} between
+ * machines. Prototypes are never modified after compilation, so this is safe - each machine still gets its own closure
+ * (and so its own environment and upvalues).
+ * <p>
+ * Only the bios and files from read-only mounts (such as the ROM) are cached, as these are shared by every computer.
+ * Files are loaded through {@link LoadFunction}, which is only visible to the bios's {@code loadfile}.
+ * <p>
+ * Chunks are keyed by their name and a hash of their contents, so a modified file will never load stale code.
+ */
+final class PrototypeCache {
+    /**
+     * Only cache chunks smaller than 1MiB.
+     */
+    private static final int MAX_CACHED_SIZE = 1 << 20;
+
+    /**
+     * Limit the entire cache to (roughly) 16MiB of compiled code.
+     */
+    private static final int MAX_CACHE_SIZE = 16 << 20;
+
+    private static final Cache<Key, Prototype> CACHE = CacheBuilder.newBuilder()
+        .concurrencyLevel(4)
+        .expireAfterAccess(5, TimeUnit.MINUTES)
+        .maximumWeight(MAX_CACHE_SIZE)
+        .<Key, Prototype>weigher((k, v) -> (int) Math.min(estimateSize(v), Integer.MAX_VALUE))
+        .build();
+
+    private PrototypeCache() {
+    }
+
+    /**
+     * Compile a chunk, or fetch it from the cache if it has already been compiled.
+     *
+     * @param contents The chunk's source code.
+     * @param offset   The offset into {@code contents} the source starts at.
+     * @param length   The length of the source code.
+     * @param name     The name of this chunk, such as {@code @bios.lua}.
+     * @return The compiled chunk.
+     * @throws CompileException If the chunk could not be compiled.
+     * @throws IOException      If the chunk could not be read.
+     */
+    static Prototype compile(byte[] contents, int offset, int length, String name) throws CompileException, IOException {
+        if (length > MAX_CACHED_SIZE) return LuaC.compile(new ByteArrayInputStream(contents, offset, length), name);
+
+        var key = new Key(name, Hashing.sha256().hashBytes(contents, offset, length), length);
+        var prototype = CACHE.getIfPresent(key);
+        if (prototype != null) return prototype;
+
+        // We don't bother locking here: at worst several machines compile the same chunk at once, and the last one
+        // wins. This is no worse than not having a cache at all.
+        prototype = LuaC.compile(new ByteArrayInputStream(contents, offset, length), name);
+        CACHE.put(key, prototype);
+        return prototype;
+    }
+
+    static LuaFunction load(byte[] contents, String name, LuaTable env) throws CompileException, IOException {
+        return new LuaInterpretedFunction(compile(contents, 0, contents.length, name), env);
+    }
+
+    static void clear() {
+        CACHE.invalidateAll();
+    }
+
+    /**
+     * Estimate the memory used by a prototype, including its constants and any nested functions. This is only a rough
+     * guide (we don't know the exact layout of objects), but is much closer than just using the length of the source.
+     *
+     * @param prototype The prototype to measure.
+     * @return The estimated size in bytes.
+     */
+    static long estimateSize(Prototype prototype) {
+        long size = 128;
+        if (prototype.code != null) size += 16 + 4L * prototype.code.length;
+        if (prototype.lineinfo != null) size += 16 + 4L * prototype.lineinfo.length;
+        if (prototype.upvalues != null) size += 16 + 40L * prototype.upvalues.length;
+        if (prototype.locvars != null) size += 16 + 64L * prototype.locvars.length;
+
+        if (prototype.k != null) {
+            size += 16 + 8L * prototype.k.length;
+            for (var constant : prototype.k) size += constant instanceof LuaString string ? 40 + string.length : 24;
+        }
+
+        if (prototype.p != null) {
+            size += 16 + 8L * prototype.p.length;
+            for (var child : prototype.p) size += estimateSize(child);
+        }
+
+        return size;
+    }
+
+    private record Key(String name, HashCode hash, int length) {
+    }
+
+    /**
+     * Load a file from a read-only mount, using the cache.
+     * <p>
+     * This accepts the file's contents, the chunk name and an environment, and returns the loaded function, or
+     * {@code nil} if the chunk could not be loaded (in which case the bios falls back to {@code load}, which produces the
+     * error message).
+     * <p>
+     * This is exposed to the bios as {@code _CC_LOAD_CACHED}, which removes it from the global table before any other
+     * code runs. The bios only uses it for files which {@code fs.isReadOnly}, so programs cannot fill the cache with
+     * arbitrary chunks.
+     */
+    static final class LoadFunction extends VarArgFunction {
+        private static final int BINARY_SIGNATURE = 0x1b;
+
+        @Override
+        public Varargs invoke(LuaState state, Varargs args) {
+            if (args.arg(1) instanceof LuaString contents && contents.length > 0 && contents.bytes[contents.offset] != BINARY_SIGNATURE
+                && args.arg(2) instanceof LuaString name && name.length > 1 && name.bytes[name.offset] == '@'
+                && args.arg(3) instanceof LuaTable env) {
+                try {
+                    return new LuaInterpretedFunction(compile(contents.bytes, contents.offset, contents.length, name.toString()), env);
+                } catch (CompileException | IOException e) {
+                    // Let the original function produce the error message.
+                }
+            }
+
+            return Constants.NIL;
+        }
+    }
+}
@@ -49,6 +49,10 @@ static class Container {
         funcName = name;
     }
 
+    String getName() {
+        return funcName;
+    }
+
     @Override
     protected Varargs invoke(LuaState state, DebugFrame debugFrame, Varargs args) throws LuaError, UnwindThrowable {
         var arguments = VarargArguments.of(args);
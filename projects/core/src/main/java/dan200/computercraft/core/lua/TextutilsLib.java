@@ -0,0 +1,1092 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2022. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+package dan200.computercraft.core.lua;
+
+import dan200.computercraft.core.computer.TimeoutState;
+import org.squiddev.cobalt.*;
+import org.squiddev.cobalt.function.VarArgFunction;
+
+import javax.annotation.Nullable;
+import java.io.Serial;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.squiddev.cobalt.ValueFactory.valueOf;
+import static org.squiddev.cobalt.ValueFactory.varargsOf;
+
+/**
+ * Native implementations of {@code textutils}'s serialisation functions.
+ * <p>
+ * These are exposed to Lua as the {@code _CC_TEXTUTILS} global, and used by {@code textutils.lua} in preference to its
+ * own implementation. They are intended to be an exact drop-in replacement: they produce the same output, and the same
+ * errors, as the Lua code.
+ * <p>
+ * Rather than replicating every corner of the Lua implementation (such as how tables with metatables are handled, or
+ * Lua's exact {@code %q} formatting of control characters), each function may decline to handle its input, returning
+ * no values. {@code textutils} then falls back to the original Lua implementation. As none of these functions have any
+ * side effects, this is always safe to do.
+ * <p>
+ * Unlike Lua code, these functions cannot be interrupted part way through. To avoid a malicious value tying up the
+ * computer thread (or exhausting memory), the serialisers limit the size of their output, and give up (falling back
+ * to the Lua implementation) if the computer is asked to abort.
+ */
+final class TextutilsLib {
+    /**
+     * The maximum depth of nested tables we handle natively. The Lua implementation is recursive, so will fail with
+     * a stack overflow on deeply nested values - we fall back to it to preserve that behaviour.
+     */
+    private static final int MAX_DEPTH = 100;
+
+    /**
+     * The maximum length of a serialised value. The Lua implementation will time out long before producing anything
+     * this large, so we just error instead.
+     */
+    private static final int MAX_OUTPUT = 1 << 24;
+
+    /**
+     * The largest array index {@code serialiseJSON} will serialise. Larger indices require emitting millions of
+     * {@code null}s, so are rejected up front.
+     */
+    private static final int MAX_ARRAY_INDEX = 1 << 20;
+
+    private static final String TOO_LARGE = "Cannot serialize value, as the output is too large";
+
+    private static final Set<String> KEYWORDS = Set.of(
+        "and", "break", "do", "else", "elseif", "end", "false", "for", "function", "if", "in", "local", "nil", "not",
+        "or", "repeat", "return", "then", "true", "until", "while"
+    );
+
+    private static final byte[] HEX = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+
+    private TextutilsLib() {
+    }
+
+    static LuaTable create(TimeoutState timeout) {
+        var table = new LuaTable();
+        table.rawset("serialise", new Serialise(timeout));
+        table.rawset("unserialise", new Unserialise());
+        table.rawset("serialiseJSON", new SerialiseJSON(timeout));
+        table.rawset("unserialiseJSON", new UnserialiseJSON());
+        return table;
+    }
+
+    /**
+     * {@code serialise(value, compact, allow_repetitions)}: Serialise a value to a Lua literal, as
+     * {@code textutils.serialise}.
+     */
+    private static final class Serialise extends VarArgFunction {
+        private final TimeoutState timeout;
+
+        Serialise(TimeoutState timeout) {
+            this.timeout = timeout;
+        }
+
+        @Override
+        public Varargs invoke(LuaState state, Varargs args) throws LuaError {
+            var serialiser = new LuaSerialiser(state, timeout, args.arg(2).toBoolean(), args.arg(3).toBoolean());
+            try {
+                serialiser.serialise(args.arg(1), 0);
+            } catch (Fallback e) {
+                return Constants.NONE;
+            }
+            return serialiser.out.toLuaString();
+        }
+    }
+
+    /**
+     * {@code unserialise(str)}: Parse a Lua literal, as {@code textutils.unserialise}. Returns {@code true} and the
+     * parsed value on success.
+     */
+    private static final class Unserialise extends VarArgFunction {
+        @Override
+        public Varargs invoke(LuaState state, Varargs args) throws LuaError {
+            if (!(args.arg(1) instanceof LuaString contents)) return Constants.NONE;
+            try {
+                return varargsOf(Constants.TRUE, new LuaParser(contents).parse());
+            } catch (Fallback e) {
+                return Constants.NONE;
+            }
+        }
+    }
+
+    /**
+     * {@code serialiseJSON(value, nbt_style, json_null, empty_json_array)}: Serialise a value to JSON, as
+     * {@code textutils.serialiseJSON}.
+     */
+    private static final class SerialiseJSON extends VarArgFunction {
+        private final TimeoutState timeout;
+
+        SerialiseJSON(TimeoutState timeout) {
+            this.timeout = timeout;
+        }
+
+        @Override
+        public Varargs invoke(LuaState state, Varargs args) throws LuaError {
+            var serialiser = new JsonSerialiser(state, timeout, args.arg(2).toBoolean(), args.arg(3), args.arg(4));
+            try {
+                serialiser.serialise(args.arg(1), 0);
+            } catch (Fallback e) {
+                return Constants.NONE;
+            }
+            return serialiser.out.toLuaString();
+        }
+    }
+
+    /**
+     * {@code unserialiseJSON(str, nbt_style, parse_null, parse_empty_array, json_null, empty_json_array)}: Parse a
+     * JSON string, as {@code textutils.unserialiseJSON}.
+     * <p>
+     * Returns {@code true} and the parsed value on success. If the string is malformed, returns {@code false}, the
+     * position of the error, an error message and an optional argument to format into the message with
+     * {@code %q}. Quoting is left to the caller, so the message matches the Lua implementation exactly.
+     */
+    private static final class UnserialiseJSON extends VarArgFunction {
+        @Override
+        public Varargs invoke(LuaState state, Varargs args) throws LuaError {
+            if (!(args.arg(1) instanceof LuaString contents)) return Constants.NONE;
+            var parser = new JsonParser(
+                contents, args.arg(2).toBoolean(), args.arg(3).toBoolean(), args.arg(4).toBoolean(), args.arg(5), args.arg(6)
+            );
+            try {
+                return varargsOf(Constants.TRUE, parser.parse());
+            } catch (JsonError e) {
+                return varargsOf(Constants.FALSE, valueOf(e.position), valueOf(e.template), e.argument);
+            } catch (Fallback e) {
+                return Constants.NONE;
+            }
+        }
+    }
+
+    private static final class LuaSerialiser {
+        final Output out = new Output();
+        private final LuaState state;
+        private final TimeoutState timeout;
+        private final boolean compact;
+        private final boolean allowRepetitions;
+
+        /**
+         * Tables we have visited. {@code true} if we are currently serialising this table, {@code false} if it has
+         * been serialised already.
+         */
+        private final Map<LuaTable, Boolean> tracking = new IdentityHashMap<>();
+
+        LuaSerialiser(LuaState state, TimeoutState timeout, boolean compact, boolean allowRepetitions) {
+            this.state = state;
+            this.timeout = timeout;
+            this.compact = compact;
+            this.allowRepetitions = allowRepetitions;
+        }
+
+        void serialise(LuaValue value, int depth) throws LuaError, Fallback {
+            checkLimits(out, timeout);
+            switch (value.type()) {
+                case Constants.TTABLE -> serialiseTable((LuaTable) value, depth);
+                case Constants.TSTRING -> serialiseString((LuaString) value);
+                case Constants.TNUMBER, Constants.TINT -> {
+                    var number = value.toDouble();
+                    if (Double.isNaN(number)) {
+                        out.append("0/0");
+                    } else if (number == Double.POSITIVE_INFINITY) {
+                        out.append("1/0");
+                    } else if (number == Double.NEGATIVE_INFINITY) {
+                        out.append("-1/0");
+                    } else {
+                        out.append(value.toString());
+                    }
+                }
+                case Constants.TBOOLEAN -> out.append(value.toBoolean() ? "true" : "false");
+                case Constants.TNIL, Constants.TNONE -> out.append("nil");
+                default -> throw new LuaError("Cannot serialize type " + value.typeName(), 0);
+            }
+        }
+
+        private void serialiseTable(LuaTable table, int depth) throws LuaError, Fallback {
+            if (depth > MAX_DEPTH || table.getMetatable(state) != null) throw Fallback.INSTANCE;
+
+            var tracked = tracking.get(table);
+            if (tracked != null) {
+                throw new LuaError(tracked ? "Cannot serialize table with recursive entries" : "Cannot serialize table with repeated entries", 0);
+            }
+            tracking.put(table, true);
+
+            if (table.next(Constants.NIL).first().isNil()) {
+                out.append("{}");
+            } else {
+                out.append(compact ? "{" : "{\n");
+
+                // Emit the array part first, and then any remaining keys.
+                var length = 0;
+                while (true) {
+                    var value = table.rawget(length + 1);
+                    if (value.isNil()) break;
+                    length++;
+
+                    indent(depth + 1);
+                    serialise(value, depth + 1);
+                    out.append(compact ? "," : ",\n");
+                }
+
+                var key = Constants.NIL;
+                while (true) {
+                    var next = table.next(key);
+                    key = next.first();
+                    if (key.isNil()) break;
+                    if (isArrayIndex(key, length)) continue;
+
+                    indent(depth + 1);
+                    if (key instanceof LuaString string && isIdentifier(string)) {
+                        out.append(string);
+                        out.append(compact ? "=" : " = ");
+                    } else {
+                        out.append(compact ? "[" : "[ ");
+                        serialise(key, depth + 1);
+                        out.append(compact ? "]=" : " ] = ");
+                    }
+                    serialise(next.arg(2), depth + 1);
+                    out.append(compact ? "," : ",\n");
+                }
+
+                indent(depth);
+                out.append((byte) '}');
+            }
+
+            if (allowRepetitions) {
+                tracking.remove(table);
+            } else {
+                tracking.put(table, false);
+            }
+        }
+
+        private void indent(int depth) {
+            if (compact) return;
+            for (var i = 0; i < depth; i++) out.append("  ");
+        }
+
+        /**
+         * Write a string in the same format as {@code string.format("%q", value)}. We only handle the escapes common to
+         * all versions of Lua, falling back to the Lua implementation for any other control characters.
+         *
+         * @param value The string to write.
+         * @throws Fallback If the string contains characters we do not handle.
+         */
+        private void serialiseString(LuaString value) throws Fallback {
+            out.append((byte) '"');
+            for (var i = 0; i < value.length; i++) {
+                var c = value.bytes[value.offset + i];
+                switch (c) {
+                    case '"', '\\', '\n' -> {
+                        out.append((byte) '\\');
+                        out.append(c);
+                    }
+                    default -> {
+                        if ((c >= 0 && c < 0x20) || c == 0x7f) throw Fallback.INSTANCE;
+                        out.append(c);
+                    }
+                }
+            }
+            out.append((byte) '"');
+        }
+
+        private static boolean isArrayIndex(LuaValue key, int length) {
+            if (!(key instanceof LuaNumber)) return false;
+            var index = key.toDouble();
+            return index >= 1 && index <= length && index == Math.floor(index);
+        }
+
+        private static boolean isIdentifier(LuaString value) {
+            if (value.length == 0) return false;
+            for (var i = 0; i < value.length; i++) {
+                var c = value.bytes[value.offset + i];
+                if (!isIdentifierStart(c) && (i == 0 || !isDigit(c))) return false;
+            }
+
+            return !KEYWORDS.contains(value.toString());
+        }
+    }
+
+    private static final class JsonSerialiser {
+        final Output out = new Output();
+        private final LuaState state;
+        private final TimeoutState timeout;
+        private final boolean nbtStyle;
+        private final LuaValue jsonNull;
+        private final LuaValue emptyArray;
+
+        /**
+         * Tables we have visited. Unlike {@link LuaSerialiser}, repeated tables are reported as recursive.
+         */
+        private final Set<LuaTable> tracking = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        JsonSerialiser(LuaState state, TimeoutState timeout, boolean nbtStyle, LuaValue jsonNull, LuaValue emptyArray) {
+            this.state = state;
+            this.timeout = timeout;
+            this.nbtStyle = nbtStyle;
+            this.jsonNull = jsonNull;
+            this.emptyArray = emptyArray;
+        }
+
+        void serialise(LuaValue value, int depth) throws LuaError, Fallback {
+            checkLimits(out, timeout);
+            if (value instanceof LuaTable && value == emptyArray) {
+                out.append("[]");
+                return;
+            } else if (value instanceof LuaTable && value == jsonNull) {
+                out.append("null");
+                return;
+            }
+
+            switch (value.type()) {
+                case Constants.TTABLE -> serialiseTable((LuaTable) value, depth);
+                case Constants.TSTRING -> serialiseString((LuaString) value);
+                case Constants.TNUMBER, Constants.TINT -> out.append(value.toString());
+                case Constants.TBOOLEAN -> out.append(value.toBoolean() ? "true" : "false");
+                default -> throw new LuaError("Cannot serialize type " + value.typeName(), 0);
+            }
+        }
+
+        private void serialiseTable(LuaTable table, int depth) throws LuaError, Fallback {
+            if (depth > MAX_DEPTH || table.getMetatable(state) != null) throw Fallback.INSTANCE;
+            if (!tracking.add(table)) throw new LuaError("Cannot serialize table with recursive entries", 0);
+
+            if (table.next(Constants.NIL).first().isNil()) {
+                out.append("{}");
+                return;
+            }
+
+            // Write the object part, while finding the largest numeric key.
+            var objectStart = out.length;
+            var objectSize = 0;
+            double largestIndex = 0;
+            out.append((byte) '{');
+
+            var key = Constants.NIL;
+            while (true) {
+                var next = table.next(key);
+                key = next.first();
+                if (key.isNil()) break;
+
+                if (key instanceof LuaString string) {
+                    if (objectSize > 0) out.append((byte) ',');
+                    if (nbtStyle) {
+                        out.append(string);
+                    } else {
+                        serialiseString(string);
+                    }
+                    out.append((byte) ':');
+                    serialise(next.arg(2), depth + 1);
+                    objectSize++;
+                } else if (key instanceof LuaNumber && key.toDouble() > largestIndex) {
+                    largestIndex = key.toDouble();
+                }
+            }
+            out.append((byte) '}');
+
+            // Then the array part. This is always serialised (so that we error on invalid entries), even if we then
+            // go on to discard it.
+            if (largestIndex > MAX_ARRAY_INDEX) throw new LuaError(TOO_LARGE, 0);
+            var arrayStart = out.length;
+            var arraySize = (int) largestIndex;
+            out.append((byte) '[');
+            for (var i = 1; i <= arraySize; i++) {
+                if (i > 1) out.append((byte) ',');
+                var value = table.rawget(i);
+                if (value.isNil()) {
+                    checkLimits(out, timeout);
+                    out.append("null");
+                } else {
+                    serialise(value, depth + 1);
+                }
+            }
+            out.append((byte) ']');
+
+            if (objectSize > 0 || arraySize == 0) {
+                out.length = arrayStart;
+            } else {
+                out.remove(objectStart, arrayStart);
+            }
+        }
+
+        private void serialiseString(LuaString value) {
+            out.append((byte) '"');
+            for (var i = 0; i < value.length; i++) {
+                var c = value.bytes[value.offset + i] & 0xFF;
+                switch (c) {
+                    case '"' -> out.append("\\\"");
+                    case '\\' -> out.append("\\\\");
+                    case '\b' -> out.append("\\b");
+                    case '\f' -> out.append("\\f");
+                    case '\n' -> out.append("\\n");
+                    case '\r' -> out.append("\\r");
+                    case '\t' -> out.append("\\t");
+                    default -> {
+                        if (c < 0x20 || c >= 0x7f) {
+                            out.append("\\u00");
+                            out.append(HEX[c >> 4]);
+                            out.append(HEX[c & 0xF]);
+                        } else {
+                            out.append((byte) c);
+                        }
+                    }
+                }
+            }
+            out.append((byte) '"');
+        }
+    }
+
+    /**
+     * A parser for the subset of Lua expressions produced by {@code textutils.serialise}: table constructors, strings,
+     * numbers, booleans and {@code nil}, plus the {@code 1/0}-style expressions used for non-finite numbers.
+     * <p>
+     * Anything else (variables, operators, comments, long strings and unusual escapes) is left to Lua's own parser.
+     * We also fall back on syntax errors, so {@code textutils.unserialise} always returns exactly what Lua would.
+     */
+    private static final class LuaParser {
+        private final byte[] bytes;
+        private final int offset;
+        private final int length;
+        private int pos;
+
+        LuaParser(LuaString contents) {
+            bytes = contents.bytes;
+            offset = contents.offset;
+            length = contents.length;
+        }
+
+        LuaValue parse() throws Fallback {
+            var value = parseExpression(0);
+            skipWhitespace();
+            if (pos < length) throw Fallback.INSTANCE;
+            return value;
+        }
+
+        private int at(int index) {
+            return index < length ? bytes[offset + index] & 0xFF : -1;
+        }
+
+        private void skipWhitespace() throws Fallback {
+            while (true) {
+                var c = at(pos);
+                if (c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == 0x0B) {
+                    pos++;
+                } else if (c == '-' && at(pos + 1) == '-') {
+                    throw Fallback.INSTANCE;
+                } else {
+                    return;
+                }
+            }
+        }
+
+        private LuaValue parseExpression(int depth) throws Fallback {
+            if (depth > MAX_DEPTH) throw Fallback.INSTANCE;
+            skipWhitespace();
+
+            var c = at(pos);
+            if (c == '{') {
+                pos++;
+                return parseTable(depth);
+            } else if (c == '"' || c == '\'') {
+                pos++;
+                return parseString(c);
+            } else if (c == '-') {
+                pos++;
+                skipWhitespace();
+                var number = -parseNumber();
+                if (number == 0) throw Fallback.INSTANCE; // Let Lua decide what -0 should be.
+                return parseDivision(number);
+            } else if (isDigit(c) || (c == '.' && isDigit(at(pos + 1)))) {
+                return parseDivision(parseNumber());
+            } else if (isIdentifierStart(c)) {
+                var start = pos;
+                while (isIdentifierStart(at(pos)) || isDigit(at(pos))) pos++;
+                return switch (new String(bytes, offset + start, pos - start, StandardCharsets.US_ASCII)) {
+                    case "nil" -> Constants.NIL;
+                    case "true" -> Constants.TRUE;
+                    case "false" -> Constants.FALSE;
+                    default -> throw Fallback.INSTANCE;
+                };
+            } else {
+                throw Fallback.INSTANCE;
+            }
+        }
+
+        /**
+         * Parse the optional second half of a division between two numeric literals, as used to serialise NaN and
+         * infinities.
+         *
+         * @param lhs The left hand side of the division.
+         * @return The result of the division, or the original number if this is not a division.
+         * @throws Fallback If the divisor is not a numeric literal.
+         */
+        private LuaValue parseDivision(double lhs) throws Fallback {
+            var start = pos;
+            skipWhitespace();
+            if (at(pos) != '/') {
+                pos = start;
+                return valueOf(lhs);
+            }
+
+            pos++;
+            skipWhitespace();
+            var c = at(pos);
+            if (!isDigit(c) && !(c == '.' && isDigit(at(pos + 1)))) throw Fallback.INSTANCE;
+            return valueOf(lhs / parseNumber());
+        }
+
+        /**
+         * Parse a numeric literal. Like Lua's lexer, we consume any trailing alphanumeric characters, and so fall back
+         * on malformed numbers such as {@code 1..2} or {@code 1e5x}.
+         *
+         * @return The parsed number.
+         * @throws Fallback If this is not a plain decimal literal.
+         */
+        private double parseNumber() throws Fallback {
+            var start = pos;
+            while (isDigit(at(pos)) || at(pos) == '.') pos++;
+            if (at(pos) == 'e' || at(pos) == 'E') {
+                pos++;
+                if (at(pos) == '+' || at(pos) == '-') pos++;
+            }
+            while (isIdentifierStart(at(pos)) || isDigit(at(pos))) pos++;
+
+            var number = new String(bytes, offset + start, pos - start, StandardCharsets.US_ASCII);
+            if (!number.matches("(\\d+(\\.\\d*)?|\\.\\d+)([eE][+-]?\\d+)?")) throw Fallback.INSTANCE;
+            return Double.parseDouble(number);
+        }
+
+        private LuaValue parseString(int terminator) throws Fallback {
+            var out = new Output();
+            while (true) {
+                var c = at(pos);
+                if (c == terminator) {
+                    pos++;
+                    return out.toLuaString();
+                }
+
+                switch (c) {
+                    case -1, '\n', '\r' -> throw Fallback.INSTANCE; // Unfinished string
+                    case '\\' -> {
+                        var escape = at(pos + 1);
+                        pos += 2;
+                        switch (escape) {
+                            case 'a' -> out.append((byte) 0x07);
+                            case 'b' -> out.append((byte) '\b');
+                            case 'f' -> out.append((byte) '\f');
+                            case 'n' -> out.append((byte) '\n');
+                            case 'r' -> out.append((byte) '\r');
+                            case 't' -> out.append((byte) '\t');
+                            case 'v' -> out.append((byte) 0x0B);
+                            case '\\', '"', '\'' -> out.append((byte) escape);
+                            case '\n' -> {
+                                // Lua treats "\n\r" as a single newline, so don't worry about handling it here.
+                                if (at(pos) == '\r') throw Fallback.INSTANCE;
+                                out.append((byte) '\n');
+                            }
+                            default -> {
+                                if (!isDigit(escape)) throw Fallback.INSTANCE;
+
+                                var value = escape - '0';
+                                for (var i = 1; i < 3 && isDigit(at(pos)); i++) value = value * 10 + (at(pos++) - '0');
+                                if (value > 0xFF) throw Fallback.INSTANCE;
+                                out.append((byte) value);
+                            }
+                        }
+                    }
+                    default -> {
+                        out.append((byte) c);
+                        pos++;
+                    }
+                }
+            }
+        }
+
+        private LuaValue parseTable(int depth) throws Fallback {
+            var table = new LuaTable();
+            var positional = 0;
+            var numericKeys = false;
+
+            while (true) {
+                skipWhitespace();
+                var c = at(pos);
+                if (c == '}') {
+                    pos++;
+                    break;
+                }
+
+                if (c == '[') {
+                    // Long strings aren't supported, so this must be a "[key] = value" field.
+                    if (at(pos + 1) == '[' || at(pos + 1) == '=') throw Fallback.INSTANCE;
+                    pos++;
+                    var key = parseExpression(depth + 1);
+                    skipWhitespace();
+                    if (at(pos) != ']') throw Fallback.INSTANCE;
+                    pos++;
+                    expectAssignment();
+                    var value = parseExpression(depth + 1);
+
+                    if (key.isNil()) throw Fallback.INSTANCE;
+                    if (key instanceof LuaNumber) {
+                        if (Double.isNaN(key.toDouble())) throw Fallback.INSTANCE;
+                        numericKeys = true;
+                    }
+                    table.rawset(key, value);
+                } else if (isIdentifierStart(c) && isKeyField()) {
+                    var start = pos;
+                    while (isIdentifierStart(at(pos)) || isDigit(at(pos))) pos++;
+                    var key = new String(bytes, offset + start, pos - start, StandardCharsets.US_ASCII);
+                    if (KEYWORDS.contains(key)) throw Fallback.INSTANCE;
+                    expectAssignment();
+                    table.rawset(key, parseExpression(depth + 1));
+                } else {
+                    table.rawset(++positional, parseExpression(depth + 1));
+                }
+
+                skipWhitespace();
+                c = at(pos);
+                if (c == ',' || c == ';') {
+                    pos++;
+                } else if (c == '}') {
+                    pos++;
+                    break;
+                } else {
+                    throw Fallback.INSTANCE;
+                }
+            }
+
+            // Lua assigns positional entries after explicit keys, which is awkward to replicate. Just avoid it instead.
+            if (positional > 0 && numericKeys) throw Fallback.INSTANCE;
+            return table;
+        }
+
+        /**
+         * Determine whether the identifier at the current position is a table key (i.e. followed by {@code =}) rather
+         * than the start of a value.
+         *
+         * @return Whether this is a key.
+         */
+        private boolean isKeyField() {
+            var index = pos;
+            while (isIdentifierStart(at(index)) || isDigit(at(index))) index++;
+            while (true) {
+                var c = at(index);
+                if (c != ' ' && c != '\t' && c != '\n' && c != '\r' && c != '\f' && c != 0x0B) break;
+                index++;
+            }
+            return at(index) == '=' && at(index + 1) != '=';
+        }
+
+        private void expectAssignment() throws Fallback {
+            skipWhitespace();
+            if (at(pos) != '=' || at(pos + 1) == '=') throw Fallback.INSTANCE;
+            pos++;
+        }
+    }
+
+    /**
+     * A port of {@code textutils.unserialiseJSON}'s parser. Positions in error messages are 1-based, to match Lua.
+     */
+    private static final class JsonParser {
+        private final byte[] bytes;
+        private final int offset;
+        private final int length;
+        private final boolean nbtStyle;
+        private final boolean parseNull;
+        private final boolean parseEmptyArray;
+        private final LuaValue jsonNull;
+        private final LuaValue emptyArray;
+        private int pos;
+
+        JsonParser(LuaString contents, boolean nbtStyle, boolean parseNull, boolean parseEmptyArray, LuaValue jsonNull, LuaValue emptyArray) {
+            bytes = contents.bytes;
+            offset = contents.offset;
+            length = contents.length;
+            this.nbtStyle = nbtStyle;
+            this.parseNull = parseNull;
+            this.parseEmptyArray = parseEmptyArray;
+            this.jsonNull = jsonNull;
+            this.emptyArray = emptyArray;
+        }
+
+        LuaValue parse() throws JsonError, Fallback {
+            pos = skip(0);
+            var value = decode(0);
+            pos = skip(pos);
+            if (pos < length) throw new JsonError(pos + 1, "Unexpected trailing character %q.", charAt(pos));
+            return value;
+        }
+
+        private int at(int index) {
+            return index < length ? bytes[offset + index] & 0xFF : -1;
+        }
+
+        private LuaString charAt(int index) {
+            return valueOf(new byte[]{ bytes[offset + index] });
+        }
+
+        private int skip(int index) {
+            while (true) {
+                var c = at(index);
+                if (c != ' ' && c != '\n' && c != '\r' && c != '\t') return index;
+                index++;
+            }
+        }
+
+        private boolean matches(int index, String expected) {
+            if (index + expected.length() > length) return false;
+            for (var i = 0; i < expected.length(); i++) {
+                if (bytes[offset + index + i] != expected.charAt(i)) return false;
+            }
+            return true;
+        }
+
+        private JsonError expected(int index, String expected) {
+            return at(index) == -1
+                ? new JsonError(index + 1, "Unexpected end of input, expected " + expected + ".", Constants.NIL)
+                : new JsonError(index + 1, "Unexpected %q, expected " + expected + ".", charAt(index));
+        }
+
+        private LuaValue decode(int depth) throws JsonError, Fallback {
+            if (depth > MAX_DEPTH) throw Fallback.INSTANCE;
+
+            var c = at(pos);
+            switch (c) {
+                case '"' -> {
+                    pos++;
+                    return parseString('"');
+                }
+                case '\'' -> {
+                    if (nbtStyle) {
+                        pos++;
+                        return parseString('\'');
+                    }
+                }
+                case '-', '0', '1', '2', '3', '4', '5', '6', '7', '8', '9' -> {
+                    return parseNumber();
+                }
+                case 't' -> {
+                    if (matches(pos + 1, "rue")) {
+                        pos += 4;
+                        return Constants.TRUE;
+                    }
+                }
+                case 'f' -> {
+                    if (matches(pos + 1, "alse")) {
+                        pos += 5;
+                        return Constants.FALSE;
+                    }
+                }
+                case 'n' -> {
+                    if (matches(pos + 1, "ull")) {
+                        pos += 4;
+                        return parseNull ? jsonNull : Constants.NIL;
+                    }
+                }
+                case '{' -> {
+                    return parseObject(depth);
+                }
+                case '[' -> {
+                    return parseArray(depth);
+                }
+                case -1 -> throw new JsonError(pos + 1, "Unexpected end of input.", Constants.NIL);
+                default -> {
+                }
+            }
+
+            throw new JsonError(pos + 1, "Unexpected character %q.", charAt(pos));
+        }
+
+        private LuaValue parseObject(int depth) throws JsonError, Fallback {
+            var object = new LuaTable();
+            pos = skip(pos + 1);
+
+            var c = at(pos);
+            if (c == -1) throw new JsonError(pos + 1, "Unexpected end of input, expected '}'.", Constants.NIL);
+            if (c == '}') {
+                pos++;
+                return object;
+            }
+
+            while (true) {
+                LuaValue key;
+                if (c == '"') {
+                    pos++;
+                    key = parseString('"');
+                } else if (nbtStyle) {
+                    key = parseIdent();
+                } else {
+                    throw expected(pos, "object key");
+                }
+
+                pos = skip(pos);
+                if (at(pos) != ':') throw expected(pos, "':'");
+
+                pos = skip(pos + 1);
+                object.rawset(key, decode(depth + 1));
+
+                pos = skip(pos);
+                c = at(pos);
+                if (c == '}') {
+                    break;
+                } else if (c == ',') {
+                    pos = skip(pos + 1);
+                } else {
+                    throw expected(pos, "',' or '}'");
+                }
+
+                c = at(pos);
+            }
+
+            pos++;
+            return object;
+        }
+
+        private LuaValue parseArray(int depth) throws JsonError, Fallback {
+            pos = skip(pos + 1);
+
+            var c = at(pos);
+            if (nbtStyle && (c == 'I' || c == 'L' || c == 'B') && at(pos + 1) == ';') {
+                pos = skip(pos + 2);
+                c = at(pos);
+            }
+
+            if (c == -1) throw expected(pos, "']'");
+            if (c == ']') {
+                pos++;
+                return parseEmptyArray ? emptyArray : new LuaTable();
+            }
+
+            var array = new LuaTable();
+            var index = 1;
+            while (true) {
+                array.rawset(index++, decode(depth + 1));
+
+                pos = skip(pos);
+                c = at(pos);
+                if (c == ']') {
+                    break;
+                } else if (c == ',') {
+                    pos = skip(pos + 1);
+                } else {
+                    throw expected(pos, "',' or ']'");
+                }
+            }
+
+            pos++;
+            return array;
+        }
+
+        private LuaValue parseString(int terminator) throws JsonError {
+            var out = new Output();
+            while (true) {
+                var c = at(pos);
+                if (c == -1) throw new JsonError(pos + 1, "Unexpected end of input, expected '\"'.", Constants.NIL);
+                if (c == terminator) break;
+
+                if (c == '\\') {
+                    var escape = at(pos + 1);
+                    switch (escape) {
+                        case -1 -> throw new JsonError(pos + 1, "Unexpected end of input, expected escape sequence.", Constants.NIL);
+                        case 'u' -> {
+                            if (!isHexDigit(at(pos + 2)) || !isHexDigit(at(pos + 3)) || !isHexDigit(at(pos + 4)) || !isHexDigit(at(pos + 5))) {
+                                var end = Math.min(pos + 6, length);
+                                throw new JsonError(pos + 1, "Malformed unicode escape %q.", valueOf(Arrays.copyOfRange(bytes, offset + pos + 2, offset + end)));
+                            }
+
+                            var codepoint = Integer.parseInt(new String(bytes, offset + pos + 2, 4, StandardCharsets.US_ASCII), 16);
+                            out.appendUtf8(codepoint);
+                            pos += 6;
+                        }
+                        case 'b' -> out.append((byte) '\b');
+                        case 'f' -> out.append((byte) '\f');
+                        case 'n' -> out.append((byte) '\n');
+                        case 'r' -> out.append((byte) '\r');
+                        case 't' -> out.append((byte) '\t');
+                        case '"', '/', '\\' -> out.append((byte) escape);
+                        default -> throw new JsonError(pos + 2, "Unknown escape character %q.", charAt(pos + 1));
+                    }
+                    if (escape != 'u') pos += 2;
+                } else if (c >= 0x20) {
+                    out.append((byte) c);
+                    pos++;
+                } else {
+                    throw new JsonError(pos + 2, "Unescaped whitespace %q.", charAt(pos));
+                }
+            }
+
+            pos++;
+            return out.toLuaString();
+        }
+
+        private LuaValue parseNumber() throws JsonError, Fallback {
+            // Match "-?%d+%.?%d*[eE]?[+-]?%d*", as the Lua implementation does.
+            var start = pos;
+            var end = pos;
+            if (at(end) == '-') end++;
+            if (!isDigit(at(end))) throw Fallback.INSTANCE; // The Lua implementation errors in an unhelpful way here.
+            while (isDigit(at(end))) end++;
+            if (at(end) == '.') end++;
+            while (isDigit(at(end))) end++;
+            if (at(end) == 'e' || at(end) == 'E') end++;
+            if (at(end) == '+' || at(end) == '-') end++;
+            while (isDigit(at(end))) end++;
+
+            // Lua's number parsing differs from Java's for very long numbers (it may truncate them or overflow), so leave
+            // those to the Lua implementation.
+            var contents = new String(bytes, offset + start, end - start, StandardCharsets.US_ASCII);
+            if (contents.length() > 18) throw Fallback.INSTANCE;
+
+            double value;
+            try {
+                value = Double.parseDouble(contents);
+            } catch (NumberFormatException e) {
+                throw new JsonError(start + 1, "Malformed number %q.", valueOf(contents));
+            }
+
+            pos = nbtStyle && "bBsSlLfFdD".indexOf(at(end)) >= 0 ? end + 1 : end;
+            return valueOf(value);
+        }
+
+        private LuaValue parseIdent() throws Fallback {
+            var start = pos;
+            if (!isLetter(at(pos))) throw Fallback.INSTANCE; // The Lua implementation errors in an unhelpful way here.
+            while (isLetter(at(pos)) || isDigit(at(pos)) || at(pos) == '_') pos++;
+            return valueOf(Arrays.copyOfRange(bytes, offset + start, offset + pos));
+        }
+    }
+
+    /**
+     * Check the serialiser has not produced too much output, and that the computer has not been asked to abort.
+     *
+     * @param out     The serialiser's output.
+     * @param timeout The computer's timeout state.
+     * @throws LuaError If the output is too large.
+     * @throws Fallback If the computer should abort. We let the Lua implementation (which will be interrupted almost
+     *                  immediately) produce the appropriate error.
+     */
+    private static void checkLimits(Output out, TimeoutState timeout) throws LuaError, Fallback {
+        if (out.length > MAX_OUTPUT) throw new LuaError(TOO_LARGE, 0);
+        if (timeout.isSoftAborted()) throw Fallback.INSTANCE;
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isHexDigit(int c) {
+        return isDigit(c) || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+
+    private static boolean isLetter(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isIdentifierStart(int c) {
+        return isLetter(c) || c == '_';
+    }
+
+    /**
+     * A simple growable byte buffer.
+     */
+    private static final class Output {
+        byte[] bytes = new byte[64];
+        int length;
+
+        private void ensure(int extra) {
+            if (length + extra > bytes.length) bytes = Arrays.copyOf(bytes, Math.max(length + extra, bytes.length * 2));
+        }
+
+        void append(byte value) {
+            ensure(1);
+            bytes[length++] = value;
+        }
+
+        /**
+         * Append an ASCII string.
+         *
+         * @param value The string to append.
+         */
+        void append(String value) {
+            ensure(value.length());
+            for (var i = 0; i < value.length(); i++) bytes[length++] = (byte) value.charAt(i);
+        }
+
+        void append(LuaString value) {
+            ensure(value.length);
+            System.arraycopy(value.bytes, value.offset, bytes, length, value.length);
+            length += value.length;
+        }
+
+        /**
+         * Append a codepoint encoded as UTF-8, as Lua's {@code utf8.char} does.
+         *
+         * @param codepoint The codepoint to append. This must be at most {@code 0xFFFF}.
+         */
+        void appendUtf8(int codepoint) {
+            if (codepoint < 0x80) {
+                append((byte) codepoint);
+            } else if (codepoint < 0x800) {
+                append((byte) (0xC0 | (codepoint >> 6)));
+                append((byte) (0x80 | (codepoint & 0x3F)));
+            } else {
+                append((byte) (0xE0 | (codepoint >> 12)));
+                append((byte) (0x80 | ((codepoint >> 6) & 0x3F)));
+                append((byte) (0x80 | (codepoint & 0x3F)));
+            }
+        }
+
+        /**
+         * Remove a range of bytes from this buffer.
+         *
+         * @param start The start of the range to remove, inclusive.
+         * @param end   The end of the range to remove, exclusive.
+         */
+        void remove(int start, int end) {
+            System.arraycopy(bytes, end, bytes, start, length - end);
+            length -= end - start;
+        }
+
+        LuaString toLuaString() {
+            return valueOf(Arrays.copyOf(bytes, length));
+        }
+    }
+
+    /**
+     * Thrown when a function cannot handle its input, and the Lua implementation should be used instead.
+     */
+    private static final class Fallback extends Exception {
+        @Serial
+        private static final long serialVersionUID = 5010418126707524485L;
+
+        @SuppressWarnings("StaticAssignmentOfThrowable")
+        static final Fallback INSTANCE = new Fallback();
+
+        private Fallback() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * Thrown when a JSON string is malformed.
+     */
+    private static final class JsonError extends Exception {
+        @Serial
+        private static final long serialVersionUID = -2964385426236592316L;
+
+        final int position;
+        final String template;
+        final LuaValue argument;
+
+        JsonError(int position, String template, @Nullable LuaValue argument) {
+            super(template, null, false, false);
+            this.position = position;
+            this.template = template;
+            this.argument = argument == null ? Constants.NIL : argument;
+        }
+    }
+}
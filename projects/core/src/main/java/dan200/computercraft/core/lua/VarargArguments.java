@@ -14,6 +14,13 @@
 import java.nio.ByteBuffer;
 import java.util.Optional;
 
+/**
+ * An implementation of {@link IArguments} backed by Cobalt's {@link Varargs}.
+ * <p>
+ * Most methods only accept primitives or strings, and so we override the various {@code getXXX} and {@code optXXX}
+ * methods to read directly from the underlying Lua values. This avoids converting (and boxing) each argument into a
+ * Java object, which otherwise makes up a significant proportion of the cost of calling a Java method.
+ */
 final class VarargArguments implements IArguments {
     private static final VarargArguments EMPTY = new VarargArguments(Constants.NONE);
 
@@ -71,6 +78,97 @@ public long getLong(int index) throws LuaException {
         return value instanceof LuaInteger ? value.toInteger() : (long) LuaValues.checkFinite(index, value.toDouble());
     }
 
+    @Override
+    public int getInt(int index) throws LuaException {
+        return (int) getLong(index);
+    }
+
+    @Override
+    public double getFiniteDouble(int index) throws LuaException {
+        return LuaValues.checkFinite(index, getDouble(index));
+    }
+
+    @Override
+    public boolean getBoolean(int index) throws LuaException {
+        var value = varargs.arg(index + 1);
+        if (value.type() != Constants.TBOOLEAN) throw LuaValues.badArgument(index, "boolean", value.typeName());
+        return value.toBoolean();
+    }
+
+    @Override
+    public String getString(int index) throws LuaException {
+        var value = varargs.arg(index + 1);
+        if (!(value instanceof LuaBaseString)) throw LuaValues.badArgument(index, "string", value.typeName());
+        return value.toString();
+    }
+
+    @Override
+    public Optional<Double> optDouble(int index) throws LuaException {
+        var value = varargs.arg(index + 1);
+        if (value.isNil()) return Optional.empty();
+        if (!(value instanceof LuaNumber)) throw LuaValues.badArgument(index, "number", value.typeName());
+        return Optional.of(value.toDouble());
+    }
+
+    @Override
+    public Optional<Integer> optInt(int index) throws LuaException {
+        var value = varargs.arg(index + 1);
+        if (value.isNil()) return Optional.empty();
+        return Optional.of((int) getLong(index));
+    }
+
+    @Override
+    public Optional<Long> optLong(int index) throws LuaException {
+        var value = varargs.arg(index + 1);
+        if (value.isNil()) return Optional.empty();
+        return Optional.of(getLong(index));
+    }
+
+    @Override
+    public Optional<Boolean> optBoolean(int index) throws LuaException {
+        var value = varargs.arg(index + 1);
+        if (value.isNil()) return Optional.empty();
+        return Optional.of(getBoolean(index));
+    }
+
+    @Override
+    public Optional<String> optString(int index) throws LuaException {
+        var value = varargs.arg(index + 1);
+        if (value.isNil()) return Optional.empty();
+        return Optional.of(getString(index));
+    }
+
+    @Override
+    public double optDouble(int index, double def) throws LuaException {
+        return varargs.arg(index + 1).isNil() ? def : getDouble(index);
+    }
+
+    @Override
+    public int optInt(int index, int def) throws LuaException {
+        return varargs.arg(index + 1).isNil() ? def : (int) getLong(index);
+    }
+
+    @Override
+    public long optLong(int index, long def) throws LuaException {
+        return varargs.arg(index + 1).isNil() ? def : getLong(index);
+    }
+
+    @Override
+    public double optFiniteDouble(int index, double def) throws LuaException {
+        return varargs.arg(index + 1).isNil() ? def : getFiniteDouble(index);
+    }
+
+    @Override
+    public boolean optBoolean(int index, boolean def) throws LuaException {
+        return varargs.arg(index + 1).isNil() ? def : getBoolean(index);
+    }
+
+    @Nullable
+    @Override
+    public String optString(int index, @Nullable String def) throws LuaException {
+        return varargs.arg(index + 1).isNil() ? def : getString(index);
+    }
+
     @Override
     public ByteBuffer getBytes(int index) throws LuaException {
         var value = varargs.arg(index + 1);
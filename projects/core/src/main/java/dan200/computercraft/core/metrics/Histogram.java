@@ -0,0 +1,220 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2022. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+package dan200.computercraft.core.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A lock-free histogram of the values of a {@link Metric.Event}, used to compute percentiles.
+ * <p>
+ * Values are sorted into log-linear buckets: each power of two is split into {@value #SUB_BUCKETS} equally sized
+ * buckets, meaning any percentile is accurate to within ~6% of the true value. The buckets for a power of two are only
+ * allocated once a value of that size has been recorded, so histograms only ever containing similar values remain
+ * small.
+ * <p>
+ * Recording a value only uses atomic operations, and so may be done from any thread. Histograms which are written to
+ * by many threads can be split into several "stripes", with each thread writing to a different stripe, to avoid
+ * threads contending over the same counters. Reading from a histogram while it is being written to is safe, though
+ * the results are not guaranteed to be consistent with each other.
+ */
+public final class Histogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int MAGNITUDES = Long.SIZE - SUB_BITS;
+
+    private final Stripe[] stripes;
+
+    /**
+     * Create a histogram with a single stripe, suitable for metrics which are (mostly) written to by one thread.
+     */
+    public Histogram() {
+        this(1);
+    }
+
+    /**
+     * Create a new histogram.
+     *
+     * @param stripes The number of stripes to split this histogram into. This should generally be the number of threads
+     *                which will write to it at once.
+     */
+    public Histogram(int stripes) {
+        if (stripes < 1) throw new IllegalArgumentException("stripes must be >= 1");
+        this.stripes = new Stripe[stripes];
+        for (var i = 0; i < stripes; i++) this.stripes[i] = new Stripe();
+    }
+
+    /**
+     * Record a single value. Negative values are treated as 0.
+     *
+     * @param value The value to record.
+     */
+    public void record(long value) {
+        if (value < 0) value = 0;
+
+        var stripe = stripes.length == 1 ? stripes[0] : stripes[(int) (Thread.currentThread().getId() % stripes.length)];
+        stripe.record(value);
+    }
+
+    /**
+     * Create a copy of this histogram, which will not be affected by any further changes to this one.
+     *
+     * @return The copied histogram.
+     */
+    public Histogram copy() {
+        var copy = new Histogram();
+        var target = copy.stripes[0];
+        for (var stripe : stripes) {
+            target.count.addAndGet(stripe.count.get());
+            target.sum.addAndGet(stripe.sum.get());
+            target.updateMax(stripe.max.get());
+
+            for (var magnitude = 0; magnitude < MAGNITUDES; magnitude++) {
+                var buckets = stripe.buckets.get(magnitude);
+                if (buckets == null) continue;
+
+                var targetBuckets = target.getBuckets(magnitude);
+                for (var i = 0; i < SUB_BUCKETS; i++) targetBuckets.addAndGet(i, buckets.get(i));
+            }
+        }
+
+        return copy;
+    }
+
+    /**
+     * The number of values recorded.
+     *
+     * @return The number of values recorded.
+     */
+    public long count() {
+        var count = 0L;
+        for (var stripe : stripes) count += stripe.count.get();
+        return count;
+    }
+
+    /**
+     * The sum of all values recorded.
+     *
+     * @return The sum of all values.
+     */
+    public long sum() {
+        var sum = 0L;
+        for (var stripe : stripes) sum += stripe.sum.get();
+        return sum;
+    }
+
+    /**
+     * The largest value recorded, or 0 if no values have been recorded.
+     *
+     * @return The largest value recorded.
+     */
+    public long max() {
+        var max = 0L;
+        for (var stripe : stripes) max = Math.max(max, stripe.max.get());
+        return max;
+    }
+
+    /**
+     * The mean of all values recorded, or 0 if no values have been recorded.
+     *
+     * @return The mean value, rounded down.
+     */
+    public long mean() {
+        var count = count();
+        return count == 0 ? 0 : sum() / count;
+    }
+
+    /**
+     * Estimate a percentile of the recorded values. The returned value will never be larger than {@link #max()}.
+     *
+     * @param percentile The percentile to compute, between 0 and 1.
+     * @return The estimated percentile, or 0 if no values have been recorded.
+     */
+    public long percentile(double percentile) {
+        if (percentile < 0 || percentile > 1) throw new IllegalArgumentException("percentile must be between 0 and 1");
+
+        var total = 0L;
+        for (var magnitude = 0; magnitude < MAGNITUDES; magnitude++) {
+            for (var i = 0; i < SUB_BUCKETS; i++) total += getBucket(magnitude, i);
+        }
+        if (total == 0) return 0;
+
+        // Buckets only ever increase, so we're guaranteed to find a bucket reaching this rank, even if values are
+        // recorded while we're searching.
+        var rank = Math.max(1, (long) Math.ceil(percentile * total));
+        var seen = 0L;
+        for (var magnitude = 0; magnitude < MAGNITUDES; magnitude++) {
+            for (var i = 0; i < SUB_BUCKETS; i++) {
+                seen += getBucket(magnitude, i);
+                if (seen >= rank) return Math.min(upperBound(magnitude, i), max());
+            }
+        }
+
+        return max();
+    }
+
+    private long getBucket(int magnitude, int index) {
+        var total = 0L;
+        for (var stripe : stripes) {
+            var buckets = stripe.buckets.get(magnitude);
+            if (buckets != null) total += buckets.get(index);
+        }
+        return total;
+    }
+
+    /**
+     * Get the magnitude (the "row" of buckets) a value belongs to. Values less than {@link #SUB_BUCKETS} are stored
+     * exactly in the first row. Otherwise, each row holds values with the same highest set bit.
+     *
+     * @param value The value to find the bucket for.
+     * @return The magnitude of this value.
+     */
+    private static int magnitude(long value) {
+        return value < SUB_BUCKETS ? 0 : Long.SIZE - SUB_BITS - Long.numberOfLeadingZeros(value);
+    }
+
+    private static int subBucket(long value, int magnitude) {
+        return (int) (magnitude == 0 ? value : (value >>> (magnitude - 1)) & (SUB_BUCKETS - 1));
+    }
+
+    static long upperBound(int magnitude, int subBucket) {
+        if (magnitude == 0) return subBucket;
+
+        var shift = magnitude - 1;
+        var lower = (long) (SUB_BUCKETS | subBucket) << shift;
+        return lower + (1L << shift) - 1;
+    }
+
+    private static final class Stripe {
+        final AtomicReferenceArray<AtomicLongArray> buckets = new AtomicReferenceArray<>(MAGNITUDES);
+        final AtomicLong count = new AtomicLong();
+        final AtomicLong sum = new AtomicLong();
+        final AtomicLong max = new AtomicLong();
+
+        void record(long value) {
+            var magnitude = magnitude(value);
+            getBuckets(magnitude).incrementAndGet(subBucket(value, magnitude));
+
+            count.incrementAndGet();
+            sum.addAndGet(value);
+            updateMax(value);
+        }
+
+        void updateMax(long value) {
+            var max = this.max.get();
+            while (value > max && !this.max.compareAndSet(max, value)) max = this.max.get();
+        }
+
+        AtomicLongArray getBuckets(int magnitude) {
+            var existing = buckets.get(magnitude);
+            if (existing != null) return existing;
+
+            var created = new AtomicLongArray(SUB_BUCKETS);
+            return buckets.compareAndSet(magnitude, null, created) ? created : buckets.get(magnitude);
+        }
+    }
+}
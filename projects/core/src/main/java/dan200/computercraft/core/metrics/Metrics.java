@@ -21,6 +21,10 @@ private Metrics() {
     public static final Metric.Counter HTTP_REQUESTS = new Metric.Counter("http_requests");
     public static final Metric.Event HTTP_UPLOAD = new Metric.Event("http_upload", "bytes", Metric::formatBytes);
     public static final Metric.Event HTTP_DOWNLOAD = new Metric.Event("http_download", "bytes", Metric::formatBytes);
+    public static final Metric.Counter HTTP_DNS_CACHE_HITS = new Metric.Counter("http_dns_cache_hits");
+    public static final Metric.Counter HTTP_DNS_CACHE_MISSES = new Metric.Counter("http_dns_cache_misses");
+    public static final Metric.Counter HTTP_RULE_CACHE_HITS = new Metric.Counter("http_rule_cache_hits");
+    public static final Metric.Counter HTTP_RULE_CACHE_MISSES = new Metric.Counter("http_rule_cache_misses");
 
     public static final Metric.Event WEBSOCKET_INCOMING = new Metric.Event("websocket_incoming", "bytes", Metric::formatBytes);
     public static final Metric.Event WEBSOCKET_OUTGOING = new Metric.Event("websocket_outgoing", "bytes", Metric::formatBytes);
@@ -14,6 +14,7 @@ public class Palette {
     private final boolean colour;
     private final double[][] colours = new double[PALETTE_SIZE][3];
     private final byte[][] byteColours = new byte[PALETTE_SIZE][4];
+    private int changed = 0;
 
     public static final Palette DEFAULT = new Palette(true);
 
@@ -26,6 +27,7 @@ public Palette(boolean colour) {
 
     public void setColour(int i, double r, double g, double b) {
         if (i < 0 || i >= PALETTE_SIZE) return;
+        changed |= 1 << i;
         colours[i][0] = r;
         colours[i][1] = g;
         colours[i][2] = b;
@@ -61,6 +63,17 @@ public byte[] getRenderColours(int i) {
         return byteColours[i];
     }
 
+    /**
+     * Get the set of colours which have changed since this method was last called, and then reset it.
+     *
+     * @return A bitmask of changed colours, where bit {@code i} is set if colour {@code i} has changed.
+     */
+    public int pollChanged() {
+        var changed = this.changed;
+        this.changed = 0;
+        return changed;
+    }
+
     public void resetColour(int i) {
         if (i >= 0 && i < PALETTE_SIZE) setColour(i, Colour.VALUES[i]);
     }
@@ -9,6 +9,7 @@
 
 import javax.annotation.Nullable;
 import java.nio.ByteBuffer;
+import java.util.BitSet;
 
 public class Terminal {
     protected static final String BASE_16 = "0123456789abcdef";
@@ -29,6 +30,17 @@ public class Terminal {
 
     protected final Palette palette;
 
+    /**
+     * The set of lines which have changed since {@link #clearDirty()} was last called.
+     */
+    protected final BitSet dirtyLines = new BitSet();
+
+    /**
+     * Whether this terminal has been resized since {@link #clearDirty()} was last called. When set, the individual
+     * {@link #dirtyLines} are meaningless, and the whole terminal should be resent.
+     */
+    protected boolean dirtyAll = true;
+
     private final @Nullable Runnable onChanged;
 
     public Terminal(int width, int height, boolean colour) {
@@ -110,6 +122,7 @@ public synchronized void resize(int width, int height) {
                 backgroundColour[i].write(oldBackgroundColour[i]);
             }
         }
+        dirtyAll = true;
         setChanged();
     }
 
@@ -173,6 +186,7 @@ public synchronized void blit(ByteBuffer text, ByteBuffer textColour, ByteBuffer
             this.text[y].write(text, x);
             this.textColour[y].write(textColour, x);
             this.backgroundColour[y].write(backgroundColour, x);
+            dirtyLines.set(y);
             setChanged();
         }
     }
@@ -184,6 +198,7 @@ public synchronized void write(String text) {
             this.text[y].write(text, x);
             textColour[y].fill(BASE_16.charAt(cursorColour), x, x + text.length());
             backgroundColour[y].fill(BASE_16.charAt(cursorBackgroundColour), x, x + text.length());
+            dirtyLines.set(y);
             setChanged();
         }
     }
@@ -208,6 +223,7 @@ public synchronized void scroll(int yDiff) {
             text = newText;
             textColour = newTextColour;
             backgroundColour = newBackgroundColour;
+            dirtyLines.set(0, height);
             setChanged();
         }
     }
@@ -218,6 +234,7 @@ public synchronized void clear() {
             textColour[y].fill(BASE_16.charAt(cursorColour));
             backgroundColour[y].fill(BASE_16.charAt(cursorBackgroundColour));
         }
+        dirtyLines.set(0, height);
         setChanged();
     }
 
@@ -227,6 +244,7 @@ public synchronized void clearLine() {
             text[y].fill(' ');
             textColour[y].fill(BASE_16.charAt(cursorColour));
             backgroundColour[y].fill(BASE_16.charAt(cursorBackgroundColour));
+            dirtyLines.set(y);
             setChanged();
         }
     }
@@ -239,6 +257,7 @@ public synchronized void setLine(int y, String text, String textColour, String b
         this.text[y].write(text);
         this.textColour[y].write(textColour);
         this.backgroundColour[y].write(backgroundColour);
+        dirtyLines.set(y);
         setChanged();
     }
 
@@ -250,6 +269,18 @@ public synchronized TextBuffer getBackgroundColourLine(int y) {
         return backgroundColour[y];
     }
 
+    /**
+     * Reset the terminal's dirty state, marking every line and palette entry as unchanged.
+     *
+     * @see #dirtyLines
+     * @see #dirtyAll
+     */
+    public synchronized void clearDirty() {
+        dirtyLines.clear();
+        dirtyAll = false;
+        palette.pollChanged();
+    }
+
     public final void setChanged() {
         if (onChanged != null) onChanged.run();
     }
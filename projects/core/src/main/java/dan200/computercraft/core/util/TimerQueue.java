@@ -0,0 +1,84 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2022. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+package dan200.computercraft.core.util;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+
+import java.util.PriorityQueue;
+import java.util.function.IntConsumer;
+
+/**
+ * A collection of timers, ordered by when they fire.
+ * <p>
+ * Timers are stored in a priority queue ordered by their deadline, so checking for expired timers only needs to look
+ * at the timers which have actually expired, rather than every timer. Cancelling a timer just removes it from the
+ * lookup table, and its queue entry is skipped once it expires. If the queue fills up with cancelled timers, it is
+ * compacted.
+ * <p>
+ * This class is not thread-safe, and so should be externally synchronised.
+ */
+public final class TimerQueue {
+    private final PriorityQueue<Timer> queue = new PriorityQueue<>();
+    private final Int2ObjectMap<Timer> timers = new Int2ObjectOpenHashMap<>();
+    private int nextId = 0;
+
+    /**
+     * Add a new timer.
+     *
+     * @param deadline The time at which this timer will fire.
+     * @return The timer's ID.
+     */
+    public int add(double deadline) {
+        var timer = new Timer(nextId++, deadline);
+        timers.put(timer.id(), timer);
+        queue.add(timer);
+        return timer.id();
+    }
+
+    /**
+     * Cancel a timer. This does nothing if the timer does not exist or has already fired.
+     *
+     * @param id The timer's ID.
+     */
+    public void cancel(int id) {
+        if (timers.remove(id) == null) return;
+
+        if (queue.size() > 16 && queue.size() > timers.size() * 2) queue.removeIf(x -> !timers.containsKey(x.id()));
+    }
+
+    /**
+     * Remove all timers. This does not reset the IDs given to new timers.
+     */
+    public void clear() {
+        timers.clear();
+        queue.clear();
+    }
+
+    /**
+     * Remove all timers whose deadline is at or before {@code now}.
+     *
+     * @param now   The current time.
+     * @param fired Called with the ID of each expired timer, in the order they expired.
+     */
+    public void expire(double now, IntConsumer fired) {
+        while (true) {
+            var timer = queue.peek();
+            if (timer == null || timer.deadline() > now) return;
+
+            queue.remove();
+            if (timers.remove(timer.id()) != null) fired.accept(timer.id());
+        }
+    }
+
+    private record Timer(int id, double deadline) implements Comparable<Timer> {
+        @Override
+        public int compareTo(Timer o) {
+            var deadline = Double.compare(this.deadline, o.deadline);
+            return deadline != 0 ? deadline : Integer.compare(id, o.id);
+        }
+    }
+}
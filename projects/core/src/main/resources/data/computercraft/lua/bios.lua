@@ -15,6 +15,10 @@ do
     expect, field = res.expect, res.field
 end
 
+-- Capture the native functions used by loadfile before any other code runs.
+local load_cached, native_open, native_is_read_only = _CC_LOAD_CACHED, fs.open, fs.isReadOnly
+_CC_LOAD_CACHED = nil
+
 if _VERSION == "Lua 5.1" then
     -- If we're on Lua 5.1, install parts of the Lua 5.2/5.3 API so that programs can be written against it
     local nativeload = load
@@ -468,9 +472,20 @@ function loadfile(filename, mode, env)
     local file = fs.open(filename, "r")
     if not file then return nil, "File not found" end
 
-    local func, err = load(file.readAll(), "@" .. fs.getName(filename), mode, env)
+    local contents, name = file.readAll(), "@" .. fs.getName(filename)
     file.close()
-    return func, err
+
+    -- Files on read-only mounts (such as the ROM) are the same on every computer, so share their compiled code. We
+    -- only do this when fs has not been replaced, so programs cannot pass off other code as a read-only file.
+    if load_cached and mode == nil and env ~= nil and fs.open == native_open and native_is_read_only(filename) then
+        local func = load_cached(contents, name, env)
+        if func then
+            env._ENV = env
+            return func
+        end
+    end
+
+    return load(contents, name, mode, env)
 end
 
 function dofile(_sFile)
@@ -613,6 +628,7 @@ if http then
         checkKey(options, "headers", "table", true)
         checkKey(options, "method", "string", true)
         checkKey(options, "redirect", "boolean", true)
+        checkKey(options, "stream", "boolean", true)
 
         if options.method and not methods[options.method] then
             error("Unsupported HTTP method", 3)
@@ -7,6 +7,10 @@ local expect = dofile("rom/modules/main/cc/expect.lua")
 local expect, field = expect.expect, expect.field
 local wrap = dofile("rom/modules/main/cc/strings.lua").wrap
 
+-- Native implementations of the serialisation functions. These may decline to handle a value (returning nothing), in
+-- which case we fall back to the Lua implementations below.
+local native = _CC_TEXTUTILS
+
 --- Slowly writes string text at current cursor position,
 -- character-by-character.
 --
@@ -711,6 +715,17 @@ do
             options = {}
         end
 
+        if native then
+            local ok, res, msg, arg = native.unserialiseJSON(
+                s, options.nbt_style, options.parse_null, options.parse_empty_array ~= false, json_null, empty_json_array
+            )
+            if ok then
+                return res
+            elseif ok == false then
+                return nil, ("Malformed JSON at position %d: " .. msg):format(res, arg)
+            end
+        end
+
         local ok, res, pos = pcall(decode_impl, s, skip(s, 1), options)
         if not ok then
             if type(res) == "table" and getmetatable(res) == mt then
@@ -767,6 +782,12 @@ function serialize(t, opts)
     else
         opts = {}
     end
+
+    if native then
+        local result = native.serialise(t, opts.compact, opts.allow_repetitions)
+        if result then return result end
+    end
+
     return serialize_impl(t, tTracking, "", opts)
 end
 
@@ -782,6 +803,12 @@ serialise = serialize -- GB version
 -- @since 1.3
 function unserialize(s)
     expect(1, s, "string")
+
+    if native then
+        local ok, result = native.unserialise(s)
+        if ok then return result end
+    end
+
     local func = load("return " .. s, "unserialize", "t", {})
     if func then
         local ok, result = pcall(func)
@@ -818,6 +845,12 @@ unserialise = unserialize -- GB version
 function serializeJSON(t, bNBTStyle)
     expect(1, t, "table", "string", "number", "boolean")
     expect(2, bNBTStyle, "boolean", "nil")
+
+    if native then
+        local result = native.serialiseJSON(t, bNBTStyle or false, json_null, empty_json_array)
+        if result then return result end
+    end
+
     local tTracking = {}
     return serializeJSONImpl(t, tTracking, bNBTStyle or false)
 end
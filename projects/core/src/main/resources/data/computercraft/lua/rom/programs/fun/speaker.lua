@@ -97,7 +97,15 @@ elseif cmd == "play" then
 
     print("Playing " .. file)
 
-    local decoder = pcm and pcm_decoder or require "cc.audio.dfpwm".make_decoder()
+    -- DFPWM audio can be sent to the speaker as-is, PCM audio must be decoded first.
+    local function play(buffer)
+        if pcm then
+            return speaker.playAudio(buffer)
+        else
+            return speaker.playAudioString(buffer, "dfpwm")
+        end
+    end
+
     while true do
         local chunk = handle.read(size)
         if not chunk then break end
@@ -106,8 +114,8 @@ elseif cmd == "play" then
             size = size + 4
         end
 
-        local buffer = decoder(chunk)
-        while not speaker.playAudio(buffer) do
+        local buffer = pcm and pcm_decoder(chunk) or chunk
+        while not play(buffer) do
             os.pullEvent("speaker_audio_empty")
         end
     end
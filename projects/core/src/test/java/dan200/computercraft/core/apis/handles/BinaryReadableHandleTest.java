@@ -7,10 +7,16 @@
 
 import dan200.computercraft.api.lua.LuaException;
 import dan200.computercraft.core.apis.ObjectWrapper;
+import dan200.computercraft.core.computer.ComputerBootstrap;
+import dan200.computercraft.core.filesystem.FileMount;
+import dan200.computercraft.core.lua.OwnedBytes;
 import org.junit.jupiter.api.Test;
 
-import java.nio.ByteBuffer;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.Arrays;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -25,52 +31,111 @@ public void testReadChar() throws LuaException {
     @Test
     public void testReadShortComplete() throws LuaException {
         var wrapper = fromLength(10);
-        assertEquals(5, wrapper.<ByteBuffer>callOf("read", 5).remaining());
+        assertEquals(5, wrapper.<OwnedBytes>callOf("read", 5).bytes().length);
     }
 
     @Test
     public void testReadShortPartial() throws LuaException {
         var wrapper = fromLength(5);
-        assertEquals(5, wrapper.<ByteBuffer>callOf("read", 10).remaining());
+        assertEquals(5, wrapper.<OwnedBytes>callOf("read", 10).bytes().length);
     }
 
     @Test
     public void testReadLongComplete() throws LuaException {
         var wrapper = fromLength(10000);
-        assertEquals(9000, wrapper.<byte[]>callOf("read", 9000).length);
+        assertEquals(9000, wrapper.<OwnedBytes>callOf("read", 9000).bytes().length);
     }
 
     @Test
     public void testReadLongPartial() throws LuaException {
         var wrapper = fromLength(10000);
-        assertEquals(10000, wrapper.<byte[]>callOf("read", 11000).length);
+        assertEquals(10000, wrapper.<OwnedBytes>callOf("read", 11000).bytes().length);
     }
 
     @Test
     public void testReadLongPartialSmaller() throws LuaException {
         var wrapper = fromLength(1000);
-        assertEquals(1000, wrapper.<ByteBuffer>callOf("read", 11000).remaining());
+        assertEquals(1000, wrapper.<OwnedBytes>callOf("read", 11000).bytes().length);
     }
 
     @Test
     public void testReadLine() throws LuaException {
         var wrapper = new ObjectWrapper(BinaryReadableHandle.of(new ArrayByteChannel("hello\r\nworld\r!".getBytes(StandardCharsets.UTF_8))));
-        assertArrayEquals("hello".getBytes(StandardCharsets.UTF_8), wrapper.callOf("readLine"));
-        assertArrayEquals("world\r!".getBytes(StandardCharsets.UTF_8), wrapper.callOf("readLine"));
+        assertArrayEquals("hello".getBytes(StandardCharsets.UTF_8), wrapper.<OwnedBytes>callOf("readLine").bytes());
+        assertArrayEquals("world\r!".getBytes(StandardCharsets.UTF_8), wrapper.<OwnedBytes>callOf("readLine").bytes());
         assertNull(wrapper.call("readLine"));
     }
 
     @Test
     public void testReadLineTrailing() throws LuaException {
         var wrapper = new ObjectWrapper(BinaryReadableHandle.of(new ArrayByteChannel("hello\r\nworld\r!".getBytes(StandardCharsets.UTF_8))));
-        assertArrayEquals("hello\r\n".getBytes(StandardCharsets.UTF_8), wrapper.callOf("readLine", true));
-        assertArrayEquals("world\r!".getBytes(StandardCharsets.UTF_8), wrapper.callOf("readLine", true));
+        assertArrayEquals("hello\r\n".getBytes(StandardCharsets.UTF_8), wrapper.<OwnedBytes>callOf("readLine", true).bytes());
+        assertArrayEquals("world\r!".getBytes(StandardCharsets.UTF_8), wrapper.<OwnedBytes>callOf("readLine", true).bytes());
         assertNull(wrapper.call("readLine", true));
     }
 
+    @Test
+    public void testReadLongUnseekable() throws LuaException {
+        var wrapper = new ObjectWrapper(BinaryReadableHandle.of(Channels.newChannel(new ByteArrayInputStream(new byte[20000]))));
+        assertEquals(8192, wrapper.<OwnedBytes>callOf("read", 8192).bytes().length);
+        assertEquals(10000, wrapper.<OwnedBytes>callOf("read", 10000).bytes().length);
+        assertEquals(1808, wrapper.<OwnedBytes>callOf("read", 10000).bytes().length);
+        assertNull(wrapper.call("read", 10000));
+    }
+
+    @Test
+    public void testReadAll() throws LuaException {
+        var wrapper = fromLength(100000);
+        assertEquals(1000, wrapper.<OwnedBytes>callOf("read", 1000).bytes().length);
+        assertEquals(99000, wrapper.<OwnedBytes>callOf("readAll").bytes().length);
+        assertNull(wrapper.call("readAll"));
+        assertNull(wrapper.call("read", 10));
+    }
+
+    @Test
+    public void testReadAllUnseekable() throws LuaException {
+        var wrapper = new ObjectWrapper(BinaryReadableHandle.of(Channels.newChannel(new ByteArrayInputStream(new byte[100000]))));
+        assertEquals(100000, wrapper.<OwnedBytes>callOf("readAll").bytes().length);
+        assertNull(wrapper.call("readAll"));
+    }
+
     private static ObjectWrapper fromLength(int length) {
         var input = new byte[length];
         Arrays.fill(input, (byte) 'A');
         return new ObjectWrapper(BinaryReadableHandle.of(new ArrayByteChannel(input)));
     }
+
+    /**
+     * Measure the throughput of {@code readAll} and {@code read(n)} on 1-64MiB files.
+     *
+     * @param args Ignored.
+     * @throws IOException If the files could not be created.
+     */
+    public static void main(String[] args) throws IOException {
+        var dir = Files.createTempDirectory("cc-read-benchmark");
+        for (var size : new int[]{ 1, 4, 16, 64 }) Files.write(dir.resolve(size + ".bin"), new byte[size << 20]);
+        Files.writeString(dir.resolve("startup.lua"), "assertion.assert(pcall(loadfile('test.lua', nil, _ENV))) os.shutdown()");
+        Files.writeString(dir.resolve("test.lua"), """
+            local function measure(name, size, fn)
+                local count, start = 0, os.epoch("utc")
+                repeat
+                    local h = fs.open(size .. ".bin", "rb")
+                    fn(h)
+                    h.close()
+                    count = count + 1
+                until os.epoch("utc") - start >= 2000
+                local time = (os.epoch("utc") - start) / 1000
+                assertion.log(("%-10s %2dMiB: %8.1f MiB/s"):format(name, size, count * size / time))
+            end
+
+            for _, size in ipairs { 1, 4, 16, 64 } do
+                measure("readAll", size, function(h) h.readAll() end)
+                measure("read(64K)", size, function(h) while h.read(65536) do end end)
+                measure("read(1M)", size, function(h) while h.read(1048576) do end end)
+            end
+            """);
+
+        ComputerBootstrap.run(new FileMount(dir.toFile(), 1L << 30), x -> {
+        }, 1000);
+    }
 }
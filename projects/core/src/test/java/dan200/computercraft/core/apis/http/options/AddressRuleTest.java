@@ -5,16 +5,20 @@
  */
 package dan200.computercraft.core.apis.http.options;
 
+import com.google.common.net.InetAddresses;
 import dan200.computercraft.core.CoreConfig;
+import dan200.computercraft.core.metrics.Metric;
+import dan200.computercraft.core.metrics.Metrics;
+import dan200.computercraft.core.metrics.MetricsObserver;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.ValueSource;
 
 import java.net.InetSocketAddress;
-import java.util.Collections;
-import java.util.OptionalInt;
+import java.util.*;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 
 public class AddressRuleTest {
     @Test
@@ -38,7 +42,64 @@ public void blocksLocalDomains(String domain) {
         assertEquals(apply(CoreConfig.httpRules, domain, 80).action, Action.DENY);
     }
 
+    @ParameterizedTest
+    @CsvSource({
+        "localhost,127.0.0.1", "127.0.0.1,127.0.0.1", "10.0.0.1,10.0.0.1", "192.0.2.1,192.0.2.1",
+        "example.com,192.0.2.2", "EXAMPLE.com,192.0.2.2", "www.example.com,192.0.2.2", "example.org,192.0.2.1",
+    })
+    public void matcherMatchesRules(String domain, String ip) {
+        List<AddressRule> rules = List.of(
+            AddressRule.parse("example.com", OptionalInt.empty(), Action.DENY.toPartial()),
+            AddressRule.parse("192.0.2.1", OptionalInt.of(80), Action.DENY.toPartial()),
+            AddressRule.parse("*.example.com", OptionalInt.empty(), Action.DENY.toPartial()),
+            AddressRule.parse("$private", OptionalInt.empty(), Action.DENY.toPartial()),
+            AddressRule.parse("*", OptionalInt.empty(), Action.ALLOW.toPartial())
+        );
+
+        var matcher = AddressRuleMatcher.of(rules);
+        for (var port : new int[]{ 80, 443 }) {
+            var address = new InetSocketAddress(InetAddresses.forString(ip), port);
+            assertEquals(
+                AddressRule.apply(rules, domain, address).action,
+                matcher.apply(domain, address, new CountingMetrics()).action,
+                "Matcher and rules differ for " + domain + ":" + port
+            );
+        }
+    }
+
+    @Test
+    public void matcherCachesOptions() {
+        var matcher = AddressRuleMatcher.of(CoreConfig.httpRules);
+        var metrics = new CountingMetrics();
+        var address = new InetSocketAddress("127.0.0.1", 80);
+
+        var options = matcher.apply("127.0.0.1", address, metrics);
+        assertSame(options, matcher.apply("127.0.0.1", address, metrics));
+        assertEquals(1, metrics.get(Metrics.HTTP_RULE_CACHE_MISSES));
+        assertEquals(1, metrics.get(Metrics.HTTP_RULE_CACHE_HITS));
+
+        assertTrue(matcher.isFor(CoreConfig.httpRules));
+        assertFalse(matcher.isFor(List.copyOf(CoreConfig.httpRules)), "New configs should rebuild the matcher");
+    }
+
     private Options apply(Iterable<AddressRule> rules, String host, int port) {
         return AddressRule.apply(rules, host, new InetSocketAddress(host, port));
     }
+
+    private static final class CountingMetrics implements MetricsObserver {
+        private final Map<Metric.Counter, Integer> counters = new HashMap<>();
+
+        @Override
+        public void observe(Metric.Counter counter) {
+            counters.merge(counter, 1, Integer::sum);
+        }
+
+        @Override
+        public void observe(Metric.Event event, long value) {
+        }
+
+        int get(Metric.Counter counter) {
+            return counters.getOrDefault(counter, 0);
+        }
+    }
 }
@@ -0,0 +1,119 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2022. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+package dan200.computercraft.core.apis.http.request;
+
+import dan200.computercraft.api.lua.LuaException;
+import dan200.computercraft.api.lua.MethodResult;
+import dan200.computercraft.core.lua.OwnedBytes;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HttpStreamHandleTest {
+    @Test
+    public void testWaitsForData() throws LuaException {
+        var owner = new FakeOwner();
+        var stream = new HttpStreamHandle(owner);
+
+        var result = stream.read(Optional.of(5));
+        assertNotNull(result.getCallback(), "Should wait for data");
+
+        stream.offer(bytes("abc"));
+        assertEquals(1, owner.wakes, "Should wake the computer");
+        result = result.getCallback().resume(new Object[]{ "http_stream" });
+        assertNotNull(result.getCallback(), "Should wait for the remaining data");
+
+        stream.offer(bytes("defg"));
+        assertEquals("abcde", string(result.getCallback().resume(new Object[0])));
+        stream.finish();
+        assertEquals("fg", string(stream.readAll()));
+    }
+
+    @Test
+    public void testReadLine() throws LuaException {
+        var stream = new HttpStreamHandle(new FakeOwner());
+        stream.offer(bytes("first\r"));
+        stream.offer(bytes("\nsecond\nthi"));
+        stream.offer(bytes("rd"));
+        stream.finish();
+
+        assertEquals("first", string(stream.readLine(Optional.empty())));
+        assertEquals("second\n", string(stream.readLine(Optional.of(true))));
+        assertEquals("third", string(stream.readLine(Optional.empty())));
+        assertArrayEquals(new Object[0], stream.readLine(Optional.empty()).getResult(), "Returns nil at the end");
+        assertArrayEquals(new Object[0], stream.read(Optional.of(0)).getResult(), "Returns nil at the end");
+    }
+
+    @Test
+    public void testBackpressure() throws LuaException {
+        var owner = new FakeOwner();
+        var stream = new HttpStreamHandle(owner);
+
+        var chunk = new byte[16 * 1024];
+        for (var i = 0; i < HttpStreamHandle.HIGH_WATER_MARK / chunk.length; i++) stream.offer(chunk);
+        assertFalse(owner.reading, "Should stop reading once the buffer is full");
+
+        stream.read(Optional.of(HttpStreamHandle.HIGH_WATER_MARK - HttpStreamHandle.LOW_WATER_MARK - 1));
+        assertFalse(owner.reading, "Should not resume until the buffer has drained");
+
+        stream.read(Optional.of(1));
+        assertTrue(owner.reading, "Should resume once the buffer has drained");
+    }
+
+    @Test
+    public void testFailure() throws LuaException {
+        var stream = new HttpStreamHandle(new FakeOwner());
+        stream.offer(bytes("abc"));
+        stream.fail("Response is too large");
+
+        assertEquals("abc", string(stream.read(Optional.of(3))), "Buffered data is still available");
+        var error = assertThrows(LuaException.class, () -> stream.read(Optional.of(1)));
+        assertEquals("Response is too large", error.getMessage());
+    }
+
+    @Test
+    public void testCloseAborts() throws LuaException {
+        var owner = new FakeOwner();
+        var stream = new HttpStreamHandle(owner);
+        stream.doClose();
+
+        assertTrue(owner.aborted);
+        assertThrows(LuaException.class, stream::readAll);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(MethodResult result) {
+        assertNull(result.getCallback(), "Should not wait for data");
+        return new String(((OwnedBytes) result.getResult()[0]).bytes(), StandardCharsets.UTF_8);
+    }
+
+    private static final class FakeOwner implements HttpStreamHandle.Owner {
+        boolean reading = true;
+        int wakes;
+        boolean aborted;
+
+        @Override
+        public void setReading(boolean reading) {
+            this.reading = reading;
+        }
+
+        @Override
+        public void wake() {
+            wakes++;
+        }
+
+        @Override
+        public void abort() {
+            aborted = true;
+        }
+    }
+}
@@ -15,6 +15,7 @@
 import org.slf4j.LoggerFactory;
 
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.closeTo;
@@ -26,9 +27,18 @@ public class ComputerThreadTest {
     private static final Logger LOG = LoggerFactory.getLogger(ComputerThreadTest.class);
     private KotlinComputerManager manager;
 
+    /**
+     * The scheduler to run these tests with. This is overridden in {@link ConcurrentComputerThreadTest}.
+     *
+     * @return The scheduler mode to use.
+     */
+    protected SchedulerMode mode() {
+        return SchedulerMode.LOCKED;
+    }
+
     @BeforeEach
     public void before() {
-        manager = new KotlinComputerManager();
+        manager = new KotlinComputerManager(new ComputerThread(1, mode()));
     }
 
     @AfterEach
@@ -101,4 +111,87 @@ public void testPauseIfSomeOtherMachine() throws Exception {
 
         manager.startAndWait(computer);
     }
+
+    @Test
+    public void testFairness() throws Exception {
+        var counts = new AtomicInteger[4];
+        for (var i = 0; i < counts.length; i++) {
+            var count = counts[i] = new AtomicInteger();
+            var computer = manager.create();
+            manager.enqueueForever(computer, timeout -> {
+                count.incrementAndGet();
+                spin(TimeUnit.MILLISECONDS.toNanos(2));
+                return MachineResult.OK;
+            });
+            computer.turnOn();
+            computer.tick();
+        }
+
+        manager.sleep(2, TimeUnit.SECONDS);
+
+        var total = 0;
+        for (var count : counts) total += count.get();
+        var expected = (double) total / counts.length;
+        for (var count : counts) {
+            assertThat("Each computer should run for an equal amount of time", (double) count.get(), closeTo(expected, expected * 0.15));
+        }
+    }
+
+    @Test
+    public void testManyComputers() throws Exception {
+        var computers = 200;
+        var tasks = 20;
+        var remaining = new AtomicInteger(computers * tasks);
+        try (var manager = new KotlinComputerManager(new ComputerThread(4, mode()))) {
+            for (var i = 0; i < computers; i++) {
+                var computer = manager.create();
+                var count = new AtomicInteger(tasks);
+                manager.enqueueForever(computer, timeout -> {
+                    if (count.getAndDecrement() > 0) remaining.getAndDecrement();
+                    return MachineResult.OK;
+                });
+                computer.turnOn();
+                computer.tick();
+            }
+
+            assertTrue(ConcurrentHelpers.waitUntil(() -> remaining.get() <= 0, 10, TimeUnit.SECONDS), "All tasks should run");
+        }
+    }
+
+    /**
+     * Measure the throughput of each {@link SchedulerMode}, with many computers running very short tasks.
+     *
+     * @param args Ignored.
+     * @throws Exception If a computer fails.
+     */
+    public static void main(String[] args) throws Exception {
+        for (var mode : SchedulerMode.values()) {
+            for (var threads : new int[]{ 1, 4, 16 }) {
+                var tasks = new AtomicInteger();
+                try (var manager = new KotlinComputerManager(new ComputerThread(threads, mode))) {
+                    for (var i = 0; i < 2000; i++) {
+                        var computer = manager.create();
+                        manager.enqueueForever(computer, timeout -> {
+                            tasks.incrementAndGet();
+                            return MachineResult.OK;
+                        });
+                        computer.turnOn();
+                        computer.tick();
+                    }
+
+                    // Warm up, and then measure.
+                    manager.sleep(2, TimeUnit.SECONDS);
+                    var start = tasks.get();
+                    manager.sleep(5, TimeUnit.SECONDS);
+                    var count = tasks.get() - start;
+                    System.out.printf("%-10s %2d threads: %,10.0f tasks/s\n", mode, threads, count / 5.0);
+                }
+            }
+        }
+    }
+
+    static void spin(long nanos) {
+        var end = System.nanoTime() + nanos;
+        while (System.nanoTime() - end < 0) Thread.onSpinWait();
+    }
 }
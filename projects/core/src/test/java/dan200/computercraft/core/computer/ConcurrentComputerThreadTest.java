@@ -0,0 +1,16 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2022. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+package dan200.computercraft.core.computer;
+
+/**
+ * Runs all tests in {@link ComputerThreadTest} using {@link SchedulerMode#CONCURRENT}.
+ */
+public class ConcurrentComputerThreadTest extends ComputerThreadTest {
+    @Override
+    protected SchedulerMode mode() {
+        return SchedulerMode.CONCURRENT;
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2022. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+package dan200.computercraft.core.computer;
+
+import dan200.computercraft.core.CoreConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Checks events are delivered correctly with and without {@link CoreConfig#batchEvents}.
+ */
+public class EventBatchingTest {
+    @AfterEach
+    public void reset() {
+        CoreConfig.batchEvents = false;
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = { false, true })
+    public void testEventOrder(boolean batch) {
+        CoreConfig.batchEvents = batch;
+        ComputerBootstrap.run("""
+            for i = 1, 200 do os.queueEvent("test", i) end
+            for i = 1, 200 do
+                local _, n = os.pullEvent("test")
+                assertion.assert(n == i, ("Expected event %d, got %d"):format(i, n))
+            end
+            """, ComputerBootstrap.MAX_TIME);
+    }
+
+    /**
+     * Measure how many events per second a computer can process, with and without batching.
+     *
+     * @param args Ignored.
+     */
+    public static void main(String[] args) {
+        for (var batch : new boolean[]{ false, true }) {
+            CoreConfig.batchEvents = batch;
+            System.out.printf("Batching %s\n", batch ? "enabled" : "disabled");
+            ComputerBootstrap.run("""
+                local count, start = 0, os.epoch("utc")
+                while os.epoch("utc") - start < 5000 do
+                    for i = 1, 200 do os.queueEvent("test", i) end
+                    for i = 1, 200 do os.pullEvent("test") end
+                    count = count + 200
+                end
+                assertion.log(("%d events/s"):format(math.floor(count * 1000 / (os.epoch("utc") - start))))
+                """, 1000);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2022. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+package dan200.computercraft.core.filesystem;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class FileMountTest {
+    private static final long CAPACITY = 1_000_000;
+
+    @TempDir
+    public Path dir;
+
+    private Path root() {
+        return dir.resolve("mount");
+    }
+
+    private static void write(FileMount mount, String path, int size) throws IOException {
+        try (var channel = mount.openForWrite(path)) {
+            channel.write(ByteBuffer.allocate(size));
+        }
+    }
+
+    @Test
+    public void testUsageMatchesMeasured() throws IOException {
+        var mount = new FileMount(root().toFile(), CAPACITY);
+        write(mount, "a", 100);
+        write(mount, "b", 5000);
+        mount.makeDirectory("x/y/z");
+        write(mount, "x/y/c", 700);
+        mount.delete("a");
+
+        assertEquals(mount.getRemainingSpace(), new FileMount(root().toFile(), CAPACITY).getRemainingSpace());
+    }
+
+    @Test
+    public void testUsageMeasuredWhenFirstUsed() throws IOException {
+        Files.createDirectories(root());
+        var mount = new FileMount(root().toFile(), CAPACITY);
+
+        // Files created before the mount is first used should still be counted.
+        Files.write(root().resolve("file"), new byte[2000]);
+        assertEquals(CAPACITY - 2000, mount.getRemainingSpace());
+    }
+
+    @Test
+    public void testDoesNotCreateFiles() throws IOException {
+        var mount = new FileMount(root().toFile(), CAPACITY);
+        write(mount, "file", 100);
+
+        try (var files = Files.list(dir)) {
+            assertEquals(1, files.count(), "Only the mount's directory should exist");
+        }
+    }
+}
@@ -8,17 +8,26 @@
 import com.google.common.io.Files;
 import dan200.computercraft.api.filesystem.IWritableMount;
 import dan200.computercraft.api.lua.LuaException;
+import dan200.computercraft.core.CoreConfig;
 import dan200.computercraft.core.TestFiles;
 import dan200.computercraft.core.apis.ObjectWrapper;
 import dan200.computercraft.core.apis.handles.EncodedWritableHandle;
+import dan200.computercraft.test.core.filesystem.MemoryMount;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.*;
 
 public class FileSystemTest {
     private static final File ROOT = TestFiles.get("filesystem").toFile();
@@ -74,4 +83,162 @@ public void testUnmountCloses() throws FileSystemException {
         var err = assertThrows(LuaException.class, () -> wrapper.call("write", "Tiny line"));
         assertEquals("attempt to use a closed file", err.getMessage());
     }
+
+    @Test
+    public void testDeepestMount() throws FileSystemException {
+        var fs = new FileSystem("root", new MemoryMount());
+        fs.mount("a", "a", new MemoryMount().addFile("file", ""));
+        fs.mount("b", "a/b", new MemoryMount());
+        fs.mount("c", "a/b/c/d", new MemoryMount());
+
+        assertEquals("root", fs.getMountLabel(""));
+        assertEquals("root", fs.getMountLabel("ab"));
+        assertEquals("a", fs.getMountLabel("a"));
+        assertEquals("a", fs.getMountLabel("a/file"));
+        assertEquals("a", fs.getMountLabel("a/bb"));
+        assertEquals("b", fs.getMountLabel("/a//b/"));
+        assertEquals("b", fs.getMountLabel("a/b/c"));
+        assertEquals("c", fs.getMountLabel("a/b/c/d/e"));
+        assertEquals("c", fs.getMountLabel("A/B/C/D"), "Mounts are case insensitive");
+
+        assertTrue(fs.exists("a/file"));
+        assertThrows(FileSystemException.class, () -> fs.getMountLabel(".."));
+
+        fs.unmount("a/b");
+        assertEquals("a", fs.getMountLabel("a/b/c"));
+        assertEquals("c", fs.getMountLabel("a/b/c/d"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "", "a", "a/b/c", "/a/b", "a/b/", "a//b", "./a", "a/./b", "a/../b", "../a", "a/...", "a\\b", "a:b", "a*b",
+        "\u0001a",
+    })
+    public void testSanitizePath(String path) {
+        for (var wildcards : new boolean[]{ false, true }) {
+            var expected = FileSystem.sanitizePath(path + "/", wildcards);
+            assertEquals(expected, FileSystem.sanitizePath(path, wildcards));
+            // Check the cached result is the same too.
+            assertEquals(expected, FileSystem.sanitizePath(path, wildcards));
+            // And sanitising is idempotent.
+            assertEquals(expected, FileSystem.sanitizePath(expected, wildcards));
+        }
+    }
+
+    @Test
+    public void testSanitizeTruncates() {
+        assertEquals("a/" + "x".repeat(255), FileSystem.sanitizePath("a/" + "x".repeat(300), false));
+        assertEquals("x".repeat(255), FileSystem.sanitizePath("x".repeat(255), false));
+    }
+
+    /**
+     * Ensures a slow operation on one mount does not block other readers.
+     *
+     * @throws Exception If the file system could not be created, or a thread failed.
+     */
+    @Test
+    public void testConcurrentReads() throws Exception {
+        var entered = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var fs = new FileSystem("root", new MemoryMount() {
+            @Override
+            public boolean exists(String path) {
+                if (path.equals("slow")) {
+                    entered.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.exists(path);
+            }
+        }.addFile("file", ""));
+
+        var executor = Executors.newSingleThreadExecutor();
+        try {
+            var slow = executor.submit(() -> fs.exists("slow"));
+            assertTrue(entered.await(5, TimeUnit.SECONDS), "Slow operation was started");
+
+            // While the other thread is stuck inside the mount, we should still be able to use the file system.
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+                assertTrue(fs.exists("file"));
+                assertTrue(fs.isDir(""));
+                fs.openForRead("file", x -> x).close();
+            });
+
+            release.countDown();
+            assertFalse(slow.get(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Open and close files from several threads at once, and check the open file count is still correct.
+     *
+     * @throws Exception If the file system could not be created, or a thread failed.
+     */
+    @Test
+    public void testConcurrentOpen() throws Exception {
+        var fs = new FileSystem("root", new MemoryMount().addFile("file", "contents"));
+
+        var executor = Executors.newFixedThreadPool(8);
+        try {
+            var tasks = new ArrayList<Future<?>>();
+            for (var i = 0; i < 8; i++) {
+                tasks.add(executor.submit(() -> {
+                    for (var j = 0; j < 500; j++) fs.openForRead("file", x -> x).close();
+                    return null;
+                }));
+            }
+            for (var task : tasks) task.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // All files have been closed, so we should be able to open exactly the maximum number of files again.
+        var handles = new ArrayList<FileSystemWrapper<?>>();
+        for (var i = 0; i < CoreConfig.maximumFilesOpen; i++) handles.add(fs.openForRead("file", x -> x));
+        assertEquals(
+            "Too many files already open",
+            assertThrows(FileSystemException.class, () -> fs.openForRead("file", x -> x)).getMessage()
+        );
+        for (var handle : handles) handle.close();
+    }
+
+    /**
+     * Measure the number of file system operations per second, with a varying number of mounts.
+     *
+     * @param args Ignored.
+     * @throws FileSystemException If the file system could not be created.
+     */
+    public static void main(String[] args) throws FileSystemException {
+        for (var mounts : new int[]{ 1, 10, 50 }) {
+            var fs = new FileSystem("root", new MemoryMount().addFile("file", ""));
+            for (var i = 1; i < mounts; i++) {
+                fs.mount("disk" + i, "disk" + i, new MemoryMount().addFile("file", ""));
+            }
+            if (mounts > 1) fs.mount("rom", "rom", new MemoryMount().addFile("programs/file", ""));
+
+            var paths = new String[]{ "file", "/disk1/file", "rom/programs/file", "/rom/programs/missing" };
+
+            // Warm up.
+            for (var i = 0; i < 100_000; i++) run(fs, paths[i % paths.length]);
+
+            var count = 2_000_000;
+            var start = System.nanoTime();
+            for (var i = 0; i < count; i++) run(fs, paths[i % paths.length]);
+            var elapsed = System.nanoTime() - start;
+
+            System.out.printf("%2d mounts: %.0f ops/s\n", mounts, count * 1e9 / elapsed);
+        }
+    }
+
+    private static void run(FileSystem fs, String path) throws FileSystemException {
+        fs.exists(path);
+        fs.isDir(path);
+        fs.isReadOnly(path);
+    }
 }
@@ -0,0 +1,111 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2022. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+package dan200.computercraft.core.lua;
+
+import dan200.computercraft.api.lua.ILuaAPI;
+import dan200.computercraft.api.lua.LuaException;
+import dan200.computercraft.api.lua.LuaFunction;
+import dan200.computercraft.core.CoreConfig;
+import dan200.computercraft.core.computer.ComputerBootstrap;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class CoroutineTest {
+    private static final String PROGRAM = """
+        local count, rounds = ...
+        count, rounds = count or 100, rounds or 1
+
+        local function log(msg) if bench then bench.log(msg) end end
+
+        local before = bench and bench.rss() or 0
+        local coroutines = {}
+        for i = 1, count do
+            local co = coroutine.create(function()
+                local n = 0
+                while true do n = n + 1 coroutine.yield(n) end
+            end)
+            assert(coroutine.resume(co))
+            coroutines[i] = co
+        end
+        local after = bench and bench.rss() or 0
+        log(("%d coroutines: %.1fMiB RSS (%.1fKiB/coroutine)"):format(count, (after - before) / 1048576, (after - before) / 1024 / count))
+
+        local start = os.epoch("utc")
+        for round = 1, rounds do
+            for i = 1, count do
+                local ok, n = coroutine.resume(coroutines[i])
+                assert(ok and n == round + 1, "Coroutine returned wrong value")
+            end
+            if round % 5 == 0 then sleep(0) end
+        end
+        local taken = os.epoch("utc") - start
+        log(("%d resumes in %dms (%.2fus/switch)"):format(count * rounds, taken, taken * 1e3 / (count * rounds)))
+        """;
+
+    @AfterEach
+    public void reset() {
+        CoreConfig.coroutineMode = CoroutineMode.THREADS;
+    }
+
+    @ParameterizedTest
+    @EnumSource(CoroutineMode.class)
+    public void testCoroutines(CoroutineMode mode) {
+        CoreConfig.coroutineMode = mode;
+        ComputerBootstrap.run(PROGRAM, ComputerBootstrap.MAX_TIME);
+    }
+
+    /**
+     * Compare memory usage and context switch cost of the various {@link CoroutineMode}s with 10k coroutines.
+     *
+     * @param args Ignored.
+     */
+    public static void main(String[] args) {
+        for (var mode : CoroutineMode.values()) {
+            System.out.printf("Running with %s\n", mode);
+            CoreConfig.coroutineMode = mode;
+            ComputerBootstrap.run(
+                "local f = assert(load(" + luaString(PROGRAM) + ")) f(10000, 50)",
+                computer -> computer.addApi(new BenchmarkApi()), 1000
+            );
+        }
+    }
+
+    private static String luaString(String contents) {
+        return "[==[" + contents + "]==]";
+    }
+
+    public static class BenchmarkApi implements ILuaAPI {
+        @Override
+        public String[] getNames() {
+            return new String[]{ "bench" };
+        }
+
+        @LuaFunction
+        public final void log(String message) {
+            System.out.println(message);
+        }
+
+        @LuaFunction
+        public final long rss() throws LuaException {
+            System.gc();
+            try {
+                for (var line : Files.readAllLines(Path.of("/proc/self/status"))) {
+                    if (!line.startsWith("VmRSS:")) continue;
+                    var parts = line.substring(6).trim().split("\\s+");
+                    return Long.parseLong(parts[0]) * 1024;
+                }
+            } catch (IOException e) {
+                throw new LuaException("Cannot read RSS: " + e.getMessage());
+            }
+            return 0;
+        }
+    }
+}
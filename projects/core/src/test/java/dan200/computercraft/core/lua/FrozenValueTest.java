@@ -0,0 +1,104 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2022. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+package dan200.computercraft.core.lua;
+
+import org.junit.jupiter.api.Test;
+import org.squiddev.cobalt.Constants;
+import org.squiddev.cobalt.LuaError;
+import org.squiddev.cobalt.LuaTable;
+import org.squiddev.cobalt.LuaValue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.squiddev.cobalt.ValueFactory.valueOf;
+
+public class FrozenValueTest {
+    @Test
+    public void testPrimitivesAreUnchanged() {
+        assertNull(FrozenValue.of(null));
+        assertEquals(1, FrozenValue.of(1));
+        assertEquals(true, FrozenValue.of(true));
+    }
+
+    @Test
+    public void testUnsupportedAreUnchanged() {
+        var object = new Object();
+        assertSame(object, FrozenValue.of(object));
+
+        var map = Map.of("x", object);
+        assertSame(map, FrozenValue.of(map));
+    }
+
+    @Test
+    public void testTables() throws LuaError {
+        var frozen = assertInstanceOf(FrozenValue.class, FrozenValue.of(Map.of(
+            "list", List.of("a", "b", "c"),
+            "nested", Map.of("x", 1, "y", true)
+        )));
+
+        var first = frozen.toValue();
+        var second = frozen.toValue();
+        assertNotSame(first, second, "Each conversion should create new tables");
+
+        for (var value : List.of(first, second)) {
+            var table = assertInstanceOf(LuaTable.class, value);
+            var list = assertInstanceOf(LuaTable.class, table.rawget(valueOf("list")));
+            assertEquals(3, list.length());
+            assertEquals("b", list.rawget(2).checkString());
+
+            var nested = assertInstanceOf(LuaTable.class, table.rawget(valueOf("nested")));
+            assertEquals(1, nested.rawget(valueOf("x")).checkInteger());
+            assertTrue(nested.rawget(valueOf("y")).checkBoolean());
+        }
+    }
+
+    @Test
+    public void testSkipsNil() throws LuaError {
+        var map = new HashMap<Object, Object>();
+        map.put("a", 1);
+        map.put("b", null);
+        map.put(null, 2);
+
+        var table = assertInstanceOf(LuaTable.class, ((FrozenValue) FrozenValue.of(map)).toValue());
+        assertEquals(1, table.rawget(valueOf("a")).checkInteger());
+        assertTrue(table.rawget(valueOf("b")).isNil());
+        assertEquals(1, count(table));
+    }
+
+    @Test
+    public void testCycles() {
+        var list = new ArrayList<Object>();
+        var map = new HashMap<Object, Object>();
+        list.add(map);
+        list.add(map);
+        map.put("self", map);
+        map.put("list", list);
+
+        var frozen = (FrozenValue) FrozenValue.of(list);
+        var first = assertInstanceOf(LuaTable.class, frozen.toValue());
+        var second = assertInstanceOf(LuaTable.class, frozen.toValue());
+
+        for (var table : List.of(first, second)) {
+            var child = assertInstanceOf(LuaTable.class, table.rawget(1));
+            assertSame(child, table.rawget(2), "Aliased tables are preserved");
+            assertSame(child, child.rawget(valueOf("self")), "Cycles are preserved");
+            assertSame(table, child.rawget(valueOf("list")), "Cycles are preserved");
+        }
+
+        assertNotSame(first.rawget(1), second.rawget(1));
+    }
+
+    private static int count(LuaTable table) throws LuaError {
+        var count = 0;
+        LuaValue key = Constants.NIL;
+        while (!(key = table.next(key).first()).isNil()) count++;
+        return count;
+    }
+}
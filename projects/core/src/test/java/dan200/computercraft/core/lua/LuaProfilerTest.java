@@ -0,0 +1,56 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2022. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+package dan200.computercraft.core.lua;
+
+import dan200.computercraft.core.computer.ComputerBootstrap;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LuaProfilerTest {
+    private static final String PROGRAM = """
+        local function hot()
+            local x = 0
+            for i = 1, 1e5 do x = x + i end
+            return x
+        end
+
+        for _ = 1, 20 do hot() end
+        assertion.assert(true)
+        """;
+
+    @Test
+    public void testRecordsStacks() throws IOException {
+        var profiler = new LuaProfiler[1];
+        ComputerBootstrap.run(PROGRAM, computer -> {
+            profiler[0] = computer.getProfiler();
+            profiler[0].start(100, 1000);
+        }, ComputerBootstrap.MAX_TIME);
+
+        var profile = profiler[0].stop();
+        assertNotNull(profile);
+        assertFalse(profiler[0].isRunning());
+
+        assertTrue(profile.totalSamples() > 1000, "Should take more samples than we keep");
+        assertEquals(1000, profile.stacks().values().stream().mapToInt(x -> x).sum());
+        assertTrue(
+            profile.stacks().keySet().stream().anyMatch(x -> x.endsWith("test.lua:1")),
+            () -> "Expected samples within hot(), got " + profile.stacks().keySet()
+        );
+
+        var output = new StringWriter();
+        profile.writeCollapsed(output);
+        for (var line : output.toString().split("\n")) assertTrue(line.matches(".+ \\d+"), line);
+    }
+
+    @Test
+    public void testStopWhenNotRunning() {
+        assertNull(new LuaProfiler().stop());
+    }
+}
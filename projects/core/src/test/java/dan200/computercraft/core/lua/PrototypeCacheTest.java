@@ -0,0 +1,113 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2022. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+package dan200.computercraft.core.lua;
+
+import dan200.computercraft.core.computer.ComputerBootstrap;
+import org.junit.jupiter.api.Test;
+import org.squiddev.cobalt.compiler.CompileException;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PrototypeCacheTest {
+    private static final String[] FILES = new String[]{
+        "bios.lua", "rom/programs/shell.lua", "rom/apis/textutils.lua", "rom/modules/main/cc/expect.lua",
+    };
+
+    @Test
+    public void testSharesPrototypes() throws CompileException, IOException {
+        var contents = "return 1".getBytes(StandardCharsets.UTF_8);
+        var first = PrototypeCache.compile(contents, 0, contents.length, "@test.lua");
+        assertSame(first, PrototypeCache.compile(contents.clone(), 0, contents.length, "@test.lua"));
+        assertNotSame(first, PrototypeCache.compile(contents, 0, contents.length, "@other.lua"), "Different names are different chunks");
+
+        var modified = "return 2".getBytes(StandardCharsets.UTF_8);
+        assertNotSame(first, PrototypeCache.compile(modified, 0, modified.length, "@test.lua"), "Different contents are different chunks");
+    }
+
+    @Test
+    public void testEstimatesNestedFunctions() throws CompileException, IOException {
+        var flat = "return 1".getBytes(StandardCharsets.UTF_8);
+        var nested = "return function() return function() return 'a string constant' end end".getBytes(StandardCharsets.UTF_8);
+
+        var flatSize = PrototypeCache.estimateSize(PrototypeCache.compile(flat, 0, flat.length, "@flat.lua"));
+        var nestedSize = PrototypeCache.estimateSize(PrototypeCache.compile(nested, 0, nested.length, "@nested.lua"));
+        assertTrue(flatSize > flat.length, "Size includes the compiled code");
+        assertTrue(nestedSize > 2 * flatSize, "Size includes nested functions");
+    }
+
+    @Test
+    public void testLoadFile() {
+        ComputerBootstrap.run("""
+            local function write(contents)
+                local h = fs.open("counter.lua", "w")
+                h.write(contents)
+                h.close()
+            end
+
+            write("local n = 0 return function() n = n + 1 return n end")
+            local a, b = dofile("counter.lua"), dofile("counter.lua")
+            assertion.assert(a ~= b, "Each load creates a new closure")
+            a() a()
+            assertion.assert(b() == 1, "Closures do not share upvalues")
+
+            write("return _ENV.value")
+            assertion.assert(loadfile("counter.lua", nil, { value = 123 })() == 123, "Uses the provided environment")
+
+            write("return 'changed'")
+            assertion.assert(dofile("counter.lua") == "changed", "Modified files are reloaded")
+
+            write("return +")
+            local fn, err = loadfile("counter.lua", nil, _ENV)
+            assertion.assert(fn == nil and err:find("counter.lua") ~= nil, "Errors are reported")
+            """, ComputerBootstrap.MAX_TIME);
+    }
+
+    /**
+     * Measure the time and memory taken to compile the bios and several ROM files, with and without the cache.
+     *
+     * @param args Ignored.
+     * @throws Exception If the files could not be read or compiled.
+     */
+    public static void main(String[] args) throws Exception {
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        var files = new byte[FILES.length][];
+        for (var i = 0; i < FILES.length; i++) {
+            try (var stream = PrototypeCacheTest.class.getResourceAsStream("/data/computercraft/lua/" + FILES[i])) {
+                files[i] = Objects.requireNonNull(stream, FILES[i]).readAllBytes();
+            }
+        }
+
+        for (var cached : new boolean[]{ false, true }) {
+            // Warm up.
+            for (var i = 0; i < 50; i++) boot(files, cached);
+
+            var count = 500;
+            var startBytes = threads.getCurrentThreadAllocatedBytes();
+            var start = System.nanoTime();
+            for (var i = 0; i < count; i++) boot(files, cached);
+            var time = System.nanoTime() - start;
+            var bytes = threads.getCurrentThreadAllocatedBytes() - startBytes;
+
+            System.out.printf(
+                "%-8s %8.1fus/boot, %10.1fKiB/boot\n",
+                cached ? "Cached" : "Uncached", time / 1e3 / count, bytes / 1024.0 / count
+            );
+        }
+    }
+
+    private static void boot(byte[][] files, boolean cached) throws CompileException, IOException {
+        if (!cached) PrototypeCache.clear();
+        for (var i = 0; i < files.length; i++) {
+            PrototypeCache.compile(files[i], 0, files[i].length, "@" + FILES[i]);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2022. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+package dan200.computercraft.core.lua;
+
+import dan200.computercraft.core.computer.ComputerBootstrap;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks {@link TextutilsLib} agrees with the Lua implementation on a larger document. More detailed conformance tests
+ * can be found in {@code textutils_spec.lua}.
+ */
+public class TextutilsLibTest {
+    private static final String PROGRAM = """
+        local count, rounds = ...
+        count, rounds = count or 50, rounds or 1
+
+        local function log(msg) if bench then bench.log(msg) end end
+
+        local lua_impl = setmetatable({ _CC_TEXTUTILS = false }, { __index = _G })
+        assert(loadfile("rom/apis/textutils.lua", nil, lua_impl))()
+        lua_impl.json_null, lua_impl.empty_json_array = textutils.json_null, textutils.empty_json_array
+
+        local function equal(a, b)
+            if a == b then return true end
+            if type(a) ~= "table" or type(b) ~= "table" then return false end
+            for k, v in pairs(a) do if not equal(v, b[k]) then return false end end
+            for k in pairs(b) do if a[k] == nil then return false end end
+            return true
+        end
+
+        -- Something resembling a typical response from a web API.
+        local document = {}
+        for i = 1, count do
+            document[i] = {
+                id = i, name = "Item #" .. i, description = ("A \\"quoted\\" description\\n"):rep(3),
+                tags = { "a", "b", "c" }, price = i * 1.25, stock = { available = i % 2 == 0, count = i * 3 },
+            }
+        end
+
+        local function bench_pair(name, input)
+            local native_fn, lua_fn = textutils[name], lua_impl[name]
+            local native_out, lua_out = native_fn(input), lua_fn(input)
+            assertion.assert(equal(native_out, lua_out), name .. " differs between implementations")
+
+            local taken = {}
+            for i, fn in ipairs { native_fn, lua_fn } do
+                local total = 0
+                for _ = 1, rounds do
+                    local start = os.epoch("utc")
+                    fn(input)
+                    total = total + (os.epoch("utc") - start)
+                    sleep(0)
+                end
+                taken[i] = total / rounds
+            end
+
+            log(("%-16s %8d bytes: native %7.1fms, Lua %7.1fms (%.1fx)"):format(
+                name, #(type(input) == "string" and input or native_out), taken[1], taken[2], taken[2] / math.max(taken[1], 0.1)
+            ))
+            return native_out
+        end
+
+        local json = bench_pair("serialiseJSON", document)
+        bench_pair("unserialiseJSON", json)
+        local serialised = bench_pair("serialise", document)
+        bench_pair("unserialise", serialised)
+
+        assertion.assert(true)
+        """;
+
+    @Test
+    public void testMatchesLua() {
+        ComputerBootstrap.run(PROGRAM, ComputerBootstrap.MAX_TIME);
+    }
+
+    /**
+     * Compare the throughput of the native and Lua implementations of {@code textutils}'s serialisation functions.
+     *
+     * @param args Ignored.
+     */
+    public static void main(String[] args) {
+        for (var count : new int[]{ 100, 500, 2000 }) {
+            ComputerBootstrap.run(
+                "local f = assert(load(" + luaString(PROGRAM) + ")) f(" + count + ", 10)",
+                computer -> computer.addApi(new CoroutineTest.BenchmarkApi()), 1000
+            );
+        }
+    }
+
+    private static String luaString(String contents) {
+        return "[==[" + contents + "]==]";
+    }
+}
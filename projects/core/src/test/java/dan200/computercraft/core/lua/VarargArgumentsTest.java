@@ -0,0 +1,136 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2022. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+package dan200.computercraft.core.lua;
+
+import dan200.computercraft.api.lua.ILuaAPI;
+import dan200.computercraft.api.lua.LuaException;
+import dan200.computercraft.api.lua.LuaFunction;
+import dan200.computercraft.core.computer.ComputerBootstrap;
+import org.junit.jupiter.api.Test;
+import org.squiddev.cobalt.Constants;
+
+import java.lang.management.ManagementFactory;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.squiddev.cobalt.ValueFactory.valueOf;
+import static org.squiddev.cobalt.ValueFactory.varargsOf;
+
+public class VarargArgumentsTest {
+    private static VarargArguments args() {
+        return VarargArguments.of(varargsOf(valueOf(2), valueOf(1.5), valueOf("hello"), valueOf(true), Constants.NIL));
+    }
+
+    @Test
+    public void testGetters() throws LuaException {
+        var args = args();
+        assertEquals(2, args.getInt(0));
+        assertEquals(2L, args.getLong(0));
+        assertEquals(1.5, args.getDouble(1));
+        assertEquals(1L, args.getLong(1));
+        assertEquals("hello", args.getString(2));
+        assertTrue(args.getBoolean(3));
+    }
+
+    @Test
+    public void testOptional() throws LuaException {
+        var args = args();
+        assertEquals(Optional.of(2), args.optInt(0));
+        assertEquals(Optional.of("hello"), args.optString(2));
+        assertEquals(Optional.empty(), args.optBoolean(4));
+        assertEquals(Optional.empty(), args.optDouble(5));
+
+        assertEquals(2, args.optInt(0, 5));
+        assertEquals(5, args.optInt(4, 5));
+        assertEquals(2.5, args.optDouble(5, 2.5));
+        assertEquals("x", args.optString(4, "x"));
+        assertNull(args.optString(4, null));
+        assertFalse(args.optBoolean(4, false));
+    }
+
+    @Test
+    public void testErrors() {
+        var args = args();
+        assertEquals("bad argument #1 (string expected, got number)", assertThrows(LuaException.class, () -> args.getString(0)).getMessage());
+        assertEquals("bad argument #3 (number expected, got string)", assertThrows(LuaException.class, () -> args.getInt(2)).getMessage());
+        assertEquals("bad argument #4 (string expected, got boolean)", assertThrows(LuaException.class, () -> args.optString(3, "x")).getMessage());
+        assertEquals("bad argument #5 (boolean expected, got nil)", assertThrows(LuaException.class, () -> args.getBoolean(4)).getMessage());
+    }
+
+    /**
+     * Measure the number of bytes allocated by calling various Java functions from Lua.
+     *
+     * @param args Ignored.
+     */
+    public static void main(String[] args) {
+        ComputerBootstrap.run("""
+            local count = 1000000
+            local function measure(name, fn, ...)
+                for _ = 1, 10000 do fn(...) end -- Warm up
+
+                local start_bytes, start_time = bench.allocated(), os.epoch("utc")
+                for _ = 1, count do fn(...) end
+                local bytes, time = bench.allocated() - start_bytes, os.epoch("utc") - start_time
+                bench.log(("%-20s %6.1f bytes/call, %6.1fns/call"):format(name, bytes / count, time * 1e6 / count))
+            end
+
+            measure("noArgs", bench.noArgs)
+            measure("ints", bench.ints, 1, 2)
+            measure("doubles", bench.doubles, 1.5, 2.5)
+            measure("string", bench.string, "hello")
+            measure("optional", bench.optional, nil, nil)
+            measure("multiReturn", bench.multiReturn)
+            """, computer -> computer.addApi(new BenchmarkApi()), 1000);
+    }
+
+    public static class BenchmarkApi implements ILuaAPI {
+        private final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        @Override
+        public String[] getNames() {
+            return new String[]{ "bench" };
+        }
+
+        @LuaFunction
+        public final void log(String message) {
+            System.out.println(message);
+        }
+
+        @LuaFunction
+        public final long allocated() {
+            return threads.getCurrentThreadAllocatedBytes();
+        }
+
+        @LuaFunction
+        public final void noArgs() {
+        }
+
+        @LuaFunction
+        public final int ints(int x, int y) {
+            return x + y;
+        }
+
+        @LuaFunction
+        public final double doubles(double x, double y) {
+            return x * y;
+        }
+
+        @LuaFunction
+        public final boolean string(String value) {
+            return value.isEmpty();
+        }
+
+        @LuaFunction
+        public final int optional(Optional<Integer> x, Optional<String> y) {
+            return x.orElse(0) + y.map(String::length).orElse(0);
+        }
+
+        @LuaFunction
+        public final Object[] multiReturn() {
+            return new Object[]{ 1, true, "x" };
+        }
+    }
+}
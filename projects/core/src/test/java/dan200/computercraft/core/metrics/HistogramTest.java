@@ -0,0 +1,125 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2022. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+package dan200.computercraft.core.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HistogramTest {
+    @Test
+    public void testEmpty() {
+        var histogram = new Histogram();
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.mean());
+        assertEquals(0, histogram.max());
+        assertEquals(0, histogram.percentile(0.99));
+    }
+
+    @Test
+    public void testSmallValuesAreExact() {
+        var histogram = new Histogram();
+        for (var i = 1; i <= 10; i++) histogram.record(i);
+
+        assertEquals(10, histogram.count());
+        assertEquals(55, histogram.sum());
+        assertEquals(5, histogram.percentile(0.5));
+        assertEquals(10, histogram.percentile(0.95));
+        assertEquals(10, histogram.max());
+    }
+
+    @Test
+    public void testPercentilesWithinError() {
+        var histogram = new Histogram();
+        for (var i = 1; i <= 1_000_000; i++) histogram.record(i * 1000L);
+
+        for (var percentile : new double[]{ 0.5, 0.95, 0.99 }) {
+            var expected = percentile * 1_000_000_000L;
+            var actual = histogram.percentile(percentile);
+            assertTrue(Math.abs(actual - expected) / expected < 0.07, () -> percentile + ": expected " + expected + ", got " + actual);
+        }
+
+        assertEquals(1_000_000_000L, histogram.percentile(1));
+        assertEquals(1_000_000_000L, histogram.max());
+    }
+
+    @Test
+    public void testLargeValues() {
+        var histogram = new Histogram();
+        histogram.record(Long.MAX_VALUE);
+        histogram.record(-5);
+
+        assertEquals(Long.MAX_VALUE, histogram.percentile(1));
+        assertEquals(0, histogram.percentile(0.5));
+    }
+
+    @Test
+    public void testCopy() {
+        var histogram = new Histogram(4);
+        histogram.record(100);
+        histogram.record(200);
+
+        var copy = histogram.copy();
+        histogram.record(300);
+
+        assertEquals(2, copy.count());
+        assertEquals(300, copy.sum());
+        assertEquals(200, copy.max());
+        assertEquals(3, histogram.count());
+    }
+
+    @Test
+    public void testConcurrentWrites() throws InterruptedException {
+        var histogram = new Histogram(4);
+        var threads = new ArrayList<Thread>();
+        for (var i = 0; i < 8; i++) {
+            var thread = new Thread(() -> {
+                for (var j = 0; j < 100_000; j++) histogram.record(j);
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (var thread : threads) thread.join();
+
+        assertEquals(800_000, histogram.count());
+        assertEquals(8L * (99_999L * 100_000L / 2), histogram.sum());
+        assertEquals(99_999, histogram.max());
+    }
+
+    /**
+     * Compare recording to a histogram from many threads with and without striping.
+     *
+     * @param args Ignored.
+     * @throws InterruptedException If interrupted while waiting for threads to finish.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        var threads = Runtime.getRuntime().availableProcessors();
+        for (var round = 0; round < 5; round++) {
+            for (var stripes : new int[]{ 1, threads }) {
+                var histogram = new Histogram(stripes);
+                var workers = new ArrayList<Thread>();
+                var start = System.nanoTime();
+                for (var i = 0; i < threads; i++) {
+                    var thread = new Thread(() -> {
+                        var random = ThreadLocalRandom.current();
+                        for (var j = 0; j < 1_000_000; j++) histogram.record(random.nextLong(1_000_000));
+                    });
+                    thread.start();
+                    workers.add(thread);
+                }
+                for (var worker : workers) worker.join();
+
+                var elapsed = System.nanoTime() - start;
+                System.out.printf("%d threads, %d stripes: %.1fns/record, p99 = %d%n",
+                    threads, stripes, (double) elapsed / (threads * 1_000_000L), histogram.percentile(0.99));
+            }
+        }
+    }
+}
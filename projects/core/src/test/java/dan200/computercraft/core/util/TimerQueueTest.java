@@ -0,0 +1,65 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2022. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+package dan200.computercraft.core.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TimerQueueTest {
+    private static List<Integer> expire(TimerQueue queue, double now) {
+        List<Integer> fired = new ArrayList<>();
+        queue.expire(now, fired::add);
+        return fired;
+    }
+
+    @Test
+    public void testFiresInOrder() {
+        var queue = new TimerQueue();
+        var late = queue.add(5);
+        var early = queue.add(2);
+        var alsoLate = queue.add(5);
+
+        assertEquals(List.of(), expire(queue, 1));
+        assertEquals(List.of(early), expire(queue, 2));
+        assertEquals(List.of(late, alsoLate), expire(queue, 10), "Timers with the same deadline fire in the order they were added");
+        assertEquals(List.of(), expire(queue, 20), "Timers only fire once");
+    }
+
+    @Test
+    public void testCancel() {
+        var queue = new TimerQueue();
+        var cancelled = queue.add(1);
+        var kept = queue.add(1);
+        queue.cancel(cancelled);
+        queue.cancel(cancelled);
+
+        assertEquals(List.of(kept), expire(queue, 1));
+    }
+
+    @Test
+    public void testManyCancelled() {
+        var queue = new TimerQueue();
+        for (var i = 0; i < 1000; i++) queue.cancel(queue.add(100 + i));
+        var timer = queue.add(50);
+
+        assertEquals(List.of(timer), expire(queue, 2000));
+    }
+
+    @Test
+    public void testClearKeepsIds() {
+        var queue = new TimerQueue();
+        var first = queue.add(1);
+        queue.clear();
+        var second = queue.add(1);
+
+        assertEquals(List.of(second), expire(queue, 1));
+        assertEquals(first + 1, second);
+    }
+}
@@ -256,4 +256,166 @@ describe("The textutils library", function()
             expect.error(textutils.complete, "", false):eq("bad argument #2 (expected table, got boolean)")
         end)
     end)
+
+    describe("the native serialisation functions", function()
+        it("are available", function()
+            expect(_CC_TEXTUTILS):type("table")
+        end)
+
+        -- Load a copy of textutils without the native functions, and check that both copies behave identically.
+        local lua_impl = setmetatable({ _CC_TEXTUTILS = false }, { __index = _G })
+        assert(loadfile("rom/apis/textutils.lua", nil, lua_impl))()
+        lua_impl.json_null, lua_impl.empty_json_array = textutils.json_null, textutils.empty_json_array
+
+        local function equal(a, b, seen)
+            if a == b or (a ~= a and b ~= b) then return true end
+            if type(a) ~= "table" or type(b) ~= "table" then return false end
+
+            seen = seen or {}
+            if seen[a] then return seen[a] == b end
+            seen[a] = b
+
+            for k, v in pairs(a) do
+                if not equal(v, rawget(b, k), seen) then return false end
+            end
+            for k in pairs(b) do
+                if rawget(a, k) == nil then return false end
+            end
+            return true
+        end
+
+        local function show(value)
+            local ok, res = pcall(lua_impl.serialise, value, { compact = true, allow_repetitions = true })
+            return ok and res or tostring(value)
+        end
+
+        --- Call a textutils function with both implementations, and check they return the same values (or throw the
+        -- same error).
+        local function check(name, ...)
+            local args = table.pack(...)
+            local native = table.pack(pcall(textutils[name], table.unpack(args, 1, args.n)))
+            local lua = table.pack(pcall(lua_impl[name], table.unpack(args, 1, args.n)))
+
+            if native[1] and lua[1] then
+                if equal(native, lua) then return end
+            elseif not native[1] and not lua[1] then
+                -- Errors from inside the Lua implementation (such as stack overflows) include a position, which will
+                -- differ between the two copies.
+                local native_err = tostring(native[2]):gsub("^[^:]*:%d+: ", "")
+                local lua_err = tostring(lua[2]):gsub("^[^:]*:%d+: ", "")
+                if native_err == lua_err then return end
+            end
+
+            fail(("textutils.%s(%s): native returned %s, Lua returned %s"):format(
+                name, show(args), show(native), show(lua)
+            ))
+        end
+
+        local repeated = { 1 }
+        local recursive = {}
+        recursive[1] = recursive
+        local nested = {}
+        for _ = 1, 150 do nested = { nested } end
+
+        local values = {
+            1, -1, 0.5, -0.1, 1e100, -1e-100, 2 ^ 31, 2 ^ 53, 0 / 0, 1 / 0, -1 / 0, true, false,
+            "", "hello", "\"quoted\\\"", "new\nline", "\r\0\1\127\128\255", "\t tab", "'single'", string.rep("x", 1000),
+            {}, { 1, 2, 3 }, { 1, nil, 3 }, { nil, nil, "x" }, { a = 1, b = { c = { d = {} } } },
+            { [false] = true, [1.5] = 2, [-1] = 3, [0] = 4 }, { 1, 2, [10] = 10, x = { 0 / 0 } },
+            { ["and"] = 1, ["a b"] = 2, _x9 = 3, ["9x"] = 4, [""] = 5, ["\n"] = 6 }, { [{}] = {} },
+            { repeated, repeated }, recursive, nested, { print }, { [print] = 1 }, { x = print }, { 1, a = 2 },
+            setmetatable({ 1, 2 }, { __index = function() return "x" end }),
+            textutils.json_null, textutils.empty_json_array, { textutils.json_null, textutils.empty_json_array },
+        }
+
+        it("give up on pathological inputs", function()
+            local too_large = "Cannot serialize value, as the output is too large"
+
+            -- A table with 2^30 paths through it.
+            local repeated = {}
+            for _ = 1, 30 do repeated = { repeated, repeated } end
+            expect.error(textutils.serialise, repeated, { allow_repetitions = true }):eq(too_large)
+
+            -- Sparse arrays, which would be serialised as millions of nulls.
+            expect.error(textutils.serialiseJSON, { [2 ^ 24] = true }):eq(too_large)
+            local sparse = {}
+            for i = 1, 10 do sparse[i] = { [2 ^ 19] = true } end
+            expect.error(textutils.serialiseJSON, sparse):eq(too_large)
+        end)
+
+        it("textutils.serialise", function()
+            check("serialise", nil)
+            for _, value in ipairs(values) do
+                check("serialise", value)
+                check("serialise", value, { compact = true })
+                check("serialise", value, { allow_repetitions = true })
+            end
+        end)
+
+        it("textutils.unserialise", function()
+            for _, value in ipairs(values) do
+                for _, compact in ipairs { true, false } do
+                    local ok, serialised = pcall(lua_impl.serialise, value, { compact = compact, allow_repetitions = true })
+                    if ok then check("unserialise", serialised) end
+                end
+            end
+
+            for _, input in ipairs {
+                "", "nil", "true", "false", "1", "-1", "-0", ".5", "5.", "1e5", "1e+5", "1E-5", "0x10", "1..2", "1e5x",
+                "1 + 1", "1/0/0", "- 1 / 0", "'\\q'", "'\\65\\0661'", "'\\\n'", "\"unfinished", "[[long]]", "[==[long]==]",
+                "{ 1, 2, [1] = 3 }", "{ [1] = 3, 1 }", "{ [2] = 2 }", "{ [nil] = 1 }", "{ [0/0] = 1 }", "{ and = 1 }",
+                "{ x = 1; y = 2, }", "{ x == 1 }", "{ , }", "{ 1 2 }", "{ [{}] = {} }", "math.pi", "print", "{ x = y }",
+                "1 -- comment", "1, 2", "1;", "(1)", "{ x = 1, x = nil }", "{ [ 'a' ] = 1 }", "  { }  ",
+            } do
+                check("unserialise", input)
+            end
+        end)
+
+        it("textutils.serialiseJSON", function()
+            for _, value in ipairs(values) do
+                check("serialiseJSON", value)
+                check("serialiseJSON", value, true)
+            end
+
+            local all_bytes = {}
+            for i = 0, 255 do all_bytes[#all_bytes + 1] = string.char(i) end
+            check("serialiseJSON", table.concat(all_bytes))
+            check("serialiseJSON", { [table.concat(all_bytes)] = 1 })
+            check("serialiseJSON", { [table.concat(all_bytes)] = 1 }, true)
+        end)
+
+        describe("textutils.unserialiseJSON", function()
+            local options = {
+                {}, { parse_null = true }, { parse_empty_array = false }, { nbt_style = true },
+                { nbt_style = true, parse_null = true },
+            }
+
+            it("on handwritten inputs", function()
+                for _, input in ipairs {
+                    "", " ", "null", "true", "false", "tru", "[]", "{}", "[", "{", "]", "}", "[1,]", "[,1]", "{,}",
+                    '{"a" 1}', '{"a":1 "b":2}', '{"a":1,}', "[1 2]", "[null, null]", '{"a": null}', '"\\u00e9\\u4E2D"',
+                    '"\\u12"', '"\\u"', '"\\x"', '"\\', '"a\tb"', '"\128\255"', "-", "-1", "1e", "1e5", "1.5.3", "01",
+                    "1e400", "-1e-400", "123456789012345678901234567890", "1b", "1.5d", "1x", "{ a: 1 }", "{ 'a': 1 }",
+                    "'a'", "[B; 1, 2]", "[I;]", "[L;1]", "[X;1]", '{"a": [1, {"b": {}}]}  x', '  {"a": 1}  ',
+                } do
+                    for _, opts in ipairs(options) do check("unserialiseJSON", input, opts) end
+                end
+            end)
+
+            local search_path = "test-rom/data/json-parsing"
+            for _, file in pairs(fs.find(search_path .. "/*.json")) do
+                local name = fs.getName(file):sub(1, -6)
+                -- These overflow the Lua implementation's stack, and take a long time to do so.
+                if name ~= "n_structure_open_array_object" and name ~= "n_structure_100000_opening_arrays" then
+                    it("on " .. name, function()
+                        local h = io.open(file, "rb")
+                        local contents = h:read("*a")
+                        h:close()
+
+                        for _, opts in ipairs(options) do check("unserialiseJSON", contents, opts) end
+                    end)
+                end
+            end
+        end)
+    end)
 end)
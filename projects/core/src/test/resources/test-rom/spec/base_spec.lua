@@ -51,6 +51,15 @@ describe("The Lua base library", function()
             expect(info):matches { short_src = "startup.lua", source = "@startup.lua" }
         end)
 
+        it("prefixes read-only files with @ when given an environment", function()
+            local info = debug.getinfo(loadfile("/rom/startup.lua", nil, {}), "S")
+            expect(info):matches { short_src = "startup.lua", source = "@startup.lua" }
+        end)
+
+        it("does not expose the cached loader", function()
+            expect(_CC_LOAD_CACHED):eq(nil)
+        end)
+
         it("loads a file with the global environment", function()
             make_file()
             expect(loadfile("test-files/out.lua")()):eq(_G)
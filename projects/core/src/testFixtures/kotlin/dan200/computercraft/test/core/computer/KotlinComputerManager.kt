@@ -24,13 +24,15 @@
 
 /**
  * Creates "fake" computers, which just run user-defined tasks rather than Lua code.
+ *
+ * @param computerThread The [ComputerThread] to run computers on.
  */
-class KotlinComputerManager : AutoCloseable {
+class KotlinComputerManager @JvmOverloads constructor(computerThread: ComputerThread = ComputerThread(1)) : AutoCloseable {
 
     private val machines: MutableMap<Computer, Queue<FakeComputerTask>> = HashMap()
     private val context = ComputerContext(
         BasicEnvironment(),
-        ComputerThread(1),
+        computerThread,
         NoWorkMainThreadScheduler(),
     ) { DummyLuaMachine(it) }
     private val errorLock: Lock = ReentrantLock()
@@ -99,7 +101,7 @@ fun enqueue(computer: Computer, task: FakeComputerTask) {
      * @param computer The computer to enqueue the work on.
      * @param task     The task to run.
      */
-    private fun enqueueForever(computer: Computer, task: FakeComputerTask) {
+    fun enqueueForever(computer: Computer, task: FakeComputerTask) {
         machines[computer]!!.offer {
             val result = task(it)
             enqueueForever(computer, task)
@@ -21,6 +21,12 @@ public final class ComputerCraft {
     public static boolean commandRequireCreative = true;
 
     public static int computerThreads = 1;
+    public static int computerTickThreads = 1;
+    public static String metricsExportFile = "";
+    public static int metricsExportInterval = 15;
+    public static int metricsExportComputers = 0;
+    public static int profilerInterval = 1000;
+    public static int profilerSamples = 10_000;
 
     public static boolean enableCommandBlock = false;
     public static int modemRange = 64;
@@ -37,6 +43,7 @@ public final class ComputerCraft {
     public static int advancedTurtleFuelLimit = 100000;
     public static boolean turtlesObeyBlockProtection = true;
     public static boolean turtlesCanPush = true;
+    public static boolean turtlesPipelineCommands = true;
 
     public static int computerTermWidth = 51;
     public static int computerTermHeight = 19;
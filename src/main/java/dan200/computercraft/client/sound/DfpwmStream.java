@@ -35,6 +35,26 @@ class DfpwmStream implements AudioStream {
     }
 
     void push(@Nonnull ByteBuf input) {
+        push(decode(input));
+    }
+
+    /**
+     * Push already-decoded audio to this stream.
+     *
+     * @param audio The audio to push, as returned by {@link #decode(ByteBuf)}. This may be a duplicate of a buffer
+     *              shared with other streams.
+     */
+    synchronized void push(@Nonnull ByteBuffer audio) {
+        buffers.add(audio);
+    }
+
+    /**
+     * Decode some DFPWM audio, updating the decoder's state but without adding it to the stream.
+     *
+     * @param input The audio to decode.
+     * @return The decoded audio.
+     */
+    ByteBuffer decode(@Nonnull ByteBuf input) {
         var readable = input.readableBytes();
         var output = ByteBuffer.allocate(readable * 8).order(ByteOrder.nativeOrder());
 
@@ -75,9 +95,7 @@ void push(@Nonnull ByteBuf input) {
         }
 
         output.flip();
-        synchronized (this) {
-            buffers.add(output);
-        }
+        return output;
     }
 
     @Nonnull
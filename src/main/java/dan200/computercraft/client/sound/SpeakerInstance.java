@@ -11,6 +11,9 @@
 import net.minecraft.client.Minecraft;
 import net.minecraft.resources.ResourceLocation;
 
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
 /**
  * An instance of a speaker, which is either playing a {@link DfpwmStream} stream or a normal sound.
  */
@@ -23,13 +26,26 @@ public class SpeakerInstance {
     SpeakerInstance() {
     }
 
-    public synchronized void pushAudio(ByteBuf buffer) {
+    public void pushAudio(ByteBuf buffer) {
+        pushAudio(stream -> stream.push(buffer));
+    }
+
+    /**
+     * Push audio which has already been decoded, such as by {@link SpeakerManager#decodeGroupAudio}.
+     *
+     * @param buffer The decoded audio. This must not be shared with other speakers.
+     */
+    public void pushDecodedAudio(ByteBuffer buffer) {
+        pushAudio(stream -> stream.push(buffer));
+    }
+
+    private synchronized void pushAudio(Consumer<DfpwmStream> push) {
         var sound = this.sound;
 
         var stream = currentStream;
         if (stream == null) stream = currentStream = new DfpwmStream();
         var exhausted = stream.isEmpty();
-        currentStream.push(buffer);
+        push.accept(stream);
 
         // If we've got nothing left in the buffer, enqueue an additional one just in case.
         if (exhausted && sound != null && sound.stream == stream && sound.channel != null) {
@@ -6,11 +6,13 @@
 package dan200.computercraft.client.sound;
 
 import dan200.computercraft.shared.peripheral.speaker.SpeakerPosition;
+import io.netty.buffer.ByteBuf;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.client.event.sound.PlayStreamingSourceEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.common.Mod;
 
+import java.nio.ByteBuffer;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
@@ -21,6 +23,7 @@
 @Mod.EventBusSubscriber(Dist.CLIENT)
 public class SpeakerManager {
     private static final Map<UUID, SpeakerInstance> sounds = new ConcurrentHashMap<>();
+    private static final Map<UUID, DfpwmStream> groupDecoders = new ConcurrentHashMap<>();
 
     @SubscribeEvent
     public static void playStreaming(PlayStreamingSourceEvent event) {
@@ -31,6 +34,21 @@ public static void playStreaming(PlayStreamingSourceEvent event) {
         sound.executor = event.getEngine().executor;
     }
 
+    /**
+     * Decode audio sent to a {@linkplain dan200.computercraft.shared.peripheral.speaker.SpeakerGroup group of speakers}.
+     * Each group has its own decoder, so the audio is only decoded once, no matter how many speakers play it.
+     *
+     * @param group The group's source ID.
+     * @param input The DFPWM audio to decode.
+     * @return The decoded audio. This should be {@linkplain ByteBuffer#duplicate() duplicated} for each speaker.
+     */
+    public static ByteBuffer decodeGroupAudio(UUID group, ByteBuf input) {
+        var decoder = groupDecoders.computeIfAbsent(group, x -> new DfpwmStream());
+        synchronized (decoder) {
+            return decoder.decode(input).asReadOnlyBuffer();
+        }
+    }
+
     public static SpeakerInstance getSound(UUID source) {
         return sounds.computeIfAbsent(source, x -> new SpeakerInstance());
     }
@@ -38,6 +56,9 @@ public static SpeakerInstance getSound(UUID source) {
     public static void stopSound(UUID source) {
         var sound = sounds.remove(source);
         if (sound != null) sound.stop();
+
+        // Speaker groups are also stopped using their source ID, so drop the decoder if this was a group.
+        groupDecoders.remove(source);
     }
 
     public static void moveSound(UUID source, SpeakerPosition position) {
@@ -47,5 +68,6 @@ public static void moveSound(UUID source, SpeakerPosition position) {
 
     public static void reset() {
         sounds.clear();
+        groupDecoders.clear();
     }
 }
@@ -14,6 +14,7 @@
 import dan200.computercraft.shared.network.NetworkHandler;
 import dan200.computercraft.shared.network.client.UpgradesLoadedMessage;
 import dan200.computercraft.shared.peripheral.modem.wireless.WirelessNetwork;
+import dan200.computercraft.shared.peripheral.speaker.SpeakerGroup;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.dedicated.DedicatedServer;
 import net.minecraft.world.level.storage.loot.BuiltInLootTables;
@@ -78,6 +79,7 @@ private static void resetState() {
         ServerContext.close();
         WirelessNetwork.resetNetworks();
         NetworkUtils.reset();
+        SpeakerGroup.reset();
     }
 
     public static final ResourceLocation LOOT_TREASURE_DISK = new ResourceLocation(ComputerCraft.MOD_ID, "treasure_disk");
@@ -11,6 +11,8 @@
 import dan200.computercraft.core.Logging;
 import dan200.computercraft.core.apis.http.NetworkUtils;
 import dan200.computercraft.core.apis.http.options.Action;
+import dan200.computercraft.core.computer.SchedulerMode;
+import dan200.computercraft.core.lua.CoroutineMode;
 import dan200.computercraft.shared.peripheral.monitor.MonitorRenderer;
 import net.minecraftforge.common.ForgeConfigSpec;
 import net.minecraftforge.common.ForgeConfigSpec.ConfigValue;
@@ -43,8 +45,17 @@ public final class Config {
     private static final ConfigValue<Boolean> commandRequireCreative;
 
     private static final ConfigValue<Integer> computerThreads;
+    private static final ConfigValue<Integer> computerTickThreads;
     private static final ConfigValue<Integer> maxMainGlobalTime;
     private static final ConfigValue<Integer> maxMainComputerTime;
+    private static final ConfigValue<CoroutineMode> coroutineMode;
+    private static final ConfigValue<SchedulerMode> computerScheduler;
+    private static final ConfigValue<Boolean> batchEvents;
+    private static final ConfigValue<String> metricsExportFile;
+    private static final ConfigValue<Integer> metricsExportInterval;
+    private static final ConfigValue<Integer> metricsExportComputers;
+    private static final ConfigValue<Integer> profilerInterval;
+    private static final ConfigValue<Integer> profilerSamples;
 
     private static final ConfigValue<Boolean> httpEnabled;
     private static final ConfigValue<Boolean> httpWebsocketEnabled;
@@ -69,6 +80,7 @@ public final class Config {
     private static final ConfigValue<Integer> advancedTurtleFuelLimit;
     private static final ConfigValue<Boolean> turtlesObeyBlockProtection;
     private static final ConfigValue<Boolean> turtlesCanPush;
+    private static final ConfigValue<Boolean> turtlesPipelineCommands;
 
     private static final ConfigValue<Integer> computerTermWidth;
     private static final ConfigValue<Integer> computerTermHeight;
@@ -153,6 +165,22 @@ private Config() {
                 .worldRestart()
                 .defineInRange("computer_threads", ComputerCraft.computerThreads, 1, Integer.MAX_VALUE);
 
+            computerScheduler = builder
+                .comment("""
+                    How computer threads pick which computer to run next. "LOCKED" uses a single
+                    shared queue, while "CONCURRENT" avoids contention between threads, which may
+                    help on servers with many computers and a high computer_threads.""")
+                .worldRestart()
+                .defineEnum("computer_scheduler", CoreConfig.computerScheduler);
+
+            computerTickThreads = builder
+                .comment("""
+                    The number of threads used to update computers each tick. Values above 1 update
+                    computers in parallel, which may reduce lag on servers with thousands of
+                    computers. Anything which affects the world is still run on the server thread,
+                    but some mods' APIs may not expect to be updated off the server thread.""")
+                .defineInRange("computer_tick_threads", ComputerCraft.computerTickThreads, 1, 64);
+
             maxMainGlobalTime = builder
                 .comment("""
                     The maximum time that can be spent executing tasks in a single tick, in
@@ -168,6 +196,57 @@ private Config() {
                     long a will take - this aims to be the upper bound of the average time.""")
                 .defineInRange("max_main_computer_time", (int) TimeUnit.NANOSECONDS.toMillis(CoreConfig.maxMainComputerTime), 1, Integer.MAX_VALUE);
 
+            coroutineMode = builder
+                .comment("""
+                    How Lua coroutines are run. Each coroutine needs its own Java thread, so programs
+                    with thousands of coroutines may use a lot of memory. Setting this to
+                    "VIRTUAL_THREADS" runs coroutines on lightweight virtual threads instead. This
+                    requires Java 21 or later, and falls back to "THREADS" otherwise.
+                    Changes only apply to computers started after this option is changed.""")
+                .defineEnum("coroutine_mode", CoreConfig.coroutineMode);
+
+            batchEvents = builder
+                .comment("""
+                    Allow computers to process several queued events each time they run, rather than
+                    one at a time. This makes computers which receive many events (such as lots of
+                    modem messages) much cheaper to run.""")
+                .define("batch_events", CoreConfig.batchEvents);
+
+            metricsExportFile = builder
+                .comment("""
+                    A file to periodically write metrics about computers to, relative to the server's
+                    directory. Metrics are written in Prometheus's text format, so can be collected by
+                    tools such as node_exporter's textfile collector. Leave empty to disable.""")
+                .worldRestart()
+                .define("metrics_export_file", ComputerCraft.metricsExportFile);
+
+            metricsExportInterval = builder
+                .comment("How often metrics should be written to \"metrics_export_file\", in seconds.")
+                .worldRestart()
+                .defineInRange("metrics_export_interval", ComputerCraft.metricsExportInterval, 1, 3600);
+
+            metricsExportComputers = builder
+                .comment("""
+                    The maximum number of computers to write individual metrics for to "metrics_export_file",
+                    choosing those which have spent the most time running. Each computer adds many
+                    series, so this is disabled by default and only metrics for the whole server are
+                    written.""")
+                .worldRestart()
+                .defineInRange("metrics_export_computers", ComputerCraft.metricsExportComputers, 0, 1000);
+
+            profilerInterval = builder
+                .comment("""
+                    How many Lua instructions to run between each sample when profiling a computer
+                    with "/computercraft profile". Lower values give more accurate results, but slow
+                    down the profiled computer.""")
+                .defineInRange("profiler_interval", ComputerCraft.profilerInterval, 1, Integer.MAX_VALUE);
+
+            profilerSamples = builder
+                .comment("""
+                    The maximum number of samples kept when profiling a computer. Once this is
+                    reached, the oldest samples are discarded.""")
+                .defineInRange("profiler_samples", ComputerCraft.profilerSamples, 1, 1_000_000);
+
             builder.pop();
         }
 
@@ -299,6 +378,13 @@ CIDR notation ("127.0.0.0/8").
                     there is space to do so.""")
                 .define("can_push", ComputerCraft.turtlesCanPush);
 
+            turtlesPipelineCommands = builder
+                .comment("""
+                    If set to true, Turtles will run several commands in a single tick, as long as they do not
+                    play an animation (such as detecting or comparing blocks). Otherwise, turtles run at most one
+                    command each tick.""")
+                .define("pipeline_commands", ComputerCraft.turtlesPipelineCommands);
+
             builder.pop();
         }
 
@@ -365,8 +451,17 @@ private static void syncServer() {
 
         // Execution
         ComputerCraft.computerThreads = computerThreads.get();
+        ComputerCraft.computerTickThreads = computerTickThreads.get();
         CoreConfig.maxMainGlobalTime = TimeUnit.MILLISECONDS.toNanos(maxMainGlobalTime.get());
         CoreConfig.maxMainComputerTime = TimeUnit.MILLISECONDS.toNanos(maxMainComputerTime.get());
+        CoreConfig.coroutineMode = coroutineMode.get();
+        CoreConfig.computerScheduler = computerScheduler.get();
+        CoreConfig.batchEvents = batchEvents.get();
+        ComputerCraft.metricsExportFile = metricsExportFile.get();
+        ComputerCraft.metricsExportInterval = metricsExportInterval.get();
+        ComputerCraft.metricsExportComputers = metricsExportComputers.get();
+        ComputerCraft.profilerInterval = profilerInterval.get();
+        ComputerCraft.profilerSamples = profilerSamples.get();
 
         // Update our log filter if needed.
         var logFilter = MarkerFilter.createFilter(
@@ -406,6 +501,7 @@ private static void syncServer() {
         ComputerCraft.advancedTurtleFuelLimit = advancedTurtleFuelLimit.get();
         ComputerCraft.turtlesObeyBlockProtection = turtlesObeyBlockProtection.get();
         ComputerCraft.turtlesCanPush = turtlesCanPush.get();
+        ComputerCraft.turtlesPipelineCommands = turtlesPipelineCommands.get();
 
         // Terminal size
         ComputerCraft.computerTermWidth = computerTermWidth.get();
@@ -8,7 +8,9 @@
 import com.mojang.brigadier.CommandDispatcher;
 import com.mojang.brigadier.arguments.StringArgumentType;
 import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import dan200.computercraft.ComputerCraft;
 import dan200.computercraft.core.computer.ComputerSide;
+import dan200.computercraft.core.lua.LuaProfiler;
 import dan200.computercraft.core.metrics.Metrics;
 import dan200.computercraft.shared.command.text.TableBuilder;
 import dan200.computercraft.shared.computer.core.ComputerFamily;
@@ -20,6 +22,7 @@
 import dan200.computercraft.shared.computer.metrics.basic.BasicComputerMetricsObserver;
 import dan200.computercraft.shared.computer.metrics.basic.ComputerMetrics;
 import dan200.computercraft.shared.network.container.ComputerContainerData;
+import net.minecraft.Util;
 import net.minecraft.commands.CommandSourceStack;
 import net.minecraft.core.BlockPos;
 import net.minecraft.network.chat.Component;
@@ -35,6 +38,9 @@
 
 import javax.annotation.Nonnull;
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 
 import static dan200.computercraft.shared.command.CommandUtils.isPlayer;
@@ -247,9 +253,53 @@ public AbstractContainerMenu createMenu(int id, @Nonnull Inventory player, @Nonn
 
                         return displayTimings(context.getSource(), sort, fields);
                     })))
+
+            .then(choice("profile")
+                .then(command("start")
+                    .requires(UserLevel.OWNER_OP)
+                    .arg("computer", oneComputer())
+                    .executes(context -> {
+                        var computer = getComputerArgument(context, "computer");
+                        computer.getComputer().getProfiler().start(ComputerCraft.profilerInterval, ComputerCraft.profilerSamples);
+
+                        var stopCommand = "/computercraft profile stop " + computer.getInstanceID();
+                        context.getSource().sendSuccess(translate("commands.computercraft.profile.start.stop",
+                            link(text(stopCommand), stopCommand, translate("commands.computercraft.profile.stop.action"))), false);
+                        return 1;
+                    }))
+
+                .then(command("stop")
+                    .requires(UserLevel.OWNER_OP)
+                    .arg("computer", oneComputer())
+                    .executes(context -> {
+                        var computer = getComputerArgument(context, "computer");
+                        var profile = computer.getComputer().getProfiler().stop();
+                        if (profile == null) throw NOT_PROFILING_EXCEPTION.create();
+
+                        var file = writeProfile(context.getSource(), computer, profile);
+                        context.getSource().sendSuccess(translate("commands.computercraft.profile.stop.done", profile.totalSamples(), text(file.toString())), false);
+                        return 1;
+                    })))
         );
     }
 
+    private static Path writeProfile(CommandSourceStack source, ServerComputer computer, LuaProfiler.Profile profile) throws CommandSyntaxException {
+        var server = source.getServer();
+        var directory = ServerContext.get(server).storageDir().resolve("profiles");
+        var file = directory.resolve("computer_" + computer.getID() + "_" + Util.getFilenameFormattedDateTime() + ".txt");
+        try {
+            Files.createDirectories(directory);
+            try (var writer = Files.newBufferedWriter(file)) {
+                profile.writeCollapsed(writer);
+            }
+        } catch (IOException e) {
+            ComputerCraft.log.error("Failed to write profile to {}", file, e);
+            throw PROFILE_WRITE_FAILED.create(e.getMessage());
+        }
+
+        return server.getServerDirectory().toPath().toAbsolutePath().normalize().relativize(file.toAbsolutePath().normalize());
+    }
+
     private static Component linkComputer(CommandSourceStack source, ServerComputer serverComputer, int computerId) {
         var out = Component.literal("");
 
@@ -328,7 +378,7 @@ private static BasicComputerMetricsObserver getMetricsInstance(CommandSourceStac
     );
 
     private static int displayTimings(CommandSourceStack source, AggregatedMetric sortField, List<AggregatedMetric> fields) throws CommandSyntaxException {
-        return displayTimings(source, getMetricsInstance(source).getTimings(), sortField, fields);
+        return displayTimings(source, getMetricsInstance(source).getSnapshot(), sortField, fields);
     }
 
     private static int displayTimings(CommandSourceStack source, List<ComputerMetrics> timings, AggregatedMetric sortField, List<AggregatedMetric> fields) throws CommandSyntaxException {
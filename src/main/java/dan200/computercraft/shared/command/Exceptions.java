@@ -19,6 +19,9 @@ public final class Exceptions {
     static final SimpleCommandExceptionType NOT_TRACKING_EXCEPTION = translated("commands.computercraft.track.stop.not_enabled");
     static final SimpleCommandExceptionType NO_TIMINGS_EXCEPTION = translated("commands.computercraft.track.dump.no_timings");
 
+    static final SimpleCommandExceptionType NOT_PROFILING_EXCEPTION = translated("commands.computercraft.profile.stop.not_enabled");
+    static final DynamicCommandExceptionType PROFILE_WRITE_FAILED = translated1("commands.computercraft.profile.stop.failed");
+
     static final SimpleCommandExceptionType TP_NOT_THERE = translated("commands.computercraft.tp.not_there");
     static final SimpleCommandExceptionType TP_NOT_PLAYER = translated("commands.computercraft.tp.not_player");
 
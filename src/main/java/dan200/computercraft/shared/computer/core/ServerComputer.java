@@ -17,14 +17,17 @@
 import dan200.computercraft.core.metrics.MetricsObserver;
 import dan200.computercraft.shared.computer.menu.ComputerMenu;
 import dan200.computercraft.shared.computer.terminal.NetworkedTerminal;
+import dan200.computercraft.shared.computer.terminal.TerminalDelta;
 import dan200.computercraft.shared.computer.terminal.TerminalState;
 import dan200.computercraft.shared.network.NetworkHandler;
 import dan200.computercraft.shared.network.NetworkMessage;
 import dan200.computercraft.shared.network.client.ComputerTerminalClientMessage;
+import dan200.computercraft.shared.network.client.ComputerTerminalDeltaClientMessage;
 import net.minecraft.core.BlockPos;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.inventory.AbstractContainerMenu;
 
+import javax.annotation.Nullable;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 
@@ -44,6 +47,10 @@ public class ServerComputer implements InputHandler, ComputerEnvironment {
     private boolean changedLastFrame;
     private int ticksSincePing;
 
+    private boolean pendingTerminal;
+    private @Nullable TerminalDelta pendingTerminalDelta;
+    private @Nullable TerminalState pendingTerminalState;
+
     public ServerComputer(ServerLevel level, int computerID, String label, ComputerFamily family, int terminalWidth, int terminalHeight) {
         this.level = level;
         this.family = family;
@@ -90,17 +97,49 @@ protected void markTerminalChanged() {
     }
 
 
-    public void tickServer() {
-        ticksSincePing++;
-
+    /**
+     * Update the computer's internal state: its APIs, timers, redstone output and terminal.
+     * <p>
+     * This only touches state owned by this computer, and so may be called off the server thread, in parallel with
+     * other computers (see {@link ServerComputerRegistry}). It is always followed by a call to {@link #tickServer()}
+     * on the server thread.
+     */
+    void tickComputer() {
         computer.tick();
 
         changedLastFrame = computer.pollAndResetChanged();
-        if (terminalChanged.getAndSet(false)) onTerminalChanged();
+        if (terminalChanged.getAndSet(false)) {
+            // Capture the terminal now, so tickServer only needs to send it.
+            pendingTerminal = true;
+            pendingTerminalDelta = TerminalDelta.of(terminal);
+            pendingTerminalState = pendingTerminalDelta == null ? getTerminalState() : null;
+        }
+    }
+
+    /**
+     * Apply any side effects of {@link #tickComputer()} which touch the world, such as sending packets to players. This
+     * is called on the server thread.
+     */
+    public void tickServer() {
+        ticksSincePing++;
+
+        if (pendingTerminal) {
+            pendingTerminal = false;
+            onTerminalChanged();
+            pendingTerminalDelta = null;
+            pendingTerminalState = null;
+        }
     }
 
     protected void onTerminalChanged() {
-        sendToAllInteracting(c -> new ComputerTerminalClientMessage(c, getTerminalState()));
+        // Send just the changed lines where possible, only falling back to the full terminal if it has been resized.
+        var delta = pendingTerminalDelta;
+        var state = pendingTerminalState;
+        if (delta != null) {
+            sendToAllInteracting(c -> new ComputerTerminalDeltaClientMessage(c, delta));
+        } else if (state != null) {
+            sendToAllInteracting(c -> new ComputerTerminalClientMessage(c, state));
+        }
     }
 
     public TerminalState getTerminalState() {
@@ -126,6 +165,7 @@ public int register() {
 
     void unload() {
         computer.unload();
+        ServerContext.get(level.getServer()).metrics().onComputerUnloaded(this);
     }
 
     public void close() {
@@ -5,20 +5,38 @@
  */
 package dan200.computercraft.shared.computer.core;
 
+import dan200.computercraft.ComputerCraft;
+import dan200.computercraft.core.util.ThreadUtils;
 import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class ServerComputerRegistry {
+    private static final Logger LOG = LoggerFactory.getLogger(ServerComputerRegistry.class);
     private static final Random RANDOM = new Random();
 
+    /**
+     * The maximum number of computers updated by a single task when updating computers in parallel.
+     */
+    private static final int SHARD_SIZE = 64;
+
     private final int sessionId = RANDOM.nextInt();
     private final Int2ObjectMap<ServerComputer> computers = new Int2ObjectOpenHashMap<>();
     private int nextInstanceId;
 
+    private final List<ServerComputer> ticking = new ArrayList<>();
+    private @Nullable ForkJoinPool tickPool;
+
     public int getSessionID() {
         return sessionId;
     }
@@ -37,6 +55,14 @@ public ServerComputer get(int sessionId, int instanceId) {
         return sessionId == this.sessionId ? get(instanceId) : null;
     }
 
+    /**
+     * Update every computer.
+     * <p>
+     * This first updates each computer's internal state with {@link ServerComputer#tickComputer()}. As that only
+     * touches the computer itself, we may split the computers into shards and update them in parallel (see
+     * {@link ComputerCraft#computerTickThreads}). Once every computer has been updated, we apply any changes to the
+     * world with {@link ServerComputer#tickServer()} on the server thread.
+     */
     void update() {
         var it = getComputers().iterator();
         while (it.hasNext()) {
@@ -46,7 +72,59 @@ void update() {
                 computer.onRemoved();
                 it.remove();
             } else {
-                computer.tickServer();
+                ticking.add(computer);
+            }
+        }
+
+        try {
+            var threads = ComputerCraft.computerTickThreads;
+            if (threads > 1 && ticking.size() > SHARD_SIZE) {
+                getTickPool(threads).invoke(new TickShard(ticking, 0, ticking.size()));
+            } else {
+                for (var computer : ticking) computer.tickComputer();
+            }
+
+            for (var computer : ticking) computer.tickServer();
+        } finally {
+            ticking.clear();
+        }
+    }
+
+    private ForkJoinPool getTickPool(int threads) {
+        var pool = tickPool;
+        if (pool != null && pool.getParallelism() == threads) return pool;
+
+        if (pool != null) pool.shutdown();
+        var name = ThreadUtils.group().getName() + "-Tick-";
+        var counter = new AtomicInteger();
+        return tickPool = new ForkJoinPool(threads, p -> {
+            var thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            thread.setName(name + counter.incrementAndGet());
+            return thread;
+        }, (t, e) -> LOG.error("Exception in thread " + t.getName(), e), false);
+    }
+
+    /**
+     * Updates a contiguous range of computers, splitting it into smaller shards if it is too large.
+     */
+    private static final class TickShard extends RecursiveAction {
+        private final List<ServerComputer> computers;
+        private final int start;
+        private final int end;
+
+        TickShard(List<ServerComputer> computers, int start, int end) {
+            this.computers = computers;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= SHARD_SIZE) {
+                for (var i = start; i < end; i++) computers.get(i).tickComputer();
+            } else {
+                var middle = (start + end) >>> 1;
+                invokeAll(new TickShard(computers, start, middle), new TickShard(computers, middle, end));
             }
         }
     }
@@ -70,6 +148,11 @@ void remove(int instanceID) {
     void close() {
         for (var computer : getComputers()) computer.unload();
         computers.clear();
+
+        if (tickPool != null) {
+            tickPool.shutdown();
+            tickPool = null;
+        }
     }
 
     public Collection<ServerComputer> getComputers() {
@@ -11,6 +11,7 @@
 import dan200.computercraft.api.ComputerCraftAPI;
 import dan200.computercraft.api.filesystem.IMount;
 import dan200.computercraft.core.ComputerContext;
+import dan200.computercraft.core.CoreConfig;
 import dan200.computercraft.core.computer.ComputerThread;
 import dan200.computercraft.core.computer.GlobalEnvironment;
 import dan200.computercraft.core.computer.mainthread.MainThread;
@@ -18,6 +19,7 @@
 import dan200.computercraft.core.lua.ILuaMachine;
 import dan200.computercraft.shared.CommonHooks;
 import dan200.computercraft.shared.computer.metrics.GlobalMetrics;
+import dan200.computercraft.shared.computer.metrics.basic.PrometheusMetricsExporter;
 import dan200.computercraft.shared.util.IDAssigner;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.world.level.Level;
@@ -53,6 +55,7 @@ public final class ServerContext {
 
     private final ServerComputerRegistry registry = new ServerComputerRegistry();
     private final GlobalMetrics metrics = new GlobalMetrics();
+    private final @Nullable PrometheusMetricsExporter metricsExporter;
     private final ComputerContext context;
     private final MainThread mainThread;
     private final IDAssigner idAssigner;
@@ -64,10 +67,14 @@ private ServerContext(MinecraftServer server) {
         mainThread = new MainThread();
         context = new ComputerContext(
             new Environment(server),
-            new ComputerThread(ComputerCraft.computerThreads),
+            new ComputerThread(ComputerCraft.computerThreads, CoreConfig.computerScheduler),
             mainThread, luaMachine
         );
         idAssigner = new IDAssigner(storageDir.resolve("ids.json"));
+        metricsExporter = ComputerCraft.metricsExportFile.isEmpty() ? null : PrometheusMetricsExporter.start(
+            metrics, server.getFile(ComputerCraft.metricsExportFile).toPath(),
+            ComputerCraft.metricsExportInterval, ComputerCraft.metricsExportComputers
+        );
     }
 
     /**
@@ -89,6 +96,7 @@ public static void close() {
         if (instance == null) return;
 
         instance.registry.close();
+        if (instance.metricsExporter != null) instance.metricsExporter.close();
         try {
             if (!instance.context.close(1, TimeUnit.SECONDS)) {
                 ComputerCraft.log.error("Failed to stop computers under deadline.");
@@ -6,6 +6,7 @@
 package dan200.computercraft.shared.computer.menu;
 
 import dan200.computercraft.shared.computer.core.ServerComputer;
+import dan200.computercraft.shared.computer.terminal.TerminalDelta;
 import dan200.computercraft.shared.computer.terminal.TerminalState;
 import net.minecraft.world.inventory.AbstractContainerMenu;
 
@@ -38,4 +39,13 @@ public interface ComputerMenu {
      * @throws UnsupportedOperationException When used on the server.
      */
     void updateTerminal(TerminalState state);
+
+    /**
+     * Apply a set of changes to the current terminal. This is called on the client when the server syncs a computer's
+     * terminal contents.
+     *
+     * @param delta The changes to the terminal.
+     * @throws UnsupportedOperationException When used on the server.
+     */
+    void updateTerminal(TerminalDelta delta);
 }
@@ -7,6 +7,7 @@
 
 import com.google.common.base.CaseFormat;
 import dan200.computercraft.ComputerCraft;
+import dan200.computercraft.core.metrics.Histogram;
 import dan200.computercraft.core.metrics.Metric;
 import dan200.computercraft.core.metrics.Metrics;
 import dan200.computercraft.shared.computer.core.ServerComputer;
@@ -24,7 +25,7 @@
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.LongSupplier;
 
 /**
@@ -34,7 +35,8 @@ public final class ComputerMBean implements DynamicMBean, ComputerMetricsObserve
     private static @Nullable ComputerMBean instance;
 
     private final Map<String, LongSupplier> attributes = new HashMap<>();
-    private final Int2ObjectMap<Counter> values = new Int2ObjectOpenHashMap<>();
+    private final Int2ObjectMap<LongAdder> counters = new Int2ObjectOpenHashMap<>();
+    private final Int2ObjectMap<Histogram> events = new Int2ObjectOpenHashMap<>();
     private final MBeanInfo info;
 
     private ComputerMBean() {
@@ -106,20 +108,14 @@ public MBeanInfo getMBeanInfo() {
         return info;
     }
 
-    private void observe(Metric field, long change) {
-        var counter = values.get(field.id());
-        counter.value.addAndGet(change);
-        counter.count.incrementAndGet();
-    }
-
     @Override
     public void observe(ServerComputer computer, Metric.Counter counter) {
-        observe(counter, 1);
+        counters.get(counter.id()).increment();
     }
 
     @Override
     public void observe(ServerComputer computer, Metric.Event event, long value) {
-        observe(event, value);
+        events.get(event.id()).record(value);
     }
 
     private MBeanAttributeInfo addAttribute(String name, String description, LongSupplier value) {
@@ -128,19 +124,27 @@ private MBeanAttributeInfo addAttribute(String name, String description, LongSup
     }
 
     private void add(String name, Metric field, List<MBeanAttributeInfo> attributes) {
-        var counter = new Counter();
-        values.put(field.id(), counter);
-
         var prettyName = new AggregatedMetric(field, Aggregate.NONE).displayName().getString();
-        attributes.add(addAttribute(name, prettyName, counter.value::longValue));
-        if (field instanceof Metric.Event) {
-            var countName = new AggregatedMetric(field, Aggregate.COUNT).displayName().getString();
-            attributes.add(addAttribute(name + "Count", countName, counter.count::longValue));
+        if (field instanceof Metric.Counter) {
+            var counter = new LongAdder();
+            counters.put(field.id(), counter);
+            attributes.add(addAttribute(name, prettyName, counter::sum));
+        } else if (field instanceof Metric.Event) {
+            // Metrics are observed from every computer thread, so stripe the histogram to avoid contention.
+            var histogram = new Histogram(Runtime.getRuntime().availableProcessors());
+            events.put(field.id(), histogram);
+
+            attributes.add(addAttribute(name, prettyName, histogram::sum));
+            addAggregate(name, "Count", field, Aggregate.COUNT, histogram::count, attributes);
+            addAggregate(name, "Max", field, Aggregate.MAX, histogram::max, attributes);
+            addAggregate(name, "P50", field, Aggregate.P50, () -> histogram.percentile(0.5), attributes);
+            addAggregate(name, "P95", field, Aggregate.P95, () -> histogram.percentile(0.95), attributes);
+            addAggregate(name, "P99", field, Aggregate.P99, () -> histogram.percentile(0.99), attributes);
         }
     }
 
-    private static class Counter {
-        final AtomicLong value = new AtomicLong();
-        final AtomicLong count = new AtomicLong();
+    private void addAggregate(String name, String suffix, Metric field, Aggregate aggregate, LongSupplier value, List<MBeanAttributeInfo> attributes) {
+        var prettyName = new AggregatedMetric(field, aggregate).displayName().getString();
+        attributes.add(addAttribute(name + suffix, prettyName, value));
     }
 }
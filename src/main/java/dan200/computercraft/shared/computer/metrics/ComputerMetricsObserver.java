@@ -31,4 +31,12 @@ public interface ComputerMetricsObserver {
      * @see MetricsObserver#observe(Metric.Event, long)
      */
     void observe(ServerComputer computer, Metric.Event event, long value);
+
+    /**
+     * Called when a computer is unloaded. Observers which store per-computer state may use this to discard it.
+     *
+     * @param computer The computer which was unloaded.
+     */
+    default void onComputerUnloaded(ServerComputer computer) {
+    }
 }
@@ -22,10 +22,17 @@
  * @see ServerContext#metrics() To obtain an instance of this system.
  */
 public final class GlobalMetrics {
-    volatile boolean enabled = false;
+    private static final ComputerMetricsObserver[] NO_OBSERVERS = new ComputerMetricsObserver[0];
+
     final Object lock = new Object();
     final List<ComputerMetricsObserver> trackers = new ArrayList<>();
 
+    /**
+     * An immutable copy of {@link #trackers}, which is replaced whenever an observer is added or removed. This allows
+     * us to dispatch metrics without taking a lock.
+     */
+    private volatile ComputerMetricsObserver[] observers = NO_OBSERVERS;
+
     private final HashMap<UUID, BasicComputerMetricsObserver> instances = new HashMap<>();
 
     /**
@@ -52,7 +59,7 @@ public void addObserver(ComputerMetricsObserver tracker) {
         synchronized (lock) {
             if (trackers.contains(tracker)) return;
             trackers.add(tracker);
-            enabled = true;
+            observers = trackers.toArray(NO_OBSERVERS);
         }
     }
 
@@ -64,7 +71,7 @@ public void addObserver(ComputerMetricsObserver tracker) {
     public void removeObserver(ComputerMetricsObserver tracker) {
         synchronized (lock) {
             trackers.remove(tracker);
-            enabled = !trackers.isEmpty();
+            observers = trackers.toArray(NO_OBSERVERS);
         }
     }
 
@@ -78,6 +85,16 @@ public MetricsObserver createMetricObserver(ServerComputer computer) {
         return new DispatchObserver(computer);
     }
 
+    /**
+     * Notify all observers that a computer has been unloaded.
+     *
+     * @param computer The computer which was unloaded.
+     * @see ComputerMetricsObserver#onComputerUnloaded(ServerComputer)
+     */
+    public void onComputerUnloaded(ServerComputer computer) {
+        for (var observer : observers) observer.onComputerUnloaded(computer);
+    }
+
     private final class DispatchObserver implements MetricsObserver {
         private final ServerComputer computer;
 
@@ -87,21 +104,12 @@ private DispatchObserver(ServerComputer computer) {
 
         @Override
         public void observe(Metric.Counter counter) {
-            if (!enabled) return;
-            synchronized (lock) {
-                // TODO: The lock here is nasty and aggressive. However, in my benchmarks I've found it has about
-                //  equivalent performance to a CoW list and atomics. Would be good to drill into this, as locks do not
-                //  scale well.
-                for (var observer : trackers) observer.observe(computer, counter);
-            }
+            for (var observer : observers) observer.observe(computer, counter);
         }
 
         @Override
         public void observe(Metric.Event event, long value) {
-            if (!enabled) return;
-            synchronized (lock) {
-                for (var observer : trackers) observer.observe(computer, event, value);
-            }
+            for (var observer : observers) observer.observe(computer, event, value);
         }
     }
 }
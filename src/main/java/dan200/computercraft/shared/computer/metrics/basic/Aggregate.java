@@ -16,7 +16,10 @@ public enum Aggregate {
     NONE("none"),
     COUNT("count"),
     AVG("avg"),
-    MAX("max");
+    MAX("max"),
+    P50("p50"),
+    P95("p95"),
+    P99("p99");
 
     private final String id;
 
@@ -13,19 +13,24 @@
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Tracks timing information about computers, including how long they ran for and the number of events they handled.
  * <p>
  * Note that this will retain timings for computers which have been deleted.
+ * <p>
+ * Observing a metric does not take any locks, so computers running on different threads do not contend with each
+ * other. Instead, the current timings are stored in a single {@link Timings} object, which is replaced (rather than
+ * cleared) when tracking is restarted.
  */
 public class BasicComputerMetricsObserver implements ComputerMetricsObserver {
     private final GlobalMetrics owner;
     private boolean tracking = false;
 
-    private final List<ComputerMetrics> timings = new ArrayList<>();
-    private final Map<ServerComputer, ComputerMetrics> timingLookup = new MapMaker().weakKeys().makeMap();
+    private volatile Timings timings = new Timings();
 
     public BasicComputerMetricsObserver(GlobalMetrics owner) {
         this.owner = owner;
@@ -35,46 +40,61 @@ public synchronized void start() {
         if (!tracking) owner.addObserver(this);
         tracking = true;
 
-        timings.clear();
-        timingLookup.clear();
+        timings = new Timings();
     }
 
     public synchronized boolean stop() {
         if (!tracking) return false;
 
+        // Keep the current timings, so they can still be dumped. Computers are held weakly, so this does not keep them
+        // alive.
         owner.removeObserver(this);
         tracking = false;
-        timingLookup.clear();
         return true;
     }
 
-    public synchronized List<ComputerMetrics> getSnapshot() {
-        var timings = new ArrayList<ComputerMetrics>(this.timings.size());
-        for (var timing : this.timings) timings.add(new ComputerMetrics(timing));
+    /**
+     * Get a copy of the current timings. The returned metrics will not change as more metrics are observed.
+     *
+     * @return The current timings.
+     */
+    public List<ComputerMetrics> getSnapshot() {
+        var timings = new ArrayList<ComputerMetrics>();
+        for (var timing : this.timings.ordered) timings.add(new ComputerMetrics(timing));
         return timings;
     }
 
-    public synchronized List<ComputerMetrics> getTimings() {
-        return new ArrayList<>(timings);
-    }
-
-    private ComputerMetrics getMetrics(ServerComputer computer) {
-        var existing = timingLookup.get(computer);
-        if (existing != null) return existing;
-
-        var metrics = new ComputerMetrics(computer);
-        timingLookup.put(computer, metrics);
-        timings.add(metrics);
-        return metrics;
+    @Override
+    public void observe(ServerComputer computer, Metric.Counter counter) {
+        timings.get(computer).observe(counter);
     }
 
     @Override
-    public synchronized void observe(ServerComputer computer, Metric.Counter counter) {
-        getMetrics(computer).observe(counter);
+    public void observe(ServerComputer computer, Metric.Event event, long value) {
+        timings.get(computer).observe(event, value);
     }
 
-    @Override
-    public synchronized void observe(ServerComputer computer, Metric.Event event, long value) {
-        getMetrics(computer).observe(event, value);
+    /**
+     * The timings for every computer since tracking was started.
+     *
+     * @param ordered The timings for each computer, in the order they were first observed.
+     * @param lookup  A lookup of computers to their timings.
+     */
+    private record Timings(Queue<ComputerMetrics> ordered, ConcurrentMap<ServerComputer, ComputerMetrics> lookup) {
+        Timings() {
+            this(new ConcurrentLinkedQueue<>(), new MapMaker().weakKeys().makeMap());
+        }
+
+        ComputerMetrics get(ServerComputer computer) {
+            var existing = lookup.get(computer);
+            if (existing != null) return existing;
+
+            var metrics = new ComputerMetrics(computer);
+            existing = lookup.putIfAbsent(computer, metrics);
+            if (existing != null) return existing;
+
+            ordered.add(metrics);
+            return metrics;
+        }
     }
 }
@@ -5,39 +5,47 @@
  */
 package dan200.computercraft.shared.computer.metrics.basic;
 
+import dan200.computercraft.core.metrics.Histogram;
 import dan200.computercraft.core.metrics.Metric;
 import dan200.computercraft.shared.computer.core.ServerComputer;
 
 import javax.annotation.Nullable;
 import java.lang.ref.WeakReference;
 import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Metrics for an individual computer.
+ * <p>
+ * Each {@link Metric.Counter} is stored in a {@link LongAdder} and each {@link Metric.Event} in a {@link Histogram}, so
+ * observing a metric is lock-free. The storage for a metric is only created the first time it is observed.
  */
 public final class ComputerMetrics {
     private static final int DEFAULT_LEN = 16;
+    private static final Histogram EMPTY = new Histogram();
 
     private final WeakReference<ServerComputer> computer;
     private final int computerId;
-    private long[] counts;
-    private long[] totals;
-    private long[] max;
+
+    /**
+     * The value of each metric, indexed by its {@linkplain Metric#id() id}. This is either {@code null}, a
+     * {@link LongAdder} (for counters) or a {@link Histogram} (for events).
+     */
+    private volatile Object[] values;
 
     ComputerMetrics(ServerComputer computer) {
         this.computer = new WeakReference<>(computer);
         computerId = computer.getID();
-        counts = new long[DEFAULT_LEN];
-        totals = new long[DEFAULT_LEN];
-        max = new long[DEFAULT_LEN];
+        values = new Object[DEFAULT_LEN];
     }
 
     ComputerMetrics(ComputerMetrics other) {
         computer = other.computer;
         computerId = other.computerId;
-        counts = Arrays.copyOf(other.counts, other.counts.length);
-        totals = Arrays.copyOf(other.totals, other.totals.length);
-        max = Arrays.copyOf(other.max, other.max.length);
+
+        var values = other.values;
+        this.values = new Object[values.length];
+        for (var i = 0; i < values.length; i++) this.values[i] = copy(values[i]);
     }
 
     @Nullable
@@ -49,22 +57,31 @@ public int computerId() {
         return computerId;
     }
 
-    private static long get(long[] values, Metric metric) {
-        return metric.id() >= values.length ? 0 : values[metric.id()];
-    }
-
-    private long avg(long total, long count) {
-        return count == 0 ? 0 : total / count;
+    public long get(Metric metric, Aggregate aggregate) {
+        var values = this.values;
+        return get(metric.id() >= values.length ? null : values[metric.id()], metric, aggregate);
     }
 
-    public long get(Metric metric, Aggregate aggregate) {
-        if (metric instanceof Metric.Counter) return get(counts, metric);
+    /**
+     * Get an aggregate of a metric's value.
+     *
+     * @param value     The metric's storage, as created by {@link #create(Metric)}.
+     * @param metric    The metric.
+     * @param aggregate The aggregate to compute.
+     * @return The aggregated value.
+     */
+    static long get(@Nullable Object value, Metric metric, Aggregate aggregate) {
+        if (metric instanceof Metric.Counter) return value instanceof LongAdder adder ? adder.sum() : 0;
         if (metric instanceof Metric.Event) {
+            var histogram = value instanceof Histogram h ? h : EMPTY;
             return switch (aggregate) {
-                case NONE -> get(totals, metric);
-                case COUNT -> get(counts, metric);
-                case AVG -> avg(get(totals, metric), get(counts, metric));
-                case MAX -> get(max, metric);
+                case NONE -> histogram.sum();
+                case COUNT -> histogram.count();
+                case AVG -> histogram.mean();
+                case MAX -> histogram.max();
+                case P50 -> histogram.percentile(0.5);
+                case P95 -> histogram.percentile(0.95);
+                case P99 -> histogram.percentile(0.99);
             };
         }
 
@@ -75,28 +92,62 @@ public String getFormatted(Metric field, Aggregate aggregate) {
         var value = get(field, aggregate);
         return switch (aggregate) {
             case COUNT -> Metric.formatDefault(value);
-            case AVG, MAX, NONE -> field.format(value);
+            case AVG, MAX, NONE, P50, P95, P99 -> field.format(value);
         };
     }
 
-    private void ensureCapacity(Metric metric) {
-        if (metric.id() < counts.length) return;
+    /**
+     * Create the storage for a metric.
+     *
+     * @param metric  The metric to store.
+     * @param stripes The number of stripes to use for events' histograms. This should be 1 unless the histogram
+     *                is shared between several computers.
+     * @return The metric's storage.
+     * @see #get(Object, Metric, Aggregate)
+     */
+    static Object create(Metric metric, int stripes) {
+        return metric instanceof Metric.Counter ? new LongAdder() : new Histogram(stripes);
+    }
+
+    @Nullable
+    private static Object copy(@Nullable Object value) {
+        if (value instanceof LongAdder adder) {
+            var copy = new LongAdder();
+            copy.add(adder.sum());
+            return copy;
+        } else if (value instanceof Histogram histogram) {
+            return histogram.copy();
+        } else {
+            return value;
+        }
+    }
+
+    private Object getOrCreate(Metric metric) {
+        var values = this.values;
+        var value = metric.id() >= values.length ? null : values[metric.id()];
+        return value != null ? value : createValue(metric);
+    }
+
+    private synchronized Object createValue(Metric metric) {
+        // Values are only created once per metric, so it's fine to take a lock here. However, we must be careful to
+        // republish the array, even if it hasn't been resized, so other threads see the new value.
+        var values = this.values;
+        if (metric.id() >= values.length) {
+            values = Arrays.copyOf(values, Math.max(metric.id() + 1, values.length * 2));
+        } else if (values[metric.id()] != null) {
+            return values[metric.id()];
+        }
 
-        var newCapacity = Math.max(metric.id(), counts.length * 2);
-        counts = Arrays.copyOf(counts, newCapacity);
-        totals = Arrays.copyOf(totals, newCapacity);
-        max = Arrays.copyOf(max, newCapacity);
+        var value = values[metric.id()] = create(metric, 1);
+        this.values = values;
+        return value;
     }
 
     void observe(Metric.Counter counter) {
-        ensureCapacity(counter);
-        counts[counter.id()]++;
+        ((LongAdder) getOrCreate(counter)).increment();
     }
 
     void observe(Metric.Event event, long value) {
-        ensureCapacity(event);
-        counts[event.id()]++;
-        totals[event.id()] += value;
-        if (value > max[event.id()]) max[event.id()] = value;
+        ((Histogram) getOrCreate(event)).record(value);
     }
 }
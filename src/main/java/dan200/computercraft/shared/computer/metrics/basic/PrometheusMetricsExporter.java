@@ -0,0 +1,230 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2022. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+package dan200.computercraft.shared.computer.metrics.basic;
+
+import dan200.computercraft.ComputerCraft;
+import dan200.computercraft.core.metrics.Histogram;
+import dan200.computercraft.core.metrics.Metric;
+import dan200.computercraft.core.metrics.Metrics;
+import dan200.computercraft.core.util.ThreadUtils;
+import dan200.computercraft.shared.computer.core.ServerComputer;
+import dan200.computercraft.shared.computer.metrics.ComputerMetricsObserver;
+import dan200.computercraft.shared.computer.metrics.GlobalMetrics;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * Periodically writes metrics about every computer to a file, using Prometheus's text exposition format.
+ * <p>
+ * This allows external monitoring tools to collect CC's metrics, for instance using node_exporter's textfile collector.
+ * Each {@link Metric.Event} is exported as a summary (with its 50th, 95th and 99th percentiles) and a gauge holding its
+ * maximum value, while each {@link Metric.Counter} is exported as a counter. Every metric is exported for the server
+ * as a whole. Servers may also opt in to exporting metrics for the busiest computers individually (labelled with the
+ * computer's ID), though this produces many more series.
+ * <p>
+ * The file is replaced atomically, so readers will never see a partially written file.
+ */
+public final class PrometheusMetricsExporter implements ComputerMetricsObserver {
+    private static final String PREFIX = "computercraft_";
+
+    private final GlobalMetrics owner;
+    private final Path output;
+    private final int computerLimit;
+    private final Object[] global;
+    private final ConcurrentMap<Integer, ComputerMetrics> computers = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(ThreadUtils.factory("Metrics-Exporter"));
+
+    private PrometheusMetricsExporter(GlobalMetrics owner, Path output, int computerLimit) {
+        this.owner = owner;
+        this.output = output;
+        this.computerLimit = computerLimit;
+
+        Metrics.init();
+        global = new Object[Metric.metrics().size()];
+        for (var metric : Metric.metrics().values()) {
+            // Metrics are observed from every computer thread, so stripe the histograms to avoid contention.
+            if (metric.id() < global.length) global[metric.id()] = ComputerMetrics.create(metric, Runtime.getRuntime().availableProcessors());
+        }
+    }
+
+    /**
+     * Start exporting metrics.
+     *
+     * @param owner         The metrics system to observe.
+     * @param output        The file to write metrics to.
+     * @param interval      How often to write metrics, in seconds.
+     * @param computerLimit The maximum number of computers to export individual metrics for.
+     * @return The started exporter. This should be {@linkplain #close() closed} when the server stops.
+     */
+    public static PrometheusMetricsExporter start(GlobalMetrics owner, Path output, int interval, int computerLimit) {
+        var exporter = new PrometheusMetricsExporter(owner, output, computerLimit);
+        owner.addObserver(exporter);
+        exporter.executor.scheduleWithFixedDelay(exporter::write, interval, interval, TimeUnit.SECONDS);
+        return exporter;
+    }
+
+    /**
+     * Stop exporting metrics, and delete the metrics file.
+     */
+    public void close() {
+        owner.removeObserver(this);
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(1, TimeUnit.SECONDS)) ComputerCraft.log.warn("Metrics exporter did not stop in time.");
+            Files.deleteIfExists(output);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            ComputerCraft.log.warn("Failed to delete metrics file {}", output, e);
+        }
+    }
+
+    @Nullable
+    private ComputerMetrics getMetrics(ServerComputer computer) {
+        if (computerLimit <= 0) return null;
+
+        // Key metrics on the computer's ID rather than the computer itself, so we don't keep the computer alive. Entries
+        // are evicted when the computer is unloaded (see onComputerUnloaded), so this doesn't grow without bound.
+        var existing = computers.get(computer.getID());
+        if (existing != null) return existing;
+
+        var metrics = new ComputerMetrics(computer);
+        existing = computers.putIfAbsent(computer.getID(), metrics);
+        return existing != null ? existing : metrics;
+    }
+
+    @Override
+    public void observe(ServerComputer computer, Metric.Counter counter) {
+        if (counter.id() < global.length) ((LongAdder) global[counter.id()]).increment();
+
+        var metrics = getMetrics(computer);
+        if (metrics != null) metrics.observe(counter);
+    }
+
+    @Override
+    public void observe(ServerComputer computer, Metric.Event event, long value) {
+        if (event.id() < global.length) ((Histogram) global[event.id()]).record(value);
+
+        var metrics = getMetrics(computer);
+        if (metrics != null) metrics.observe(event, value);
+    }
+
+    @Override
+    public void onComputerUnloaded(ServerComputer computer) {
+        computers.remove(computer.getID());
+    }
+
+    private void write() {
+        var temp = output.resolveSibling(output.getFileName() + ".tmp");
+        try {
+            Files.writeString(temp, export());
+            Files.move(temp, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            ComputerCraft.log.warn("Failed to write metrics to {}", output, e);
+        }
+    }
+
+    private String export() {
+        // Only export the computers which have spent the most time running, to avoid producing too many series.
+        List<ComputerMetrics> computers = new ArrayList<>(this.computers.values());
+        if (computers.size() > computerLimit) {
+            computers.sort(Comparator.comparingLong((ComputerMetrics x) -> x.get(Metrics.COMPUTER_TASKS, Aggregate.NONE)).reversed());
+            computers = computers.subList(0, computerLimit);
+        }
+        computers.sort(Comparator.comparingInt(ComputerMetrics::computerId));
+
+        List<Metric> metrics = new ArrayList<>(Metric.metrics().values());
+        metrics.sort(Comparator.comparingInt(Metric::id));
+
+        var out = new StringBuilder();
+        for (var metric : metrics) {
+            if (metric.id() >= global.length) continue;
+
+            var value = global[metric.id()];
+            ToLongFunction<Aggregate> globalValues = aggregate -> ComputerMetrics.get(value, metric, aggregate);
+
+            if (metric instanceof Metric.Counter) {
+                var name = PREFIX + metric.name() + "_total";
+                out.append("# TYPE ").append(name).append(" counter\n");
+                writeSample(out, name, "", globalValues.applyAsLong(Aggregate.COUNT));
+                for (var computer : computers) {
+                    writeSample(out, name, labels(computer, null), computer.get(metric, Aggregate.COUNT));
+                }
+            } else if (metric instanceof Metric.Event) {
+                var name = PREFIX + metric.name() + unitSuffix(metric);
+                var scale = unitScale(metric);
+
+                out.append("# TYPE ").append(name).append(" summary\n");
+                writeSummary(out, name, scale, null, globalValues);
+                for (var computer : computers) writeSummary(out, name, scale, computer, x -> computer.get(metric, x));
+
+                out.append("# TYPE ").append(name).append("_max gauge\n");
+                writeSample(out, name + "_max", "", globalValues.applyAsLong(Aggregate.MAX) * scale);
+                for (var computer : computers) {
+                    writeSample(out, name + "_max", labels(computer, null), computer.get(metric, Aggregate.MAX) * scale);
+                }
+            }
+        }
+
+        return out.toString();
+    }
+
+    private static void writeSummary(StringBuilder out, String name, double scale, @Nullable ComputerMetrics computer, ToLongFunction<Aggregate> values) {
+        writeSample(out, name, labels(computer, "0.5"), values.applyAsLong(Aggregate.P50) * scale);
+        writeSample(out, name, labels(computer, "0.95"), values.applyAsLong(Aggregate.P95) * scale);
+        writeSample(out, name, labels(computer, "0.99"), values.applyAsLong(Aggregate.P99) * scale);
+        writeSample(out, name + "_sum", labels(computer, null), values.applyAsLong(Aggregate.NONE) * scale);
+        writeSample(out, name + "_count", labels(computer, null), values.applyAsLong(Aggregate.COUNT));
+    }
+
+    private static String labels(@Nullable ComputerMetrics computer, @Nullable String quantile) {
+        List<String> labels = new ArrayList<>(2);
+        if (computer != null) labels.add("computer=\"" + computer.computerId() + "\"");
+        if (quantile != null) labels.add("quantile=\"" + quantile + "\"");
+        return labels.isEmpty() ? "" : "{" + String.join(",", labels) + "}";
+    }
+
+    private static void writeSample(StringBuilder out, String name, String labels, long value) {
+        out.append(name).append(labels).append(' ').append(value).append('\n');
+    }
+
+    private static void writeSample(StringBuilder out, String name, String labels, double value) {
+        out.append(name).append(labels).append(' ').append(value).append('\n');
+    }
+
+    /**
+     * Prometheus expects metrics to use base units, and to include the unit in the metric's name.
+     *
+     * @param metric The metric to get the suffix for.
+     * @return The suffix for this metric's name.
+     */
+    private static String unitSuffix(Metric metric) {
+        return switch (metric.unit()) {
+            case "ms" -> "_seconds";
+            case "bytes" -> "_bytes";
+            default -> "";
+        };
+    }
+
+    private static double unitScale(Metric metric) {
+        // Timing metrics are named "ms", but are actually recorded in nanoseconds.
+        return metric.unit().equals("ms") ? 1e-9 : 1;
+    }
+}
@@ -21,31 +21,79 @@ public NetworkedTerminal(int width, int height, boolean colour, Runnable changed
     }
 
     public synchronized void write(FriendlyByteBuf buffer) {
-        buffer.writeInt(cursorX);
-        buffer.writeInt(cursorY);
-        buffer.writeBoolean(cursorBlink);
-        buffer.writeByte(cursorBackgroundColour << 4 | cursorColour);
+        writeCursor(buffer);
+        for (var y = 0; y < height; y++) writeLine(buffer, y);
+        for (var i = 0; i < Palette.PALETTE_SIZE; i++) writePaletteColour(buffer, i);
+    }
 
-        for (var y = 0; y < height; y++) {
-            var text = this.text[y];
-            var textColour = this.textColour[y];
-            var backColour = backgroundColour[y];
-
-            for (var x = 0; x < width; x++) buffer.writeByte(text.charAt(x) & 0xFF);
-            for (var x = 0; x < width; x++) {
-                buffer.writeByte(getColour(
-                    backColour.charAt(x), Colour.BLACK) << 4 |
-                    getColour(textColour.charAt(x), Colour.WHITE)
-                );
-            }
+    public synchronized void read(FriendlyByteBuf buffer) {
+        readCursor(buffer);
+        for (var y = 0; y < height; y++) readLine(buffer, y);
+        for (var i = 0; i < Palette.PALETTE_SIZE; i++) readPaletteColour(buffer, i);
+        setChanged();
+    }
+
+    /**
+     * Write the changes made to this terminal since the last call to this method (or {@link #clearDirty()}), and then
+     * reset the terminal's dirty state.
+     * <p>
+     * This only contains the cursor state, modified lines and changed palette colours. If the terminal has been
+     * resized, then the changes cannot be described this way, and the whole terminal must be sent instead.
+     *
+     * @param buffer The buffer to write to.
+     * @return Whether the changes could be written. If {@code false}, nothing will have been written to the buffer.
+     * @see #readChanges(FriendlyByteBuf)
+     */
+    public synchronized boolean writeChanges(FriendlyByteBuf buffer) {
+        if (dirtyAll) {
+            clearDirty();
+            return false;
         }
 
+        writeCursor(buffer);
+
+        buffer.writeVarInt(dirtyLines.cardinality());
+        for (var y = dirtyLines.nextSetBit(0); y >= 0; y = dirtyLines.nextSetBit(y + 1)) {
+            buffer.writeVarInt(y);
+            writeLine(buffer, y);
+        }
+
+        var paletteChanged = palette.pollChanged();
+        buffer.writeShort(paletteChanged);
         for (var i = 0; i < Palette.PALETTE_SIZE; i++) {
-            for (var channel : palette.getColour(i)) buffer.writeByte((int) (channel * 0xFF) & 0xFF);
+            if ((paletteChanged & (1 << i)) != 0) writePaletteColour(buffer, i);
         }
+
+        clearDirty();
+        return true;
     }
 
-    public synchronized void read(FriendlyByteBuf buffer) {
+    /**
+     * Apply a set of changes written by {@link #writeChanges(FriendlyByteBuf)}.
+     *
+     * @param buffer The buffer to read from.
+     */
+    public synchronized void readChanges(FriendlyByteBuf buffer) {
+        readCursor(buffer);
+
+        var lines = buffer.readVarInt();
+        for (var i = 0; i < lines; i++) readLine(buffer, buffer.readVarInt());
+
+        var paletteChanged = buffer.readShort();
+        for (var i = 0; i < Palette.PALETTE_SIZE; i++) {
+            if ((paletteChanged & (1 << i)) != 0) readPaletteColour(buffer, i);
+        }
+        setChanged();
+    }
+
+    private void writeCursor(FriendlyByteBuf buffer) {
+        buffer.writeInt(cursorX);
+        buffer.writeInt(cursorY);
+        buffer.writeBoolean(cursorBlink);
+        buffer.writeByte(cursorBackgroundColour << 4 | cursorColour);
+    }
+
+    private void readCursor(FriendlyByteBuf buffer) {
         cursorX = buffer.readInt();
         cursorY = buffer.readInt();
         cursorBlink = buffer.readBoolean();
@@ -53,27 +101,44 @@ public synchronized void read(FriendlyByteBuf buffer) {
         var cursorColour = buffer.readByte();
         cursorBackgroundColour = (cursorColour >> 4) & 0xF;
         this.cursorColour = cursorColour & 0xF;
+    }
 
-        for (var y = 0; y < height; y++) {
-            var text = this.text[y];
-            var textColour = this.textColour[y];
-            var backColour = backgroundColour[y];
-
-            for (var x = 0; x < width; x++) text.setChar(x, (char) (buffer.readByte() & 0xFF));
-            for (var x = 0; x < width; x++) {
-                var colour = buffer.readByte();
-                backColour.setChar(x, BASE_16.charAt((colour >> 4) & 0xF));
-                textColour.setChar(x, BASE_16.charAt(colour & 0xF));
-            }
+    private void writeLine(FriendlyByteBuf buffer, int y) {
+        var text = this.text[y];
+        var textColour = this.textColour[y];
+        var backColour = backgroundColour[y];
+
+        for (var x = 0; x < width; x++) buffer.writeByte(text.charAt(x) & 0xFF);
+        for (var x = 0; x < width; x++) {
+            buffer.writeByte(getColour(
+                backColour.charAt(x), Colour.BLACK) << 4 |
+                getColour(textColour.charAt(x), Colour.WHITE)
+            );
         }
+    }
 
-        for (var i = 0; i < Palette.PALETTE_SIZE; i++) {
-            var r = (buffer.readByte() & 0xFF) / 255.0;
-            var g = (buffer.readByte() & 0xFF) / 255.0;
-            var b = (buffer.readByte() & 0xFF) / 255.0;
-            palette.setColour(i, r, g, b);
+    private void readLine(FriendlyByteBuf buffer, int y) {
+        var text = this.text[y];
+        var textColour = this.textColour[y];
+        var backColour = backgroundColour[y];
+
+        for (var x = 0; x < width; x++) text.setChar(x, (char) (buffer.readByte() & 0xFF));
+        for (var x = 0; x < width; x++) {
+            var colour = buffer.readByte();
+            backColour.setChar(x, BASE_16.charAt((colour >> 4) & 0xF));
+            textColour.setChar(x, BASE_16.charAt(colour & 0xF));
         }
-        setChanged();
+    }
+
+    private void writePaletteColour(FriendlyByteBuf buffer, int i) {
+        for (var channel : palette.getColour(i)) buffer.writeByte((int) (channel * 0xFF) & 0xFF);
+    }
+
+    private void readPaletteColour(FriendlyByteBuf buffer, int i) {
+        var r = (buffer.readByte() & 0xFF) / 255.0;
+        var g = (buffer.readByte() & 0xFF) / 255.0;
+        var b = (buffer.readByte() & 0xFF) / 255.0;
+        palette.setColour(i, r, g, b);
     }
 
     public synchronized CompoundTag writeToNBT(CompoundTag nbt) {
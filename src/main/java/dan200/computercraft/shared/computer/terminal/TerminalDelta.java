@@ -0,0 +1,84 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2022. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+package dan200.computercraft.shared.computer.terminal;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import net.minecraft.network.FriendlyByteBuf;
+
+import javax.annotation.Nullable;
+
+/**
+ * The changes made to a terminal since it was last synced.
+ * <p>
+ * Unlike {@link TerminalState}, this only contains the lines and palette colours which have changed, which makes it
+ * much cheaper to build and send for small updates. However, it can only be applied to a terminal which is already in
+ * sync with the server. A full {@link TerminalState} should be used when first syncing a terminal, or if the terminal
+ * has been resized.
+ *
+ * @see NetworkedTerminal#writeChanges(FriendlyByteBuf)
+ */
+public class TerminalDelta {
+    public final int width;
+    public final int height;
+
+    private final ByteBuf buffer;
+
+    private TerminalDelta(int width, int height, ByteBuf buffer) {
+        this.width = width;
+        this.height = height;
+        this.buffer = buffer;
+    }
+
+    public TerminalDelta(FriendlyByteBuf buf) {
+        width = buf.readVarInt();
+        height = buf.readVarInt();
+
+        var length = buf.readVarInt();
+        buffer = Unpooled.buffer(length);
+        buf.readBytes(buffer, length);
+    }
+
+    /**
+     * Capture the changes made to a terminal, resetting its dirty state.
+     *
+     * @param terminal The terminal to capture.
+     * @return The captured changes, or {@code null} if the terminal must be synced in full with a {@link TerminalState}.
+     */
+    @Nullable
+    public static TerminalDelta of(NetworkedTerminal terminal) {
+        synchronized (terminal) {
+            var buffer = Unpooled.buffer();
+            return terminal.writeChanges(new FriendlyByteBuf(buffer))
+                ? new TerminalDelta(terminal.getWidth(), terminal.getHeight(), buffer)
+                : null;
+        }
+    }
+
+    public void write(FriendlyByteBuf buf) {
+        buf.writeVarInt(width);
+        buf.writeVarInt(height);
+        buf.writeVarInt(buffer.readableBytes());
+        buf.writeBytes(buffer, buffer.readerIndex(), buffer.readableBytes());
+    }
+
+    public int size() {
+        return buffer.readableBytes();
+    }
+
+    /**
+     * Apply these changes to a terminal.
+     *
+     * @param terminal The terminal to update.
+     * @return Whether the changes could be applied. This will fail if the terminal is of the wrong size, in which case
+     * the terminal is left unchanged.
+     */
+    public boolean apply(NetworkedTerminal terminal) {
+        if (terminal.getWidth() != width || terminal.getHeight() != height) return false;
+        terminal.readChanges(new FriendlyByteBuf(buffer.duplicate()));
+        return true;
+    }
+}
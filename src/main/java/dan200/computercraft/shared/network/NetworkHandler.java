@@ -59,6 +59,9 @@ public static void setup() {
         registerMainThread(19, NetworkDirection.PLAY_TO_CLIENT, SpeakerStopClientMessage.class, SpeakerStopClientMessage::new);
         registerMainThread(20, NetworkDirection.PLAY_TO_CLIENT, UploadResultMessage.class, UploadResultMessage::new);
         registerMainThread(21, NetworkDirection.PLAY_TO_CLIENT, UpgradesLoadedMessage.class, UpgradesLoadedMessage::new);
+        registerMainThread(22, NetworkDirection.PLAY_TO_CLIENT, ComputerTerminalDeltaClientMessage.class, ComputerTerminalDeltaClientMessage::new);
+        registerMainThread(23, NetworkDirection.PLAY_TO_CLIENT, MonitorDeltaClientMessage.class, MonitorDeltaClientMessage::new);
+        registerMainThread(24, NetworkDirection.PLAY_TO_CLIENT, SpeakerGroupAudioClientMessage.class, SpeakerGroupAudioClientMessage::new);
     }
 
     public static void sendToPlayer(ServerPlayer player, NetworkMessage packet) {
@@ -0,0 +1,77 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2022. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+package dan200.computercraft.shared.network.client;
+
+import dan200.computercraft.client.sound.SpeakerManager;
+import dan200.computercraft.shared.network.NetworkMessage;
+import dan200.computercraft.shared.peripheral.speaker.SpeakerPosition;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+import net.minecraftforge.network.NetworkEvent;
+
+import javax.annotation.Nonnull;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Plays the same audio on several speakers.
+ * <p>
+ * Used by speaker groups, so the audio is only sent (and decoded) once.
+ *
+ * @see dan200.computercraft.shared.peripheral.speaker.SpeakerGroup
+ * @see SpeakerAudioClientMessage
+ */
+public class SpeakerGroupAudioClientMessage implements NetworkMessage {
+    private final UUID group;
+    private final List<Emitter> emitters;
+    private final ByteBuffer content;
+    private final float volume;
+
+    public SpeakerGroupAudioClientMessage(UUID group, List<Emitter> emitters, float volume, ByteBuffer content) {
+        this.group = group;
+        this.emitters = emitters;
+        this.content = content;
+        this.volume = volume;
+    }
+
+    public SpeakerGroupAudioClientMessage(FriendlyByteBuf buf) {
+        group = buf.readUUID();
+        emitters = buf.readList(b -> new Emitter(b.readUUID(), SpeakerPosition.Message.read(b)));
+        volume = buf.readFloat();
+
+        var audio = SpeakerManager.decodeGroupAudio(group, buf);
+        for (var emitter : emitters) SpeakerManager.getSound(emitter.source()).pushDecodedAudio(audio.duplicate());
+        content = null;
+    }
+
+    @Override
+    public void toBytes(@Nonnull FriendlyByteBuf buf) {
+        buf.writeUUID(group);
+        buf.writeCollection(emitters, (b, emitter) -> {
+            b.writeUUID(emitter.source());
+            emitter.position().write(b);
+        });
+        buf.writeFloat(volume);
+        buf.writeBytes(content.duplicate());
+    }
+
+    @Override
+    @OnlyIn(Dist.CLIENT)
+    public void handle(NetworkEvent.Context context) {
+        for (var emitter : emitters) SpeakerManager.getSound(emitter.source()).playAudio(emitter.position().reify(), volume);
+    }
+
+    /**
+     * A speaker which should play this audio.
+     *
+     * @param source   The speaker's source ID.
+     * @param position The speaker's position.
+     */
+    public record Emitter(UUID source, SpeakerPosition.Message position) {
+    }
+}
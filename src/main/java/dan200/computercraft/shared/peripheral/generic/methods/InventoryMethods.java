@@ -24,10 +24,11 @@
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Optional;
+import java.util.*;
 
+import static dan200.computercraft.api.lua.LuaValues.badTableItem;
+import static dan200.computercraft.api.lua.LuaValues.getType;
+import static dan200.computercraft.core.apis.TableHelper.*;
 import static dan200.computercraft.shared.peripheral.generic.methods.ArgumentHelpers.assertBetween;
 
 /**
@@ -37,6 +38,11 @@
  * @cc.since 1.94.0
  */
 public class InventoryMethods implements GenericPeripheral {
+    /**
+     * The maximum number of moves which may be performed in a single call to {@link #pushItemsBatch}.
+     */
+    private static final int MAX_BATCH_SIZE = 128;
+
     @Nonnull
     @Override
     public PeripheralType getType() {
@@ -96,6 +102,76 @@ public static int size(IItemHandler inventory) {
         return result;
     }
 
+    /**
+     * Get the contents of several inventories at once, only including slots which have changed since the last call.
+     * <p>
+     * This accepts a table mapping the names of inventories <em>on the same wired network</em> to a version, and returns
+     * a table mapping each name to that inventory's current contents. Each entry contains:
+     * <ul>
+     *   <li>`version`: The current version of this inventory. This should be passed to the next call to
+     *   {@code snapshot}.</li>
+     *   <li>`full`: Whether this is a complete listing of the inventory. This will be {@code true} if the version was
+     *   {@code false}, or the inventory has changed since the given version was returned by another call.</li>
+     *   <li>`size`: The number of slots in this inventory.</li>
+     *   <li>`items`: The contents of the inventory, in the same format as {@link #list}. If {@code full} is
+     *   {@code false}, this only contains the slots which have changed since the given version, and slots which have
+     *   been emptied are set to {@code false}.</li>
+     * </ul>
+     * <p>
+     * Inventories which do not exist are not included in the returned table.
+     * <p>
+     * Unlike calling {@link #list} on each inventory, this method runs as a single task, and so is much faster when
+     * scanning large storage systems.
+     *
+     * @param inventory The current inventory.
+     * @param computer  The current computer.
+     * @param versions  A table mapping inventory names to the version last returned for them, or {@code false}.
+     * @return The contents of each inventory.
+     * @throws LuaException If the table of versions is malformed.
+     * @cc.treturn { [string] = { version = number, full = boolean, size = number, items = { (table|false)... } } } The
+     * contents of each inventory.
+     * @cc.usage Keep track of the items in every connected chest.
+     *
+     * <pre>{@code
+     * local modem = peripheral.find("modem", function(_, modem) return not modem.isWireless() end)
+     * local versions, contents = {}, {}
+     * for _, name in ipairs(modem.getNamesRemote()) do
+     *   if modem.hasTypeRemote(name, "inventory") then versions[name] = false end
+     * end
+     *
+     * -- Any inventory on the network can take the snapshot.
+     * local chest = peripheral.wrap(next(versions))
+     * while true do
+     *   for name, snapshot in pairs(chest.snapshot(versions)) do
+     *     if snapshot.full then contents[name] = {} end
+     *     for slot, item in pairs(snapshot.items) do contents[name][slot] = item or nil end
+     *     versions[name] = snapshot.version
+     *   end
+     *   sleep(1)
+     * end
+     * }</pre>
+     * @cc.since 1.101.2
+     */
+    @LuaFunction(mainThread = true)
+    public static Map<String, Map<String, Object>> snapshot(IItemHandler inventory, IComputerAccess computer, Map<?, ?> versions) throws LuaException {
+        Map<String, Map<String, Object>> result = new HashMap<>(versions.size());
+        for (var entry : versions.entrySet()) {
+            if (!(entry.getKey() instanceof String name)) throw new LuaException("Inventory names must be strings");
+            var since = entry.getValue() instanceof Number version ? version.longValue() : -1;
+
+            var location = computer.getAvailablePeripheral(name);
+            if (location == null) continue;
+
+            var target = location.getTarget();
+            var handler = extractHandler(target);
+            if (target == null || handler == null) continue;
+
+            result.put(name, InventorySnapshot.update(target, handler, since));
+        }
+
+        return result;
+    }
+
     /**
      * Get detailed information about an item.
      * <p>
@@ -261,6 +337,94 @@ public static int pullItems(
         return moveItem(from, fromSlot - 1, to, toSlot.orElse(0) - 1, actualLimit);
     }
 
+    /**
+     * Push several items from this inventory to other connected inventories.
+     * <p>
+     * This behaves like calling {@link #pushItems} once for each move. However, all moves are performed at once, and
+     * so this is much faster when moving lots of items. Like {@link #pushItems}, the target inventories must be
+     * <em>on the same wired network</em> as this one.
+     * <p>
+     * Each move is a table with the following fields:
+     * <ul>
+     *   <li>`to`: The name of the peripheral/inventory to push to.</li>
+     *   <li>`fromSlot`: The slot in the current inventory to move items from.</li>
+     *   <li>`limit` (optional): The maximum number of items to move. Defaults to the current stack limit.</li>
+     *   <li>`toSlot` (optional): The slot in the target inventory to move to. If not given, the item will be inserted
+     *   into any slot.</li>
+     * </ul>
+     * <p>
+     * All moves are checked before any items are transferred, so if one move is invalid no items will be moved. At most
+     * 128 moves may be performed at once.
+     *
+     * @param from     Inventory to move items from.
+     * @param computer The current computer.
+     * @param moves    The list of moves to perform, in order.
+     * @return The number of items transferred by each move.
+     * @throws LuaException If any peripheral to transfer to doesn't exist or isn't an inventory.
+     * @throws LuaException If any source or destination slot is out of range.
+     * @throws LuaException If there are too many moves.
+     * @cc.treturn { number... } The number of items transferred by each move.
+     * @cc.see peripheral.getName Allows you to get the name of a @{peripheral.wrap|wrapped} peripheral.
+     * @cc.usage Move the first two slots of one chest into another.
+     * <pre>{@code
+     * local chest_a = peripheral.wrap("minecraft:chest_0")
+     * local chest_b = peripheral.wrap("minecraft:chest_1")
+     *
+     * local moved = chest_a.pushItemsBatch({
+     *   { to = peripheral.getName(chest_b), fromSlot = 1 },
+     *   { to = peripheral.getName(chest_b), fromSlot = 2, limit = 8, toSlot = 5 },
+     * })
+     * print(moved[1], moved[2])
+     * }</pre>
+     * @cc.since 1.101.2
+     */
+    @LuaFunction(mainThread = true)
+    public static List<Integer> pushItemsBatch(IItemHandler from, IComputerAccess computer, Map<?, ?> moves) throws LuaException {
+        // Validate every move (and find its target) before transferring anything.
+        List<Move> plan = new ArrayList<>();
+        Map<String, IItemHandler> handlers = new HashMap<>();
+        for (var i = 1; moves.containsKey((double) i); i++) {
+            if (i > MAX_BATCH_SIZE) throw new LuaException("Too many moves (at most " + MAX_BATCH_SIZE + ")");
+
+            var value = moves.get((double) i);
+            if (!(value instanceof Map<?, ?> move)) throw badTableItem(i, "table", getType(value));
+
+            try {
+                plan.add(Move.of(from, computer, handlers, move));
+            } catch (LuaException e) {
+                throw new LuaException("Move " + i + ": " + e.getMessage());
+            }
+        }
+
+        List<Integer> result = new ArrayList<>(plan.size());
+        for (var move : plan) {
+            result.add(move.limit() <= 0 ? 0 : moveItem(from, move.fromSlot(), move.to(), move.toSlot(), move.limit()));
+        }
+        return result;
+    }
+
+    private record Move(int fromSlot, IItemHandler to, int toSlot, int limit) {
+        static Move of(IItemHandler from, IComputerAccess computer, Map<String, IItemHandler> handlers, Map<?, ?> move) throws LuaException {
+            var toName = getStringField(move, "to");
+            var to = handlers.get(toName);
+            if (to == null) {
+                var location = computer.getAvailablePeripheral(toName);
+                if (location == null) throw new LuaException("Target '" + toName + "' does not exist");
+
+                to = extractHandler(location.getTarget());
+                if (to == null) throw new LuaException("Target '" + toName + "' is not an inventory");
+                handlers.put(toName, to);
+            }
+
+            var fromSlot = getIntField(move, "fromSlot");
+            var toSlot = optIntField(move, "toSlot", 0);
+            assertBetween(fromSlot, 1, from.getSlots(), "From slot out of range (%s)");
+            if (move.get("toSlot") != null) assertBetween(toSlot, 1, to.getSlots(), "To slot out of range (%s)");
+
+            return new Move(fromSlot - 1, to, toSlot - 1, optIntField(move, "limit", Integer.MAX_VALUE));
+        }
+    }
+
     @Nullable
     private static IItemHandler extractHandler(@Nullable Object object) {
         if (object instanceof BlockEntity blockEntity && blockEntity.isRemoved()) return null;
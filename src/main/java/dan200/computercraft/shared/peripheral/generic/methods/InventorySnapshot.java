@@ -0,0 +1,94 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2022. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+package dan200.computercraft.shared.peripheral.generic.methods;
+
+import dan200.computercraft.api.detail.VanillaDetailRegistries;
+import net.minecraft.world.item.ItemStack;
+import net.minecraftforge.items.IItemHandler;
+
+import javax.annotation.Nullable;
+import java.util.*;
+
+/**
+ * The last known contents of an inventory, used by {@link InventoryMethods#snapshot}.
+ * <p>
+ * Each snapshot has a version, which changes whenever the inventory's contents change. When a computer provides the
+ * version it last saw, we can just send the slots which changed since then. We also keep the detail map of each slot,
+ * so unchanged items are not converted to a map again.
+ * <p>
+ * Snapshots are only accessed from the server thread, and are held weakly by the inventory's block entity (or other
+ * peripheral target).
+ */
+final class InventorySnapshot {
+    private static final Map<Object, InventorySnapshot> snapshots = new WeakHashMap<>();
+    private static long nextVersion = 1;
+
+    private long version;
+    private ItemStack[] stacks;
+    private @Nullable Map<String, ?>[] details;
+
+    @SuppressWarnings("unchecked")
+    private InventorySnapshot(int size) {
+        version = nextVersion++;
+        stacks = new ItemStack[size];
+        Arrays.fill(stacks, ItemStack.EMPTY);
+        details = new Map[size];
+    }
+
+    /**
+     * Update the snapshot of an inventory, and compute what has changed.
+     *
+     * @param target    The object this inventory belongs to, used to find the existing snapshot.
+     * @param inventory The inventory to snapshot.
+     * @param since     The version of the snapshot the computer last saw, or {@code -1} if none.
+     * @return The Lua representation of this snapshot.
+     */
+    static Map<String, Object> update(Object target, IItemHandler inventory, long since) {
+        var snapshot = snapshots.get(target);
+        if (snapshot == null) snapshots.put(target, snapshot = new InventorySnapshot(inventory.getSlots()));
+        return snapshot.update(inventory, since);
+    }
+
+    private Map<String, Object> update(IItemHandler inventory, long since) {
+        var full = version != since;
+        var changed = false;
+        Map<Integer, Object> items = new HashMap<>();
+
+        var oldSize = stacks.length;
+        var size = inventory.getSlots();
+        if (size != oldSize) {
+            changed = true;
+            stacks = Arrays.copyOf(stacks, size);
+            details = Arrays.copyOf(details, size);
+            for (var i = oldSize; i < size; i++) stacks[i] = ItemStack.EMPTY;
+
+            // Slots which no longer exist have been emptied.
+            if (!full) for (var i = size; i < oldSize; i++) items.put(i + 1, false);
+        }
+
+        for (var i = 0; i < size; i++) {
+            var stack = inventory.getStackInSlot(i);
+            if (!ItemStack.matches(stacks[i], stack)) {
+                changed = true;
+                stacks[i] = stack.copy();
+                details[i] = stack.isEmpty() ? null : VanillaDetailRegistries.ITEM_STACK.getBasicDetails(stack);
+
+                if (!full) items.put(i + 1, details[i] == null ? false : details[i]);
+            }
+
+            if (full && details[i] != null) items.put(i + 1, details[i]);
+        }
+
+        if (changed) version = nextVersion++;
+
+        Map<String, Object> result = new HashMap<>(4);
+        result.put("version", version);
+        result.put("full", full);
+        result.put("size", size);
+        result.put("items", items);
+        return result;
+    }
+}
@@ -115,24 +115,34 @@ public void destroy() {
 
     @Override
     public void receiveSameDimension(@Nonnull Packet packet, double distance) {
+        receiveSameDimension(new Transmission(packet), distance);
+    }
+
+    @Override
+    public void receiveDifferentDimension(@Nonnull Packet packet) {
+        receiveDifferentDimension(new Transmission(packet));
+    }
+
+    void receiveSameDimension(Transmission transmission, double distance) {
+        var packet = transmission.packet();
         if (packet.sender() == this || !state.isOpen(packet.channel())) return;
 
         synchronized (computers) {
             for (var computer : computers) {
                 computer.queueEvent("modem_message",
-                    computer.getAttachmentName(), packet.channel(), packet.replyChannel(), packet.payload(), distance);
+                    computer.getAttachmentName(), packet.channel(), packet.replyChannel(), transmission.getPayload(computer), distance);
             }
         }
     }
 
-    @Override
-    public void receiveDifferentDimension(@Nonnull Packet packet) {
+    void receiveDifferentDimension(Transmission transmission) {
+        var packet = transmission.packet();
         if (packet.sender() == this || !state.isOpen(packet.channel())) return;
 
         synchronized (computers) {
             for (var computer : computers) {
                 computer.queueEvent("modem_message",
-                    computer.getAttachmentName(), packet.channel(), packet.replyChannel(), packet.payload());
+                    computer.getAttachmentName(), packet.channel(), packet.replyChannel(), transmission.getPayload(computer));
             }
         }
     }
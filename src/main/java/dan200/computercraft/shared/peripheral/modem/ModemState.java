@@ -9,6 +9,8 @@
 import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
 import it.unimi.dsi.fastutil.ints.IntSet;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public class ModemState {
@@ -17,6 +19,7 @@ public class ModemState {
 
     private boolean open = false;
     private final IntSet channels = new IntOpenHashSet();
+    private final List<Listener> listeners = new ArrayList<>(0);
 
     public ModemState() {
         onChanged = null;
@@ -51,6 +54,7 @@ public void open(int channel) throws LuaException {
             if (!channels.contains(channel)) {
                 if (channels.size() >= 128) throw new LuaException("Too many open channels");
                 channels.add(channel);
+                for (var listener : listeners) listener.onChannelChanged(channel, true);
                 setOpen(true);
             }
         }
@@ -58,15 +62,60 @@ public void open(int channel) throws LuaException {
 
     public void close(int channel) {
         synchronized (channels) {
-            channels.remove(channel);
+            if (channels.remove(channel)) {
+                for (var listener : listeners) listener.onChannelChanged(channel, false);
+            }
             if (channels.isEmpty()) setOpen(false);
         }
     }
 
     public void closeAll() {
         synchronized (channels) {
+            if (!listeners.isEmpty()) {
+                for (var it = channels.iterator(); it.hasNext(); ) {
+                    var channel = it.nextInt();
+                    for (var listener : listeners) listener.onChannelChanged(channel, false);
+                }
+            }
             channels.clear();
             setOpen(false);
         }
     }
+
+    /**
+     * Add a listener, which will be notified whenever a channel is opened or closed.
+     * <p>
+     * The listener is immediately notified of every currently open channel. Notifications for a single modem are never
+     * delivered concurrently.
+     *
+     * @param listener The listener to add.
+     */
+    public void addListener(Listener listener) {
+        synchronized (channels) {
+            listeners.add(listener);
+            for (var it = channels.iterator(); it.hasNext(); ) listener.onChannelChanged(it.nextInt(), true);
+        }
+    }
+
+    /**
+     * Remove a listener previously added with {@link #addListener(Listener)}.
+     *
+     * @param listener The listener to remove.
+     */
+    public void removeListener(Listener listener) {
+        synchronized (channels) {
+            listeners.remove(listener);
+        }
+    }
+
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * Called when a channel is opened or closed.
+         *
+         * @param channel The channel which changed.
+         * @param open    Whether the channel is now open.
+         */
+        void onChannelChanged(int channel, boolean open);
+    }
 }
@@ -0,0 +1,90 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2022. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+package dan200.computercraft.shared.peripheral.modem;
+
+import dan200.computercraft.api.network.IPacketReceiver;
+import dan200.computercraft.api.network.Packet;
+import dan200.computercraft.api.peripheral.IComputerAccess;
+import dan200.computercraft.core.apis.ComputerAccess;
+import dan200.computercraft.core.lua.FrozenValue;
+
+import javax.annotation.Nullable;
+
+/**
+ * A single transmission of a {@link Packet}, which may be delivered to many receivers.
+ * <p>
+ * Networks create one of these each time a packet is transmitted, and use it to deliver the packet to each receiver.
+ * When a packet reaches more than one computer, its payload is {@linkplain FrozenValue frozen} once and then shared
+ * between every computer, rather than each one converting it separately.
+ * <p>
+ * This is not thread-safe, and should only be used for the duration of a single transmission.
+ */
+public final class Transmission {
+    private final Packet packet;
+    private boolean delivered;
+    private @Nullable Object frozen;
+
+    public Transmission(Packet packet) {
+        this.packet = packet;
+    }
+
+    public Packet packet() {
+        return packet;
+    }
+
+    /**
+     * Deliver this packet to a receiver in the same dimension.
+     *
+     * @param receiver The receiver to deliver to.
+     * @param distance The distance between the sender and receiver.
+     * @see IPacketReceiver#receiveSameDimension(Packet, double)
+     */
+    public void deliverSameDimension(IPacketReceiver receiver, double distance) {
+        if (receiver instanceof ModemPeripheral modem) {
+            modem.receiveSameDimension(this, distance);
+        } else {
+            receiver.receiveSameDimension(packet, distance);
+        }
+    }
+
+    /**
+     * Deliver this packet to a receiver in a different dimension.
+     *
+     * @param receiver The receiver to deliver to.
+     * @see IPacketReceiver#receiveDifferentDimension(Packet)
+     */
+    public void deliverDifferentDimension(IPacketReceiver receiver) {
+        if (receiver instanceof ModemPeripheral modem) {
+            modem.receiveDifferentDimension(this);
+        } else {
+            receiver.receiveDifferentDimension(packet);
+        }
+    }
+
+    /**
+     * Get the payload to queue as part of a {@code modem_message} event on a computer.
+     *
+     * @param computer The computer the event will be queued on.
+     * @return The payload, possibly {@linkplain FrozenValue frozen}.
+     */
+    @Nullable
+    Object getPayload(IComputerAccess computer) {
+        var payload = packet.payload();
+
+        // Other implementations of IComputerAccess (such as those from other mods) may inspect the event's arguments,
+        // so only give them plain Java objects.
+        if (!(computer instanceof ComputerAccess)) return payload;
+
+        // There may only be one computer listening, so don't bother freezing the payload until we see a second one.
+        if (!delivered) {
+            delivered = true;
+            return payload;
+        }
+
+        if (frozen == null) frozen = FrozenValue.of(payload);
+        return frozen;
+    }
+}
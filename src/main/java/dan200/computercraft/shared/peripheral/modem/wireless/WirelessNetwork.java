@@ -5,17 +5,55 @@
  */
 package dan200.computercraft.shared.peripheral.modem.wireless;
 
+import com.google.common.annotations.VisibleForTesting;
 import dan200.computercraft.api.network.IPacketNetwork;
 import dan200.computercraft.api.network.IPacketReceiver;
 import dan200.computercraft.api.network.Packet;
+import dan200.computercraft.shared.peripheral.modem.ModemPeripheral;
+import dan200.computercraft.shared.peripheral.modem.ModemState;
+import dan200.computercraft.shared.peripheral.modem.Transmission;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.world.level.Level;
 
 import javax.annotation.Nonnull;
-import java.util.Collections;
-import java.util.Objects;
-import java.util.Set;
+import javax.annotation.Nullable;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * The network used by wireless and ender modems.
+ * <p>
+ * Most receivers are {@linkplain ModemPeripheral modems}, which only care about packets on their open channels, so we
+ * index these by channel (using {@link ModemState.Listener}). If many modems listen on the same channel, we further
+ * bucket them into a coarse grid, so a transmission only visits modems which could plausibly be in range.
+ * <p>
+ * Interdimensional (ender) modems can receive packets from anywhere, and so are kept in a separate set which is
+ * always checked. Other receivers (such as those from other mods) are also always checked, as we know nothing about
+ * which channels they are listening on.
+ */
 public class WirelessNetwork implements IPacketNetwork {
+    /**
+     * The size of each cell in our spatial index, as a power of 2.
+     */
+    private static final int CELL_SHIFT = 6;
+
+    /**
+     * The minimum number of modems on a channel before we build a spatial index for it.
+     */
+    @VisibleForTesting
+    public static final int GRID_THRESHOLD = 16;
+
+    /**
+     * Our spatial index is rebuilt at most once a tick, so modems may have moved since it was built. We pad the search
+     * radius by this many blocks to account for that.
+     */
+    @VisibleForTesting
+    public static final double MOVEMENT_MARGIN = 16;
+
     private static WirelessNetwork universalNetwork = null;
 
     public static WirelessNetwork getUniversal() {
@@ -27,43 +65,69 @@ public static void resetNetworks() {
         universalNetwork = null;
     }
 
-    private final Set<IPacketReceiver> receivers = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final Set<IPacketReceiver> interdimensional = ConcurrentHashMap.newKeySet();
+    private final Set<IPacketReceiver> unindexed = ConcurrentHashMap.newKeySet();
+    private final Map<IPacketReceiver, ModemEntry> modems = new ConcurrentHashMap<>();
+    private final Map<Integer, ChannelReceivers> channels = new ConcurrentHashMap<>();
 
     @Override
     public void addReceiver(@Nonnull IPacketReceiver receiver) {
         Objects.requireNonNull(receiver, "device cannot be null");
-        receivers.add(receiver);
+        if (receiver.isInterdimensional()) {
+            interdimensional.add(receiver);
+        } else if (receiver instanceof ModemPeripheral modem) {
+            var entry = new ModemEntry(modem);
+            if (modems.putIfAbsent(receiver, entry) == null) modem.getModemState().addListener(entry);
+        } else {
+            unindexed.add(receiver);
+        }
     }
 
     @Override
     public void removeReceiver(@Nonnull IPacketReceiver receiver) {
         Objects.requireNonNull(receiver, "device cannot be null");
-        receivers.remove(receiver);
+        interdimensional.remove(receiver);
+        unindexed.remove(receiver);
+
+        var entry = modems.remove(receiver);
+        if (entry != null) entry.remove();
     }
 
     @Override
     public void transmitSameDimension(@Nonnull Packet packet, double range) {
         Objects.requireNonNull(packet, "packet cannot be null");
-        for (var device : receivers) tryTransmit(device, packet, range, false);
+        var transmission = new Transmission(packet);
+        for (var device : interdimensional) tryTransmit(device, transmission, range, false);
+        for (var device : unindexed) tryTransmit(device, transmission, range, false);
+
+        var channel = channels.get(packet.channel());
+        if (channel != null) channel.transmitSameDimension(transmission, range);
     }
 
     @Override
     public void transmitInterdimensional(@Nonnull Packet packet) {
         Objects.requireNonNull(packet, "packet cannot be null");
-        for (var device : receivers) tryTransmit(device, packet, 0, true);
+        var transmission = new Transmission(packet);
+        for (var device : interdimensional) tryTransmit(device, transmission, 0, true);
+        for (var device : unindexed) tryTransmit(device, transmission, 0, true);
+
+        var channel = channels.get(packet.channel());
+        if (channel != null) {
+            for (var device : channel.receivers) tryTransmit(device, transmission, 0, true);
+        }
     }
 
-    private static void tryTransmit(IPacketReceiver receiver, Packet packet, double range, boolean interdimensional) {
-        var sender = packet.sender();
+    private static void tryTransmit(IPacketReceiver receiver, Transmission transmission, double range, boolean interdimensional) {
+        var sender = transmission.packet().sender();
         if (receiver.getLevel() == sender.getLevel()) {
             var receiveRange = Math.max(range, receiver.getRange()); // Ensure range is symmetrical
             var distanceSq = receiver.getPosition().distanceToSqr(sender.getPosition());
             if (interdimensional || receiver.isInterdimensional() || distanceSq <= receiveRange * receiveRange) {
-                receiver.receiveSameDimension(packet, Math.sqrt(distanceSq));
+                transmission.deliverSameDimension(receiver, Math.sqrt(distanceSq));
             }
         } else {
             if (interdimensional || receiver.isInterdimensional()) {
-                receiver.receiveDifferentDimension(packet);
+                transmission.deliverDifferentDimension(receiver);
             }
         }
     }
@@ -72,4 +136,163 @@ private static void tryTransmit(IPacketReceiver receiver, Packet packet, double
     public boolean isWireless() {
         return true;
     }
+
+    private static long cellKey(int x, int z) {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Tracks which channels a modem has open, adding and removing it from the appropriate {@link ChannelReceivers}.
+     * <p>
+     * All methods are called with the {@link ModemState}'s lock held, or after this has been removed as a listener,
+     * so we do not need any additional synchronisation.
+     */
+    private final class ModemEntry implements ModemState.Listener {
+        private final ModemPeripheral modem;
+        private final IntSet channels = new IntOpenHashSet();
+
+        ModemEntry(ModemPeripheral modem) {
+            this.modem = modem;
+        }
+
+        @Override
+        public void onChannelChanged(int channel, boolean open) {
+            if (open) {
+                if (channels.add(channel)) {
+                    // Add the modem inside the map operation, so a concurrent removeFromChannel cannot drop the bucket
+                    // (as it looks empty) before we've been added to it.
+                    WirelessNetwork.this.channels.compute(channel, (k, receivers) -> {
+                        if (receivers == null) receivers = new ChannelReceivers();
+                        receivers.add(modem);
+                        return receivers;
+                    });
+                }
+            } else {
+                if (channels.remove(channel)) removeFromChannel(channel);
+            }
+        }
+
+        void remove() {
+            modem.getModemState().removeListener(this);
+            for (var it = channels.iterator(); it.hasNext(); ) removeFromChannel(it.nextInt());
+            channels.clear();
+        }
+
+        private void removeFromChannel(int channel) {
+            WirelessNetwork.this.channels.computeIfPresent(channel, (k, receivers) -> {
+                receivers.remove(modem);
+                return receivers.receivers.isEmpty() ? null : receivers;
+            });
+        }
+    }
+
+    /**
+     * The modems which are listening on a specific channel.
+     */
+    private static final class ChannelReceivers {
+        final Set<IPacketReceiver> receivers = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger version = new AtomicInteger();
+        private final Map<Level, Grid> grids = new ConcurrentHashMap<>();
+
+        void add(IPacketReceiver receiver) {
+            if (receivers.add(receiver)) invalidate();
+        }
+
+        void remove(IPacketReceiver receiver) {
+            if (receivers.remove(receiver)) invalidate();
+        }
+
+        private void invalidate() {
+            version.incrementAndGet();
+            grids.clear();
+        }
+
+        void transmitSameDimension(Transmission transmission, double range) {
+            var level = transmission.packet().sender().getLevel();
+            if (level == null || receivers.size() < GRID_THRESHOLD) {
+                for (var device : receivers) tryTransmit(device, transmission, range, false);
+                return;
+            }
+
+            getGrid(level).transmit(transmission, range);
+        }
+
+        private Grid getGrid(Level level) {
+            var version = this.version.get();
+            var tick = level.getGameTime();
+
+            var grid = grids.get(level);
+            if (grid != null && grid.version == version && grid.tick == tick) return grid;
+
+            grid = Grid.build(level, tick, version, receivers);
+            grids.put(level, grid);
+            return grid;
+        }
+    }
+
+    /**
+     * A snapshot of the positions of all modems on a channel in a specific level, bucketed into cells.
+     */
+    private static final class Grid {
+        final int version;
+        final long tick;
+        private final double maxRange;
+        private final Long2ObjectMap<List<IPacketReceiver>> cells;
+        private final int size;
+
+        private Grid(int version, long tick, double maxRange, Long2ObjectMap<List<IPacketReceiver>> cells, int size) {
+            this.version = version;
+            this.tick = tick;
+            this.maxRange = maxRange;
+            this.cells = cells;
+            this.size = size;
+        }
+
+        static Grid build(Level level, long tick, int version, Collection<IPacketReceiver> receivers) {
+            Long2ObjectMap<List<IPacketReceiver>> cells = new Long2ObjectOpenHashMap<>();
+            var maxRange = 0.0;
+            var size = 0;
+            for (var receiver : receivers) {
+                // Modems in other dimensions cannot receive this packet: interdimensional ones are stored elsewhere.
+                if (receiver.getLevel() != level) continue;
+
+                var position = receiver.getPosition();
+                var key = cellKey((int) Math.floor(position.x) >> CELL_SHIFT, (int) Math.floor(position.z) >> CELL_SHIFT);
+                var cell = cells.get(key);
+                if (cell == null) cells.put(key, cell = new ArrayList<>(1));
+                cell.add(receiver);
+
+                maxRange = Math.max(maxRange, receiver.getRange());
+                size++;
+            }
+
+            return new Grid(version, tick, maxRange, cells, size);
+        }
+
+        void transmit(Transmission transmission, double range) {
+            var position = transmission.packet().sender().getPosition();
+            var radius = Math.max(range, maxRange) + MOVEMENT_MARGIN;
+
+            var minX = (int) Math.floor(position.x - radius) >> CELL_SHIFT;
+            var maxX = (int) Math.floor(position.x + radius) >> CELL_SHIFT;
+            var minZ = (int) Math.floor(position.z - radius) >> CELL_SHIFT;
+            var maxZ = (int) Math.floor(position.z + radius) >> CELL_SHIFT;
+
+            // If our search area covers more cells than we have modems, it's cheaper to just check every modem.
+            if ((long) (maxX - minX + 1) * (maxZ - minZ + 1) > size) {
+                for (var cell : cells.values()) {
+                    for (var device : cell) tryTransmit(device, transmission, range, false);
+                }
+                return;
+            }
+
+            for (var x = minX; x <= maxX; x++) {
+                for (var z = minZ; z <= maxZ; z++) {
+                    var cell = cells.get(cellKey(x, z));
+                    if (cell == null) continue;
+                    for (var device : cell) tryTransmit(device, transmission, range, false);
+                }
+            }
+        }
+    }
 }
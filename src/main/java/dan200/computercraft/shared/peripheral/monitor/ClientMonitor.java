@@ -10,6 +10,7 @@
 import dan200.computercraft.client.util.DirectVertexBuffer;
 import dan200.computercraft.core.terminal.Terminal;
 import dan200.computercraft.shared.computer.terminal.NetworkedTerminal;
+import dan200.computercraft.shared.computer.terminal.TerminalDelta;
 import dan200.computercraft.shared.computer.terminal.TerminalState;
 import net.minecraft.core.BlockPos;
 import net.minecraftforge.api.distmarker.Dist;
@@ -168,4 +169,10 @@ void read(TerminalState state) {
             }
         }
     }
+
+    void read(TerminalDelta delta) {
+        // If we're not in sync with the server, just drop the changes: we'll receive a full state when the monitor
+        // is next resized or the chunk is re-watched.
+        if (terminal != null && delta.apply(terminal)) terminalChanged = true;
+    }
 }
@@ -5,16 +5,20 @@
  */
 package dan200.computercraft.shared.peripheral.monitor;
 
+import com.google.common.annotations.VisibleForTesting;
 import dan200.computercraft.ComputerCraft;
+import dan200.computercraft.shared.computer.terminal.TerminalDelta;
 import dan200.computercraft.shared.computer.terminal.TerminalState;
 import dan200.computercraft.shared.network.NetworkHandler;
 import dan200.computercraft.shared.network.client.MonitorClientMessage;
+import dan200.computercraft.shared.network.client.MonitorDeltaClientMessage;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraftforge.event.TickEvent;
 import net.minecraftforge.event.level.ChunkWatchEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.common.Mod;
 
+import javax.annotation.Nullable;
 import java.util.ArrayDeque;
 import java.util.Queue;
 
@@ -35,19 +39,35 @@ static void enqueue(TileMonitor monitor) {
 
     @SubscribeEvent
     public static void onWatch(ChunkWatchEvent.Watch event) {
-        // Find all origin monitors who are not already on the queue and send the
-        // monitor data to the player.
+        // Find all origin monitors and send the full monitor data to the player. We do this even if the monitor is
+        // enqueued, as the next flush may only send a delta, which the player has no baseline to apply to.
         for (var te : event.getChunk().getBlockEntities().values()) {
             if (!(te instanceof TileMonitor monitor)) continue;
 
-            var serverMonitor = getMonitor(monitor);
-            if (serverMonitor == null || monitor.enqueued) continue;
+            var state = getInitialState(monitor);
+            if (state == null) continue;
 
-            var state = getState(monitor, serverMonitor);
             NetworkHandler.sendToPlayer(event.getPlayer(), new MonitorClientMessage(monitor.getBlockPos(), state));
         }
     }
 
+    /**
+     * Get the state to send to a player who has just started watching this monitor.
+     *
+     * @param tile The monitor being watched.
+     * @return The full terminal state, or {@code null} if this is not an origin monitor.
+     */
+    @Nullable
+    @VisibleForTesting
+    public static TerminalState getInitialState(TileMonitor tile) {
+        var monitor = getMonitor(tile);
+        if (monitor == null) return null;
+
+        // The cache is only invalidated when the monitor is first enqueued, so any state computed while it is on the
+        // queue may become stale before the next flush. Just build a fresh one instead.
+        return tile.enqueued ? new TerminalState(monitor.getTerminal()) : getState(tile, monitor);
+    }
+
     @SubscribeEvent
     public static void onTick(TickEvent.ServerTickEvent event) {
         // Find all enqueued monitors and send their contents to all nearby players.
@@ -72,10 +92,17 @@ public static void onTick(TickEvent.ServerTickEvent event) {
                 continue;
             }
 
-            var state = getState(tile, monitor);
-            NetworkHandler.sendToAllTracking(new MonitorClientMessage(pos, state), chunk);
-
-            limit -= state.size();
+            // Players tracking this monitor will already have its previous state, so only send the changes if we can.
+            var terminal = monitor.getTerminal();
+            var delta = terminal == null ? null : TerminalDelta.of(terminal);
+            if (delta != null) {
+                NetworkHandler.sendToAllTracking(new MonitorDeltaClientMessage(pos, delta), chunk);
+                limit -= delta.size();
+            } else {
+                var state = getState(tile, monitor);
+                NetworkHandler.sendToAllTracking(new MonitorClientMessage(pos, state), chunk);
+                limit -= state.size();
+            }
         }
     }
 
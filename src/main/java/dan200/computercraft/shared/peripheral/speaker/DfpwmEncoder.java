@@ -0,0 +1,134 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2022. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+package dan200.computercraft.shared.peripheral.speaker;
+
+import java.util.Arrays;
+
+/**
+ * Encodes signed 8-bit PCM audio into DFPWM.
+ * <p>
+ * Music players often send the same audio to several speakers at once. The output of the encoder only depends on its
+ * input and its current state, so we keep a small cache of recently encoded buffers, allowing speakers which are in
+ * sync to share the work.
+ */
+final class DfpwmEncoder {
+    private static final int PREC = 10;
+
+    private static final int CACHE_SIZE = 8;
+    private static final Entry[] cache = new Entry[CACHE_SIZE];
+    private static int nextCacheSlot = 0;
+
+    private int charge = 0; // q
+    private int strength = 0; // s
+    private boolean previousBit = false;
+
+    /**
+     * Encode a buffer of audio.
+     *
+     * @param samples The audio to encode, as signed 8-bit samples. This must not be modified after calling this
+     *                function, as it may be shared with other encoders.
+     * @param length  The number of samples to encode. Any samples past the last multiple of 8 are ignored.
+     * @return The encoded audio. This must not be modified, as it may be shared with other encoders.
+     */
+    byte[] encode(byte[] samples, int length) {
+        var hash = hash(samples, length);
+
+        synchronized (cache) {
+            for (var entry : cache) {
+                if (entry == null || !entry.matches(this, hash, samples, length)) continue;
+
+                charge = entry.endCharge();
+                strength = entry.endStrength();
+                previousBit = entry.endBit();
+                return entry.output();
+            }
+        }
+
+        var startCharge = charge;
+        var startStrength = strength;
+        var startBit = previousBit;
+
+        var output = new byte[length / 8];
+        for (var i = 0; i < output.length; i++) {
+            var thisByte = 0;
+            for (var j = 0; j < 8; j++) {
+                int level = samples[i * 8 + j];
+                var currentBit = level > charge || (level == charge && charge == 127);
+                update(currentBit);
+                thisByte = (thisByte >> 1) + (currentBit ? 128 : 0);
+            }
+
+            output[i] = (byte) thisByte;
+        }
+
+        var entry = new Entry(
+            startCharge, startStrength, startBit, samples, length, hash,
+            output, charge, strength, previousBit
+        );
+        synchronized (cache) {
+            cache[nextCacheSlot] = entry;
+            nextCacheSlot = (nextCacheSlot + 1) % CACHE_SIZE;
+        }
+
+        return output;
+    }
+
+    /**
+     * Advance the encoder past some already-encoded audio. This ensures that any audio encoded afterwards continues
+     * from the state the client's decoder will be in.
+     *
+     * @param encoded The DFPWM audio which will be played.
+     * @param length  The number of bytes of audio.
+     */
+    void skip(byte[] encoded, int length) {
+        for (var i = 0; i < length; i++) {
+            var thisByte = encoded[i];
+            for (var j = 0; j < 8; j++) update((thisByte & (1 << j)) != 0);
+        }
+    }
+
+    private void update(boolean currentBit) {
+        // Identical to DfpwmStream. Not happy with this, but saves some inheritance.
+        var target = currentBit ? 127 : -128;
+
+        // q' <- q + (s * (t - q) + 128)/256
+        var nextCharge = charge + ((strength * (target - charge) + (1 << (PREC - 1))) >> PREC);
+        if (nextCharge == charge && nextCharge != target) nextCharge += currentBit ? 1 : -1;
+
+        var z = currentBit == previousBit ? (1 << PREC) - 1 : 0;
+
+        var nextStrength = strength;
+        if (strength != z) nextStrength += currentBit == previousBit ? 1 : -1;
+        if (nextStrength < 2 << (PREC - 8)) nextStrength = 2 << (PREC - 8);
+
+        charge = nextCharge;
+        strength = nextStrength;
+        previousBit = currentBit;
+    }
+
+    private static int hash(byte[] samples, int length) {
+        var hash = 1;
+        for (var i = 0; i < length; i++) hash = 31 * hash + samples[i];
+        return hash;
+    }
+
+    static void clearCache() {
+        synchronized (cache) {
+            Arrays.fill(cache, null);
+        }
+    }
+
+    private record Entry(
+        int charge, int strength, boolean previousBit, byte[] input, int length, int hash,
+        byte[] output, int endCharge, int endStrength, boolean endBit
+    ) {
+        boolean matches(DfpwmEncoder encoder, int hash, byte[] samples, int length) {
+            return this.hash == hash && this.length == length
+                && charge == encoder.charge && strength == encoder.strength && previousBit == encoder.previousBit
+                && Arrays.equals(input, 0, length, samples, 0, length);
+        }
+    }
+}
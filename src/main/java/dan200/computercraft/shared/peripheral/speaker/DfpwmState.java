@@ -29,11 +29,7 @@ class DfpwmState {
      */
     private static final long CLIENT_BUFFER = (long) (SECOND * 0.5);
 
-    private static final int PREC = 10;
-
-    private int charge = 0; // q
-    private int strength = 0; // s
-    private boolean previousBit = false;
+    private final DfpwmEncoder encoder = new DfpwmEncoder();
 
     private boolean unplayed = true;
     private long clientEndTime = PauseAwareTimer.getTime();
@@ -43,45 +39,51 @@ class DfpwmState {
     synchronized boolean pushBuffer(LuaTable<?, ?> table, int size, @Nonnull Optional<Double> volume) throws LuaException {
         if (pendingAudio != null) return false;
 
-        var outSize = size / 8;
-        var buffer = ByteBuffer.allocate(outSize);
-
-        for (var i = 0; i < outSize; i++) {
-            var thisByte = 0;
-            for (var j = 1; j <= 8; j++) {
-                var level = table.getInt(i * 8 + j);
-                if (level < -128 || level > 127) {
-                    throw new LuaException("table item #" + (i * 8 + j) + " must be between -128 and 127");
-                }
-
-                var currentBit = level > charge || (level == charge && charge == 127);
-
-                // Identical to DfpwmStream. Not happy with this, but saves some inheritance.
-                var target = currentBit ? 127 : -128;
-
-                // q' <- q + (s * (t - q) + 128)/256
-                var nextCharge = charge + ((strength * (target - charge) + (1 << (PREC - 1))) >> PREC);
-                if (nextCharge == charge && nextCharge != target) nextCharge += currentBit ? 1 : -1;
-
-                var z = currentBit == previousBit ? (1 << PREC) - 1 : 0;
+        var samples = new byte[size];
+        for (var i = 0; i < size; i++) {
+            var level = table.getInt(i + 1);
+            if (level < -128 || level > 127) {
+                throw new LuaException("table item #" + (i + 1) + " must be between -128 and 127");
+            }
+            samples[i] = (byte) level;
+        }
 
-                var nextStrength = strength;
-                if (strength != z) nextStrength += currentBit == previousBit ? 1 : -1;
-                if (nextStrength < 2 << (PREC - 8)) nextStrength = 2 << (PREC - 8);
+        return push(ByteBuffer.wrap(encoder.encode(samples, size)), volume);
+    }
 
-                charge = nextCharge;
-                strength = nextStrength;
-                previousBit = currentBit;
+    /**
+     * Push a buffer of signed 8-bit PCM audio.
+     *
+     * @param audio  The audio to play.
+     * @param volume The volume to play this audio at.
+     * @return If there was room to accept this audio data.
+     */
+    synchronized boolean pushPcm(ByteBuffer audio, @Nonnull Optional<Double> volume) {
+        if (pendingAudio != null) return false;
 
-                thisByte = (thisByte >> 1) + (currentBit ? 128 : 0);
-            }
+        var samples = new byte[audio.remaining()];
+        audio.get(samples);
+        return push(ByteBuffer.wrap(encoder.encode(samples, samples.length)), volume);
+    }
 
-            buffer.put((byte) thisByte);
-        }
+    /**
+     * Push a buffer of already-encoded DFPWM audio.
+     *
+     * @param audio  The audio to play.
+     * @param volume The volume to play this audio at.
+     * @return If there was room to accept this audio data.
+     */
+    synchronized boolean pushDfpwm(ByteBuffer audio, @Nonnull Optional<Double> volume) {
+        if (pendingAudio != null) return false;
 
-        buffer.flip();
+        var encoded = new byte[audio.remaining()];
+        audio.get(encoded);
+        encoder.skip(encoded, encoded.length);
+        return push(ByteBuffer.wrap(encoded), volume);
+    }
 
-        pendingAudio = buffer;
+    private boolean push(ByteBuffer audio, Optional<Double> volume) {
+        pendingAudio = audio.asReadOnlyBuffer();
         pendingVolume = Mth.clamp(volume.orElse((double) pendingVolume).floatValue(), 0.0f, 3.0f);
         return true;
     }
@@ -0,0 +1,203 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2022. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+package dan200.computercraft.shared.peripheral.speaker;
+
+import dan200.computercraft.shared.network.NetworkHandler;
+import dan200.computercraft.shared.network.client.SpeakerGroupAudioClientMessage;
+import dan200.computercraft.shared.network.client.SpeakerStopClientMessage;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraftforge.server.ServerLifecycleHooks;
+
+import javax.annotation.Nullable;
+import java.util.*;
+
+/**
+ * A named group of speakers, which all play the same audio.
+ * <p>
+ * Audio played on any speaker in a group is played by every speaker in that group. Rather than each speaker sending
+ * the audio to clients separately, the group sends a single {@link SpeakerGroupAudioClientMessage} to each player,
+ * listing every speaker which should play it. The client then only needs to decode the audio once.
+ * <p>
+ * Groups are owned by the computer which created them, so two computers using the same group name will not interfere
+ * with each other. A group is removed once its last speaker leaves.
+ * <p>
+ * Only the speaker which audio was last submitted through queues a {@code speaker_audio_empty} event once the group's
+ * audio has been sent, so programs waiting on that speaker see one event per chunk, however large the group is.
+ */
+public final class SpeakerGroup {
+    private static final Map<Key, SpeakerGroup> groups = new HashMap<>();
+
+    private final Key key;
+    private final UUID source = UUID.randomUUID();
+    private final Set<SpeakerPeripheral> members = new HashSet<>();
+
+    private @Nullable DfpwmState dfpwmState;
+    private @Nullable SpeakerPeripheral submitter;
+    private int lastTick = -1;
+
+    private SpeakerGroup(Key key) {
+        this.key = key;
+    }
+
+    String getName() {
+        return key.name();
+    }
+
+    int getOwner() {
+        return key.computer();
+    }
+
+    /**
+     * Add a speaker to a group, creating the group if needed.
+     *
+     * @param computer The ID of the computer which owns this group.
+     * @param name     The name of the group.
+     * @param speaker  The speaker to add.
+     * @return The group the speaker was added to.
+     */
+    static SpeakerGroup join(int computer, String name, SpeakerPeripheral speaker) {
+        synchronized (groups) {
+            var group = groups.computeIfAbsent(new Key(computer, name), SpeakerGroup::new);
+            synchronized (group) {
+                group.members.add(speaker);
+            }
+            return group;
+        }
+    }
+
+    /**
+     * Remove a speaker from this group. If this was the last speaker, the group is removed and any audio stopped.
+     *
+     * @param speaker The speaker to remove.
+     */
+    void leave(SpeakerPeripheral speaker) {
+        boolean removed;
+        synchronized (groups) {
+            synchronized (this) {
+                members.remove(speaker);
+                if (submitter == speaker) submitter = null;
+                removed = members.isEmpty() && groups.remove(key, this);
+                if (removed) {
+                    dfpwmState = null;
+                    submitter = null;
+                }
+            }
+        }
+
+        if (removed) stopClients();
+    }
+
+    public static void reset() {
+        synchronized (groups) {
+            groups.clear();
+        }
+    }
+
+    /**
+     * Get the group's audio state, in order to submit more audio.
+     *
+     * @param speaker The speaker the audio is being submitted through. This speaker will be notified once the audio
+     *                has been sent.
+     * @return The group's current audio state.
+     */
+    synchronized DfpwmState getAudioState(SpeakerPeripheral speaker) {
+        submitter = speaker;
+        if (dfpwmState == null || !dfpwmState.isPlaying()) dfpwmState = new DfpwmState();
+        return dfpwmState;
+    }
+
+    @Nullable
+    synchronized DfpwmState getCurrentAudioState() {
+        return dfpwmState;
+    }
+
+    /**
+     * Stop the audio playing in this group, stopping every speaker in it.
+     */
+    void stop() {
+        List<SpeakerPeripheral> members;
+        synchronized (this) {
+            dfpwmState = null;
+            submitter = null;
+            members = List.copyOf(this.members);
+        }
+
+        for (var member : members) member.stopFromGroup();
+        stopClients();
+    }
+
+    /**
+     * Tell clients to throw away their decoder for this group, as any future audio will start from a fresh
+     * {@link DfpwmState}.
+     */
+    private void stopClients() {
+        // This may be called from the computer thread, so defer sending the packet to the main thread. We could also be
+        // in the process of shutting down the server, in which case there's no one to notify.
+        var server = ServerLifecycleHooks.getCurrentServer();
+        if (server == null || server.isStopped()) return;
+
+        server.execute(() -> NetworkHandler.sendToAllPlayers(new SpeakerStopClientMessage(source)));
+    }
+
+    /**
+     * Send any pending audio to clients. This is called by every speaker in the group, but only does anything the first
+     * time it is called in a tick.
+     *
+     * @param server The current server.
+     * @param now    The current time, as given by {@link dan200.computercraft.shared.util.PauseAwareTimer}.
+     */
+    void update(MinecraftServer server, long now) {
+        DfpwmState state;
+        List<SpeakerPeripheral> members;
+        SpeakerPeripheral submitter;
+        synchronized (this) {
+            if (lastTick == server.getTickCount()) return;
+            lastTick = server.getTickCount();
+
+            state = dfpwmState;
+            if (state == null || !state.shouldSendPending(now)) return;
+            members = List.copyOf(this.members);
+            submitter = this.submitter;
+        }
+
+        var audio = state.pullPending(now);
+        var volume = state.getVolume();
+
+        // Players can only hear speakers in their own level, so send one message per level.
+        Map<ServerLevel, Emitters> levels = new HashMap<>();
+        for (var member : members) {
+            var position = member.getPosition();
+            if (!(position.level() instanceof ServerLevel level)) continue;
+
+            var emitters = levels.computeIfAbsent(level, x -> new Emitters());
+            emitters.speakers.add(member);
+            emitters.players.addAll(level.getChunkSource().chunkMap.getPlayers(new ChunkPos(new BlockPos(position.position())), false));
+        }
+
+        for (var emitters : levels.values()) {
+            List<SpeakerGroupAudioClientMessage.Emitter> positions = new ArrayList<>(emitters.speakers.size());
+            for (var member : emitters.speakers) positions.add(member.playGroupAudio());
+
+            NetworkHandler.sendToPlayers(new SpeakerGroupAudioClientMessage(source, positions, volume, audio), emitters.players);
+        }
+
+        // Every member has now been sent this chunk, so notify the speaker it was submitted through (and only that
+        // speaker) that there is room for more audio.
+        if (submitter != null) submitter.notifyAudioEmpty();
+    }
+
+    private record Key(int computer, String name) {
+    }
+
+    private static final class Emitters {
+        final List<SpeakerPeripheral> speakers = new ArrayList<>();
+        final Set<ServerPlayer> players = new HashSet<>();
+    }
+}
@@ -14,6 +14,7 @@
 import dan200.computercraft.api.peripheral.IPeripheral;
 import dan200.computercraft.shared.network.NetworkHandler;
 import dan200.computercraft.shared.network.client.SpeakerAudioClientMessage;
+import dan200.computercraft.shared.network.client.SpeakerGroupAudioClientMessage;
 import dan200.computercraft.shared.network.client.SpeakerMoveClientMessage;
 import dan200.computercraft.shared.network.client.SpeakerPlayClientMessage;
 import dan200.computercraft.shared.network.client.SpeakerStopClientMessage;
@@ -27,6 +28,8 @@
 import net.minecraftforge.registries.ForgeRegistries;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.ByteBuffer;
 import java.util.*;
 
 import static dan200.computercraft.api.lua.LuaValues.checkFinite;
@@ -38,6 +41,7 @@
  * - {@link #playNote} allows you to play noteblock note.
  * - {@link #playSound} plays any built-in Minecraft sound, such as block sounds or mob noises.
  * - {@link #playAudio} can play arbitrary audio.
+ * - {@link #playAudioString} plays arbitrary audio, packed into a string.
  * <p>
  * ## Recipe
  * <div class="recipe-container">
@@ -68,6 +72,7 @@ public abstract class SpeakerPeripheral implements IPeripheral {
     private boolean shouldStop;
     private PendingSound pendingSound = null;
     private DfpwmState dfpwmState;
+    private volatile SpeakerGroup group;
 
     public void update() {
         clock++;
@@ -117,6 +122,7 @@ public void update() {
         }
 
         var now = PauseAwareTimer.getTime();
+        var group = this.group;
         if (sound != null) {
             lastPlayTime = clock;
             NetworkHandler.sendToAllAround(
@@ -124,6 +130,9 @@ public void update() {
                 level, pos, sound.volume * 16
             );
             syncedPosition(position);
+        } else if (group != null) {
+            // Grouped speakers send their audio together, see SpeakerGroup.update.
+            group.update(server, now);
         } else if (dfpwmState != null && dfpwmState.shouldSendPending(now)) {
             // If clients need to receive another batch of audio, send it and then notify computers our internal buffer is
             // free again.
@@ -133,12 +142,7 @@ public void update() {
             );
             syncedPosition(position);
 
-            // And notify computers that we have space for more audio.
-            synchronized (computers) {
-                for (var computer : computers) {
-                    computer.queueEvent("speaker_audio_empty", computer.getAttachmentName());
-                }
-            }
+            notifyAudioEmpty();
         }
 
         // Push position updates to any speakers which have ever played a note,
@@ -154,6 +158,46 @@ public void update() {
         }
     }
 
+    void notifyAudioEmpty() {
+        // Notify computers that we have space for more audio.
+        synchronized (computers) {
+            for (var computer : computers) {
+                computer.queueEvent("speaker_audio_empty", computer.getAttachmentName());
+            }
+        }
+    }
+
+    /**
+     * Called by this speaker's {@link SpeakerGroup} when the group's audio is sent to clients.
+     *
+     * @return This speaker's position and source, to be sent to the client.
+     */
+    SpeakerGroupAudioClientMessage.Emitter playGroupAudio() {
+        var position = getPosition();
+        lastPlayTime = clock;
+        syncedPosition(position);
+        return new SpeakerGroupAudioClientMessage.Emitter(getSource(), position.asMessage());
+    }
+
+    /**
+     * Called by this speaker's {@link SpeakerGroup} when the group's audio is stopped.
+     */
+    void stopFromGroup() {
+        shouldStop = true;
+    }
+
+    /**
+     * Remove this speaker from its group, such as when it is removed from the world.
+     */
+    void leaveGroup() {
+        synchronized (lock) {
+            var group = this.group;
+            if (group == null) return;
+            this.group = null;
+            group.leave(this);
+        }
+    }
+
     @Nonnull
     public abstract SpeakerPosition getPosition();
 
@@ -163,7 +207,7 @@ public UUID getSource() {
     }
 
     public boolean madeSound() {
-        var state = dfpwmState;
+        var state = getCurrentAudioState();
         return clock - lastPlayTime <= 20 || (state != null && state.isPlaying());
     }
 
@@ -259,7 +303,8 @@ public final boolean playSound(ILuaContext context, String name, Optional<Double
         }
 
         synchronized (lock) {
-            if (dfpwmState != null && dfpwmState.isPlaying()) return false;
+            var state = getCurrentAudioState();
+            if (state != null && state.isPlaying()) return false;
             dfpwmState = null;
             pendingSound = new PendingSound(identifier, volume, pitch);
             return true;
@@ -319,15 +364,78 @@ public final boolean playAudio(ILuaContext context, LuaTable<?, ?> audio, Option
         if (length <= 0) throw new LuaException("Cannot play empty audio");
         if (length > 128 * 1024) throw new LuaException("Audio data is too large");
 
-        DfpwmState state;
-        synchronized (lock) {
-            if (dfpwmState == null || !dfpwmState.isPlaying()) dfpwmState = new DfpwmState();
-            state = dfpwmState;
+        return getAudioState().pushBuffer(audio, length, volume);
+    }
+
+    /**
+     * Attempt to stream some audio data to the speaker, packed into a string.
+     * <p>
+     * This behaves the same as {@link #playAudio}, but accepts audio as a string rather than a table. As the speaker
+     * does not need to read each sample from a table, this is much faster, and so is better suited to programs playing
+     * audio on lots of speakers.
+     * <p>
+     * The audio can be given in one of two formats:
+     * - `"pcm"`: Each character of the string is a single sample, as a signed 8-bit integer (so `"\0"` is 0, and
+     * `"\255"` is -1). This may contain up to 128×1024 samples.
+     * - `"dfpwm"`: The audio has already been encoded as DFPWM, such as the contents of a `.dfpwm` file. Each byte
+     * contains 8 samples, so this may be up to 16×1024 bytes long.
+     *
+     * @param audio  The audio data to play.
+     * @param format The format of the audio data, either {@code "pcm"} or {@code "dfpwm"}. Defaults to {@code "pcm"}.
+     * @param volume The volume to play this audio at.
+     * @return If there was room to accept this audio data.
+     * @throws LuaException If the audio data is malformed.
+     * @cc.tparam string audio The audio data to play.
+     * @cc.tparam [opt] string format The format of the audio data, either {@code "pcm"} or {@code "dfpwm"}.
+     * @cc.tparam [opt] number volume The volume to play this audio at. If not given, defaults to the previous volume
+     * given to {@link #playAudio}.
+     * @cc.since 1.101.2
+     * @cc.usage Play a DFPWM file, without decoding it first.
+     *
+     * <pre>{@code
+     * local speaker = peripheral.find("speaker")
+     *
+     * for chunk in io.lines("data/example.dfpwm", 16 * 1024) do
+     *     while not speaker.playAudioString(chunk, "dfpwm") do
+     *         os.pullEvent("speaker_audio_empty")
+     *     end
+     * end
+     * }</pre>
+     * @cc.see speaker_audio For a more complete introduction to the {@link #playAudio} function.
+     */
+    @LuaFunction
+    public final boolean playAudioString(ByteBuffer audio, Optional<String> format, Optional<Double> volume) throws LuaException {
+        checkFinite(2, volume.orElse(0.0));
+
+        var dfpwm = switch (format.orElse("pcm")) {
+            case "pcm" -> false;
+            case "dfpwm" -> true;
+            default -> throw new LuaException("Unknown audio format '" + format.get() + "'");
+        };
+
+        var length = audio.remaining();
+        if (length <= 0) throw new LuaException("Cannot play empty audio");
+        if (length > (dfpwm ? 16 * 1024 : 128 * 1024)) throw new LuaException("Audio data is too large");
 
+        var state = getAudioState();
+        return dfpwm ? state.pushDfpwm(audio, volume) : state.pushPcm(audio, volume);
+    }
+
+    private DfpwmState getAudioState() {
+        synchronized (lock) {
             pendingSound = null;
+
+            var group = this.group;
+            if (group != null) return group.getAudioState(this);
+
+            if (dfpwmState == null || !dfpwmState.isPlaying()) dfpwmState = new DfpwmState();
+            return dfpwmState;
         }
+    }
 
-        return state.pushBuffer(audio, length, volume);
+    private DfpwmState getCurrentAudioState() {
+        var group = this.group;
+        return group != null ? group.getCurrentAudioState() : dfpwmState;
     }
 
     /**
@@ -339,7 +447,70 @@ public final boolean playAudio(ILuaContext context, LuaTable<?, ?> audio, Option
      */
     @LuaFunction
     public final void stop() {
-        shouldStop = true;
+        var group = this.group;
+        if (group != null) {
+            group.stop();
+        } else {
+            shouldStop = true;
+        }
+    }
+
+    /**
+     * Add this speaker to a playback group, or remove it from its current one.
+     * <p>
+     * Any audio played with {@link #playAudio} or {@link #playAudioString} on a speaker in a group is played by every
+     * speaker in that group, all in sync. This means you should only send audio to <em>one</em> speaker in the group,
+     * rather than to each speaker individually. Stopping any speaker in a group with {@link #stop} stops the whole
+     * group.
+     * <p>
+     * Playing audio through a group is much cheaper than playing the same audio on each speaker, as the server only
+     * sends the audio to each player once.
+     * <p>
+     * Groups belong to the computer which calls this function, so other computers cannot join or stop them, even if
+     * they use the same name. A speaker leaves its group when it is detached from that computer.
+     *
+     * @param computer The computer setting the group.
+     * @param name     The name of the group to join, or {@code nil} to leave the current group.
+     * @cc.usage Play a DFPWM file on every connected speaker.
+     *
+     * <pre>{@code
+     * local speakers = { peripheral.find("speaker") }
+     * for _, speaker in pairs(speakers) do speaker.setGroup("music") end
+     *
+     * for chunk in io.lines("data/example.dfpwm", 16 * 1024) do
+     *     while not speakers[1].playAudioString(chunk, "dfpwm") do
+     *         os.pullEvent("speaker_audio_empty")
+     *     end
+     * end
+     * }</pre>
+     * @cc.since 1.101.2
+     */
+    @LuaFunction
+    public final void setGroup(IComputerAccess computer, Optional<String> name) {
+        synchronized (lock) {
+            var group = this.group;
+            if (group != null && name.isPresent() && group.getOwner() == computer.getID() && group.getName().equals(name.get())) {
+                return;
+            }
+
+            leaveGroup();
+            dfpwmState = null;
+            if (name.isPresent()) this.group = SpeakerGroup.join(computer.getID(), name.get(), this);
+        }
+    }
+
+    /**
+     * Get the name of the playback group this speaker is in.
+     *
+     * @return The name of the current group, or {@code nil} if this speaker is not in a group.
+     * @cc.treturn string|nil The name of the current group.
+     * @cc.since 1.101.2
+     */
+    @Nullable
+    @LuaFunction
+    public final String getGroup() {
+        var group = this.group;
+        return group == null ? null : group.getName();
     }
 
     private void syncedPosition(SpeakerPosition position) {
@@ -359,6 +530,10 @@ public void detach(@Nonnull IComputerAccess computer) {
         synchronized (computers) {
             computers.remove(computer);
         }
+
+        // Leave any group owned by this computer, as it can no longer control us.
+        var group = this.group;
+        if (group != null && group.getOwner() == computer.getID()) leaveGroup();
     }
 
     private record PendingSound(ResourceLocation location, float volume, float pitch) {
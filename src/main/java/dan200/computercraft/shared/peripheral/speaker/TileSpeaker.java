@@ -39,6 +39,7 @@ protected void serverTick() {
     @Override
     public void setRemoved() {
         super.setRemoved();
+        peripheral.leaveGroup();
         if (level != null && !level.isClientSide) {
             NetworkHandler.sendToAllPlayers(new SpeakerStopClientMessage(peripheral.getSource()));
         }
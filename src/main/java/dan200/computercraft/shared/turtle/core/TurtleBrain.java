@@ -651,15 +651,30 @@ private void updatePeripherals(ServerComputer serverComputer) {
     }
 
     private void updateCommands() {
-        if (animation != TurtleAnimation.NONE || commandQueue.isEmpty()) return;
+        // Commands which don't play an animation (such as detect or compare) finish instantly, so there's no need to
+        // wait until the next tick before running the next one. If pipelining is enabled, keep running commands until
+        // one starts an animation, or we run out of time.
+        do {
+            if (!runCommand()) return;
+        } while (ComputerCraft.turtlesPipelineCommands && !owner.isRemoved());
+    }
+
+    /**
+     * Run the next command in the queue.
+     *
+     * @return Whether a command was run. This will be {@code false} if the queue is empty, the turtle is still
+     * animating or the computer has run out of time for this tick.
+     */
+    private boolean runCommand() {
+        if (animation != TurtleAnimation.NONE || commandQueue.isEmpty()) return false;
 
         // If we've got a computer, ensure that we're allowed to perform work.
         var computer = owner.getServerComputer();
-        if (computer != null && !computer.getComputer().getMainThreadMonitor().canWork()) return;
+        if (computer != null && !computer.getComputer().getMainThreadMonitor().canWork()) return false;
 
         // Pull a new command
         var nextCommand = commandQueue.poll();
-        if (nextCommand == null) return;
+        if (nextCommand == null) return false;
 
         // Execute the command
         var start = System.nanoTime();
@@ -667,10 +682,10 @@ private void updateCommands() {
         var end = System.nanoTime();
 
         // Dispatch the callback
-        if (computer == null) return;
+        if (computer == null) return true;
         computer.getComputer().getMainThreadMonitor().trackWork(end - start, TimeUnit.NANOSECONDS);
         var callbackID = nextCommand.callbackID();
-        if (callbackID < 0) return;
+        if (callbackID < 0) return true;
 
         if (result != null && result.isSuccess()) {
             var results = result.getResults();
@@ -690,6 +705,8 @@ private void updateCommands() {
                 callbackID, false, result != null ? result.getErrorMessage() : null,
             });
         }
+
+        return true;
     }
 
     private void updateAnimation() {
@@ -6,13 +6,15 @@
 package dan200.computercraft.shared.wired;
 
 import com.google.common.collect.ImmutableMap;
-import dan200.computercraft.api.network.Packet;
 import dan200.computercraft.api.network.wired.IWiredNetwork;
 import dan200.computercraft.api.network.wired.IWiredNode;
 import dan200.computercraft.api.peripheral.IPeripheral;
+import dan200.computercraft.shared.peripheral.modem.Transmission;
 
 import javax.annotation.Nonnull;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -21,6 +23,9 @@ public final class WiredNetwork implements IWiredNetwork {
     HashSet<WiredNode> nodes;
     private HashMap<String, IPeripheral> peripherals = new HashMap<>();
 
+    private final Map<WiredNode, RouteTable> routes = new ConcurrentHashMap<>();
+    private final AtomicInteger routesVersion = new AtomicInteger();
+
     WiredNetwork(WiredNode node) {
         nodes = new HashSet<>(1);
         nodes.add(node);
@@ -44,6 +49,8 @@ public boolean connect(@Nonnull IWiredNode nodeU, @Nonnull IWiredNode nodeV) {
             var hasV = wiredV.network == this;
             if (!hasU && !hasV) throw new IllegalArgumentException("Neither node is in the network.");
 
+            invalidateRoutes();
+
             // We're going to assimilate a node. Copy across all edges and vertices.
             if (!hasU || !hasV) {
                 var other = hasU ? wiredV.network : wiredU.network;
@@ -105,6 +112,7 @@ public boolean disconnect(@Nonnull IWiredNode nodeU, @Nonnull IWiredNode nodeV)
             // If there was no connection to remove then split.
             if (!wiredU.neighbours.remove(wiredV)) return false;
             wiredV.neighbours.remove(wiredU);
+            invalidateRoutes();
 
             // Determine if there is still some connection from u to v.
             // Note this is an inlining of reachableNodes which short-circuits
@@ -173,6 +181,7 @@ public boolean remove(@Nonnull IWiredNode node) {
             if (wired.network != this) return false;
 
             var neighbours = wired.neighbours;
+            invalidateRoutes();
 
             // Remove this node and move into a separate network.
             nodes.remove(wired);
@@ -262,6 +271,7 @@ public void updatePeripherals(@Nonnull IWiredNode node, @Nonnull Map<String, IPe
             var change = WiredNetworkChange.changeOf(oldPeripherals, newPeripherals);
             if (change.isEmpty()) return;
 
+            invalidateRoutes();
             wired.peripherals = ImmutableMap.copyOf(newPeripherals);
 
             // Detach the old peripherals then remove them.
@@ -276,19 +286,110 @@ public void updatePeripherals(@Nonnull IWiredNode node, @Nonnull Map<String, IPe
         }
     }
 
-    static void transmitPacket(WiredNode start, Packet packet, double range, boolean interdimensional) {
-        Map<WiredNode, TransmitPoint> points = new HashMap<>();
-        var transmitTo = new TreeSet<TransmitPoint>();
+    static void transmitPacket(WiredNode start, Transmission transmission, double range, boolean interdimensional) {
+        var routes = start.network.getRoutes(start);
+        var packet = transmission.packet();
+
+        if (start.element.getLevel() != packet.sender().getLevel()) {
+            // If the sender is in a different dimension to the network, then every node is infinitely far away.
+            for (var i = 0; i < routes.nodes.length; i++) {
+                var node = routes.nodes[i];
+                node.tryTransmit(transmission, Double.POSITIVE_INFINITY, node == start || routes.interdimensional[i], range, interdimensional);
+            }
+        } else {
+            var startDistance = start.element.getPosition().distanceTo(packet.sender().getPosition());
+            for (var i = 0; i < routes.nodes.length; i++) {
+                routes.nodes[i].tryTransmit(transmission, startDistance + routes.distances[i], routes.interdimensional[i], range, interdimensional);
+            }
+        }
+    }
+
+    /**
+     * Get the routing table for packets sent from a particular node, computing it if needed.
+     * <p>
+     * This should be called with the read lock held. Routing tables are invalidated whenever the network's topology
+     * changes (see {@link #invalidateRoutes()}), so this is normally just a map lookup.
+     *
+     * @param start The node which is transmitting.
+     * @return The routing table for this node.
+     */
+    RouteTable getRoutes(WiredNode start) {
+        var routes = this.routes.get(start);
+        if (routes != null) return routes;
+
+        var version = routesVersion.get();
+        routes = RouteTable.compute(start);
+        this.routes.put(start, routes);
+
+        // If the routes were invalidated while we were computing the table (for instance, a receiver was added), then
+        // our table may be out of date. Remove it, so that it's recomputed next time.
+        if (routesVersion.get() != version) this.routes.remove(start, routes);
+        return routes;
+    }
+
+    /**
+     * Clear all cached routing tables. This should be called whenever the nodes of this network, the connections
+     * between them, or their receivers change.
+     */
+    void invalidateRoutes() {
+        routesVersion.incrementAndGet();
+        routes.clear();
+    }
+
+    private void removeSingleNode(WiredNode wired, WiredNetwork wiredNetwork) {
+        wiredNetwork.lock.writeLock().lock();
+        try {
+            // Cache all the old nodes.
+            Map<String, IPeripheral> wiredPeripherals = new HashMap<>(wired.peripherals);
+
+            // Setup the new node's network
+            // Detach the old peripherals then remove them from the old network
+            wired.network = wiredNetwork;
+            wired.neighbours.clear();
+            wired.peripherals = Collections.emptyMap();
+
+            // Broadcast the change
+            if (!peripherals.isEmpty()) WiredNetworkChange.removed(peripherals).broadcast(wired);
+
+            // Now remove all peripherals from this network and broadcast the change.
+            peripherals.keySet().removeAll(wiredPeripherals.keySet());
+            if (!wiredPeripherals.isEmpty()) WiredNetworkChange.removed(wiredPeripherals).broadcast(nodes);
+
+        } finally {
+            wiredNetwork.lock.writeLock().unlock();
+        }
+    }
 
-        {
-            var startEntry = start.element.getLevel() != packet.sender().getLevel()
-                ? new TransmitPoint(start, Double.POSITIVE_INFINITY, true)
-                : new TransmitPoint(start, start.element.getPosition().distanceTo(packet.sender().getPosition()), false);
-            points.put(start, startEntry);
-            transmitTo.add(startEntry);
+    /**
+     * The shortest paths from one node to every node in the network which can receive packets.
+     */
+    static final class RouteTable {
+        final WiredNode[] nodes;
+        final double[] distances;
+        final boolean[] interdimensional;
+
+        private RouteTable(WiredNode[] nodes, double[] distances, boolean[] interdimensional) {
+            this.nodes = nodes;
+            this.distances = distances;
+            this.interdimensional = interdimensional;
         }
 
-        {
+        /**
+         * Compute the distance from a node to every other node in the network using Dijkstra's algorithm.
+         *
+         * @param start The node to start from.
+         * @return The computed routing table.
+         */
+        static RouteTable compute(WiredNode start) {
+            Map<WiredNode, TransmitPoint> points = new HashMap<>();
+            var transmitTo = new TreeSet<TransmitPoint>();
+
+            {
+                var startEntry = new TransmitPoint(start, 0, false);
+                points.put(start, startEntry);
+                transmitTo.add(startEntry);
+            }
+
             TransmitPoint point;
             while ((point = transmitTo.pollFirst()) != null) {
                 var world = point.node.element.getLevel();
@@ -318,34 +419,25 @@ static void transmitPacket(WiredNode start, Packet packet, double range, boolean
                     }
                 }
             }
-        }
-
-        for (var point : points.values()) {
-            point.node.tryTransmit(packet, point.distance, point.interdimensional, range, interdimensional);
-        }
-    }
-
-    private void removeSingleNode(WiredNode wired, WiredNetwork wiredNetwork) {
-        wiredNetwork.lock.writeLock().lock();
-        try {
-            // Cache all the old nodes.
-            Map<String, IPeripheral> wiredPeripherals = new HashMap<>(wired.peripherals);
-
-            // Setup the new node's network
-            // Detach the old peripherals then remove them from the old network
-            wired.network = wiredNetwork;
-            wired.neighbours.clear();
-            wired.peripherals = Collections.emptyMap();
 
-            // Broadcast the change
-            if (!peripherals.isEmpty()) WiredNetworkChange.removed(peripherals).broadcast(wired);
+            // Only keep nodes which have something to send to. Most nodes in a large network are plain cables.
+            var receivers = new ArrayList<TransmitPoint>();
+            for (var entry : points.values()) {
+                if (entry.node.hasReceivers()) receivers.add(entry);
+            }
 
-            // Now remove all peripherals from this network and broadcast the change.
-            peripherals.keySet().removeAll(wiredPeripherals.keySet());
-            if (!wiredPeripherals.isEmpty()) WiredNetworkChange.removed(wiredPeripherals).broadcast(nodes);
+            var size = receivers.size();
+            var nodes = new WiredNode[size];
+            var distances = new double[size];
+            var interdimensional = new boolean[size];
+            for (var i = 0; i < size; i++) {
+                var entry = receivers.get(i);
+                nodes[i] = entry.node;
+                distances[i] = entry.distance;
+                interdimensional[i] = entry.interdimensional;
+            }
 
-        } finally {
-            wiredNetwork.lock.writeLock().unlock();
+            return new RouteTable(nodes, distances, interdimensional);
         }
     }
 
@@ -12,6 +12,7 @@
 import dan200.computercraft.api.network.wired.IWiredNode;
 import dan200.computercraft.api.network.wired.IWiredSender;
 import dan200.computercraft.api.peripheral.IPeripheral;
+import dan200.computercraft.shared.peripheral.modem.Transmission;
 
 import javax.annotation.Nonnull;
 import java.util.*;
@@ -33,26 +34,30 @@ public WiredNode(IWiredElement element) {
     @Override
     public synchronized void addReceiver(@Nonnull IPacketReceiver receiver) {
         if (receivers == null) receivers = new HashSet<>();
-        receivers.add(receiver);
+        if (receivers.add(receiver)) network.invalidateRoutes();
     }
 
     @Override
     public synchronized void removeReceiver(@Nonnull IPacketReceiver receiver) {
-        if (receivers != null) receivers.remove(receiver);
+        if (receivers != null && receivers.remove(receiver)) network.invalidateRoutes();
     }
 
-    synchronized void tryTransmit(Packet packet, double packetDistance, boolean packetInterdimensional, double range, boolean interdimensional) {
+    synchronized boolean hasReceivers() {
+        return receivers != null && !receivers.isEmpty();
+    }
+
+    synchronized void tryTransmit(Transmission transmission, double packetDistance, boolean packetInterdimensional, double range, boolean interdimensional) {
         if (receivers == null) return;
 
         for (var receiver : receivers) {
             if (!packetInterdimensional) {
                 var receiveRange = Math.max(range, receiver.getRange()); // Ensure range is symmetrical
                 if (interdimensional || receiver.isInterdimensional() || packetDistance < receiveRange) {
-                    receiver.receiveSameDimension(packet, packetDistance + element.getPosition().distanceTo(receiver.getPosition()));
+                    transmission.deliverSameDimension(receiver, packetDistance + element.getPosition().distanceTo(receiver.getPosition()));
                 }
             } else {
                 if (interdimensional || receiver.isInterdimensional()) {
-                    receiver.receiveDifferentDimension(packet);
+                    transmission.deliverDifferentDimension(receiver);
                 }
             }
         }
@@ -72,7 +77,7 @@ public void transmitSameDimension(@Nonnull Packet packet, double range) {
 
         acquireReadLock();
         try {
-            WiredNetwork.transmitPacket(this, packet, range, false);
+            WiredNetwork.transmitPacket(this, new Transmission(packet), range, false);
         } finally {
             network.lock.readLock().unlock();
         }
@@ -87,7 +92,7 @@ public void transmitInterdimensional(@Nonnull Packet packet) {
 
         acquireReadLock();
         try {
-            WiredNetwork.transmitPacket(this, packet, 0, true);
+            WiredNetwork.transmitPacket(this, new Transmission(packet), 0, true);
         } finally {
             network.lock.readLock().unlock();
         }
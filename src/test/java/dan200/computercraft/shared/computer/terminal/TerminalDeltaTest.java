@@ -0,0 +1,91 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2022. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+package dan200.computercraft.shared.computer.terminal;
+
+import io.netty.buffer.Unpooled;
+import net.minecraft.network.FriendlyByteBuf;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests {@link TerminalDelta} only sends changed lines, and round-trips correctly.
+ */
+class TerminalDeltaTest {
+    @Test
+    void testRequiresFullSync() {
+        var terminal = new NetworkedTerminal(10, 5, true);
+        assertNull(TerminalDelta.of(terminal), "A new terminal must be synced in full");
+        assertNotNull(TerminalDelta.of(terminal), "Once synced, we can send deltas");
+
+        terminal.resize(12, 5);
+        assertNull(TerminalDelta.of(terminal), "A resized terminal must be synced in full");
+    }
+
+    @Test
+    void testRoundtrip() {
+        var server = new NetworkedTerminal(10, 5, true);
+        var client = new TerminalState(server).create();
+        server.clearDirty();
+
+        server.setCursorPos(3, 2);
+        server.write("Hello");
+        server.setCursorPos(0, 4);
+        server.setTextColour(3);
+        server.write("World");
+        server.getPalette().setColour(2, 0.5, 0.25, 1);
+
+        var delta = roundtrip(TerminalDelta.of(server));
+        assertTrue(delta.apply(client));
+
+        for (var y = 0; y < server.getHeight(); y++) {
+            assertEquals(server.getLine(y).toString(), client.getLine(y).toString());
+            assertEquals(server.getTextColourLine(y).toString(), client.getTextColourLine(y).toString());
+            assertEquals(server.getBackgroundColourLine(y).toString(), client.getBackgroundColourLine(y).toString());
+        }
+        assertEquals(0, client.getCursorX());
+        assertEquals(4, client.getCursorY());
+        assertEquals(3, client.getTextColour());
+        assertArrayEquals(new double[]{ 127 / 255.0, 63 / 255.0, 1 }, client.getPalette().getColour(2), 1e-9);
+    }
+
+    @Test
+    void testOnlySendsChangedLines() {
+        var terminal = new NetworkedTerminal(50, 20, true);
+        terminal.clearDirty();
+
+        var unchanged = TerminalDelta.of(terminal);
+        assertNotNull(unchanged);
+
+        terminal.write("x");
+        var changed = TerminalDelta.of(terminal);
+        assertNotNull(changed);
+
+        var full = new TerminalState(terminal, false);
+        assertEquals(50 * 2 + 1, changed.size() - unchanged.size(), "Should only send one line");
+        assertTrue(changed.size() < full.size() / 10, "Delta should be much smaller than the full terminal");
+    }
+
+    @Test
+    void testRejectsWrongSize() {
+        var server = new NetworkedTerminal(10, 5, true);
+        server.clearDirty();
+        server.write("Hello");
+
+        var delta = TerminalDelta.of(server);
+        assertNotNull(delta);
+        assertFalse(delta.apply(new NetworkedTerminal(5, 5, true)));
+    }
+
+    private static TerminalDelta roundtrip(TerminalDelta delta) {
+        assertNotNull(delta);
+        var buffer = new FriendlyByteBuf(Unpooled.buffer());
+        delta.write(buffer);
+        var result = new TerminalDelta(buffer);
+        assertEquals(0, buffer.readableBytes());
+        return result;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2022. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+package dan200.computercraft.shared.peripheral.speaker;
+
+import dan200.computercraft.api.peripheral.IPeripheral;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.ByteBuffer;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpeakerGroupTest {
+    @AfterEach
+    public void reset() {
+        SpeakerGroup.reset();
+    }
+
+    @Test
+    public void testJoinSameGroup() {
+        var a = SpeakerGroup.join(1, "music", new FakeSpeaker());
+        var b = SpeakerGroup.join(1, "music", new FakeSpeaker());
+
+        assertSame(a, b, "Speakers with the same computer and name share a group");
+        assertEquals("music", a.getName());
+        assertEquals(1, a.getOwner());
+    }
+
+    @Test
+    public void testGroupsScopedToComputer() {
+        var a = SpeakerGroup.join(1, "music", new FakeSpeaker());
+        var b = SpeakerGroup.join(2, "music", new FakeSpeaker());
+
+        assertNotSame(a, b, "Different computers have different groups");
+        assertNotSame(a, SpeakerGroup.join(1, "other", new FakeSpeaker()), "Different names have different groups");
+    }
+
+    @Test
+    public void testRemovedWhenEmpty() {
+        var first = new FakeSpeaker();
+        var second = new FakeSpeaker();
+        var group = SpeakerGroup.join(1, "music", first);
+        SpeakerGroup.join(1, "music", second);
+
+        group.leave(first);
+        assertSame(group, SpeakerGroup.join(1, "music", first), "Group is kept while it has members");
+
+        group.leave(first);
+        group.leave(second);
+        assertNotSame(group, SpeakerGroup.join(1, "music", first), "Group is removed once empty");
+    }
+
+    @Test
+    public void testStopKeepsMembers() {
+        var speaker = new FakeSpeaker();
+        var group = SpeakerGroup.join(1, "music", speaker);
+
+        var state = group.getAudioState(speaker);
+        assertTrue(state.pushPcm(ByteBuffer.wrap(new byte[1024]), Optional.empty()));
+        assertSame(state, group.getCurrentAudioState());
+
+        group.stop();
+        assertNull(group.getCurrentAudioState(), "Stopping clears the audio");
+        assertNotSame(state, group.getAudioState(speaker), "Audio restarts from a fresh state");
+        assertSame(group, SpeakerGroup.join(1, "music", speaker), "Stopping does not remove the group");
+    }
+
+    private static final class FakeSpeaker extends SpeakerPeripheral {
+        @Nonnull
+        @Override
+        public SpeakerPosition getPosition() {
+            throw new UnsupportedOperationException("Fake speakers have no position");
+        }
+
+        @Override
+        public boolean equals(@Nullable IPeripheral other) {
+            return this == other;
+        }
+    }
+}
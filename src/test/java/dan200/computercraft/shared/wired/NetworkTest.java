@@ -8,6 +8,8 @@
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import dan200.computercraft.api.ComputerCraftAPI;
+import dan200.computercraft.api.network.IPacketReceiver;
+import dan200.computercraft.api.network.Packet;
 import dan200.computercraft.api.network.wired.IWiredElement;
 import dan200.computercraft.api.network.wired.IWiredNetwork;
 import dan200.computercraft.api.network.wired.IWiredNetworkChange;
@@ -22,6 +24,8 @@
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.BiConsumer;
@@ -298,6 +302,102 @@ public void testLarge() {
         }
     }
 
+    @Test
+    public void testTransmit() {
+        NetworkElement
+            aE = new NetworkElement(null, new Vec3(0, 0, 0), "a"),
+            bE = new NetworkElement(null, new Vec3(1, 0, 0), "b"),
+            cE = new NetworkElement(null, new Vec3(3, 0, 0), "c");
+
+        IWiredNode
+            aN = aE.getNode(),
+            bN = bE.getNode(),
+            cN = cE.getNode();
+
+        aN.getNetwork().connect(aN, bN);
+        aN.getNetwork().connect(bN, cN);
+
+        var cR = new NetworkReceiver(cE);
+        cN.addReceiver(cR);
+
+        aN.transmitSameDimension(new Packet(1, 1, "Hello", aE), 64);
+        assertEquals(List.of(3.0), cR.received, "C should receive packet from 3 blocks away");
+
+        // Adding a receiver should invalidate our cached routes.
+        var bR = new NetworkReceiver(bE);
+        bN.addReceiver(bR);
+        aN.transmitSameDimension(new Packet(1, 1, "Hello", aE), 64);
+        assertEquals(List.of(1.0), bR.received, "B should receive packet after being added");
+        assertEquals(List.of(3.0, 3.0), cR.received, "C should receive second packet");
+
+        // As should changing the network's topology.
+        aN.getNetwork().disconnect(bN, cN);
+        aN.transmitSameDimension(new Packet(1, 1, "Hello", aE), 64);
+        assertEquals(List.of(1.0, 1.0), bR.received, "B should receive third packet");
+        assertEquals(List.of(3.0, 3.0), cR.received, "C should not receive packets once disconnected");
+    }
+
+    private static final int TRANSMIT_LINE_SIZE = 10_000;
+    private static final int TRANSMIT_TIMES = 10_000;
+    private static final int TRANSMIT_RECEIVER_SPACING = 16;
+
+    @Test
+    @Disabled("Takes a long time to run, mostly for stress testing")
+    public void testTransmitLarge() {
+        // A BRUTE_SIZE³ grid of cables.
+        {
+            var grid = new Grid<NetworkElement>(BRUTE_SIZE);
+            grid.map((existing, pos) -> new NetworkElement(null, Vec3.atCenterOf(pos), "n_" + pos));
+            grid.forEach((existing, pos) -> {
+                for (var facing : DirectionUtil.FACINGS) {
+                    var other = grid.get(pos.relative(facing));
+                    if (other != null) existing.getNode().getNetwork().connect(existing.getNode(), other.getNode());
+                }
+            });
+
+            List<NetworkElement> elements = new ArrayList<>();
+            grid.forEach((existing, pos) -> elements.add(existing));
+            benchmarkTransmit(String.format("%s³ grid", BRUTE_SIZE), elements);
+        }
+
+        // A long line of cables.
+        {
+            List<NetworkElement> elements = new ArrayList<>(TRANSMIT_LINE_SIZE);
+            for (var i = 0; i < TRANSMIT_LINE_SIZE; i++) {
+                var element = new NetworkElement(null, new Vec3(i, 0, 0), "n_" + i);
+                if (i > 0) element.getNode().getNetwork().connect(elements.get(i - 1).getNode(), element.getNode());
+                elements.add(element);
+            }
+
+            benchmarkTransmit(String.format("%s long line", TRANSMIT_LINE_SIZE), elements);
+        }
+    }
+
+    private static void benchmarkTransmit(String name, List<NetworkElement> elements) {
+        var receivers = new ArrayList<NetworkReceiver>();
+        for (var i = 0; i < elements.size(); i += TRANSMIT_RECEIVER_SPACING) {
+            var receiver = new NetworkReceiver(elements.get(i));
+            elements.get(i).getNode().addReceiver(receiver);
+            receivers.add(receiver);
+        }
+
+        var senders = receivers.stream().limit(32).map(x -> x.element).toList();
+
+        var start = System.nanoTime();
+        for (var i = 0; i < TRANSMIT_TIMES; i++) {
+            var sender = senders.get(i % senders.size());
+            sender.getNode().transmitSameDimension(new Packet(1, 1, "Hello", sender), Double.POSITIVE_INFINITY);
+        }
+        var end = System.nanoTime();
+
+        for (var receiver : receivers) assertEquals(TRANSMIT_TIMES, receiver.received.size(), "Every receiver should receive every packet");
+
+        System.out.printf(
+            "Transmitting %s packets over a %s (%d receivers) took %s seconds\n",
+            TRANSMIT_TIMES, name, receivers.size(), (end - start) * 1e-9
+        );
+    }
+
     private static final class NetworkElement implements IWiredElement {
         private final Level world;
         private final Vec3 position;
@@ -361,6 +461,46 @@ public Map<String, IPeripheral> allPeripherals() {
         }
     }
 
+    private static final class NetworkReceiver implements IPacketReceiver {
+        final NetworkElement element;
+        final List<Double> received = new ArrayList<>();
+
+        private NetworkReceiver(NetworkElement element) {
+            this.element = element;
+        }
+
+        @Nonnull
+        @Override
+        public Level getLevel() {
+            return element.getLevel();
+        }
+
+        @Nonnull
+        @Override
+        public Vec3 getPosition() {
+            return element.getPosition();
+        }
+
+        @Override
+        public double getRange() {
+            return 0;
+        }
+
+        @Override
+        public boolean isInterdimensional() {
+            return false;
+        }
+
+        @Override
+        public void receiveSameDimension(@Nonnull Packet packet, double distance) {
+            received.add(distance);
+        }
+
+        @Override
+        public void receiveDifferentDimension(@Nonnull Packet packet) {
+        }
+    }
+
     private static class NetworkPeripheral implements IPeripheral {
         @Nonnull
         @Override
@@ -5,9 +5,12 @@
  */
 package dan200.computercraft.gametest
 
+import dan200.computercraft.ComputerCraft
 import dan200.computercraft.core.apis.RedstoneAPI
 import dan200.computercraft.core.computer.ComputerSide
 import dan200.computercraft.gametest.api.*
+import dan200.computercraft.shared.computer.core.ComputerFamily
+import dan200.computercraft.shared.computer.core.ServerComputer
 import dan200.computercraft.test.core.computer.getApi
 import net.minecraft.core.BlockPos
 import net.minecraft.gametest.framework.GameTest
@@ -15,6 +18,7 @@
 import net.minecraft.world.level.block.Blocks
 import net.minecraft.world.level.block.LeverBlock
 import net.minecraft.world.level.block.RedstoneLampBlock
+import org.apache.logging.log4j.LogManager
 
 @GameTestHolder
 class Computer_Test {
@@ -69,4 +73,51 @@ fun Computer_peripheral(context: GameTestHelper) = context.sequence {
             context.assertPeripheral(BlockPos(1, 2, 2), type = "turtle")
         }
     }
+
+    /**
+     * Measures how long a tick takes with 10,000 idle computers, when updating computers serially and in parallel.
+     *
+     * This doesn't check anything, but logs the average tick time of each mode.
+     */
+    @GameTest(template = Structures.DEFAULT, timeoutTicks = 200, required = false)
+    fun Parallel_tick_benchmark(context: GameTestHelper) = context.sequence {
+        val computers = mutableListOf<ServerComputer>()
+        val threads = ComputerCraft.computerTickThreads
+        var startTick = 0
+
+        thenExecute {
+            for (i in 0 until 10_000) {
+                val computer = ServerComputer(context.level, i, null, ComputerFamily.NORMAL, 51, 19)
+                computer.setPosition(context.absolutePos(BlockPos(2, 2, 2)))
+                computer.register()
+                computers.add(computer)
+            }
+        }
+
+        for (mode in listOf(1, 4)) {
+            thenExecute {
+                ComputerCraft.computerTickThreads = mode
+                startTick = context.level.server.tickCount
+            }
+            thenIdle(40)
+            thenExecute {
+                val server = context.level.server
+                for (computer in computers) computer.keepAlive()
+
+                // Skip the first few ticks, to give time to warm up.
+                val ticks = (startTick + 10 until server.tickCount)
+                val average = ticks.sumOf { server.tickTimes[it % server.tickTimes.size] } / ticks.count() / 1e6
+                LOG.info("Ticking {} computers with {} thread(s) takes {} ms/tick", computers.size, mode, "%.2f".format(average))
+            }
+        }
+
+        thenExecute {
+            ComputerCraft.computerTickThreads = threads
+            for (computer in computers) computer.close()
+        }
+    }
+
+    private companion object {
+        private val LOG = LogManager.getLogger(Computer_Test::class.java)
+    }
 }
@@ -0,0 +1,133 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2022. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+package dan200.computercraft.gametest
+
+import dan200.computercraft.api.lua.LuaException
+import dan200.computercraft.core.apis.PeripheralAPI
+import dan200.computercraft.core.computer.ComputerSide
+import dan200.computercraft.gametest.api.GameTestHolder
+import dan200.computercraft.gametest.api.assertContainerExactly
+import dan200.computercraft.gametest.api.sequence
+import dan200.computercraft.gametest.api.thenOnComputer
+import dan200.computercraft.test.core.computer.LuaTaskContext
+import dan200.computercraft.test.core.computer.getApi
+import net.minecraft.core.BlockPos
+import net.minecraft.gametest.framework.GameTest
+import net.minecraft.gametest.framework.GameTestHelper
+import net.minecraft.world.Container
+import net.minecraft.world.item.ItemStack
+import net.minecraft.world.item.Items
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNotEquals
+
+@GameTestHolder
+class Inventory_Test {
+    /**
+     * Checks that pushItemsBatch rejects invalid moves without moving anything, and reports how many items were moved
+     * when only some of a stack fits.
+     */
+    @GameTest
+    fun Push_items_batch(helper: GameTestHelper) = helper.sequence {
+        val chestPos = BlockPos(1, 2, 2)
+        val barrelPos = BlockPos(3, 2, 2)
+
+        thenOnComputer {
+            val chest = findPeripheral("minecraft:chest") ?: throw IllegalStateException("Cannot find chest")
+            val barrel = findPeripheral("minecraft:barrel") ?: throw IllegalStateException("Cannot find barrel")
+
+            val invalid = moves(mapOf("to" to barrel, "fromSlot" to 1), mapOf("to" to "no_such_inventory", "fromSlot" to 2))
+            assertEquals(
+                "Move 2: Target 'no_such_inventory' does not exist",
+                getError { callPeripheral(chest, "pushItemsBatch", invalid) },
+            )
+
+            val tooMany = moves(*Array(129) { mapOf("to" to barrel, "fromSlot" to 1, "limit" to 0) })
+            assertEquals("Too many moves (at most 128)", getError { callPeripheral(chest, "pushItemsBatch", tooMany) })
+        }
+        thenExecute {
+            // Nothing should have moved.
+            helper.assertContainerExactly(chestPos, listOf(ItemStack(Items.DIRT, 64), ItemStack(Items.STONE, 16)))
+            helper.assertContainerExactly(barrelPos, listOf(ItemStack(Items.DIRT, 60)))
+        }
+        thenOnComputer {
+            val chest = findPeripheral("minecraft:chest") ?: throw IllegalStateException("Cannot find chest")
+            val barrel = findPeripheral("minecraft:barrel") ?: throw IllegalStateException("Cannot find barrel")
+
+            // Only 4 dirt will fit into the first slot of the barrel.
+            val result = callPeripheral(
+                chest, "pushItemsBatch",
+                moves(mapOf("to" to barrel, "fromSlot" to 1, "toSlot" to 1), mapOf("to" to barrel, "fromSlot" to 2)),
+            )
+            assertEquals(listOf(4, 16), result?.get(0), "Number of items moved")
+        }
+        thenExecute {
+            helper.assertContainerExactly(chestPos, listOf(ItemStack(Items.DIRT, 60)))
+            helper.assertContainerExactly(barrelPos, listOf(ItemStack(Items.DIRT, 64), ItemStack(Items.STONE, 16)))
+        }
+    }
+
+    /**
+     * Checks that the version returned by `snapshot` changes once an inventory is modified, and stays the same while
+     * it is not.
+     */
+    @GameTest
+    fun Snapshot_version(helper: GameTestHelper) = helper.sequence {
+        val chestPos = BlockPos(1, 2, 2)
+        var versions = mapOf<String, Any>()
+
+        thenOnComputer {
+            val chest = findPeripheral("minecraft:chest") ?: throw IllegalStateException("Cannot find chest")
+            val barrel = findPeripheral("minecraft:barrel") ?: throw IllegalStateException("Cannot find barrel")
+
+            val first = snapshot(chest, mapOf(chest to false, barrel to false))
+            assertEquals(true, first[chest]!!["full"], "First snapshot should be full")
+            versions = first.mapValues { it.value["version"]!! }
+
+            val second = snapshot(chest, versions)
+            assertEquals(versions, second.mapValues { it.value["version"] }, "Versions should not change")
+            assertEquals(false, second[chest]!!["full"], "Later snapshots should not be full")
+            assertEquals(mapOf<Int, Any>(), second[chest]!!["items"], "No slots should have changed")
+        }
+        thenExecute {
+            (helper.getBlockEntity(chestPos) as Container).setItem(2, ItemStack(Items.COBBLESTONE))
+        }
+        thenOnComputer {
+            val chest = findPeripheral("minecraft:chest") ?: throw IllegalStateException("Cannot find chest")
+            val barrel = findPeripheral("minecraft:barrel") ?: throw IllegalStateException("Cannot find barrel")
+
+            val third = snapshot(chest, versions)
+            assertNotEquals(versions[chest], third[chest]!!["version"], "Chest version should change")
+            assertEquals(versions[barrel], third[barrel]!!["version"], "Barrel version should not change")
+            assertEquals(false, third[chest]!!["full"])
+            assertEquals(setOf(3), (third[chest]!!["items"] as Map<*, *>).keys, "Only the modified slot should be sent")
+        }
+    }
+}
+
+/** Build a Lua list of moves, as accepted by `pushItemsBatch`. */
+private fun moves(vararg moves: Map<String, Any>): Map<Double, Map<String, Any>> =
+    moves.withIndex().associate { (i, move) -> (i + 1).toDouble() to move }
+
+private suspend fun getError(action: suspend () -> Unit): String? = try {
+    action()
+    null
+} catch (e: LuaException) {
+    e.message
+}
+
+@Suppress("UNCHECKED_CAST")
+private suspend fun LuaTaskContext.snapshot(name: String, versions: Map<String, Any>): Map<String, Map<String, Any?>> =
+    callPeripheral(name, "snapshot", versions)!![0] as Map<String, Map<String, Any?>>
+
+private fun LuaTaskContext.findPeripheral(type: String): String? {
+    val peripheral = getApi<PeripheralAPI>()
+    for (side in ComputerSide.NAMES) {
+        val hasType = peripheral.hasType(side, type)
+        if (hasType != null && hasType[0] == true) return side
+    }
+
+    return null
+}
@@ -9,7 +9,9 @@
 import dan200.computercraft.gametest.api.getBlockEntity
 import dan200.computercraft.gametest.api.sequence
 import dan200.computercraft.gametest.api.setBlock
+import dan200.computercraft.shared.Capabilities
 import dan200.computercraft.shared.Registry
+import dan200.computercraft.shared.peripheral.monitor.MonitorWatcher
 import net.minecraft.commands.arguments.blocks.BlockInput
 import net.minecraft.core.BlockPos
 import net.minecraft.gametest.framework.GameTest
@@ -47,4 +49,39 @@ fun Ensures_valid_on_place(context: GameTestHelper) = context.sequence {
             }
         }
     }
+
+    /**
+     * Players who start watching a monitor which is already enqueued for an update should still receive the full
+     * terminal, rather than only the delta sent when the queue is next flushed.
+     */
+    @GameTest(template = "monitor_test.ensures_valid_on_place")
+    fun Sends_full_state_when_enqueued(context: GameTestHelper) = context.sequence {
+        val pos = BlockPos(2, 2, 2)
+
+        thenExecute {
+            context.setBlock(pos, Registry.ModBlocks.MONITOR_ADVANCED.get())
+        }
+        thenIdle(2)
+        thenExecute {
+            val tile = context.getBlockEntity(pos, Registry.ModBlockEntities.MONITOR_ADVANCED.get())
+            tile.getCapability(Capabilities.CAPABILITY_PERIPHERAL) // Ensure the server monitor is created.
+            val terminal = tile.cachedServerMonitor?.terminal ?: throw IllegalStateException("Monitor has no terminal")
+
+            terminal.write("Hello")
+            tile.blockTick() // Enqueue the monitor, as if the terminal had changed this tick.
+
+            val state = MonitorWatcher.getInitialState(tile) ?: throw IllegalStateException("Monitor has no initial state")
+            val line = state.create().getLine(0).toString()
+            if (!line.startsWith("Hello")) context.fail("Expected line to start with \"Hello\", got \"$line\"", pos)
+
+            // Further changes before the queue is flushed should still be visible to new watchers.
+            terminal.write(", world!")
+            tile.blockTick()
+
+            val newLine = MonitorWatcher.getInitialState(tile)!!.create().getLine(0).toString()
+            if (!newLine.startsWith("Hello, world!")) {
+                context.fail("Expected line to start with \"Hello, world!\", got \"$newLine\"", pos)
+            }
+        }
+    }
 }
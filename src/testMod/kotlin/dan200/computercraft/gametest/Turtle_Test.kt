@@ -19,6 +19,9 @@
 import dan200.computercraft.test.core.assertArrayEquals
 import dan200.computercraft.test.core.computer.LuaTaskContext
 import dan200.computercraft.test.core.computer.getApi
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.coroutineScope
 import net.minecraft.core.BlockPos
 import net.minecraft.gametest.framework.GameTest
 import net.minecraft.gametest.framework.GameTestHelper
@@ -31,9 +34,11 @@
 import org.hamcrest.MatcherAssert.assertThat
 import org.hamcrest.Matchers.array
 import org.hamcrest.Matchers.instanceOf
+import org.hamcrest.Matchers.lessThan
 import org.junit.jupiter.api.Assertions.assertEquals
 import org.junit.jupiter.api.Assertions.assertNotEquals
 import java.util.*
+import kotlin.math.max
 
 @GameTestHolder
 class Turtle_Test {
@@ -344,6 +349,26 @@ fun Move_obstruct(helper: GameTestHelper) = helper.sequence {
         }
     }
 
+    /**
+     * Checks that commands which don't play an animation are all run in the same tick, rather than one per tick.
+     */
+    @GameTest
+    fun Pipelined_commands(helper: GameTestHelper) = helper.sequence {
+        thenOnComputer {
+            val count = 16
+            val start = helper.level.gameTime
+
+            // Queue every command before waiting on any of them.
+            val results = coroutineScope {
+                (0 until count).map { turtle.detect() }.map { async { it.await() } }.awaitAll()
+            }
+            val ticks = helper.level.gameTime - start
+
+            for (result in results) result.assertArrayEquals(true, message = "Detected block")
+            assertThat("Ran ${count.toDouble() / max(ticks, 1)} commands/tick", ticks, lessThan(count.toLong() / 2))
+        }
+    }
+
     /**
      * Test a turtle can attack an entity and capture its drops.
      */
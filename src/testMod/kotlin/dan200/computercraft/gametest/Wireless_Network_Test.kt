@@ -0,0 +1,249 @@
+/*
+ * This file is part of ComputerCraft - http://www.computercraft.info
+ * Copyright Daniel Ratcliffe, 2011-2022. Do not distribute without permission.
+ * Send enquiries to dratcliffe@gmail.com
+ */
+package dan200.computercraft.gametest
+
+import dan200.computercraft.api.filesystem.IMount
+import dan200.computercraft.api.filesystem.IWritableMount
+import dan200.computercraft.api.network.IPacketNetwork
+import dan200.computercraft.api.network.IPacketSender
+import dan200.computercraft.api.network.Packet
+import dan200.computercraft.api.peripheral.IComputerAccess
+import dan200.computercraft.api.peripheral.IPeripheral
+import dan200.computercraft.api.peripheral.IWorkMonitor
+import dan200.computercraft.gametest.api.GameTestHolder
+import dan200.computercraft.gametest.api.Structures
+import dan200.computercraft.gametest.api.sequence
+import dan200.computercraft.shared.peripheral.modem.ModemPeripheral
+import dan200.computercraft.shared.peripheral.modem.ModemState
+import dan200.computercraft.shared.peripheral.modem.wireless.WirelessNetwork
+import net.minecraft.gametest.framework.GameTest
+import net.minecraft.gametest.framework.GameTestHelper
+import net.minecraft.world.level.Level
+import net.minecraft.world.phys.Vec3
+import org.junit.jupiter.api.Assertions.assertEquals
+import kotlin.math.max
+import kotlin.math.sqrt
+import kotlin.random.Random
+
+/**
+ * Checks that [WirelessNetwork]'s channel index and spatial grid deliver packets to the same modems as checking every
+ * modem would.
+ *
+ * These use fake modems rather than placing blocks, but need real levels to build the spatial grid.
+ */
+@GameTestHolder
+class Wireless_Network_Test {
+    /**
+     * Adds and then removes modems one at a time, so we check the network both before and after it switches to a
+     * spatial grid.
+     */
+    @GameTest(template = Structures.DEFAULT)
+    fun Matches_linear_scan(helper: GameTestHelper) = helper.sequence {
+        thenExecute {
+            val network = WirelessNetwork()
+            val levels = getLevels(helper)
+            val random = Random(123)
+            val modems = mutableListOf<FakeModem>()
+
+            repeat(3 * WirelessNetwork.GRID_THRESHOLD) {
+                modems.add(randomModem(network, levels, random))
+                checkTransmissions(network, levels, random, modems)
+            }
+
+            // Removed modems are kept in the list, to check they no longer receive anything.
+            for (modem in modems.shuffled(random)) {
+                modem.remove()
+                checkTransmissions(network, levels, random, modems)
+            }
+        }
+    }
+
+    /**
+     * Opens and closes channels after modems have joined the network, checking the index is kept in sync.
+     */
+    @GameTest(template = Structures.DEFAULT)
+    fun Channels_update_index(helper: GameTestHelper) = helper.sequence {
+        thenExecute {
+            val network = WirelessNetwork()
+            val levels = getLevels(helper)
+            val random = Random(234)
+            val modems = List(2 * WirelessNetwork.GRID_THRESHOLD) { randomModem(network, levels, random) }
+            checkTransmissions(network, levels, random, modems)
+
+            // Close the first channel on half our modems, so it drops back below the threshold.
+            for (modem in modems.subList(0, modems.size / 2)) modem.close(CHANNELS[0])
+            checkTransmissions(network, levels, random, modems)
+
+            // Then move every modem onto the second channel.
+            for (modem in modems) modem.open(CHANNELS[1])
+            checkTransmissions(network, levels, random, modems)
+
+            for (modem in modems) modem.closeAll()
+            checkTransmissions(network, levels, random, modems)
+
+            for (modem in modems) modem.open(CHANNELS[0])
+            checkTransmissions(network, levels, random, modems)
+
+            // Removed modems should no longer receive anything, even with their channels open.
+            for (modem in modems.subList(0, modems.size / 2)) modem.remove()
+            checkTransmissions(network, levels, random, modems)
+        }
+    }
+
+    /**
+     * Moves modems between cells of the spatial grid. Small movements should be handled immediately, while larger ones
+     * should be picked up once the grid is rebuilt on the next tick.
+     */
+    @GameTest(template = Structures.DEFAULT)
+    fun Modems_move_between_cells(helper: GameTestHelper) = helper.sequence {
+        val network = WirelessNetwork()
+        val random = Random(345)
+        lateinit var levels: List<Level>
+        lateinit var modems: List<FakeModem>
+
+        thenExecute {
+            levels = getLevels(helper)
+            modems = List(3 * WirelessNetwork.GRID_THRESHOLD) { randomModem(network, levels, random) }
+            checkTransmissions(network, levels, random, modems)
+
+            // The grid is only rebuilt once a tick, so this will use the positions from before the modems moved.
+            val margin = WirelessNetwork.MOVEMENT_MARGIN
+            for (modem in modems) {
+                modem.pos = modem.pos.add(random.nextDouble(-margin, margin), random.nextDouble(-margin, margin), random.nextDouble(-margin, margin))
+            }
+            checkTransmissions(network, levels, random, modems)
+
+            for (modem in modems) modem.pos = randomPosition(random)
+        }
+        thenIdle(1)
+        thenExecute { checkTransmissions(network, levels, random, modems) }
+    }
+}
+
+/** The channels our modems listen on. */
+private val CHANNELS = intArrayOf(1, 2)
+
+private fun getLevels(helper: GameTestHelper): List<Level> =
+    listOf(helper.level, helper.level.server.getLevel(Level.NETHER) ?: throw IllegalStateException("No nether"))
+
+private fun randomPosition(random: Random) =
+    Vec3(random.nextDouble(-256.0, 256.0), random.nextDouble(0.0, 256.0), random.nextDouble(-256.0, 256.0))
+
+/**
+ * Create a modem at a random position. Most modems are in the overworld and listening on the first channel, so that
+ * channel will use a spatial grid once enough modems are added.
+ */
+private fun randomModem(network: WirelessNetwork, levels: List<Level>, random: Random): FakeModem {
+    val modem = FakeModem(
+        network, if (random.nextInt(5) == 0) levels[1] else levels[0], randomPosition(random),
+        receiveRange = random.nextDouble(0.0, 128.0), ender = random.nextInt(10) == 0,
+    )
+    if (random.nextInt(10) != 0) modem.open(CHANNELS[0])
+    if (random.nextBoolean()) modem.open(CHANNELS[1])
+    return modem
+}
+
+/**
+ * Transmit packets from several random positions, checking each modem receives exactly the packets it would have done
+ * if we checked every modem on the network.
+ */
+private fun checkTransmissions(network: WirelessNetwork, levels: List<Level>, random: Random, modems: List<FakeModem>) {
+    for (channel in CHANNELS) {
+        repeat(4) {
+            val sender = FakeSender(levels[random.nextInt(levels.size)], randomPosition(random))
+            for (range in listOf(random.nextDouble(0.0, 128.0), null)) {
+                for (modem in modems) modem.received.clear()
+
+                val packet = Packet(channel, 0, "Hello", sender)
+                if (range == null) network.transmitInterdimensional(packet) else network.transmitSameDimension(packet, range)
+
+                for (modem in modems) {
+                    assertEquals(expectedDistances(modem, sender, channel, range), modem.received, "Packets received by $modem from $sender (range=$range)")
+                }
+            }
+        }
+    }
+}
+
+/**
+ * The packets a modem should receive, using the same logic as the original linear scan. Each packet is represented by
+ * its distance, or `null` if it was received from another dimension.
+ *
+ * @param range The range of the transmission, or `null` if this was an interdimensional transmission.
+ */
+private fun expectedDistances(modem: FakeModem, sender: FakeSender, channel: Int, range: Double?): List<Double?> {
+    if (modem.removed || !modem.isOpen(channel)) return listOf()
+
+    val interdimensional = range == null || modem.isInterdimensional()
+    return if (modem.getLevel() == sender.getLevel()) {
+        val receiveRange = max(range ?: 0.0, modem.getRange())
+        val distanceSq = modem.getPosition().distanceToSqr(sender.getPosition())
+        if (interdimensional || distanceSq <= receiveRange * receiveRange) listOf(sqrt(distanceSq)) else listOf()
+    } else {
+        if (interdimensional) listOf(null) else listOf()
+    }
+}
+
+private class FakeSender(private val world: Level, private val pos: Vec3) : IPacketSender {
+    override fun getLevel(): Level = world
+    override fun getPosition(): Vec3 = pos
+    override fun getSenderID(): String = "sender"
+    override fun toString(): String = "FakeSender{$pos in ${world.dimension().location()}}"
+}
+
+private class FakeModem(
+    private val network: WirelessNetwork,
+    private val world: Level,
+    var pos: Vec3,
+    private val receiveRange: Double,
+    private val ender: Boolean,
+) : ModemPeripheral(ModemState()) {
+    /** The distance of each packet received, or `null` if it was received from another dimension. */
+    val received = mutableListOf<Double?>()
+    var removed = false
+        private set
+
+    init {
+        attach(FakeComputer(received))
+    }
+
+    fun remove() {
+        destroy()
+        removed = true
+    }
+
+    override fun getNetwork(): IPacketNetwork = network
+    override fun getLevel(): Level = world
+    override fun getPosition(): Vec3 = pos
+    override fun getRange(): Double = receiveRange
+    override fun isInterdimensional(): Boolean = ender
+    override fun equals(other: IPeripheral?): Boolean = this === other
+    override fun toString(): String = "FakeModem{$pos in ${world.dimension().location()}, range=$receiveRange, ender=$ender}"
+}
+
+/**
+ * A computer which records the distance of each `modem_message` event.
+ */
+private class FakeComputer(private val received: MutableList<Double?>) : IComputerAccess {
+    override fun queueEvent(event: String, vararg arguments: Any?) {
+        if (event != "modem_message") throw IllegalArgumentException("Unexpected event $event")
+        received.add(if (arguments.size > 4) (arguments[4] as Number).toDouble() else null)
+    }
+
+    override fun getID(): Int = 0
+    override fun getAttachmentName(): String = "modem"
+    override fun getAvailablePeripherals(): Map<String, IPeripheral> = mapOf()
+    override fun getAvailablePeripheral(name: String): IPeripheral? = null
+
+    override fun mount(desiredLocation: String, mount: IMount, driveName: String): String? =
+        throw UnsupportedOperationException()
+
+    override fun mountWritable(desiredLocation: String, mount: IWritableMount, driveName: String): String? =
+        throw UnsupportedOperationException()
+
+    override fun unmount(location: String?): Unit = throw UnsupportedOperationException()
+    override fun getMainThreadMonitor(): IWorkMonitor = throw UnsupportedOperationException()
+}